@@ -27,12 +27,14 @@ public class CommentModelAssembler implements
     Link getAllLink;
     if (comment.getParentType().equals(CommentParentType.POST)) {
       getAllLink = linkTo(methodOn(CommentController.class)
-          .getCommentsForPost(comment.getParentId(), null, null))
-          .withRel("all_comments_for_post");
+          .getCommentsForPost(comment.getParentId(), null, null, null))
+          .withRel("all_comments_for_post")
+          .expand();
     } else {
       getAllLink = linkTo(methodOn(CommentController.class)
-          .getCommentsForComment(comment.getParentId(), null, null))
-          .withRel("all_comments_for_comment");
+          .getCommentsForComment(comment.getParentId(), null, null, null))
+          .withRel("all_comments_for_comment")
+          .expand();
     }
     return EntityModel.of(comment, selfRel, getAllLink);
   }
@@ -0,0 +1,213 @@
+package com.srecko.reddit.comments.bloom;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * The type Comment id filter. Holds a Bloom filter of the ids of all comments, so existence checks
+ * for comments that are definitely missing are answered without a query. The filter is built from a
+ * scan of the comment ids once the application is ready and every inserted comment is added to it.
+ * Deleted comments stay in the filter and are only dropped when it is rebuilt. Until the first
+ * build completes every id is reported as possibly present.
+ *
+ * @author Srecko Nikolic
+ */
+@Component
+public class CommentIdFilter {
+
+  private static final String COUNT_IDS = "select count(*) from comments";
+
+  private static final String SELECT_IDS = "select id from comments";
+
+  private static final int FETCH_SIZE = 1000;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final long expectedInsertions;
+  private final double fpp;
+  private final Counter negatives;
+  private final Counter positives;
+  private final Counter falsePositives;
+
+  private final AtomicLong removedSinceBuild = new AtomicLong();
+  // Held during the id scan, so a lock keeps virtual threads waiting on it unpinned.
+  private final ReentrantLock rebuildLock = new ReentrantLock();
+
+  private volatile IdBloomFilter current;
+  private volatile IdBloomFilter next;
+
+  private static final Logger logger = LogManager.getLogger(CommentIdFilter.class);
+
+  /**
+   * Instantiates a new Comment id filter.
+   *
+   * @param dataSource         the data source
+   * @param expectedInsertions the smallest number of ids the filter is sized for
+   * @param fpp                the false positive probability the filter is sized for
+   * @param meterRegistry      the meter registry
+   */
+  @Autowired
+  public CommentIdFilter(DataSource dataSource,
+      @Value("${comments.bloom.expected-insertions:100000}") long expectedInsertions,
+      @Value("${comments.bloom.fpp:0.01}") double fpp,
+      MeterRegistry meterRegistry) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    this.expectedInsertions = expectedInsertions;
+    this.fpp = fpp;
+    this.negatives = checks(meterRegistry, "negative");
+    this.positives = checks(meterRegistry, "positive");
+    this.falsePositives = checks(meterRegistry, "false_positive");
+    Gauge.builder("comments.bloom.fpp", this,
+            filter -> filter.current == null ? Double.NaN : filter.current.expectedFpp())
+        .description("Expected false positive probability of the comment id filter")
+        .register(meterRegistry);
+    Gauge.builder("comments.bloom.memory", this,
+            filter -> filter.current == null ? 0 : filter.current.memoryBytes())
+        .description("Memory held by the comment id filter")
+        .baseUnit(BaseUnits.BYTES)
+        .register(meterRegistry);
+  }
+
+  /**
+   * Checks if a comment might exist. False means the comment definitely does not exist.
+   *
+   * @param commentId the comment id
+   * @return whether the comment might exist
+   */
+  public boolean mightContain(Long commentId) {
+    IdBloomFilter filter = current;
+    if (filter == null) {
+      return true;
+    }
+    boolean mightContain = filter.mightContain(commentId);
+    (mightContain ? positives : negatives).increment();
+    return mightContain;
+  }
+
+  /**
+   * Records that a comment reported as possibly present did not exist.
+   */
+  public void recordFalsePositive() {
+    falsePositives.increment();
+  }
+
+  /**
+   * Adds the id of an inserted comment. It is added again once the transaction commits, so a
+   * rebuild that scanned the table before the commit does not lose it. A filter that already holds
+   * it does not count it again.
+   *
+   * @param commentId the comment id
+   */
+  public void add(Long commentId) {
+    put(commentId);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          put(commentId);
+        }
+      });
+    }
+  }
+
+  /**
+   * Notes that a comment was deleted. Its id stays in the filter until the next rebuild.
+   *
+   * @param commentId the comment id
+   */
+  public void remove(Long commentId) {
+    removedSinceBuild.incrementAndGet();
+  }
+
+  /**
+   * Builds the filter once the application is ready.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    rebuild();
+  }
+
+  /**
+   * Rebuilds the filter when comments were deleted since the last build or more comments were added
+   * than it was sized for.
+   */
+  @Scheduled(fixedDelayString = "${comments.bloom.rebuild-interval:600000}",
+      initialDelayString = "${comments.bloom.rebuild-interval:600000}")
+  public void rebuildIfStale() {
+    IdBloomFilter filter = current;
+    if (filter == null || filter.isSaturated() || removedSinceBuild.get() > 0) {
+      rebuild();
+    }
+  }
+
+  /**
+   * Builds a new filter from a scan of all comment ids and swaps it in. Comments inserted during
+   * the scan are added to both the old and the new filter.
+   */
+  public void rebuild() {
+    rebuildLock.lock();
+    try {
+      buildAndSwap();
+    } finally {
+      rebuildLock.unlock();
+    }
+  }
+
+  private void buildAndSwap() {
+    long removed = removedSinceBuild.getAndSet(0);
+    try {
+      Long count = jdbcTemplate.queryForObject(COUNT_IDS, Long.class);
+      IdBloomFilter filter = new IdBloomFilter(Math.max(expectedInsertions, 2 * count), fpp);
+      next = filter;
+      try (Stream<Long> ids = jdbcTemplate.queryForStream(SELECT_IDS,
+          (resultSet, rowNum) -> resultSet.getLong(1))) {
+        ids.forEach(filter::put);
+      }
+      current = filter;
+      logger.info("Built comment id filter for {} comments using {} bytes", count,
+          filter.memoryBytes());
+    } catch (RuntimeException e) {
+      logger.error("Failed to build comment id filter, keeping the previous one", e);
+      removedSinceBuild.addAndGet(removed);
+    } finally {
+      next = null;
+    }
+  }
+
+  private void put(long commentId) {
+    // Read the filter under construction first: when it is already gone, the current filter is
+    // the one it was swapped in as.
+    IdBloomFilter pending = next;
+    if (pending != null) {
+      pending.put(commentId);
+    }
+    IdBloomFilter filter = current;
+    if (filter != null) {
+      filter.put(commentId);
+    }
+  }
+
+  private static Counter checks(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("comments.bloom.checks")
+        .description("Existence checks answered by the comment id filter")
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+}
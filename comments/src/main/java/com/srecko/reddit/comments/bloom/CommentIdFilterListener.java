@@ -0,0 +1,49 @@
+package com.srecko.reddit.comments.bloom;
+
+import com.srecko.reddit.comments.entity.Comment;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * The type Comment id filter listener. Reports every inserted and deleted comment to the comment id
+ * filter, whichever code path wrote it.
+ *
+ * @author Srecko Nikolic
+ */
+@Component
+public class CommentIdFilterListener {
+
+  private final CommentIdFilter commentIdFilter;
+
+  /**
+   * Instantiates a new Comment id filter listener.
+   *
+   * @param commentIdFilter the comment id filter
+   */
+  @Autowired
+  public CommentIdFilterListener(CommentIdFilter commentIdFilter) {
+    this.commentIdFilter = commentIdFilter;
+  }
+
+  /**
+   * Adds an inserted comment to the filter.
+   *
+   * @param comment the comment
+   */
+  @PostPersist
+  public void onPersist(Comment comment) {
+    commentIdFilter.add(comment.getId());
+  }
+
+  /**
+   * Reports a deleted comment to the filter.
+   *
+   * @param comment the comment
+   */
+  @PostRemove
+  public void onRemove(Comment comment) {
+    commentIdFilter.remove(comment.getId());
+  }
+}
@@ -1,12 +1,20 @@
 package com.srecko.reddit.comments.controller;
 
 import com.srecko.reddit.comments.assembler.CommentModelAssembler;
+import com.srecko.reddit.comments.assembler.KeysetModelAssembler;
 import com.srecko.reddit.comments.dto.CommentDto;
 import com.srecko.reddit.comments.dto.CommentRequest;
 import com.srecko.reddit.comments.exception.DtoValidationException;
+import com.srecko.reddit.comments.export.CommentExporter;
+import com.srecko.reddit.comments.pagination.KeysetPage;
 import com.srecko.reddit.comments.service.CommentService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,8 +24,10 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.PagedModel;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -25,8 +35,10 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
@@ -61,34 +73,76 @@ public class CommentController {
    * Gets comments for post.
    *
    * @param postId    the post id
+   * @param after     the cursor, read with a keyset cursor when present
    * @param pageable  the pageable
    * @param assembler the assembler
    * @return the comments for post
    */
   @GetMapping("/post/{postId}")
-  public ResponseEntity<PagedModel<EntityModel<CommentDto>>> getCommentsForPost(
+  public ResponseEntity<CollectionModel<EntityModel<CommentDto>>> getCommentsForPost(
       @PathVariable("postId") Long postId,
+      @RequestParam(value = "after", required = false) String after,
       @PageableDefault(sort = "text", direction = Sort.Direction.ASC) Pageable pageable,
       PagedResourcesAssembler<CommentDto> assembler) {
+    if (after != null) {
+      KeysetPage<CommentDto> page = commentService.getCommentsForPostAfter(postId, after,
+          pageable);
+      logger.info("Returning comments for post {} after cursor: {}", postId, after);
+      return ResponseEntity.ok(KeysetModelAssembler.toModel(page, commentModelAssembler));
+    }
     Page<CommentDto> page = commentService.getAllCommentsForPost(postId, pageable);
     PagedModel<EntityModel<CommentDto>> pagedModel = assembler.toModel(page, commentModelAssembler);
     logger.info("Returning all comments for post with id: {}", postId);
     return ResponseEntity.ok(pagedModel);
   }
 
+  /**
+   * Exports the comment thread of a post as newline delimited JSON, written to the response while
+   * it is read. The export is gzip compressed when the client accepts it.
+   *
+   * @param postId         the post id
+   * @param acceptEncoding the accept encoding header
+   * @param response       the response
+   * @throws IOException if writing the export fails
+   */
+  @GetMapping("/export/post/{postId}")
+  public void exportCommentsForPost(@PathVariable("postId") Long postId,
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+      HttpServletResponse response) throws IOException {
+    boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+    long count = commentService.exportCommentsForPost(postId, () -> {
+      response.setContentType(CommentExporter.MEDIA_TYPE);
+      OutputStream outputStream = response.getOutputStream();
+      if (gzip) {
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return new GZIPOutputStream(outputStream, true);
+      }
+      return outputStream;
+    });
+    logger.info("Returned export of {} comments for post: {}", count, postId);
+  }
+
   /**
    * Gets comments for comment.
    *
    * @param commentId the comment id
+   * @param after     the cursor, read with a keyset cursor when present
    * @param pageable  the pageable
    * @param assembler the assembler
    * @return the comments for comment
    */
   @GetMapping("/comment/{commentId}")
-  public ResponseEntity<PagedModel<EntityModel<CommentDto>>> getCommentsForComment(
+  public ResponseEntity<CollectionModel<EntityModel<CommentDto>>> getCommentsForComment(
       @PathVariable("commentId") Long commentId,
+      @RequestParam(value = "after", required = false) String after,
       @PageableDefault(sort = "text", direction = Sort.Direction.ASC) Pageable pageable,
       PagedResourcesAssembler<CommentDto> assembler) {
+    if (after != null) {
+      KeysetPage<CommentDto> page = commentService.getCommentsForCommentAfter(commentId, after,
+          pageable);
+      logger.info("Returning comments for comment {} after cursor: {}", commentId, after);
+      return ResponseEntity.ok(KeysetModelAssembler.toModel(page, commentModelAssembler));
+    }
     Page<CommentDto> page = commentService.getAllCommentsForComment(commentId, pageable);
     PagedModel<EntityModel<CommentDto>> pagedModel = assembler.toModel(page, commentModelAssembler);
     logger.info("Returning all comments for comment with id: {}", commentId);
@@ -101,15 +155,23 @@ public class CommentController {
    * Gets comments for username.
    *
    * @param userId    the user id
+   * @param after     the cursor, read with a keyset cursor when present
    * @param pageable  the pageable
    * @param assembler the assembler
    * @return the comments for username
    */
   @GetMapping("/user/{userId}")
-  public ResponseEntity<PagedModel<EntityModel<CommentDto>>> getCommentsForUser(
+  public ResponseEntity<CollectionModel<EntityModel<CommentDto>>> getCommentsForUser(
       @PathVariable("userId") Long userId,
+      @RequestParam(value = "after", required = false) String after,
       @PageableDefault(sort = "text", direction = Sort.Direction.ASC) Pageable pageable,
       PagedResourcesAssembler<CommentDto> assembler) {
+    if (after != null) {
+      KeysetPage<CommentDto> page = commentService.getCommentsForUserAfter(userId, after,
+          pageable);
+      logger.info("Returning comments for user {} after cursor: {}", userId, after);
+      return ResponseEntity.ok(KeysetModelAssembler.toModel(page, commentModelAssembler));
+    }
     Page<CommentDto> page = commentService.getAllCommentsForUser(userId, pageable);
     PagedModel<EntityModel<CommentDto>> pagedModel = assembler.toModel(page, commentModelAssembler);
     logger.info("Returning all comments for user: {}", userId);
@@ -212,4 +274,18 @@ public class CommentController {
     logger.info("Returning a page {}/{} of users", page.getNumber(), page.getTotalPages());
     return pagedModel;
   }
+
+  /**
+   * Gets the comments the search service indexes, read page after page in increasing id order.
+   *
+   * @param afterId the id the comments follow
+   * @param limit   the number of comments at most
+   * @return the comments
+   */
+  @GetMapping("/search-index")
+  public ResponseEntity<List<CommentDto>> getIndexDocuments(
+      @RequestParam(value = "afterId", defaultValue = "0") Long afterId,
+      @RequestParam(value = "limit", defaultValue = "1000") int limit) {
+    return ResponseEntity.ok(commentService.getIndexDocuments(afterId, limit));
+  }
 }
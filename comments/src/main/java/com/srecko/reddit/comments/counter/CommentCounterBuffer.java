@@ -0,0 +1,118 @@
+package com.srecko.reddit.comments.counter;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * The type Comment counter buffer. Accumulates reply counter deltas of comments in memory and
+ * periodically writes them as one batch of relative updates. Pending deltas are written on
+ * shutdown.
+ *
+ * @author Srecko Nikolic
+ */
+@Component
+public class CommentCounterBuffer {
+
+  private static final String UPDATE_COMMENTS_COUNTER =
+      "update comments set comments_counter = comments_counter + ? where id = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final Timer flushTimer;
+
+  private final CounterAccumulator commentsCounters = new CounterAccumulator();
+  // Flushing waits on the database, which would pin the carrier of a virtual thread in a
+  // synchronized method.
+  private final ReentrantLock flushLock = new ReentrantLock();
+
+  private static final Logger logger = LogManager.getLogger(CommentCounterBuffer.class);
+
+  /**
+   * Instantiates a new Comment counter buffer.
+   *
+   * @param jdbcTemplate       the jdbc template
+   * @param transactionManager the transaction manager
+   * @param meterRegistry      the meter registry
+   */
+  @Autowired
+  public CommentCounterBuffer(JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.flushTimer = Timer.builder("comments.counters.flush")
+        .description("Time taken to write pending comment counter deltas")
+        .register(meterRegistry);
+    Gauge.builder("comments.counters.pending", commentsCounters, CounterAccumulator::pending)
+        .description("Comments with pending counter deltas")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Adds a delta to the comments counter of a comment.
+   *
+   * @param commentId the comment id
+   * @param delta     the delta
+   */
+  public void add(Long commentId, int delta) {
+    commentsCounters.add(commentId, delta);
+  }
+
+  /**
+   * Writes all pending deltas. Deltas that could not be written are kept for the next flush.
+   */
+  @Scheduled(fixedDelayString = "${comments.counters.flush-interval:1000}")
+  public void flush() {
+    flushLock.lock();
+    try {
+      flushPending();
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  private void flushPending() {
+    Map<Long, Long> deltas = commentsCounters.drain();
+    if (deltas.isEmpty()) {
+      return;
+    }
+    List<Object[]> arguments = new ArrayList<>(deltas.size());
+    deltas.forEach((commentId, delta) -> arguments.add(new Object[]{delta, commentId}));
+    try {
+      int[] updated = flushTimer.record(() -> transactionTemplate.execute(status ->
+          jdbcTemplate.batchUpdate(UPDATE_COMMENTS_COUNTER, arguments)));
+      for (int i = 0; i < updated.length; i++) {
+        if (updated[i] == 0) {
+          logger.warn("Comment {} no longer exists, dropping its counter delta",
+              arguments.get(i)[1]);
+        }
+      }
+    } catch (RuntimeException e) {
+      logger.error("Failed to write comment counters, keeping them for the next flush", e);
+      deltas.forEach(commentsCounters::add);
+    }
+  }
+
+  /**
+   * Writes pending deltas before the application stops.
+   */
+  @PreDestroy
+  public void flushOnShutdown() {
+    logger.info("Writing pending comment counters before shutdown");
+    flush();
+  }
+}
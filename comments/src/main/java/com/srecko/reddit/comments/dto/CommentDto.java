@@ -33,6 +33,32 @@ public class CommentDto {
   public CommentDto() {
   }
 
+  /**
+   * Instantiates a new Comment dto. Used by the projection queries of the comment repository.
+   * The parent type is taken as an object because Hibernate 6.1 matches an enum path against the
+   * constructor by its ordinal type and would not find this constructor otherwise.
+   *
+   * @param id              the id
+   * @param text            the text
+   * @param votes           the votes
+   * @param created         the created
+   * @param userId          the user id
+   * @param parentType      the parent type
+   * @param parentId        the parent id
+   * @param commentsCounter the comments counter
+   */
+  public CommentDto(Long id, String text, int votes, Date created, Long userId,
+      Object parentType, Long parentId, int commentsCounter) {
+    this.id = id;
+    this.text = text;
+    this.votes = votes;
+    this.created = created;
+    this.userId = userId;
+    this.parentType = (CommentParentType) parentType;
+    this.parentId = parentId;
+    this.commentsCounter = commentsCounter;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -0,0 +1,89 @@
+package com.srecko.reddit.comments.dto;
+
+/**
+ * The type Comment index event. A change of a comment sent to the search service. Deletions only carry
+ * the id.
+ *
+ * @author Srecko Nikolic
+ */
+public class CommentIndexEvent {
+
+  private IndexEventType type;
+
+  private Long id;
+
+  private CommentDto document;
+
+  /**
+   * Instantiates a new Comment index event.
+   */
+  public CommentIndexEvent() {
+  }
+
+  /**
+   * Instantiates a new Comment index event.
+   *
+   * @param type     the type
+   * @param id       the id
+   * @param document the document
+   */
+  public CommentIndexEvent(IndexEventType type, Long id, CommentDto document) {
+    this.type = type;
+    this.id = id;
+    this.document = document;
+  }
+
+  /**
+   * Gets type.
+   *
+   * @return the type
+   */
+  public IndexEventType getType() {
+    return type;
+  }
+
+  /**
+   * Sets type.
+   *
+   * @param type the type
+   */
+  public void setType(IndexEventType type) {
+    this.type = type;
+  }
+
+  /**
+   * Gets id.
+   *
+   * @return the id
+   */
+  public Long getId() {
+    return id;
+  }
+
+  /**
+   * Sets id.
+   *
+   * @param id the id
+   */
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  /**
+   * Gets document.
+   *
+   * @return the document
+   */
+  public CommentDto getDocument() {
+    return document;
+  }
+
+  /**
+   * Sets document.
+   *
+   * @param document the document
+   */
+  public void setDocument(CommentDto document) {
+    this.document = document;
+  }
+}
@@ -1,8 +1,12 @@
 package com.srecko.reddit.comments.entity;
 
+import com.srecko.reddit.comments.bloom.CommentIdFilterListener;
+import com.srecko.reddit.comments.searchindex.CommentIndexListener;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
@@ -15,7 +19,11 @@ import java.util.Date;
  * @author Srecko Nikolic
  */
 @Entity
-@Table(name = "comments")
+@EntityListeners({CommentIdFilterListener.class, CommentIndexListener.class})
+@Table(name = "comments", indexes = {
+    @Index(name = "idx_comments_parent_created", columnList = "parentType, parentId, created, id"),
+    @Index(name = "idx_comments_user_created", columnList = "userId, created, id")
+})
 public class Comment {
 
   @Id
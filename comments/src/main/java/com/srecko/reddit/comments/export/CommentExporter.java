@@ -0,0 +1,116 @@
+package com.srecko.reddit.comments.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.srecko.reddit.comments.dto.CommentDto;
+import com.srecko.reddit.comments.entity.CommentParentType;
+import com.srecko.reddit.comments.repository.CommentRepository;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * The type Comment exporter. Writes the whole comment thread of a post as newline delimited
+ * JSON, one comment per line. The thread is walked one depth at a time: first the comments on
+ * the post, then the replies to those, and so on, each depth in id order. Every line carries its
+ * parent, so the tree can be rebuilt from the export.
+ *
+ * <p>Comments are read through a forward only cursor straight into comment dtos and written as
+ * they arrive. Only the ids of one depth are kept, to look up the replies of the next one. It has
+ * to run inside a transaction that stays open until the export is written.
+ *
+ * @author Srecko Nikolic
+ */
+@Component
+public class CommentExporter {
+
+  /**
+   * The media type of the export.
+   */
+  public static final String MEDIA_TYPE = "application/x-ndjson";
+
+  /**
+   * The largest number of parent ids bound to one query.
+   */
+  private static final int MAX_PARENT_IDS = 1000;
+
+  private final CommentRepository commentRepository;
+  private final ObjectMapper objectMapper;
+  private final int fetchSize;
+  private final int flushEvery;
+
+  private static final Logger logger = LogManager.getLogger(CommentExporter.class);
+
+  /**
+   * Instantiates a new Comment exporter.
+   *
+   * @param commentRepository the comment repository
+   * @param objectMapper      the object mapper
+   * @param fetchSize         the number of rows fetched from the database at a time
+   * @param flushEvery        the number of comments written between flushes of the output
+   */
+  @Autowired
+  public CommentExporter(CommentRepository commentRepository, ObjectMapper objectMapper,
+      @Value("${comments.export.fetch-size:1000}") int fetchSize,
+      @Value("${comments.export.flush-every:1000}") int flushEvery) {
+    this.commentRepository = commentRepository;
+    this.objectMapper = objectMapper.copy().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    this.fetchSize = fetchSize;
+    this.flushEvery = flushEvery;
+  }
+
+  /**
+   * Exports the comment thread of a post.
+   *
+   * @param postId the post id
+   * @param target the export target
+   * @return the number of exported comments
+   * @throws IOException if writing the export fails
+   */
+  public long exportPost(Long postId, ExportTarget target) throws IOException {
+    long count = 0;
+    try (OutputStream outputStream = target.open();
+        SequenceWriter writer = objectMapper.writer()
+            .withRootValueSeparator("\n")
+            .writeValues(outputStream)) {
+      CommentParentType parentType = CommentParentType.POST;
+      List<Long> parentIds = List.of(postId);
+      while (!parentIds.isEmpty()) {
+        List<Long> childIds = new ArrayList<>();
+        for (int from = 0; from < parentIds.size(); from += MAX_PARENT_IDS) {
+          List<Long> chunk = parentIds.subList(from,
+              Math.min(from + MAX_PARENT_IDS, parentIds.size()));
+          try (Stream<CommentDto> comments = commentRepository.streamCommentDtosByParentIdIn(
+              parentType, chunk, fetchSize)) {
+            Iterator<CommentDto> iterator = comments.iterator();
+            while (iterator.hasNext()) {
+              CommentDto comment = iterator.next();
+              writer.write(comment);
+              childIds.add(comment.getId());
+              if (++count % flushEvery == 0) {
+                writer.flush();
+              }
+            }
+          }
+        }
+        parentType = CommentParentType.COMMENT;
+        parentIds = childIds;
+      }
+      writer.flush();
+      if (count > 0) {
+        outputStream.write('\n');
+      }
+    }
+    logger.info("Exported {} comments of post: {}", count, postId);
+    return count;
+  }
+}
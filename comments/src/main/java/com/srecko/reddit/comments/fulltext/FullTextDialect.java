@@ -0,0 +1,187 @@
+package com.srecko.reddit.comments.fulltext;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+/**
+ * The enum Full text dialect. How a full-text index is created and queried on each supported
+ * database. Both match whole words ignoring case and a row matches when its column contains
+ * every word of the query, unlike the substring match of <code>locate</code>.
+ *
+ * <p>MySQL uses an InnoDB <code>FULLTEXT</code> index searched in boolean mode. InnoDB skips words
+ * shorter than <code>innodb_ft_min_token_size</code>, three characters by default, and its
+ * stopwords, so such words in a query match nothing. H2 uses its native full-text search, which
+ * keeps the index up to date through triggers on the table.
+ *
+ * @author Srecko Nikolic
+ */
+public enum FullTextDialect {
+
+  /**
+   * MySQL full text dialect.
+   */
+  MYSQL {
+    @Override
+    public List<String> createIndex(String table, String column) {
+      return List.of("alter table " + table + " add fulltext index " + indexName(table, column)
+          + " (" + column + ")");
+    }
+
+    @Override
+    public String indexExists(String table, String column) {
+      return "select count(*) from information_schema.statistics "
+          + "where table_schema = database() and table_name = '" + table + "' "
+          + "and index_name = '" + indexName(table, column) + "'";
+    }
+
+    @Override
+    public String from(String table, String alias) {
+      return table + " " + alias;
+    }
+
+    @Override
+    public String matches(String table, String alias, String column) {
+      return "match(" + alias + "." + column + ") against(:query in boolean mode)";
+    }
+
+    @Override
+    public String query(List<String> words) {
+      return words.stream().map(word -> "+" + word).collect(Collectors.joining(" "));
+    }
+  },
+
+  /**
+   * H2 full text dialect.
+   */
+  H2 {
+    @Override
+    public List<String> createIndex(String table, String column) {
+      String name = table.toUpperCase(Locale.ROOT);
+      return List.of(
+          "create alias if not exists FT_INIT for \"org.h2.fulltext.FullText.init\"",
+          "call FT_INIT()",
+          "call FT_DROP_INDEX('PUBLIC', '" + name + "')",
+          "call FT_CREATE_INDEX('PUBLIC', '" + name + "', '"
+              + column.toUpperCase(Locale.ROOT) + "')");
+    }
+
+    @Override
+    public String indexExists(String table, String column) {
+      // The index is kept in tables of its own that outlive the indexed one, so it is always
+      // dropped and created again
+      return null;
+    }
+
+    @Override
+    public String from(String table, String alias) {
+      return table + " " + alias + " join FT_SEARCH_DATA(:query, 0, 0) ft "
+          + "on " + alias + ".id = cast(ft.KEYS[1] as bigint)";
+    }
+
+    @Override
+    public String matches(String table, String alias, String column) {
+      // The search returns the matching rows of every indexed table
+      return "ft.\"TABLE\" = '" + table.toUpperCase(Locale.ROOT) + "'";
+    }
+
+    @Override
+    public String query(List<String> words) {
+      return String.join(" ", words);
+    }
+  };
+
+  /**
+   * Creates the statements that create a full-text index on a column.
+   *
+   * @param table  the table
+   * @param column the column
+   * @return the statements, in the order they are run
+   */
+  public abstract List<String> createIndex(String table, String column);
+
+  /**
+   * Creates a query counting the full-text indexes on a column.
+   *
+   * @param table  the table
+   * @param column the column
+   * @return the query, null when the index is created on every start
+   */
+  public abstract String indexExists(String table, String column);
+
+  /**
+   * Creates the tables of a from clause selecting the rows of a table searched with
+   * {@link #matches(String, String, String)}.
+   *
+   * @param table the table
+   * @param alias the alias of the table
+   * @return the tables
+   */
+  public abstract String from(String table, String alias);
+
+  /**
+   * Creates the condition that holds for the rows whose column contains every word of the
+   * <code>:query</code> parameter.
+   *
+   * @param table  the table
+   * @param alias  the alias of the table
+   * @param column the column
+   * @return the condition
+   */
+  public abstract String matches(String table, String alias, String column);
+
+  /**
+   * Converts words to the <code>:query</code> parameter matching the rows containing all of them.
+   *
+   * @param words the words
+   * @return the parameter
+   */
+  public abstract String query(List<String> words);
+
+  /**
+   * Splits a query into the words a full-text index is searched for. Anything other than
+   * letters and digits separates words, so operators of the full-text syntax never reach the
+   * database.
+   *
+   * @param query the query
+   * @return the words, empty when the query has none
+   */
+  public static List<String> words(String query) {
+    if (query == null) {
+      return List.of();
+    }
+    return Arrays.stream(query.split("[^\\p{L}\\p{N}]+"))
+        .filter(word -> !word.isEmpty())
+        .toList();
+  }
+
+  /**
+   * Gets the dialect of the database an entity manager factory connects to.
+   *
+   * @param entityManagerFactory the entity manager factory
+   * @return the full text dialect
+   * @throws IllegalStateException if the database has no supported full-text search
+   */
+  public static FullTextDialect of(EntityManagerFactory entityManagerFactory) {
+    Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+        .getJdbcServices().getDialect();
+    if (dialect instanceof MySQLDialect) {
+      return MYSQL;
+    }
+    if (dialect instanceof H2Dialect) {
+      return H2;
+    }
+    throw new IllegalStateException("Full-text search is not supported with "
+        + dialect.getClass().getSimpleName());
+  }
+
+  private static String indexName(String table, String column) {
+    return "idx_" + table + "_" + column + "_fulltext";
+  }
+}
@@ -0,0 +1,22 @@
+package com.srecko.reddit.comments.mapper;
+
+import com.srecko.reddit.comments.dto.CommentDto;
+import com.srecko.reddit.comments.entity.Comment;
+import org.mapstruct.Mapper;
+
+/**
+ * The interface Comment mapper.
+ *
+ * @author Srecko Nikolic
+ */
+@Mapper(componentModel = "spring")
+public interface CommentMapper {
+
+  /**
+   * Maps a comment to a comment dto.
+   *
+   * @param comment the comment
+   * @return the comment dto
+   */
+  CommentDto toDto(Comment comment);
+}
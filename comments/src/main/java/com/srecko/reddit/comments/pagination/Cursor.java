@@ -0,0 +1,112 @@
+package com.srecko.reddit.comments.pagination;
+
+import com.srecko.reddit.comments.exception.InvalidCursorException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import org.springframework.data.domain.Sort.Direction;
+
+/**
+ * The type Cursor. Position in a keyset listing: the sort key and id of the last returned row.
+ * Clients receive it as an opaque url safe string and pass it back in the after parameter.
+ *
+ * @author Srecko Nikolic
+ */
+public class Cursor {
+
+  private static final String SEPARATOR = "|";
+
+  private final String property;
+
+  private final Direction direction;
+
+  private final String value;
+
+  private final Long id;
+
+  /**
+   * Instantiates a new Cursor.
+   *
+   * @param property  the sort property
+   * @param direction the sort direction
+   * @param value     the sort key of the last row, null if the key is null
+   * @param id        the id of the last row
+   */
+  public Cursor(String property, Direction direction, String value, Long id) {
+    this.property = property;
+    this.direction = direction;
+    this.value = value;
+    this.id = id;
+  }
+
+  /**
+   * Gets property.
+   *
+   * @return the property
+   */
+  public String getProperty() {
+    return property;
+  }
+
+  /**
+   * Gets direction.
+   *
+   * @return the direction
+   */
+  public Direction getDirection() {
+    return direction;
+  }
+
+  /**
+   * Gets value.
+   *
+   * @return the value
+   */
+  public String getValue() {
+    return value;
+  }
+
+  /**
+   * Gets id.
+   *
+   * @return the id
+   */
+  public Long getId() {
+    return id;
+  }
+
+  /**
+   * Encodes the cursor.
+   *
+   * @return the encoded cursor
+   */
+  public String encode() {
+    String raw = property + SEPARATOR + direction + SEPARATOR + id + SEPARATOR
+        + (value == null ? "" : value);
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decodes a cursor. An empty string is the start of a listing.
+   *
+   * @param encoded the encoded cursor
+   * @return the cursor, or null for the start of a listing
+   */
+  public static Cursor decode(String encoded) {
+    if (encoded == null || encoded.isBlank()) {
+      return null;
+    }
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+      String[] parts = raw.split("\\|", 4);
+      if (parts.length != 4) {
+        throw new InvalidCursorException(encoded);
+      }
+      String value = parts[3].isEmpty() ? null : parts[3];
+      return new Cursor(parts[0], Direction.fromString(parts[1]), value,
+          Long.valueOf(parts[2]));
+    } catch (IllegalArgumentException e) {
+      throw new InvalidCursorException(encoded);
+    }
+  }
+}
@@ -1,10 +1,14 @@
 package com.srecko.reddit.comments.repository;
 
+import com.srecko.reddit.comments.dto.CommentDto;
 import com.srecko.reddit.comments.entity.Comment;
 import com.srecko.reddit.comments.entity.CommentParentType;
+import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -13,34 +17,80 @@ import org.springframework.stereotype.Repository;
  * @author Srecko Nikolic
  */
 @Repository
-public interface CommentRepository extends JpaRepository<Comment, Long> {
+public interface CommentRepository extends JpaRepository<Comment, Long>,
+    CommentRepositoryCustom {
 
   /**
-   * Find all by post list.
+   * Selects comments straight into comment dtos, so read only listings skip entity hydration,
+   * dirty checking snapshots and mapping.
+   */
+  String SELECT_COMMENT_DTO = "select new com.srecko.reddit.comments.dto.CommentDto(c.id, "
+      + "c.text, c.votes, c.created, c.userId, c.parentType, c.parentId, c.commentsCounter) "
+      + "from Comment c ";
+
+  /**
+   * The comment properties passed to the comment dto constructor, in the order of
+   * SELECT_COMMENT_DTO, for criteria queries.
+   */
+  List<String> COMMENT_DTO_PROPERTIES = List.of("id", "text", "votes", "created", "userId",
+      "parentType", "parentId", "commentsCounter");
+
+  /**
+   * Find all comment dtos page.
+   *
+   * @param pageable the pageable
+   * @return the page
+   */
+  @Query(value = SELECT_COMMENT_DTO, countQuery = "select count(c) from Comment c")
+  Page<CommentDto> findAllCommentDtos(Pageable pageable);
+
+  /**
+   * Find comment dtos by parent type and parent id page.
    *
    * @param parentType the parent type
    * @param parentId   the parent id
    * @param pageable   the pageable
-   * @return the list
+   * @return the page
    */
-  Page<Comment> findAllByParentTypeAndParentId(CommentParentType parentType,
-      Long parentId, Pageable pageable);
+  @Query(value = SELECT_COMMENT_DTO
+      + "where c.parentType = :parentType and c.parentId = :parentId",
+      countQuery = "select count(c) from Comment c "
+          + "where c.parentType = :parentType and c.parentId = :parentId")
+  Page<CommentDto> findCommentDtosByParentTypeAndParentId(
+      @Param("parentType") CommentParentType parentType, @Param("parentId") Long parentId,
+      Pageable pageable);
 
   /**
-   * Find all by user list.
+   * Find comment dtos by user id page.
    *
    * @param userId   the user id
    * @param pageable the pageable
-   * @return the list
+   * @return the page
    */
-  Page<Comment> findAllByUserId(Long userId, Pageable pageable);
+  @Query(value = SELECT_COMMENT_DTO + "where c.userId = :userId",
+      countQuery = "select count(c) from Comment c where c.userId = :userId")
+  Page<CommentDto> findCommentDtosByUserId(@Param("userId") Long userId, Pageable pageable);
 
   /**
-   * Find by text containing page.
+   * Find comment dtos by text containing ignore case page.
    *
    * @param query    the query
    * @param pageable the pageable
    * @return the page
    */
-  Page<Comment> findByTextContainingIgnoreCase(String query, Pageable pageable);
+  @Query(value = SELECT_COMMENT_DTO + "where locate(upper(:query), upper(c.text)) > 0",
+      countQuery = "select count(c) from Comment c "
+          + "where locate(upper(:query), upper(c.text)) > 0")
+  Page<CommentDto> findCommentDtosByTextContaining(@Param("query") String query,
+      Pageable pageable);
+
+  /**
+   * Find comment dtos with an id greater than the given one, in increasing id order.
+   *
+   * @param afterId  the id the comments follow
+   * @param pageable the pageable
+   * @return the list
+   */
+  @Query(SELECT_COMMENT_DTO + "where c.id > :afterId order by c.id")
+  List<CommentDto> findCommentDtosByIdGreaterThan(@Param("afterId") Long afterId, Pageable pageable);
 }
@@ -0,0 +1,67 @@
+package com.srecko.reddit.comments.repository;
+
+import com.srecko.reddit.comments.dto.CommentDto;
+import com.srecko.reddit.comments.entity.CommentParentType;
+import com.srecko.reddit.comments.pagination.Cursor;
+import com.srecko.reddit.comments.pagination.KeysetPage;
+import java.util.Collection;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * The interface Comment repository custom. Keyset variants of the listing queries, streaming
+ * reads for exports and text searches through a full-text index.
+ *
+ * @author Srecko Nikolic
+ */
+public interface CommentRepositoryCustom {
+
+  /**
+   * Find comment dtos by parent type and parent id after the cursor.
+   *
+   * @param parentType the parent type
+   * @param parentId   the parent id
+   * @param order      the order
+   * @param after      the cursor, null for the first page
+   * @param size       the page size
+   * @return the keyset page
+   */
+  KeysetPage<CommentDto> findCommentDtosByParentTypeAndParentIdAfter(
+      CommentParentType parentType, Long parentId, Sort.Order order, Cursor after, int size);
+
+  /**
+   * Find comment dtos by user id after the cursor.
+   *
+   * @param userId the user id
+   * @param order  the order
+   * @param after  the cursor, null for the first page
+   * @param size   the page size
+   * @return the keyset page
+   */
+  KeysetPage<CommentDto> findCommentDtosByUserIdAfter(Long userId, Sort.Order order,
+      Cursor after, int size);
+
+  /**
+   * Stream comment dtos with any of the given parents in id order. The stream reads through a
+   * forward only cursor and must be closed, inside the transaction it was opened in.
+   *
+   * @param parentType the parent type
+   * @param parentIds  the parent ids
+   * @param fetchSize  the number of rows fetched at a time
+   * @return the stream
+   */
+  Stream<CommentDto> streamCommentDtosByParentIdIn(CommentParentType parentType,
+      Collection<Long> parentIds, int fetchSize);
+
+  /**
+   * Find comment dtos with a text containing every word of the query page, through the
+   * full-text index on texts. Words are matched whole, ignoring case.
+   *
+   * @param query    the query
+   * @param pageable the pageable, sorted by text or created
+   * @return the page
+   */
+  Page<CommentDto> findCommentDtosByTextMatching(String query, Pageable pageable);
+}
@@ -0,0 +1,123 @@
+package com.srecko.reddit.comments.repository;
+
+import com.srecko.reddit.comments.dto.CommentDto;
+import com.srecko.reddit.comments.entity.Comment;
+import com.srecko.reddit.comments.entity.CommentParentType;
+import com.srecko.reddit.comments.fulltext.FullTextDialect;
+import com.srecko.reddit.comments.fulltext.FullTextIndexInitializer;
+import com.srecko.reddit.comments.pagination.Cursor;
+import com.srecko.reddit.comments.pagination.KeysetPage;
+import com.srecko.reddit.comments.pagination.KeysetQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+
+/**
+ * The type Comment repository custom.
+ *
+ * @author Srecko Nikolic
+ */
+public class CommentRepositoryCustomImpl implements CommentRepositoryCustom {
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  private static final Map<String, String> SEARCH_SORT_COLUMNS = Map.of(
+      "text", "text", "created", "created");
+
+  @Override
+  public KeysetPage<CommentDto> findCommentDtosByParentTypeAndParentIdAfter(
+      CommentParentType parentType, Long parentId, Sort.Order order, Cursor after, int size) {
+    return KeysetQuery.find(entityManager, Comment.class, CommentDto.class,
+        CommentRepository.COMMENT_DTO_PROPERTIES,
+        Map.of("parentType", parentType, "parentId", parentId), order, after, size);
+  }
+
+  @Override
+  public KeysetPage<CommentDto> findCommentDtosByUserIdAfter(Long userId, Sort.Order order,
+      Cursor after, int size) {
+    return KeysetQuery.find(entityManager, Comment.class, CommentDto.class,
+        CommentRepository.COMMENT_DTO_PROPERTIES, Map.of("userId", userId), order, after, size);
+  }
+
+  @Override
+  public Stream<CommentDto> streamCommentDtosByParentIdIn(CommentParentType parentType,
+      Collection<Long> parentIds, int fetchSize) {
+    return entityManager.createQuery(CommentRepository.SELECT_COMMENT_DTO
+            + "where c.parentType = :parentType and c.parentId in :parentIds order by c.id",
+            CommentDto.class)
+        .setParameter("parentType", parentType)
+        .setParameter("parentIds", parentIds)
+        .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+        .setHint(HibernateHints.HINT_READ_ONLY, true)
+        .getResultStream();
+  }
+
+  /**
+   * Selects the ids of the page with a native query, the full-text predicates having no JPQL
+   * form, and then loads the comment dtos of those ids.
+   */
+  @Override
+  public Page<CommentDto> findCommentDtosByTextMatching(String query, Pageable pageable) {
+    List<String> words = FullTextDialect.words(query);
+    if (words.isEmpty()) {
+      return new PageImpl<>(List.of(), pageable, 0);
+    }
+    FullTextDialect dialect = FullTextDialect.of(entityManager.getEntityManagerFactory());
+    String from = "from " + dialect.from(FullTextIndexInitializer.TABLE, "c") + " where "
+        + dialect.matches(FullTextIndexInitializer.TABLE, "c", FullTextIndexInitializer.COLUMN);
+    Query select = entityManager.createNativeQuery("select c.id " + from + orderBy(pageable))
+        .setParameter("query", dialect.query(words))
+        .setFirstResult((int) pageable.getOffset())
+        .setMaxResults(pageable.getPageSize());
+    Query count = entityManager.createNativeQuery("select count(*) " + from)
+        .setParameter("query", dialect.query(words));
+    List<Long> ids = ((List<?>) select.getResultList()).stream()
+        .map(id -> ((Number) id).longValue())
+        .toList();
+    return PageableExecutionUtils.getPage(findCommentDtosInOrder(ids), pageable,
+        () -> ((Number) count.getSingleResult()).longValue());
+  }
+
+  private List<CommentDto> findCommentDtosInOrder(List<Long> ids) {
+    if (ids.isEmpty()) {
+      return List.of();
+    }
+    Map<Long, Integer> positions = new HashMap<>();
+    for (int i = 0; i < ids.size(); i++) {
+      positions.put(ids.get(i), i);
+    }
+    List<CommentDto> commentDtos = new ArrayList<>(entityManager.createQuery(
+            CommentRepository.SELECT_COMMENT_DTO + "where c.id in :ids", CommentDto.class)
+        .setParameter("ids", ids)
+        .getResultList());
+    commentDtos.sort(Comparator.comparing(commentDto -> positions.get(commentDto.getId())));
+    return commentDtos;
+  }
+
+  private static String orderBy(Pageable pageable) {
+    StringBuilder orderBy = new StringBuilder(" order by ");
+    for (Sort.Order order : pageable.getSort()) {
+      String column = SEARCH_SORT_COLUMNS.get(order.getProperty());
+      if (column == null) {
+        throw new IllegalArgumentException("Comments can not be sorted by "
+            + order.getProperty());
+      }
+      orderBy.append("c.").append(column).append(order.isAscending() ? " asc, " : " desc, ");
+    }
+    return orderBy.append("c.id").toString();
+  }
+}
@@ -0,0 +1,51 @@
+package com.srecko.reddit.comments.searchindex;
+
+import com.srecko.reddit.comments.entity.Comment;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * The type Comment index listener. Reports every inserted, updated and deleted comment to the search
+ * index publisher, whichever code path wrote it.
+ *
+ * @author Srecko Nikolic
+ */
+@Component
+public class CommentIndexListener {
+
+  private final CommentIndexPublisher commentIndexPublisher;
+
+  /**
+   * Instantiates a new Comment index listener.
+   *
+   * @param commentIndexPublisher the comment index publisher
+   */
+  @Autowired
+  public CommentIndexListener(CommentIndexPublisher commentIndexPublisher) {
+    this.commentIndexPublisher = commentIndexPublisher;
+  }
+
+  /**
+   * Publishes an inserted or updated comment.
+   *
+   * @param comment the comment
+   */
+  @PostPersist
+  @PostUpdate
+  public void onSave(Comment comment) {
+    commentIndexPublisher.onCommentSaved(comment);
+  }
+
+  /**
+   * Publishes a deleted comment.
+   *
+   * @param comment the comment
+   */
+  @PostRemove
+  public void onRemove(Comment comment) {
+    commentIndexPublisher.onCommentDeleted(comment.getId());
+  }
+}
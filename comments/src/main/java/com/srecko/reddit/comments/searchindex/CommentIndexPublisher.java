@@ -0,0 +1,185 @@
+package com.srecko.reddit.comments.searchindex;
+
+import com.srecko.reddit.comments.dto.IndexEventType;
+import com.srecko.reddit.comments.dto.CommentIndexEvent;
+import com.srecko.reddit.comments.entity.Comment;
+import com.srecko.reddit.comments.mapper.CommentMapper;
+import com.srecko.reddit.comments.service.client.SearchFeignClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * The type Comment index publisher. Sends comment changes to the search service in batches, off the
+ * request thread. Changes are queued once their transaction commits, and only the latest change
+ * of a comment is kept, so a comment edited many times between two flushes is sent once. Changes that
+ * could not be sent are retried on the next flush. Once more than
+ * <code>comments.search-index.max-pending</code> comments are waiting, further changes are dropped and
+ * left to the periodic resync of the search index.
+ *
+ * @author Srecko Nikolic
+ */
+@Component
+public class CommentIndexPublisher {
+
+  private final SearchFeignClient searchFeignClient;
+  private final CommentMapper commentMapper;
+  private final boolean enabled;
+  private final int batchSize;
+  private final int maxPending;
+  private final Counter published;
+  private final Counter dropped;
+  private final Counter failures;
+
+  private final Map<Long, CommentIndexEvent> pending = new ConcurrentHashMap<>();
+  private final ReentrantLock flushLock = new ReentrantLock();
+
+  private static final Logger logger = LogManager.getLogger(CommentIndexPublisher.class);
+
+  /**
+   * Instantiates a new Comment index publisher.
+   *
+   * @param searchFeignClient the search feign client, resolved on first use
+   * @param commentMapper        the comment mapper
+   * @param meterRegistry     the meter registry
+   * @param enabled           whether changes are sent to the search service
+   * @param batchSize         the number of changes sent in one request at most
+   * @param maxPending        the number of comments with a change waiting to be sent at most
+   */
+  @Autowired
+  public CommentIndexPublisher(@Lazy SearchFeignClient searchFeignClient, CommentMapper commentMapper,
+      MeterRegistry meterRegistry,
+      @Value("${comments.search-index.enabled:true}") boolean enabled,
+      @Value("${comments.search-index.batch-size:500}") int batchSize,
+      @Value("${comments.search-index.max-pending:100000}") int maxPending) {
+    this.searchFeignClient = searchFeignClient;
+    this.commentMapper = commentMapper;
+    this.enabled = enabled;
+    this.batchSize = batchSize;
+    this.maxPending = maxPending;
+    this.published = Counter.builder("comments.search-index.published")
+        .description("Comment changes sent to the search service")
+        .register(meterRegistry);
+    this.dropped = Counter.builder("comments.search-index.dropped")
+        .description("Comment changes dropped because too many were waiting")
+        .register(meterRegistry);
+    this.failures = Counter.builder("comments.search-index.failures")
+        .description("Failed attempts to send comment changes to the search service")
+        .register(meterRegistry);
+    Gauge.builder("comments.search-index.pending", pending, Map::size)
+        .description("Comments with a change waiting to be sent to the search service")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Queues an inserted or updated comment.
+   *
+   * @param comment the comment
+   */
+  public void onCommentSaved(Comment comment) {
+    if (enabled) {
+      CommentIndexEvent event = new CommentIndexEvent(IndexEventType.UPSERT, comment.getId(),
+          commentMapper.toDto(comment));
+      afterCommit(() -> offer(event));
+    }
+  }
+
+  /**
+   * Queues a deleted comment.
+   *
+   * @param commentId the comment id
+   */
+  public void onCommentDeleted(Long commentId) {
+    if (enabled) {
+      CommentIndexEvent event = new CommentIndexEvent(IndexEventType.DELETE, commentId, null);
+      afterCommit(() -> offer(event));
+    }
+  }
+
+  /**
+   * Sends all queued changes. Changes that could not be sent are kept for the next flush.
+   */
+  @Scheduled(fixedDelayString = "${comments.search-index.flush-interval:1000}")
+  public void flush() {
+    flushLock.lock();
+    try {
+      while (!pending.isEmpty()) {
+        List<CommentIndexEvent> batch = drain();
+        try {
+          searchFeignClient.indexComments(batch);
+        } catch (RuntimeException e) {
+          failures.increment();
+          logger.warn("Failed to send {} comment changes to search, retrying on the next flush: {}",
+              batch.size(), e.getMessage());
+          // A newer change queued in the meantime wins over the one that failed
+          batch.forEach(event -> pending.putIfAbsent(event.getId(), event));
+          return;
+        }
+        published.increment(batch.size());
+      }
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  /**
+   * Sends queued changes before the application stops.
+   */
+  @PreDestroy
+  public void flushOnShutdown() {
+    logger.info("Sending pending comment changes to search before shutdown");
+    flush();
+  }
+
+  private void offer(CommentIndexEvent event) {
+    if (pending.size() >= maxPending && !pending.containsKey(event.getId())) {
+      dropped.increment();
+      logger.warn("Too many comment changes waiting for search, dropping the change of comment {}",
+          event.getId());
+      return;
+    }
+    pending.put(event.getId(), event);
+  }
+
+  private List<CommentIndexEvent> drain() {
+    List<CommentIndexEvent> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+    for (Long commentId : pending.keySet()) {
+      if (batch.size() == batchSize) {
+        break;
+      }
+      CommentIndexEvent event = pending.remove(commentId);
+      if (event != null) {
+        batch.add(event);
+      }
+    }
+    return batch;
+  }
+
+  private void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          action.run();
+        }
+      });
+    } else {
+      action.run();
+    }
+  }
+}
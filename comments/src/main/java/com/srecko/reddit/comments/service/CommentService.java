@@ -2,6 +2,10 @@ package com.srecko.reddit.comments.service;
 
 import com.srecko.reddit.comments.dto.CommentDto;
 import com.srecko.reddit.comments.dto.CommentRequest;
+import com.srecko.reddit.comments.export.ExportTarget;
+import com.srecko.reddit.comments.pagination.KeysetPage;
+import java.io.IOException;
+import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -21,6 +25,27 @@ public interface CommentService {
    */
   Page<CommentDto> getAllCommentsForPost(Long postId, Pageable pageable);
 
+  /**
+   * Gets comments for post after the cursor.
+   *
+   * @param postId   the post id
+   * @param after    the cursor, empty for the first page
+   * @param pageable the pageable
+   * @return the comments for post
+   */
+  KeysetPage<CommentDto> getCommentsForPostAfter(Long postId, String after, Pageable pageable);
+
+  /**
+   * Exports the comment thread of a post as newline delimited JSON. The target is opened only
+   * after the post was found.
+   *
+   * @param postId the post id
+   * @param target the export target
+   * @return the number of exported comments
+   * @throws IOException if writing the export fails
+   */
+  long exportCommentsForPost(Long postId, ExportTarget target) throws IOException;
+
   /**
    * Gets all comments for comment.
    *
@@ -30,6 +55,17 @@ public interface CommentService {
    */
   Page<CommentDto> getAllCommentsForComment(Long commentId, Pageable pageable);
 
+  /**
+   * Gets comments for comment after the cursor.
+   *
+   * @param commentId the comment id
+   * @param after     the cursor, empty for the first page
+   * @param pageable  the pageable
+   * @return the comments for comment
+   */
+  KeysetPage<CommentDto> getCommentsForCommentAfter(Long commentId, String after,
+      Pageable pageable);
+
   /**
    * Gets all comments for username.
    *
@@ -39,6 +75,16 @@ public interface CommentService {
    */
   Page<CommentDto> getAllCommentsForUser(Long username, Pageable pageable);
 
+  /**
+   * Gets comments for user after the cursor.
+   *
+   * @param userId   the user id
+   * @param after    the cursor, empty for the first page
+   * @param pageable the pageable
+   * @return the comments for user
+   */
+  KeysetPage<CommentDto> getCommentsForUserAfter(Long userId, String after, Pageable pageable);
+
   /**
    * Save comment.
    *
@@ -100,4 +146,14 @@ public interface CommentService {
    * @param parentId the parent id
    */
   void decreaseCommentCounter(Long parentId);
+
+  /**
+   * Gets the comments the search service indexes, the ones with an id greater than the given one in
+   * increasing id order.
+   *
+   * @param afterId the id the comments follow
+   * @param limit   the number of comments at most
+   * @return the comments
+   */
+  List<CommentDto> getIndexDocuments(Long afterId, int limit);
 }
@@ -1,21 +1,31 @@
 package com.srecko.reddit.comments.service;
 
 import com.srecko.reddit.comments.assembler.PageRequestAssembler;
+import com.srecko.reddit.comments.bloom.CommentIdFilter;
+import com.srecko.reddit.comments.counter.CommentCounterBuffer;
 import com.srecko.reddit.comments.dto.CommentDto;
 import com.srecko.reddit.comments.dto.CommentRequest;
-import com.srecko.reddit.comments.dto.ModelPageToDtoPageConverter;
 import com.srecko.reddit.comments.entity.Comment;
 import com.srecko.reddit.comments.entity.CommentParentType;
 import com.srecko.reddit.comments.exception.CommentNotFoundException;
+import com.srecko.reddit.comments.export.CommentExporter;
+import com.srecko.reddit.comments.export.ExportTarget;
+import com.srecko.reddit.comments.mapper.CommentMapper;
+import com.srecko.reddit.comments.pagination.Cursor;
+import com.srecko.reddit.comments.pagination.KeysetPage;
+import com.srecko.reddit.comments.pagination.KeysetQuery;
 import com.srecko.reddit.comments.repository.CommentRepository;
+import com.srecko.reddit.comments.service.client.ParallelCalls;
 import com.srecko.reddit.comments.service.client.PostsFeignClient;
+import com.srecko.reddit.comments.service.client.UserIdResolver;
 import com.srecko.reddit.comments.service.client.UsersFeignClient;
+import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -35,78 +45,158 @@ public class CommentServiceImpl implements CommentService {
 
   private final CommentRepository commentRepository;
   private final UsersFeignClient usersFeignClient;
+  private final UserIdResolver userIdResolver;
   private final PostsFeignClient postsFeignClient;
-  private final ModelMapper modelMapper;
+  private final ParallelCalls parallelCalls;
+  private final CommentMapper commentMapper;
+  private final CommentCounterBuffer commentCounterBuffer;
+  private final CommentIdFilter commentIdFilter;
+  private final CommentExporter commentExporter;
+  private final boolean fullTextSearch;
+
+  private static final List<String> AVAILABLE_SORTS = List.of("text", "created");
+
+  private static final Sort.Order DEFAULT_ORDER = Sort.Order.asc("text");
+
+  private static final int MAX_INDEX_DOCUMENTS = 5000;
 
   private static final Logger logger = LogManager.getLogger(CommentServiceImpl.class);
 
   /**
    * Instantiates a new Comment service.
    *
-   * @param commentRepository the comment repository
-   * @param usersFeignClient  the users feign client
-   * @param postsFeignClient   the post feign client
-   * @param modelMapper       the model mapper
+   * @param commentRepository    the comment repository
+   * @param usersFeignClient     the users feign client
+   * @param userIdResolver       the user id resolver
+   * @param postsFeignClient     the post feign client
+   * @param parallelCalls        the parallel calls
+   * @param commentMapper        the comment mapper
+   * @param commentCounterBuffer the comment counter buffer
+   * @param commentIdFilter      the comment id filter
+   * @param commentExporter      the comment exporter
+   * @param fullTextSearch       whether texts are searched through the full-text index
    */
   @Autowired
   public CommentServiceImpl(CommentRepository commentRepository,
       UsersFeignClient usersFeignClient,
+      UserIdResolver userIdResolver,
       PostsFeignClient postsFeignClient,
-      ModelMapper modelMapper) {
+      ParallelCalls parallelCalls,
+      CommentMapper commentMapper,
+      CommentCounterBuffer commentCounterBuffer,
+      CommentIdFilter commentIdFilter,
+      CommentExporter commentExporter,
+      @Value("${comments.search.full-text.enabled:false}") boolean fullTextSearch) {
     this.commentRepository = commentRepository;
     this.usersFeignClient = usersFeignClient;
+    this.userIdResolver = userIdResolver;
     this.postsFeignClient = postsFeignClient;
-    this.modelMapper = modelMapper;
+    this.parallelCalls = parallelCalls;
+    this.commentMapper = commentMapper;
+    this.commentCounterBuffer = commentCounterBuffer;
+    this.commentIdFilter = commentIdFilter;
+    this.commentExporter = commentExporter;
+    this.fullTextSearch = fullTextSearch;
   }
 
   @Override
+  @Transactional(readOnly = true)
   public Page<CommentDto> getAllCommentsForPost(Long postId, Pageable pageable) {
     logger.info("Getting all comments for post: {}", postId);
     postsFeignClient.checkIfPostExists(postId);
     PageRequest pageRequest =
         PageRequestAssembler.getPageRequest(pageable, List.of("text", "created"),
             Sort.by(Direction.ASC, "text"));
-    Page<Comment> comments = commentRepository.findAllByParentTypeAndParentId(
-        CommentParentType.POST, postId, pageRequest);
-    return ModelPageToDtoPageConverter.convertComments(pageable, comments, modelMapper);
+    return commentRepository.findCommentDtosByParentTypeAndParentId(CommentParentType.POST, postId,
+        pageRequest);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public KeysetPage<CommentDto> getCommentsForPostAfter(Long postId, String after,
+      Pageable pageable) {
+    logger.info("Getting comments for post {} after cursor: {}", postId, after);
+    postsFeignClient.checkIfPostExists(postId);
+    return getCommentsForParentAfter(CommentParentType.POST, postId, after, pageable);
   }
 
   @Override
+  @Transactional(readOnly = true)
+  public long exportCommentsForPost(Long postId, ExportTarget target) throws IOException {
+    logger.info("Exporting comments for post: {}", postId);
+    postsFeignClient.checkIfPostExists(postId);
+    return commentExporter.exportPost(postId, target);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
   public Page<CommentDto> getAllCommentsForComment(Long commentId, Pageable pageable) {
     logger.info("Getting all comments for comment: {}", commentId);
     checkIfExists(commentId);
     PageRequest pageRequest =
         PageRequestAssembler.getPageRequest(pageable, List.of("text", "created"),
             Sort.by(Direction.ASC, "text"));
-    Page<Comment> comments = commentRepository.findAllByParentTypeAndParentId(
-        CommentParentType.COMMENT, commentId, pageRequest);
-    return ModelPageToDtoPageConverter.convertComments(pageable, comments, modelMapper);
+    return commentRepository.findCommentDtosByParentTypeAndParentId(CommentParentType.COMMENT,
+        commentId, pageRequest);
   }
 
   @Override
+  @Transactional(readOnly = true)
+  public KeysetPage<CommentDto> getCommentsForCommentAfter(Long commentId, String after,
+      Pageable pageable) {
+    logger.info("Getting comments for comment {} after cursor: {}", commentId, after);
+    checkIfExists(commentId);
+    return getCommentsForParentAfter(CommentParentType.COMMENT, commentId, after, pageable);
+  }
+
+  private KeysetPage<CommentDto> getCommentsForParentAfter(CommentParentType parentType,
+      Long parentId, String after, Pageable pageable) {
+    Cursor cursor = Cursor.decode(after);
+    Sort.Order order = KeysetQuery.resolveOrder(pageable, cursor, AVAILABLE_SORTS, DEFAULT_ORDER);
+    return commentRepository.findCommentDtosByParentTypeAndParentIdAfter(parentType, parentId,
+        order, cursor, pageable.getPageSize());
+  }
+
+  @Override
+  @Transactional(readOnly = true)
   public Page<CommentDto> getAllCommentsForUser(Long userId, Pageable pageable) {
     logger.info("Getting all comments for user: {}", userId);
     usersFeignClient.checkIfExists(userId);
     PageRequest pageRequest =
         PageRequestAssembler.getPageRequest(pageable, List.of("text", "created"),
             Sort.by(Direction.ASC, "text"));
-    Page<Comment> comments = commentRepository.findAllByUserId(userId, pageRequest);
-    return ModelPageToDtoPageConverter.convertComments(pageable, comments, modelMapper);
+    return commentRepository.findCommentDtosByUserId(userId, pageRequest);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public KeysetPage<CommentDto> getCommentsForUserAfter(Long userId, String after,
+      Pageable pageable) {
+    logger.info("Getting comments for user {} after cursor: {}", userId, after);
+    usersFeignClient.checkIfExists(userId);
+    Cursor cursor = Cursor.decode(after);
+    Sort.Order order = KeysetQuery.resolveOrder(pageable, cursor, AVAILABLE_SORTS, DEFAULT_ORDER);
+    return commentRepository.findCommentDtosByUserIdAfter(userId, order, cursor,
+        pageable.getPageSize());
   }
 
   @Override
   public CommentDto save(CommentRequest commentRequest) {
     /*UserMediator userMediator = (UserMediator) SecurityContextHolder.getContext()
         .getAuthentication().getPrincipal();
-    Long userId = usersFeignClient.getUserId(userMediator.getUsername());*/
-    Long userId = usersFeignClient.getUserId("username");
+    Long userId = userIdResolver.getUserId(userMediator.getUsername());*/
     CommentParentType parentType = commentRequest.getParentType();
     Long parentId = commentRequest.getParentId();
     logger.info("Creating a new comment for {} with id {}", parentType, parentId);
     boolean isPost = parentType.equals(CommentParentType.POST);
+    Long userId;
     if (isPost) {
-      postsFeignClient.checkIfPostExists(parentId);
+      userId = parallelCalls.join("save",
+          () -> userIdResolver.getUserId("username"),
+          () -> postsFeignClient.checkIfPostExists(parentId));
     } else {
+      // A parent comment is checked on this thread, inside the transaction that may have made it.
+      userId = userIdResolver.getUserId("username");
       checkIfExists(parentId);
     }
     Comment comment = new Comment(userId, commentRequest.getText(), parentType, parentId);
@@ -117,7 +207,7 @@ public class CommentServiceImpl implements CommentService {
       increaseCommentCounter(parentId);
     }
     logger.info("Saved new comment to database: {}", saved.getId());
-    return modelMapper.map(saved, CommentDto.class);
+    return commentMapper.toDto(saved);
   }
 
   @Override
@@ -134,47 +224,55 @@ public class CommentServiceImpl implements CommentService {
     } else {
       decreaseCommentCounter(comment.getParentId());
     }
-    return modelMapper.map(comment, CommentDto.class);
+    return commentMapper.toDto(comment);
   }
 
   @Override
+  @Transactional(readOnly = true)
   public CommentDto getComment(Long commentId) {
     logger.info("Getting comment: {}", commentId);
     Optional<Comment> commentOptional = commentRepository.findById(commentId);
     if (commentOptional.isPresent()) {
-      return modelMapper.map(commentOptional.get(), CommentDto.class);
+      return commentMapper.toDto(commentOptional.get());
     } else {
       throw new CommentNotFoundException(commentId);
     }
   }
 
   @Override
+  @Transactional(readOnly = true)
   public Page<CommentDto> getAllComments(Pageable pageable) {
     logger.info("Getting all comments");
     PageRequest pageRequest =
         PageRequestAssembler.getPageRequest(pageable, List.of("text", "created"),
         Sort.by(Direction.ASC, "text"));
-    Page<Comment> comments = commentRepository.findAll(pageRequest);
-    return ModelPageToDtoPageConverter.convertComments(pageable, comments, modelMapper);
+    return commentRepository.findAllCommentDtos(pageRequest);
   }
 
   @Override
+  @Transactional(readOnly = true)
   public void checkIfExists(Long commentId) {
+    if (!commentIdFilter.mightContain(commentId)) {
+      throw new CommentNotFoundException(commentId);
+    }
     Optional<Comment> commentOptional = commentRepository.findById(commentId);
     if (commentOptional.isEmpty()) {
+      commentIdFilter.recordFalsePositive();
       throw new CommentNotFoundException(commentId);
     }
   }
 
   @Override
+  @Transactional(readOnly = true)
   public Page<CommentDto> search(String query, Pageable pageable) {
     logger.info("Searching for comments that match query: {}", query);
     PageRequest pageRequest = PageRequestAssembler.getPageRequest(pageable,
         List.of("text", "created"),
         Sort.by(Direction.ASC, "text"));
-    Page<Comment> users = commentRepository.findByTextContainingIgnoreCase(query,
-        pageRequest);
-    return ModelPageToDtoPageConverter.convertComments(pageable, users, modelMapper);
+    if (fullTextSearch) {
+      return commentRepository.findCommentDtosByTextMatching(query, pageRequest);
+    }
+    return commentRepository.findCommentDtosByTextContaining(query, pageRequest);
   }
 
   @Override
@@ -188,12 +286,21 @@ public class CommentServiceImpl implements CommentService {
   }
 
   private void updateCommentCounter(Long parentId, int value) {
-    Optional<Comment> commentOptional = commentRepository.findById(parentId);
-    if (commentOptional.isEmpty()) {
+    // Only comments that definitely do not exist are refused, the flush drops the deltas of other
+    // missing comments without a query per change
+    if (!commentIdFilter.mightContain(parentId)) {
       throw new CommentNotFoundException(parentId);
     }
-    Comment comment = commentOptional.get();
-    comment.setCommentsCounter(comment.getCommentsCounter() + value);
-    commentRepository.save(comment);
+    commentCounterBuffer.add(parentId, value);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<CommentDto> getIndexDocuments(Long afterId, int limit) {
+    int size = Math.max(1, Math.min(limit, MAX_INDEX_DOCUMENTS));
+    List<CommentDto> comments = commentRepository.findCommentDtosByIdGreaterThan(afterId,
+        PageRequest.of(0, size));
+    logger.info("Returning {} comments after id {} to the search index", comments.size(), afterId);
+    return comments;
   }
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.srecko.reddit.comments.service.client;
+
+import com.srecko.reddit.comments.dto.CommentIndexEvent;
+import java.util.List;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+/**
+ * The interface Search feign client.
+ */
+@FeignClient("search")
+public interface SearchFeignClient {
+
+  /**
+   * Sends comment changes to the search index.
+   *
+   * @param events the events
+   */
+  @RequestMapping(method = RequestMethod.POST, value = "/api/search/index/comments",
+      consumes = "application/json")
+  void indexComments(@RequestBody List<CommentIndexEvent> events);
+}
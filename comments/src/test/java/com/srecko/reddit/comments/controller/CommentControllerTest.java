@@ -3,6 +3,7 @@ package com.srecko.reddit.comments.controller;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doNothing;
@@ -11,12 +12,14 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
 import com.srecko.reddit.comments.dto.CommentRequest;
 import com.srecko.reddit.comments.entity.Comment;
 import com.srecko.reddit.comments.entity.CommentParentType;
 import com.srecko.reddit.comments.repository.CommentRepository;
 import com.srecko.reddit.comments.service.client.PostsFeignClient;
 import com.srecko.reddit.comments.service.client.UsersFeignClient;
+import java.util.Arrays;
 import java.util.List;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -29,6 +32,7 @@ import org.springframework.hateoas.MediaTypes;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -91,10 +95,36 @@ class CommentControllerTest {
         .andExpect(jsonPath("$.page.totalPages", is(1)));
   }
 
+  @Test
+  void exportCommentsForPost_WritesWholeThreadOneCommentPerLine() throws Exception {
+    Comment comment1 = new Comment(userId, "Good", CommentParentType.POST, postId);
+    Comment comment2 = new Comment(userId, "Not bad", CommentParentType.POST, postId);
+    Comment other = new Comment(userId, "Elsewhere", CommentParentType.POST, postId + 1);
+    commentRepository.saveAllAndFlush(List.of(comment1, comment2, other));
+    Comment reply = new Comment(userId, "Agreed", CommentParentType.COMMENT, comment1.getId());
+    commentRepository.saveAndFlush(reply);
+    Comment nested = new Comment(userId, "Me too", CommentParentType.COMMENT, reply.getId());
+    commentRepository.saveAndFlush(nested);
+
+    doNothing().when(postsFeignClient).checkIfPostExists(any());
+
+    MvcResult result = mockMvc.perform(
+            MockMvcRequestBuilders.get("/api/comments/export/post/{postId}", postId)
+                .header("AUTHORIZATION", "Bearer " + jwt))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType("application/x-ndjson"))
+        .andReturn();
+
+    String[] lines = result.getResponse().getContentAsString().split("\\n");
+    assertEquals(List.of(comment1.getText(), comment2.getText(), reply.getText(),
+            nested.getText()),
+        Arrays.stream(lines).map(line -> JsonPath.<String>read(line, "$.text")).toList());
+  }
+
   @Test
   void getCommentsForComment_ReturnsComments() throws Exception {
     Comment comment1 = new Comment(userId, "Good", CommentParentType.POST, postId);
-    commentRepository.save(comment1);
+    commentRepository.saveAndFlush(comment1);
     Comment comment2 = new Comment(userId, "Not bad", CommentParentType.COMMENT, comment1.getId());
     commentRepository.save(comment2);
 
@@ -135,6 +165,49 @@ class CommentControllerTest {
         .andExpect(jsonPath("$.page.totalPages", is(1)));
   }
 
+  @Test
+  void getCommentsForPost_ReturnsPagesByCursor_WhenAfterProvided() throws Exception {
+    Comment comment1 = new Comment(userId, "Good", CommentParentType.POST, postId);
+    Comment comment2 = new Comment(userId, "Not bad", CommentParentType.POST, postId);
+    Comment comment3 = new Comment(userId, "Very good", CommentParentType.POST, postId);
+    commentRepository.saveAll(List.of(comment1, comment2, comment3));
+
+    doNothing().when(postsFeignClient).checkIfPostExists(any());
+
+    MvcResult firstPage = mockMvc.perform(
+            MockMvcRequestBuilders.get("/api/comments/post/{postId}", postId)
+                .param("after", "")
+                .param("size", "2")
+                .header("AUTHORIZATION", "Bearer " + jwt))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaTypes.HAL_JSON))
+        .andExpect(jsonPath("$._embedded.commentDtoList", hasSize(2)))
+        .andExpect(jsonPath("$._embedded.commentDtoList[0].text", is(comment1.getText())))
+        .andExpect(jsonPath("$._embedded.commentDtoList[1].text", is(comment2.getText())))
+        .andExpect(jsonPath("$._links.next.href", containsString("after=")))
+        .andReturn();
+    String next = JsonPath.read(firstPage.getResponse().getContentAsString(),
+        "$._links.next.href");
+
+    mockMvc.perform(MockMvcRequestBuilders.get(next)
+            .header("AUTHORIZATION", "Bearer " + jwt))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$._embedded.commentDtoList", hasSize(1)))
+        .andExpect(jsonPath("$._embedded.commentDtoList[0].text", is(comment3.getText())))
+        .andExpect(jsonPath("$._links.next").doesNotExist());
+  }
+
+  @Test
+  void getCommentsForUser_ReturnsBadRequest_WhenCursorIsInvalid() throws Exception {
+    doNothing().when(usersFeignClient).checkIfExists(any());
+
+    mockMvc.perform(MockMvcRequestBuilders.get("/api/comments/user/{userId}", userId)
+            .param("after", "bm90LWEtY3Vyc29y")
+            .header("AUTHORIZATION", "Bearer " + jwt))
+        .andExpect(status().isBadRequest())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+  }
+
   @Test
   // @WithMockCustomUser
   void createComment_ReturnsCreatedComment_WhenSuccessfullyCreated() throws Exception {
@@ -248,7 +321,7 @@ class CommentControllerTest {
   @Test
   void checkIfExists_Returns200_IfCommentExists() throws Exception {
     Comment comment = new Comment(userId, "Good", CommentParentType.POST, postId);
-    commentRepository.save(comment);
+    commentRepository.saveAndFlush(comment);
 
     mockMvc.perform(MockMvcRequestBuilders.head("/api/comments/checkIfExists")
         .contentType(MediaType.APPLICATION_JSON)
@@ -306,4 +379,21 @@ class CommentControllerTest {
         .andExpect(jsonPath("$.page.totalPages").exists())
         .andExpect(jsonPath("$.page.totalPages", is(0)));
   }
+
+  @Test
+  void getIndexDocuments_ReturnsCommentsAfterIdInIdOrder() throws Exception {
+    Comment comment1 = new Comment(userId, "Good", CommentParentType.POST, postId);
+    Comment comment2 = new Comment(userId, "Not bad", CommentParentType.POST, postId);
+    Comment comment3 = new Comment(userId, "Agreed", CommentParentType.POST, postId);
+    commentRepository.saveAll(List.of(comment1, comment2, comment3));
+
+    mockMvc.perform(MockMvcRequestBuilders.get("/api/comments/search-index")
+            .header("AUTHORIZATION", "Bearer " + jwt)
+            .param("afterId", String.valueOf(comment1.getId()))
+            .param("limit", "1"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(1)))
+        .andExpect(jsonPath("$[0].id", is(comment2.getId().intValue())))
+        .andExpect(jsonPath("$[0].text", is("Not bad")));
+  }
 }
\ No newline at end of file
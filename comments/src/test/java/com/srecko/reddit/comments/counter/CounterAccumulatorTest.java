@@ -0,0 +1,76 @@
+package com.srecko.reddit.comments.counter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CounterAccumulatorTest {
+
+  private CounterAccumulator counterAccumulator;
+
+  @BeforeEach
+  void setUp() {
+    counterAccumulator = new CounterAccumulator();
+  }
+
+  @Test
+  void drain_ReturnsSumOfDeltasById() {
+    // given
+    counterAccumulator.add(1L, 1);
+    counterAccumulator.add(1L, 1);
+    counterAccumulator.add(2L, -1);
+
+    // when
+    Map<Long, Long> drained = counterAccumulator.drain();
+
+    // then
+    assertEquals(Map.of(1L, 2L, 2L, -1L), drained);
+    assertEquals(0, counterAccumulator.pending());
+  }
+
+  @Test
+  void drain_LeavesOutDeltasThatCancelOut() {
+    // given
+    counterAccumulator.add(1L, 1);
+    counterAccumulator.add(1L, -1);
+
+    // when
+    Map<Long, Long> drained = counterAccumulator.drain();
+
+    // then
+    assertTrue(drained.isEmpty());
+  }
+
+  @Test
+  void drain_LosesNoDeltas_WhenDrainedWhileAdding() throws InterruptedException {
+    // given
+    int threads = 8;
+    int increments = 20_000;
+    AtomicLong total = new AtomicLong();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+    // when
+    for (int i = 0; i < threads; i++) {
+      executor.submit(() -> {
+        for (int j = 0; j < increments; j++) {
+          counterAccumulator.add((long) (j % 4), 1);
+        }
+      });
+    }
+    executor.shutdown();
+    while (!executor.awaitTermination(1, TimeUnit.MILLISECONDS)) {
+      counterAccumulator.drain().values().forEach(total::addAndGet);
+    }
+    counterAccumulator.drain().values().forEach(total::addAndGet);
+
+    // then
+    assertEquals((long) threads * increments, total.get());
+  }
+}
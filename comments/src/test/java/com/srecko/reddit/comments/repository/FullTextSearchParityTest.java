@@ -0,0 +1,183 @@
+package com.srecko.reddit.comments.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.srecko.reddit.comments.dto.CommentDto;
+import com.srecko.reddit.comments.entity.Comment;
+import com.srecko.reddit.comments.entity.CommentParentType;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource({"/application-test.properties", "/application-full-text.properties"})
+@SpringBootTest
+@Tag("full-text")
+@TestInstance(Lifecycle.PER_CLASS)
+class FullTextSearchParityTest {
+
+  private static final int WORD_LENGTH = 6;
+
+  private static final Logger logger = LogManager.getLogger(FullTextSearchParityTest.class);
+
+  @Autowired
+  private CommentRepository commentRepository;
+
+  @Value("${comments.search.full-text.parity.comments}")
+  private int comments;
+
+  @Value("${comments.search.full-text.parity.words}")
+  private int words;
+
+  @Value("${comments.search.full-text.parity.queries}")
+  private int queries;
+
+  private final Random random = new Random(11);
+
+  private List<String> vocabulary;
+
+  @BeforeAll
+  void setUp() {
+    // No word of the vocabulary contains another one, so single word queries have to match
+    // the same comments whether they are matched as substrings or as whole words
+    Set<String> distinct = new LinkedHashSet<>();
+    while (distinct.size() < words) {
+      distinct.add(random.ints(WORD_LENGTH, 'a', 'z' + 1)
+          .mapToObj(c -> String.valueOf((char) c))
+          .collect(Collectors.joining()));
+    }
+    vocabulary = new ArrayList<>(distinct);
+    List<Comment> generated = new ArrayList<>(comments);
+    for (int i = 0; i < comments; i++) {
+      String text = random.ints(1 + random.nextInt(12), 0, vocabulary.size())
+          .mapToObj(vocabulary::get)
+          .map(word -> random.nextBoolean() ? word : word.toUpperCase(Locale.ROOT))
+          .collect(Collectors.joining(random.nextBoolean() ? " " : ", "));
+      generated.add(new Comment(1L, text, CommentParentType.POST, 1L + random.nextInt(100)));
+    }
+    long start = System.nanoTime();
+    commentRepository.saveAll(generated);
+    logger.info("Generated {} comments in {} ms", comments,
+        (System.nanoTime() - start) / 1_000_000);
+  }
+
+  @AfterAll
+  void tearDown() {
+    commentRepository.deleteAllInBatch();
+  }
+
+  @Test
+  void findCommentDtosByTextMatching_MatchesSubstringSearch_ForSingleWords() {
+    // given
+    Latency substring = new Latency();
+    Latency fullText = new Latency();
+
+    for (int i = 0; i < queries; i++) {
+      String query = word();
+      Pageable firstPage = PageRequest.of(0, 20, Sort.by("text"));
+      Pageable all = PageRequest.of(0, comments, Sort.by(Sort.Direction.DESC, "created"));
+
+      // when
+      Page<CommentDto> expected = substring.time(
+          () -> commentRepository.findCommentDtosByTextContaining(query, firstPage));
+      Page<CommentDto> actual = fullText.time(
+          () -> commentRepository.findCommentDtosByTextMatching(query, firstPage));
+
+      // then
+      assertEquals(expected.getTotalElements(), actual.getTotalElements(), "query " + query);
+      assertEquals(expected.getContent().stream().map(CommentDto::getText).toList(),
+          actual.getContent().stream().map(CommentDto::getText).toList());
+      assertEquals(
+          ids(commentRepository.findCommentDtosByTextContaining(query, all)).stream()
+              .sorted().toList(),
+          ids(commentRepository.findCommentDtosByTextMatching(query, all)).stream()
+              .sorted().toList());
+    }
+    logger.info("Text search over {} comments, substring: {}, full-text: {}", comments,
+        substring, fullText);
+  }
+
+  @Test
+  void findCommentDtosByTextMatching_MatchesEveryWordAnywhereInText() {
+    for (int i = 0; i < queries; i++) {
+      // given
+      String first = word();
+      String second = word();
+      Pageable all = PageRequest.of(0, comments, Sort.by("created"));
+
+      // when
+      List<Long> adjacent = ids(commentRepository.findCommentDtosByTextContaining(
+          first + " " + second, all));
+      List<CommentDto> actual = commentRepository.findCommentDtosByTextMatching(
+          "\"" + first + "\" -" + second, all).getContent();
+
+      // then
+      assertTrue(ids(actual).containsAll(adjacent));
+      for (CommentDto commentDto : actual) {
+        List<String> textWords = List.of(
+            commentDto.getText().toLowerCase(Locale.ROOT).split(",? "));
+        assertTrue(textWords.contains(first.toLowerCase(Locale.ROOT))
+            && textWords.contains(second.toLowerCase(Locale.ROOT)), commentDto.getText());
+      }
+    }
+    assertFalse(commentRepository.findCommentDtosByTextMatching(
+        vocabulary.get(0).substring(0, WORD_LENGTH - 1), PageRequest.of(0, 10)).hasContent());
+  }
+
+  private String word() {
+    String word = vocabulary.get(random.nextInt(vocabulary.size()));
+    return random.nextBoolean() ? word : word.toUpperCase(Locale.ROOT);
+  }
+
+  private static List<Long> ids(Page<CommentDto> page) {
+    return ids(page.getContent());
+  }
+
+  private static List<Long> ids(List<CommentDto> commentDtos) {
+    return commentDtos.stream().map(CommentDto::getId).toList();
+  }
+
+  /**
+   * Sums up the time queries take.
+   */
+  private static class Latency {
+
+    private long nanos;
+    private int count;
+
+    private <T> T time(Supplier<T> query) {
+      long start = System.nanoTime();
+      T result = query.get();
+      nanos += System.nanoTime() - start;
+      count++;
+      return result;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT, "%.3f ms per query", nanos / 1e6 / Math.max(count, 1));
+    }
+  }
+}
@@ -0,0 +1,141 @@
+package com.srecko.reddit.comments.searchindex;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.srecko.reddit.comments.dto.IndexEventType;
+import com.srecko.reddit.comments.dto.CommentDto;
+import com.srecko.reddit.comments.dto.CommentIndexEvent;
+import com.srecko.reddit.comments.entity.Comment;
+import com.srecko.reddit.comments.mapper.CommentMapper;
+import com.srecko.reddit.comments.service.client.SearchFeignClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class CommentIndexPublisherTest {
+
+  private SearchFeignClient searchFeignClient;
+
+  private CommentMapper commentMapper;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private CommentIndexPublisher commentIndexPublisher;
+
+  @BeforeEach
+  void setUp() {
+    searchFeignClient = mock(SearchFeignClient.class);
+    commentMapper = mock(CommentMapper.class);
+    meterRegistry = new SimpleMeterRegistry();
+    commentIndexPublisher = new CommentIndexPublisher(searchFeignClient, commentMapper, meterRegistry,
+        true, 2, 3);
+    given(commentMapper.toDto(any(Comment.class)))
+        .willAnswer(invocation -> {
+          Comment comment = invocation.getArgument(0);
+          CommentDto commentDto = new CommentDto();
+          commentDto.setId(comment.getId());
+          commentDto.setText(comment.getText());
+          return commentDto;
+        });
+  }
+
+  @Test
+  void flush_SendsOnlyLatestChangeOfComment() {
+    // given
+    commentIndexPublisher.onCommentSaved(comment(1L, "First title"));
+    commentIndexPublisher.onCommentSaved(comment(1L, "Second title"));
+    commentIndexPublisher.onCommentSaved(comment(2L, "Other comment"));
+    commentIndexPublisher.onCommentDeleted(2L);
+
+    // when
+    commentIndexPublisher.flush();
+
+    // then
+    List<CommentIndexEvent> sent = sentEvents(1);
+    assertEquals(2, sent.size());
+    CommentIndexEvent first = sent.stream().filter(e -> e.getId() == 1L).findFirst().orElseThrow();
+    assertEquals(IndexEventType.UPSERT, first.getType());
+    assertEquals("Second title", first.getDocument().getText());
+    CommentIndexEvent second = sent.stream().filter(e -> e.getId() == 2L).findFirst().orElseThrow();
+    assertEquals(IndexEventType.DELETE, second.getType());
+    assertNull(second.getDocument());
+    assertEquals(2, meterRegistry.get("comments.search-index.published").counter().count());
+  }
+
+  @Test
+  void flush_SendsChangesInBatches() {
+    // given
+    commentIndexPublisher.onCommentSaved(comment(1L, "First"));
+    commentIndexPublisher.onCommentSaved(comment(2L, "Second"));
+    commentIndexPublisher.onCommentSaved(comment(3L, "Third"));
+
+    // when
+    commentIndexPublisher.flush();
+
+    // then
+    List<CommentIndexEvent> sent = sentEvents(2);
+    assertEquals(3, sent.size());
+  }
+
+  @Test
+  void flush_KeepsChangesForNextFlush_WhenSearchIsUnavailable() {
+    // given
+    commentIndexPublisher.onCommentSaved(comment(1L, "First"));
+    willThrow(new IllegalStateException("Connection refused"))
+        .given(searchFeignClient).indexComments(anyList());
+    commentIndexPublisher.flush();
+    assertEquals(1, meterRegistry.get("comments.search-index.failures").counter().count());
+
+    // when
+    reset(searchFeignClient);
+    commentIndexPublisher.flush();
+
+    // then
+    verify(searchFeignClient).indexComments(anyList());
+    assertEquals(1, meterRegistry.get("comments.search-index.published").counter().count());
+  }
+
+  @Test
+  void onCommentSaved_DropsChangesOfNewComments_WhenTooManyAreWaiting() {
+    // given
+    for (long id = 1; id <= 3; id++) {
+      commentIndexPublisher.onCommentSaved(comment(id, "Comment " + id));
+    }
+
+    // when
+    commentIndexPublisher.onCommentSaved(comment(4L, "Dropped"));
+    commentIndexPublisher.onCommentSaved(comment(3L, "Still kept"));
+
+    // then
+    assertEquals(1, meterRegistry.get("comments.search-index.dropped").counter().count());
+    assertEquals(3, meterRegistry.get("comments.search-index.pending").gauge().value());
+  }
+
+  private List<CommentIndexEvent> sentEvents(int requests) {
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<CommentIndexEvent>> captor = ArgumentCaptor.forClass(List.class);
+    verify(searchFeignClient, times(requests)).indexComments(captor.capture());
+    List<CommentIndexEvent> sent = new ArrayList<>();
+    captor.getAllValues().forEach(sent::addAll);
+    return sent;
+  }
+
+  private static Comment comment(Long id, String text) {
+    Comment comment = new Comment();
+    comment.setId(id);
+    comment.setText(text);
+    return comment;
+  }
+}
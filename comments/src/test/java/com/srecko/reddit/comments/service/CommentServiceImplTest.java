@@ -8,26 +8,37 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
+import com.srecko.reddit.comments.bloom.CommentIdFilter;
+import com.srecko.reddit.comments.counter.CommentCounterBuffer;
 import com.srecko.reddit.comments.dto.CommentDto;
 import com.srecko.reddit.comments.dto.CommentRequest;
 import com.srecko.reddit.comments.entity.Comment;
 import com.srecko.reddit.comments.entity.CommentParentType;
 import com.srecko.reddit.comments.exception.CommentNotFoundException;
+import com.srecko.reddit.comments.export.CommentExporter;
+import com.srecko.reddit.comments.export.ExportTarget;
+import com.srecko.reddit.comments.mapper.CommentMapper;
 import com.srecko.reddit.comments.repository.CommentRepository;
+import com.srecko.reddit.comments.service.client.ParallelCalls;
 import com.srecko.reddit.comments.service.client.PostsFeignClient;
+import com.srecko.reddit.comments.service.client.UserIdResolver;
 import com.srecko.reddit.comments.service.client.UsersFeignClient;
 import com.srecko.reddit.comments.service.utils.TestConfig;
+import java.io.ByteArrayOutputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
@@ -40,7 +51,8 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
-@ContextConfiguration(classes = {CommentServiceImpl.class, TestConfig.class})
+@ContextConfiguration(classes = {CommentServiceImpl.class, ParallelCalls.class,
+    TestConfig.class})
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("dev")
 class CommentServiceImplTest {
@@ -48,17 +60,29 @@ class CommentServiceImplTest {
   @MockBean
   private CommentRepository commentRepository;
 
+  @MockBean
+  private CommentIdFilter commentIdFilter;
+
   @Autowired
   private CommentServiceImpl commentService;
 
   @MockBean
   private UsersFeignClient usersFeignClient;
 
+  @MockBean
+  private UserIdResolver userIdResolver;
+
   @MockBean
   private PostsFeignClient postsFeignClient;
 
+  @MockBean
+  private CommentCounterBuffer commentCounterBuffer;
+
+  @MockBean
+  private CommentExporter commentExporter;
+
   @Autowired
-  private final ModelMapper modelMapper = new ModelMapper();
+  private CommentMapper commentMapper;
 
   private Long userId;
 
@@ -68,6 +92,7 @@ class CommentServiceImplTest {
 
   @BeforeEach
   void setUp() {
+    given(commentIdFilter.mightContain(any())).willReturn(true);
     userId = 1L;
     postId = 1L;
     comment = new Comment(userId, "I can't believe", CommentParentType.POST, postId);
@@ -83,7 +108,8 @@ class CommentServiceImplTest {
     Comment comment2 = new Comment(userId, "Yeah, me neither", CommentParentType.POST, postId);
     comment2.setId(222L);
     doNothing().when(postsFeignClient).checkIfPostExists(any());
-    given(commentRepository.findAllByParentTypeAndParentId(any(), any(), any())).willReturn(new PageImpl<>(List.of(comment, comment2)));
+    given(commentRepository.findCommentDtosByParentTypeAndParentId(any(), any(), any()))
+        .willReturn(new PageImpl<>(toDtos(comment, comment2)));
     PageRequest pageRequest = PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "text"));
 
     // when
@@ -91,8 +117,21 @@ class CommentServiceImplTest {
 
     // then
     assertEquals(2, page.getTotalElements());
-    assertTrue(page.getContent().contains(modelMapper.map(comment, CommentDto.class)));
-    assertTrue(page.getContent().contains(modelMapper.map(comment2, CommentDto.class)));
+    assertTrue(page.getContent().contains(commentMapper.toDto(comment)));
+    assertTrue(page.getContent().contains(commentMapper.toDto(comment2)));
+  }
+
+  @Test
+  void exportCommentsForPost_ChecksPostBeforeExporting() throws Exception {
+    // given
+    ExportTarget target = ByteArrayOutputStream::new;
+    doThrow(new IllegalStateException("Post not found"))
+        .when(postsFeignClient).checkIfPostExists(postId);
+
+    // when then
+    assertThrows(IllegalStateException.class,
+        () -> commentService.exportCommentsForPost(postId, target));
+    verify(commentExporter, never()).exportPost(any(), any());
   }
 
   @Test
@@ -101,7 +140,8 @@ class CommentServiceImplTest {
     Comment comment2 = new Comment(userId, "Yeah, me neither", CommentParentType.COMMENT, comment.getId());
     comment2.setId(222L);
     given(commentRepository.findById(any())).willReturn(Optional.of(comment2));
-    given(commentRepository.findAllByParentTypeAndParentId(any(), any(), any())).willReturn(new PageImpl<>(List.of(comment2)));
+    given(commentRepository.findCommentDtosByParentTypeAndParentId(any(), any(), any()))
+        .willReturn(new PageImpl<>(toDtos(comment2)));
     PageRequest pageRequest = PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "text"));
 
     // when
@@ -109,7 +149,7 @@ class CommentServiceImplTest {
 
     // then
     assertEquals(1, page.getTotalElements());
-    assertTrue(page.getContent().contains(modelMapper.map(comment2, CommentDto.class)));
+    assertTrue(page.getContent().contains(commentMapper.toDto(comment2)));
   }
 
   @Test
@@ -118,8 +158,8 @@ class CommentServiceImplTest {
     Comment comment2 = new Comment(userId, "Yeah, me neither", CommentParentType.POST, postId);
     comment2.setId(222L);
     doNothing().when(usersFeignClient).checkIfExists(any());
-    given(commentRepository.findAllByUserId(any(), any()))
-        .willReturn(new PageImpl<>(List.of(comment, comment2)));
+    given(commentRepository.findCommentDtosByUserId(any(), any()))
+        .willReturn(new PageImpl<>(toDtos(comment, comment2)));
     PageRequest pageRequest = PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "text"));
 
     // when
@@ -128,9 +168,9 @@ class CommentServiceImplTest {
     // then
     assertEquals(2, page.getTotalElements());
     List<CommentDto> content = page.getContent();
-    CommentDto map1 = modelMapper.map(comment, CommentDto.class);
+    CommentDto map1 = commentMapper.toDto(comment);
     assertTrue(content.contains(map1));
-    CommentDto map2 = modelMapper.map(comment2, CommentDto.class);
+    CommentDto map2 = commentMapper.toDto(comment2);
     assertTrue(content.contains(map2));
   }
 
@@ -172,6 +212,7 @@ class CommentServiceImplTest {
     Comment comment1 = new Comment(userId, "Hello", CommentParentType.COMMENT, comment.getId());
     given(commentRepository.findById(any())).willReturn(Optional.of(comment1));
     given(commentRepository.save(any())).willReturn(comment1);
+    given(commentRepository.existsById(any())).willReturn(true);
 
     // when
     CommentDto savedComment = commentService.save(
@@ -208,6 +249,7 @@ class CommentServiceImplTest {
     Comment comment1 = new Comment(userId, "Hello", CommentParentType.COMMENT, comment.getId());
     comment1.setId(222L);
     given(commentRepository.findById(any())).willReturn(Optional.ofNullable(comment1));
+    given(commentRepository.existsById(any())).willReturn(true);
 
     // when
     CommentDto deleted = commentService.delete(comment1.getId());
@@ -255,8 +297,8 @@ class CommentServiceImplTest {
     Comment comment1 = new Comment(userId, "Yeah, me neither", CommentParentType.POST, postId);
     comment1.setId(222L);
     Pageable pageable = PageRequest.of(1, 1, Sort.by(Direction.ASC, "text"));
-    given(commentRepository.findAll(any(PageRequest.class))).willReturn(
-        new PageImpl<>(List.of(comment, comment1))
+    given(commentRepository.findAllCommentDtos(any(PageRequest.class))).willReturn(
+        new PageImpl<>(toDtos(comment, comment1), pageable, 2)
     );
 
     // when
@@ -267,8 +309,8 @@ class CommentServiceImplTest {
     assertEquals(2, actual.getTotalElements());
     assertEquals(2, actual.getTotalPages());
     List<CommentDto> content = actual.getContent();
-    assertTrue(content.contains(modelMapper.map(comment, CommentDto.class)));
-    assertTrue(content.contains(modelMapper.map(comment1, CommentDto.class)));
+    assertTrue(content.contains(commentMapper.toDto(comment)));
+    assertTrue(content.contains(commentMapper.toDto(comment1)));
   }
 
   @Test
@@ -297,8 +339,8 @@ class CommentServiceImplTest {
     Comment comment1 = new Comment(userId, "Do you believe?", CommentParentType.POST, postId);
     comment1.setId(124L);
 
-    given(commentRepository.findByTextContainingIgnoreCase(any(), any())).willReturn(
-        new PageImpl<>(List.of(comment, comment1))
+    given(commentRepository.findCommentDtosByTextContaining(any(), any())).willReturn(
+        new PageImpl<>(toDtos(comment, comment1))
     );
 
     // when
@@ -308,46 +350,56 @@ class CommentServiceImplTest {
     assertNotNull(actual);
     List<CommentDto> content = actual.getContent();
     assertEquals(2, content.size());
-    assertTrue(content.contains(modelMapper.map(comment, CommentDto.class)));
-    assertTrue(content.contains(modelMapper.map(comment1, CommentDto.class)));
+    assertTrue(content.contains(commentMapper.toDto(comment)));
+    assertTrue(content.contains(commentMapper.toDto(comment1)));
   }
 
   @Test
   void increaseCommentCounter_IncreasesCommentCounter() {
-    // given
-    int before = comment.getCommentsCounter();
-    given(commentRepository.findById(any())).willReturn(Optional.ofNullable(comment));
-    given(commentRepository.save(any())).willReturn(null);
-
     // when
     commentService.increaseCommentCounter(comment.getId());
 
     // then
-    assertEquals(before + 1, comment.getCommentsCounter());
+    verify(commentCounterBuffer).add(comment.getId(), 1);
+    verify(commentRepository, never()).save(any());
+    verify(commentRepository, never()).existsById(any());
   }
 
   @Test
   void decreaseCommentCounter_DecreasesCommentCounter() {
-    // given
-    int before = comment.getCommentsCounter();
-    given(commentRepository.findById(any())).willReturn(Optional.ofNullable(comment));
-    given(commentRepository.save(any())).willReturn(null);
-
     // when
     commentService.decreaseCommentCounter(comment.getId());
 
     // then
-    assertEquals(before - 1, comment.getCommentsCounter());
+    verify(commentCounterBuffer).add(comment.getId(), -1);
+    verify(commentRepository, never()).save(any());
+    verify(commentRepository, never()).existsById(any());
   }
 
   @Test
   void decreaseCommentCounter_ThrowsCommentNotFoundException_WhenCommentNotFound() {
     // given
-    given(commentRepository.findById(any())).willReturn(Optional.empty());
+    given(commentIdFilter.mightContain(comment.getId())).willReturn(false);
 
     // when then
     assertThrows(CommentNotFoundException.class, () -> {
       commentService.decreaseCommentCounter(comment.getId());
     });
   }
-}
\ No newline at end of file
+
+  private List<CommentDto> toDtos(Comment... comments) {
+    return Arrays.stream(comments)
+        .map(c -> commentMapper.toDto(c))
+        .toList();
+  }
+
+  @Test
+  void checkIfExists_ThrowsCommentNotFoundException_WhenFilterRulesCommentOut() {
+    // given
+    given(commentIdFilter.mightContain(any())).willReturn(false);
+
+    // when then
+    assertThrows(CommentNotFoundException.class, () -> commentService.checkIfExists(comment.getId()));
+    verify(commentRepository, never()).findById(any());
+  }
+}
@@ -1,16 +1,29 @@
 package com.srecko.reddit.comments.service.utils;
 
-import org.modelmapper.ModelMapper;
+import com.srecko.reddit.comments.mapper.CommentMapper;
+import com.srecko.reddit.comments.mapper.CommentMapperImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.convert.ApplicationConversionService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Profile;
+import org.springframework.core.convert.ConversionService;
 
 @Configuration
-@Profile("dev")
 public class TestConfig {
 
-  @Bean("testModelMapper")
-  public ModelMapper modelMapper() {
-    return new ModelMapper();
+  @Bean
+  public CommentMapper commentMapper() {
+    return new CommentMapperImpl();
+  }
+
+  @Bean
+  public MeterRegistry meterRegistry() {
+    return new SimpleMeterRegistry();
+  }
+
+  @Bean
+  public ConversionService conversionService() {
+    return ApplicationConversionService.getSharedInstance();
   }
 }
@@ -0,0 +1,47 @@
+package com.srecko.reddit.posts.assembler;
+
+import com.srecko.reddit.posts.pagination.KeysetPage;
+import java.util.List;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.server.RepresentationModelAssembler;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+/**
+ * The type Keyset model assembler. Builds the collection model of a keyset page, with a next link
+ * that repeats the current request with the cursor of the following page.
+ *
+ * @author Srecko Nikolic
+ */
+public class KeysetModelAssembler {
+
+  private KeysetModelAssembler() {
+  }
+
+  /**
+   * To collection model.
+   *
+   * @param <T>       the type of content
+   * @param page      the page
+   * @param assembler the assembler
+   * @return the collection model
+   */
+  public static <T> CollectionModel<EntityModel<T>> toModel(KeysetPage<T> page,
+      RepresentationModelAssembler<T, EntityModel<T>> assembler) {
+    List<EntityModel<T>> content = page.getContent().stream()
+        .map(assembler::toModel)
+        .toList();
+    CollectionModel<EntityModel<T>> model = CollectionModel.of(content,
+        Link.of(ServletUriComponentsBuilder.fromCurrentRequest().toUriString()));
+    if (page.hasNext()) {
+      String next = ServletUriComponentsBuilder.fromCurrentRequest()
+          .replaceQueryParam("page")
+          .replaceQueryParam("after", page.getNextCursor())
+          .toUriString();
+      model.add(Link.of(next, IanaLinkRelations.NEXT));
+    }
+    return model;
+  }
+}
@@ -0,0 +1,49 @@
+package com.srecko.reddit.posts.bloom;
+
+import com.srecko.reddit.posts.entity.Post;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * The type Post id filter listener. Reports every inserted and deleted post to the post id
+ * filter, whichever code path wrote it.
+ *
+ * @author Srecko Nikolic
+ */
+@Component
+public class PostIdFilterListener {
+
+  private final PostIdFilter postIdFilter;
+
+  /**
+   * Instantiates a new Post id filter listener.
+   *
+   * @param postIdFilter the post id filter
+   */
+  @Autowired
+  public PostIdFilterListener(PostIdFilter postIdFilter) {
+    this.postIdFilter = postIdFilter;
+  }
+
+  /**
+   * Adds an inserted post to the filter.
+   *
+   * @param post the post
+   */
+  @PostPersist
+  public void onPersist(Post post) {
+    postIdFilter.add(post.getId());
+  }
+
+  /**
+   * Reports a deleted post to the filter.
+   *
+   * @param post the post
+   */
+  @PostRemove
+  public void onRemove(Post post) {
+    postIdFilter.remove(post.getId());
+  }
+}
@@ -0,0 +1,140 @@
+package com.srecko.reddit.posts.cache;
+
+import com.srecko.reddit.posts.dto.PostDto;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * The type Post cache. Keeps recently read posts by id in the <code>posts</code> cache of the
+ * application cache manager. Size, time to live and statistics are set through
+ * <code>spring.cache.caffeine.spec</code>, and <code>spring.cache.type=none</code> turns the cache
+ * off. Puts and evictions made inside a transaction are applied once it commits, so a rolled back
+ * change never evicts and readers never see uncommitted posts.
+ *
+ * <p>A reader caching a post it loaded itself takes the generation of the post before loading
+ * it. Every eviction moves the generation on, so a post loaded before an update committed is not
+ * put back after the update evicted it. Generations are kept per stripe of ids rather than per
+ * id, which at worst skips caching a post whose stripe was evicted in the meantime.
+ *
+ * @author Srecko Nikolic
+ */
+@Component
+public class PostCache {
+
+  /**
+   * The name of the cache.
+   */
+  public static final String NAME = "posts";
+
+  private static final int GENERATION_STRIPES = 1024;
+
+  private final Cache cache;
+  private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+  /**
+   * Instantiates a new Post cache.
+   *
+   * @param cacheManager the cache manager
+   */
+  @Autowired
+  public PostCache(CacheManager cacheManager) {
+    Cache posts = cacheManager.getCache(NAME);
+    if (posts == null) {
+      throw new IllegalStateException("Cache manager does not provide the " + NAME + " cache");
+    }
+    this.cache = posts;
+  }
+
+  /**
+   * Gets a cached post.
+   *
+   * @param postId the post id
+   * @return the post, or null if it is not cached
+   */
+  public PostDto get(Long postId) {
+    return cache.get(postId, PostDto.class);
+  }
+
+  /**
+   * Caches a post.
+   *
+   * @param post the post
+   */
+  public void put(PostDto post) {
+    afterCommit(() -> cache.put(post.getId(), post));
+  }
+
+  /**
+   * Gets the generation of a post, to be taken before loading it.
+   *
+   * @param postId the post id
+   * @return the generation
+   */
+  public long generation(Long postId) {
+    return generations.get(stripe(postId));
+  }
+
+  /**
+   * Caches a post, unless it was evicted since its generation was taken.
+   *
+   * @param post       the post
+   * @param generation the generation taken before the post was loaded
+   */
+  public void putIfUnchanged(PostDto post, long generation) {
+    int stripe = stripe(post.getId());
+    afterCommit(() -> {
+      if (generations.get(stripe) != generation) {
+        return;
+      }
+      cache.put(post.getId(), post);
+      // An eviction that moved the generation on after the check may have run before the put
+      if (generations.get(stripe) != generation) {
+        cache.evict(post.getId());
+      }
+    });
+  }
+
+  /**
+   * Evicts a post.
+   *
+   * @param postId the post id
+   */
+  public void evict(Long postId) {
+    afterCommit(() -> {
+      generations.incrementAndGet(stripe(postId));
+      cache.evict(postId);
+    });
+  }
+
+  /**
+   * Evicts posts.
+   *
+   * @param postIds the post ids
+   */
+  public void evictAll(Collection<Long> postIds) {
+    postIds.forEach(this::evict);
+  }
+
+  private static int stripe(Long postId) {
+    return Math.floorMod(Long.hashCode(postId), GENERATION_STRIPES);
+  }
+
+  private static void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          action.run();
+        }
+      });
+    } else {
+      action.run();
+    }
+  }
+}
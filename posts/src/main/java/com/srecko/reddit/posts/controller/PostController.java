@@ -1,13 +1,28 @@
 package com.srecko.reddit.posts.controller;
 
+import com.srecko.reddit.posts.assembler.KeysetModelAssembler;
 import com.srecko.reddit.posts.assembler.PostModelAssembler;
+import com.srecko.reddit.posts.dto.BulkPostRequest;
+import com.srecko.reddit.posts.dto.BulkPostResponse;
 import com.srecko.reddit.posts.dto.CreatePostRequest;
+import com.srecko.reddit.posts.dto.PostBatchRequest;
+import com.srecko.reddit.posts.dto.PostBatchResponse;
 import com.srecko.reddit.posts.dto.PostDto;
 import com.srecko.reddit.posts.dto.UpdatePostRequest;
 import com.srecko.reddit.posts.exception.DtoValidationException;
+import com.srecko.reddit.posts.export.PostExporter;
+import com.srecko.reddit.posts.pagination.KeysetPage;
+import com.srecko.reddit.posts.ranking.RankingSort;
+import com.srecko.reddit.posts.ranking.RankingWindow;
 import com.srecko.reddit.posts.service.PostService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,8 +32,10 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.PagedModel;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -27,8 +44,10 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
@@ -90,44 +109,148 @@ public class PostController {
   }
 
   /**
-   * Gets all posts for subreddit.
+   * Gets posts by ids in one request. Found posts come back in the order of the requested ids,
+   * ids without a post are listed in the missing ids.
+   *
+   * @param postBatchRequest the post batch request
+   * @param bindingResult    the binding result
+   * @return the post batch response
+   */
+  @PostMapping("/batch")
+  public ResponseEntity<PostBatchResponse> getPostsByIds(
+      @Valid @RequestBody PostBatchRequest postBatchRequest,
+      BindingResult bindingResult) {
+    if (bindingResult.hasErrors()) {
+      throw new DtoValidationException(bindingResult.getAllErrors());
+    }
+    PostBatchResponse response = postService.getPostsByIds(postBatchRequest.getIds());
+    logger.info("Returning {} posts by id, {} missing", response.getPosts().size(),
+        response.getMissingIds().size());
+    return ResponseEntity.ok(response);
+  }
+
+  /**
+   * Gets the posts the search service indexes, read page after page in increasing id order.
+   *
+   * @param afterId the id the posts follow
+   * @param limit   the number of posts at most
+   * @return the posts
+   */
+  @GetMapping("/search-index")
+  public ResponseEntity<List<PostDto>> getIndexDocuments(
+      @RequestParam(value = "afterId", defaultValue = "0") Long afterId,
+      @RequestParam(value = "limit", defaultValue = "1000") int limit) {
+    return ResponseEntity.ok(postService.getIndexDocuments(afterId, limit));
+  }
+
+  /**
+   * Gets all posts for subreddit. Sorting by hot, top or rising reads the ranking index. When the
+   * after parameter is present, even if empty, the listing is read with a keyset cursor and
+   * carries the cursor of the following page in its next link.
    *
    * @param subredditId the subreddit id
+   * @param window      the window of top listing: day, week or all
+   * @param after       the cursor
    * @param pageable    the pageable
    * @param assembler   the assembler
    * @return the all posts for subreddit
    */
   @GetMapping("/subreddit/{subredditId}")
-  public ResponseEntity<PagedModel<EntityModel<PostDto>>> getAllPostsForSubreddit(
+  public ResponseEntity<CollectionModel<EntityModel<PostDto>>> getAllPostsForSubreddit(
       @PathVariable("subredditId") Long subredditId,
+      @RequestParam(value = "t", required = false) String window,
+      @RequestParam(value = "after", required = false) String after,
       @PageableDefault(sort = "dateOfCreation", direction = Sort.Direction.ASC) Pageable pageable,
       PagedResourcesAssembler<PostDto> assembler) {
-    Page<PostDto> page = postService.getAllPostsForSubreddit(subredditId, pageable);
+    Optional<RankingSort> rankingSort = RankingSort.fromSort(pageable.getSort());
+    if (rankingSort.isEmpty() && after != null) {
+      KeysetPage<PostDto> page = postService.getPostsForSubredditAfter(subredditId, after,
+          pageable);
+      logger.info("Returning posts for subreddit {} after cursor: {}", subredditId, after);
+      return ResponseEntity.ok(KeysetModelAssembler.toModel(page, postModelAssembler));
+    }
+    Page<PostDto> page = rankingSort.isPresent()
+        ? postService.getRankedPostsForSubreddit(subredditId, rankingSort.get(),
+            RankingWindow.fromParam(window), pageable)
+        : postService.getAllPostsForSubreddit(subredditId, pageable);
     PagedModel<EntityModel<PostDto>> pagedModel = assembler.toModel(page, postModelAssembler);
     logger.info("Returning posts for subreddit: {}", subredditId);
     return ResponseEntity.ok(pagedModel);
   }
 
   /**
-   * Gets posts for user.
+   * Gets posts for user. When the after parameter is present, even if empty, the listing is read
+   * with a keyset cursor.
    *
    * @param username  the username
+   * @param after     the cursor
    * @param pageable  the pageable
    * @param assembler the assembler
    * @return the posts for user
    */
   // todo: change to userId
   @GetMapping("/user/{username}")
-  public ResponseEntity<PagedModel<EntityModel<PostDto>>> getPostsForUser(
+  public ResponseEntity<CollectionModel<EntityModel<PostDto>>> getPostsForUser(
       @PathVariable("username") String username,
+      @RequestParam(value = "after", required = false) String after,
       @PageableDefault(sort = "dateOfCreation", direction = Sort.Direction.ASC) Pageable pageable,
       PagedResourcesAssembler<PostDto> assembler) {
+    if (after != null) {
+      KeysetPage<PostDto> page = postService.getPostsForUserAfter(username, after, pageable);
+      logger.info("Returning posts for user {} after cursor: {}", username, after);
+      return ResponseEntity.ok(KeysetModelAssembler.toModel(page, postModelAssembler));
+    }
     Page<PostDto> page = postService.getAllPostsForUser(username, pageable);
     PagedModel<EntityModel<PostDto>> pagedModel = assembler.toModel(page, postModelAssembler);
     logger.info("Returning posts for user: {}", username);
     return ResponseEntity.ok(pagedModel);
   }
 
+  /**
+   * Exports all posts of a subreddit as newline delimited JSON, written to the response while
+   * they are read. The export is gzip compressed when the client accepts it.
+   *
+   * @param subredditId    the subreddit id
+   * @param acceptEncoding the accept encoding header
+   * @param response       the response
+   * @throws IOException if writing the export fails
+   */
+  @GetMapping("/export/subreddit/{subredditId}")
+  public void exportPostsForSubreddit(@PathVariable("subredditId") Long subredditId,
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+      HttpServletResponse response) throws IOException {
+    boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+    long count = postService.exportPostsForSubreddit(subredditId, () -> {
+      response.setContentType(PostExporter.MEDIA_TYPE);
+      OutputStream outputStream = response.getOutputStream();
+      if (gzip) {
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return new GZIPOutputStream(outputStream, true);
+      }
+      return outputStream;
+    });
+    logger.info("Returned export of {} posts for subreddit: {}", count, subredditId);
+  }
+
+  /**
+   * Gets the home feed of a user, newest posts first.
+   *
+   * @param userId    the user id
+   * @param pageable  the pageable
+   * @param assembler the assembler
+   * @return the home feed
+   */
+  @GetMapping("/feed/{userId}")
+  public ResponseEntity<PagedModel<EntityModel<PostDto>>> getHomeFeed(
+      @PathVariable("userId") Long userId,
+      Pageable pageable,
+      PagedResourcesAssembler<PostDto> assembler) {
+    Page<PostDto> page = postService.getHomeFeed(userId, pageable);
+    PagedModel<EntityModel<PostDto>> pagedModel = assembler.toModel(page, postModelAssembler);
+    logger.info("Returning home feed for user: {}", userId);
+    return ResponseEntity.ok(pagedModel);
+  }
+
   /**
    * Create post.
    *
@@ -150,6 +273,27 @@ public class PostController {
     return ResponseEntity.created(uri).body(postDtoEntityModel);
   }
 
+  /**
+   * Creates posts in bulk, for migrations and imports. Each post is reported in its result, an
+   * invalid post does not fail the others.
+   *
+   * @param bulkPostRequest the bulk post request
+   * @param bindingResult   the binding result
+   * @return the bulk post response
+   */
+  @PostMapping("/bulk")
+  public ResponseEntity<BulkPostResponse> createBulk(
+      @Valid @RequestBody BulkPostRequest bulkPostRequest,
+      BindingResult bindingResult) {
+    if (bindingResult.hasErrors()) {
+      throw new DtoValidationException(bindingResult.getAllErrors());
+    }
+    BulkPostResponse response = postService.saveAll(bulkPostRequest.getPosts());
+    logger.info("Created {} posts in bulk, {} rejected", response.getCreated(),
+        response.getRejected());
+    return ResponseEntity.ok(response);
+  }
+
   /**
    * Delete post.
    *
@@ -254,4 +398,24 @@ public class PostController {
   public void decreaseCommentCounter(@PathVariable("postId") Long postId) {
     postService.updateCommentsCounter(postId, -1);
   }
-}
\ No newline at end of file
+
+  /**
+   * Increase votes.
+   *
+   * @param postId the post id
+   */
+  @RequestMapping(method = RequestMethod.HEAD, value = "/increaseVotes/{postId}")
+  public void increaseVotes(@PathVariable("postId") Long postId) {
+    postService.updateVotes(postId, 1);
+  }
+
+  /**
+   * Decrease votes.
+   *
+   * @param postId the post id
+   */
+  @RequestMapping(method = RequestMethod.HEAD, value = "/decreaseVotes/{postId}")
+  public void decreaseVotes(@PathVariable("postId") Long postId) {
+    postService.updateVotes(postId, -1);
+  }
+}
@@ -0,0 +1,67 @@
+package com.srecko.reddit.posts.counter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The type Counter accumulator. Collects counter deltas by id in striped adders, so concurrent
+ * increments of the same counter neither block each other nor get lost, until they are drained
+ * and written in one go.
+ *
+ * @author Srecko Nikolic
+ */
+public class CounterAccumulator {
+
+  private final Map<Long, LongAdder> deltas = new ConcurrentHashMap<>();
+
+  /**
+   * Adds a delta to the counter of the given id.
+   *
+   * @param id    the id
+   * @param delta the delta
+   */
+  public void add(Long id, long delta) {
+    LongAdder adder = deltas.computeIfAbsent(id, key -> new LongAdder());
+    adder.add(delta);
+    if (deltas.get(id) != adder) {
+      // The adder was drained and removed while we were adding to it, so move whatever is left
+      // of it over to the adder that replaced it.
+      long orphaned = adder.sumThenReset();
+      if (orphaned != 0) {
+        add(id, orphaned);
+      }
+    }
+  }
+
+  /**
+   * Takes all pending deltas, leaving the accumulator empty. Ids whose deltas cancelled out are
+   * left out.
+   *
+   * @return the deltas by id
+   */
+  public Map<Long, Long> drain() {
+    Map<Long, Long> drained = new HashMap<>();
+    for (Map.Entry<Long, LongAdder> entry : deltas.entrySet()) {
+      LongAdder adder = entry.getValue();
+      long delta = adder.sumThenReset();
+      if (deltas.remove(entry.getKey(), adder)) {
+        delta += adder.sumThenReset();
+      }
+      if (delta != 0) {
+        drained.merge(entry.getKey(), delta, Long::sum);
+      }
+    }
+    return drained;
+  }
+
+  /**
+   * Gets the number of ids with pending deltas.
+   *
+   * @return the number of ids
+   */
+  public int pending() {
+    return deltas.size();
+  }
+}
@@ -0,0 +1,178 @@
+package com.srecko.reddit.posts.counter;
+
+import com.srecko.reddit.posts.cache.PostCache;
+import com.srecko.reddit.posts.entity.Post;
+import com.srecko.reddit.posts.ranking.PostRankingIndex;
+import com.srecko.reddit.posts.repository.PostRepository;
+import com.srecko.reddit.posts.searchindex.PostIndexPublisher;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * The type Post counter buffer. Accumulates comment counter and vote deltas of posts in memory
+ * and periodically writes them as batched relative updates, instead of loading and saving the
+ * post for every single change. Pending deltas are written on shutdown.
+ *
+ * @author Srecko Nikolic
+ */
+@Component
+public class PostCounterBuffer {
+
+  private static final String UPDATE_COMMENTS_COUNTER =
+      "update posts set comments_counter = comments_counter + ? where id = ?";
+
+  private static final String UPDATE_VOTES = "update posts set votes = votes + ? where id = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final PostRepository postRepository;
+  private final PostRankingIndex postRankingIndex;
+  private final PostCache postCache;
+  private final PostIndexPublisher postIndexPublisher;
+  private final Timer flushTimer;
+
+  private final CounterAccumulator commentsCounters = new CounterAccumulator();
+  private final CounterAccumulator votes = new CounterAccumulator();
+  // Flushing waits on the database, which would pin the carrier of a virtual thread in a
+  // synchronized method.
+  private final ReentrantLock flushLock = new ReentrantLock();
+
+  private static final Logger logger = LogManager.getLogger(PostCounterBuffer.class);
+
+  /**
+   * Instantiates a new Post counter buffer.
+   *
+   * @param jdbcTemplate       the jdbc template
+   * @param transactionManager the transaction manager
+   * @param postRepository     the post repository
+   * @param postRankingIndex   the post ranking index
+   * @param postCache          the post cache
+   * @param postIndexPublisher the post index publisher
+   * @param meterRegistry      the meter registry
+   */
+  @Autowired
+  public PostCounterBuffer(JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager,
+      PostRepository postRepository,
+      PostRankingIndex postRankingIndex,
+      PostCache postCache,
+      PostIndexPublisher postIndexPublisher,
+      MeterRegistry meterRegistry) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.postRepository = postRepository;
+    this.postRankingIndex = postRankingIndex;
+    this.postCache = postCache;
+    this.postIndexPublisher = postIndexPublisher;
+    this.flushTimer = Timer.builder("posts.counters.flush")
+        .description("Time taken to write pending post counter deltas")
+        .register(meterRegistry);
+    Gauge.builder("posts.counters.pending", commentsCounters, CounterAccumulator::pending)
+        .description("Posts with pending counter deltas")
+        .tag("counter", "comments")
+        .register(meterRegistry);
+    Gauge.builder("posts.counters.pending", votes, CounterAccumulator::pending)
+        .description("Posts with pending counter deltas")
+        .tag("counter", "votes")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Adds a delta to the comments counter of a post.
+   *
+   * @param postId the post id
+   * @param delta  the delta
+   */
+  public void addComments(Long postId, int delta) {
+    commentsCounters.add(postId, delta);
+  }
+
+  /**
+   * Adds a delta to the votes of a post.
+   *
+   * @param postId the post id
+   * @param delta  the delta
+   */
+  public void addVotes(Long postId, int delta) {
+    votes.add(postId, delta);
+  }
+
+  /**
+   * Writes all pending deltas. Deltas that could not be written are kept for the next flush.
+   */
+  @Scheduled(fixedDelayString = "${posts.counters.flush-interval:1000}")
+  public void flush() {
+    flushLock.lock();
+    try {
+      flushPending();
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  private void flushPending() {
+    Map<Long, Long> comments = commentsCounters.drain();
+    Map<Long, Long> votesDeltas = votes.drain();
+    if (comments.isEmpty() && votesDeltas.isEmpty()) {
+      return;
+    }
+    try {
+      flushTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+        update(UPDATE_COMMENTS_COUNTER, comments);
+        update(UPDATE_VOTES, votesDeltas);
+      }));
+    } catch (RuntimeException e) {
+      logger.error("Failed to write post counters, keeping them for the next flush", e);
+      comments.forEach(commentsCounters::add);
+      votesDeltas.forEach(votes::add);
+      return;
+    }
+    Set<Long> changed = new HashSet<>(comments.keySet());
+    changed.addAll(votesDeltas.keySet());
+    postCache.evictAll(changed);
+    // Relative updates skip the entity listeners, so the search index is told here
+    for (Post post : postRepository.findAllById(changed)) {
+      postRankingIndex.onPostChanged(post);
+      postIndexPublisher.onPostSaved(post);
+    }
+  }
+
+  /**
+   * Writes pending deltas before the application stops.
+   */
+  @PreDestroy
+  public void flushOnShutdown() {
+    logger.info("Writing pending post counters before shutdown");
+    flush();
+  }
+
+  private void update(String sql, Map<Long, Long> deltas) {
+    if (deltas.isEmpty()) {
+      return;
+    }
+    List<Object[]> arguments = new ArrayList<>(deltas.size());
+    deltas.forEach((postId, delta) -> arguments.add(new Object[]{delta, postId}));
+    int[] updated = jdbcTemplate.batchUpdate(sql, arguments);
+    for (int i = 0; i < updated.length; i++) {
+      if (updated[i] == 0) {
+        logger.warn("Post {} no longer exists, dropping its counter delta", arguments.get(i)[1]);
+      }
+    }
+  }
+}
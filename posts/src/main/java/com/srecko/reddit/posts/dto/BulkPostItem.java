@@ -0,0 +1,142 @@
+package com.srecko.reddit.posts.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.Date;
+
+/**
+ * The type Bulk post item. One post of a bulk ingest. Unlike a post created through the regular
+ * endpoint it names its author and may carry its original date of creation.
+ *
+ * @author Srecko Nikolic
+ */
+public class BulkPostItem {
+
+  @NotNull
+  private Long userId;
+
+  @NotNull
+  private Long subredditId;
+
+  @NotEmpty
+  @Size(min = 3, max = 35)
+  private String title;
+
+  @NotEmpty
+  @Size(min = 2, max = 1000)
+  private String text;
+
+  private Date dateOfCreation;
+
+  /**
+   * Instantiates a new Bulk post item.
+   */
+  public BulkPostItem() {
+  }
+
+  /**
+   * Instantiates a new Bulk post item.
+   *
+   * @param userId      the user id
+   * @param subredditId the subreddit id
+   * @param title       the title
+   * @param text        the text
+   */
+  public BulkPostItem(Long userId, Long subredditId, String title, String text) {
+    this.userId = userId;
+    this.subredditId = subredditId;
+    this.title = title;
+    this.text = text;
+  }
+
+  /**
+   * Gets user id.
+   *
+   * @return the user id
+   */
+  public Long getUserId() {
+    return userId;
+  }
+
+  /**
+   * Sets user id.
+   *
+   * @param userId the user id
+   */
+  public void setUserId(Long userId) {
+    this.userId = userId;
+  }
+
+  /**
+   * Gets subreddit id.
+   *
+   * @return the subreddit id
+   */
+  public Long getSubredditId() {
+    return subredditId;
+  }
+
+  /**
+   * Sets subreddit id.
+   *
+   * @param subredditId the subreddit id
+   */
+  public void setSubredditId(Long subredditId) {
+    this.subredditId = subredditId;
+  }
+
+  /**
+   * Gets title.
+   *
+   * @return the title
+   */
+  public String getTitle() {
+    return title;
+  }
+
+  /**
+   * Sets title.
+   *
+   * @param title the title
+   */
+  public void setTitle(String title) {
+    this.title = title;
+  }
+
+  /**
+   * Gets text.
+   *
+   * @return the text
+   */
+  public String getText() {
+    return text;
+  }
+
+  /**
+   * Sets text.
+   *
+   * @param text the text
+   */
+  public void setText(String text) {
+    this.text = text;
+  }
+
+  /**
+   * Gets date of creation, null to use the time of the ingest.
+   *
+   * @return the date of creation
+   */
+  public Date getDateOfCreation() {
+    return dateOfCreation;
+  }
+
+  /**
+   * Sets date of creation.
+   *
+   * @param dateOfCreation the date of creation
+   */
+  public void setDateOfCreation(Date dateOfCreation) {
+    this.dateOfCreation = dateOfCreation;
+  }
+}
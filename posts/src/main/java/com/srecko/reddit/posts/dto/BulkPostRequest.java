@@ -0,0 +1,57 @@
+package com.srecko.reddit.posts.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * The type Bulk post request. The posts are not validated together with the request, each one
+ * is validated on its own and reported in its result.
+ *
+ * @author Srecko Nikolic
+ */
+public class BulkPostRequest {
+
+  /**
+   * The maximum number of posts in one request.
+   */
+  public static final int MAX_POSTS = 1000;
+
+  @NotEmpty
+  @Size(max = MAX_POSTS)
+  private List<@NotNull BulkPostItem> posts;
+
+  /**
+   * Instantiates a new Bulk post request.
+   */
+  public BulkPostRequest() {
+  }
+
+  /**
+   * Instantiates a new Bulk post request.
+   *
+   * @param posts the posts
+   */
+  public BulkPostRequest(List<BulkPostItem> posts) {
+    this.posts = posts;
+  }
+
+  /**
+   * Gets posts.
+   *
+   * @return the posts
+   */
+  public List<BulkPostItem> getPosts() {
+    return posts;
+  }
+
+  /**
+   * Sets posts.
+   *
+   * @param posts the posts
+   */
+  public void setPosts(List<BulkPostItem> posts) {
+    this.posts = posts;
+  }
+}
@@ -0,0 +1,90 @@
+package com.srecko.reddit.posts.dto;
+
+import java.util.List;
+
+/**
+ * The type Bulk post response. One result per requested post, in request order.
+ *
+ * @author Srecko Nikolic
+ */
+public class BulkPostResponse {
+
+  private int created;
+
+  private int rejected;
+
+  private List<BulkPostResult> results;
+
+  /**
+   * Instantiates a new Bulk post response.
+   */
+  public BulkPostResponse() {
+  }
+
+  /**
+   * Instantiates a new Bulk post response.
+   *
+   * @param created  the number of created posts
+   * @param rejected the number of rejected posts
+   * @param results  the results
+   */
+  public BulkPostResponse(int created, int rejected, List<BulkPostResult> results) {
+    this.created = created;
+    this.rejected = rejected;
+    this.results = results;
+  }
+
+  /**
+   * Gets created.
+   *
+   * @return the created
+   */
+  public int getCreated() {
+    return created;
+  }
+
+  /**
+   * Sets created.
+   *
+   * @param created the created
+   */
+  public void setCreated(int created) {
+    this.created = created;
+  }
+
+  /**
+   * Gets rejected.
+   *
+   * @return the rejected
+   */
+  public int getRejected() {
+    return rejected;
+  }
+
+  /**
+   * Sets rejected.
+   *
+   * @param rejected the rejected
+   */
+  public void setRejected(int rejected) {
+    this.rejected = rejected;
+  }
+
+  /**
+   * Gets results.
+   *
+   * @return the results
+   */
+  public List<BulkPostResult> getResults() {
+    return results;
+  }
+
+  /**
+   * Sets results.
+   *
+   * @param results the results
+   */
+  public void setResults(List<BulkPostResult> results) {
+    this.results = results;
+  }
+}
@@ -0,0 +1,89 @@
+package com.srecko.reddit.posts.dto;
+
+/**
+ * The type Bulk post result. The outcome of one post of a bulk ingest: the id it was stored
+ * under, or the reason it was rejected.
+ *
+ * @author Srecko Nikolic
+ */
+public class BulkPostResult {
+
+  private int index;
+
+  private Long postId;
+
+  private String error;
+
+  /**
+   * Instantiates a new Bulk post result.
+   */
+  public BulkPostResult() {
+  }
+
+  /**
+   * Instantiates a new Bulk post result.
+   *
+   * @param index  the index of the post in the request
+   * @param postId the post id, null if rejected
+   * @param error  the error, null if created
+   */
+  public BulkPostResult(int index, Long postId, String error) {
+    this.index = index;
+    this.postId = postId;
+    this.error = error;
+  }
+
+  /**
+   * Gets index.
+   *
+   * @return the index
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  /**
+   * Sets index.
+   *
+   * @param index the index
+   */
+  public void setIndex(int index) {
+    this.index = index;
+  }
+
+  /**
+   * Gets post id.
+   *
+   * @return the post id
+   */
+  public Long getPostId() {
+    return postId;
+  }
+
+  /**
+   * Sets post id.
+   *
+   * @param postId the post id
+   */
+  public void setPostId(Long postId) {
+    this.postId = postId;
+  }
+
+  /**
+   * Gets error.
+   *
+   * @return the error
+   */
+  public String getError() {
+    return error;
+  }
+
+  /**
+   * Sets error.
+   *
+   * @param error the error
+   */
+  public void setError(String error) {
+    this.error = error;
+  }
+}
@@ -0,0 +1,56 @@
+package com.srecko.reddit.posts.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * The type Post batch request.
+ *
+ * @author Srecko Nikolic
+ */
+public class PostBatchRequest {
+
+  /**
+   * The maximum number of ids in one request.
+   */
+  public static final int MAX_IDS = 500;
+
+  @NotEmpty
+  @Size(max = MAX_IDS)
+  private List<@NotNull Long> ids;
+
+  /**
+   * Instantiates a new Post batch request.
+   */
+  public PostBatchRequest() {
+  }
+
+  /**
+   * Instantiates a new Post batch request.
+   *
+   * @param ids the ids
+   */
+  public PostBatchRequest(List<Long> ids) {
+    this.ids = ids;
+  }
+
+  /**
+   * Gets ids.
+   *
+   * @return the ids
+   */
+  public List<Long> getIds() {
+    return ids;
+  }
+
+  /**
+   * Sets ids.
+   *
+   * @param ids the ids
+   */
+  public void setIds(List<Long> ids) {
+    this.ids = ids;
+  }
+}
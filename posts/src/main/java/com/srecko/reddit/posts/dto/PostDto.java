@@ -32,6 +32,30 @@ public class PostDto {
   public PostDto() {
   }
 
+  /**
+   * Instantiates a new Post dto. Used by the projection queries of the post repository.
+   *
+   * @param id              the id
+   * @param dateOfCreation  the date of creation
+   * @param title           the title
+   * @param text            the text
+   * @param votes           the votes
+   * @param commentsCounter the comments counter
+   * @param userId          the user id
+   * @param subredditId     the subreddit id
+   */
+  public PostDto(Long id, Date dateOfCreation, String title, String text, int votes,
+      int commentsCounter, Long userId, Long subredditId) {
+    this.id = id;
+    this.dateOfCreation = dateOfCreation;
+    this.title = title;
+    this.text = text;
+    this.votes = votes;
+    this.commentsCounter = commentsCounter;
+    this.userId = userId;
+    this.subredditId = subredditId;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -0,0 +1,89 @@
+package com.srecko.reddit.posts.dto;
+
+/**
+ * The type Post index event. A change of a post sent to the search service. Deletions only carry
+ * the id.
+ *
+ * @author Srecko Nikolic
+ */
+public class PostIndexEvent {
+
+  private IndexEventType type;
+
+  private Long id;
+
+  private PostDto document;
+
+  /**
+   * Instantiates a new Post index event.
+   */
+  public PostIndexEvent() {
+  }
+
+  /**
+   * Instantiates a new Post index event.
+   *
+   * @param type     the type
+   * @param id       the id
+   * @param document the document
+   */
+  public PostIndexEvent(IndexEventType type, Long id, PostDto document) {
+    this.type = type;
+    this.id = id;
+    this.document = document;
+  }
+
+  /**
+   * Gets type.
+   *
+   * @return the type
+   */
+  public IndexEventType getType() {
+    return type;
+  }
+
+  /**
+   * Sets type.
+   *
+   * @param type the type
+   */
+  public void setType(IndexEventType type) {
+    this.type = type;
+  }
+
+  /**
+   * Gets id.
+   *
+   * @return the id
+   */
+  public Long getId() {
+    return id;
+  }
+
+  /**
+   * Sets id.
+   *
+   * @param id the id
+   */
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  /**
+   * Gets document.
+   *
+   * @return the document
+   */
+  public PostDto getDocument() {
+    return document;
+  }
+
+  /**
+   * Sets document.
+   *
+   * @param document the document
+   */
+  public void setDocument(PostDto document) {
+    this.document = document;
+  }
+}
@@ -0,0 +1,86 @@
+package com.srecko.reddit.posts.dto;
+
+import java.util.Objects;
+
+/**
+ * The type Subscription dto. A subreddit a user is subscribed to, as returned by the subreddits
+ * service.
+ *
+ * @author Srecko Nikolic
+ */
+public class SubscriptionDto {
+
+  private Long subredditId;
+
+  private int numberOfUsers;
+
+  /**
+   * Instantiates a new Subscription dto.
+   */
+  public SubscriptionDto() {
+  }
+
+  /**
+   * Instantiates a new Subscription dto.
+   *
+   * @param subredditId   the subreddit id
+   * @param numberOfUsers the number of users
+   */
+  public SubscriptionDto(Long subredditId, int numberOfUsers) {
+    this.subredditId = subredditId;
+    this.numberOfUsers = numberOfUsers;
+  }
+
+  /**
+   * Gets subreddit id.
+   *
+   * @return the subreddit id
+   */
+  public Long getSubredditId() {
+    return subredditId;
+  }
+
+  /**
+   * Sets subreddit id.
+   *
+   * @param subredditId the subreddit id
+   */
+  public void setSubredditId(Long subredditId) {
+    this.subredditId = subredditId;
+  }
+
+  /**
+   * Gets number of users.
+   *
+   * @return the number of users
+   */
+  public int getNumberOfUsers() {
+    return numberOfUsers;
+  }
+
+  /**
+   * Sets number of users.
+   *
+   * @param numberOfUsers the number of users
+   */
+  public void setNumberOfUsers(int numberOfUsers) {
+    this.numberOfUsers = numberOfUsers;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    SubscriptionDto that = (SubscriptionDto) o;
+    return numberOfUsers == that.numberOfUsers && Objects.equals(subredditId, that.subredditId);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(subredditId, numberOfUsers);
+  }
+}
@@ -1,8 +1,14 @@
 package com.srecko.reddit.posts.entity;
 
+import com.srecko.reddit.posts.bloom.PostIdFilterListener;
+import com.srecko.reddit.posts.searchindex.PostIndexListener;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Size;
@@ -14,11 +20,26 @@ import java.util.Date;
  * @author Srecko Nikolic
  */
 @Entity
-@Table(name = "posts")
+@EntityListeners({PostIdFilterListener.class, PostIndexListener.class})
+@Table(name = "posts", indexes = {
+    @Index(name = "idx_posts_subreddit_created", columnList = "subredditId, dateOfCreation, id"),
+    @Index(name = "idx_posts_user_created", columnList = "userId, dateOfCreation, id")
+})
 public class Post {
 
+  /**
+   * The number of ids reserved from the sequence at a time.
+   */
+  public static final int ID_ALLOCATION_SIZE = 50;
+
+  /**
+   * Ids come from a pooled sequence, one round trip hands out a block of them, so inserts can be
+   * sent to the database in JDBC batches.
+   */
   @Id
-  @GeneratedValue
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "posts_seq")
+  @SequenceGenerator(name = "posts_seq", sequenceName = "posts_SEQ",
+      allocationSize = Post.ID_ALLOCATION_SIZE)
   private Long id;
 
   private Date dateOfCreation;
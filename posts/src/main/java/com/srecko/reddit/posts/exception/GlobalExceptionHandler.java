@@ -52,4 +52,30 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
     return new ResponseEntity<>(new ExceptionResponse(exception.getMessage(), LocalDateTime.now()),
         HttpStatus.NOT_FOUND);
   }
+
+  /**
+   * Handle invalid cursor exception response entity.
+   *
+   * @param exception the exception
+   * @return the response entity
+   */
+  @ExceptionHandler(InvalidCursorException.class)
+  public ResponseEntity<?> handleInvalidCursorException(InvalidCursorException exception) {
+    logger.debug("Handling {}", InvalidCursorException.class);
+    return new ResponseEntity<>(new ExceptionResponse(exception.getMessage(), LocalDateTime.now()),
+        HttpStatus.BAD_REQUEST);
+  }
+
+  /**
+   * Handle remote call timeout exception response entity.
+   *
+   * @param exception the exception
+   * @return the response entity
+   */
+  @ExceptionHandler(RemoteCallTimeoutException.class)
+  public ResponseEntity<?> handleRemoteCallTimeoutException(RemoteCallTimeoutException exception) {
+    logger.debug("Handling {}", RemoteCallTimeoutException.class);
+    return new ResponseEntity<>(new ExceptionResponse(exception.getMessage(), LocalDateTime.now()),
+        HttpStatus.GATEWAY_TIMEOUT);
+  }
 }
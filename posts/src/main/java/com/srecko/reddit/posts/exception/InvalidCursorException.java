@@ -0,0 +1,24 @@
+package com.srecko.reddit.posts.exception;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The type Invalid cursor exception.
+ *
+ * @author Srecko Nikolic
+ */
+public class InvalidCursorException extends RuntimeException {
+
+  private static final Logger logger = LogManager.getLogger(InvalidCursorException.class);
+
+  /**
+   * Instantiates a new Invalid cursor exception.
+   *
+   * @param cursor the cursor
+   */
+  public InvalidCursorException(String cursor) {
+    super("Cursor " + cursor + " is not valid.");
+    logger.error("Invalid cursor: {}", cursor);
+  }
+}
@@ -0,0 +1,23 @@
+package com.srecko.reddit.posts.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The interface Export target. Opens the stream an export is written to. It is opened only once
+ * the export is known to succeed, so a request that fails early can still be answered with an
+ * error response.
+ *
+ * @author Srecko Nikolic
+ */
+@FunctionalInterface
+public interface ExportTarget {
+
+  /**
+   * Opens the output stream.
+   *
+   * @return the output stream
+   * @throws IOException if the stream cannot be opened
+   */
+  OutputStream open() throws IOException;
+}
@@ -0,0 +1,90 @@
+package com.srecko.reddit.posts.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.srecko.reddit.posts.dto.PostDto;
+import com.srecko.reddit.posts.repository.PostRepository;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * The type Post exporter. Writes all posts of a subreddit as newline delimited JSON, one post
+ * per line in id order. Rows are read through a forward only cursor straight into post dtos and
+ * written as they arrive, so the memory used does not depend on the number of posts. It has to
+ * run inside a transaction that stays open until the export is written.
+ *
+ * @author Srecko Nikolic
+ */
+@Component
+public class PostExporter {
+
+  /**
+   * The media type of the export.
+   */
+  public static final String MEDIA_TYPE = "application/x-ndjson";
+
+  private final PostRepository postRepository;
+  private final ObjectMapper objectMapper;
+  private final int fetchSize;
+  private final int flushEvery;
+
+  private static final Logger logger = LogManager.getLogger(PostExporter.class);
+
+  /**
+   * Instantiates a new Post exporter.
+   *
+   * @param postRepository the post repository
+   * @param objectMapper   the object mapper
+   * @param fetchSize      the number of rows fetched from the database at a time
+   * @param flushEvery     the number of posts written between flushes of the output
+   */
+  @Autowired
+  public PostExporter(PostRepository postRepository, ObjectMapper objectMapper,
+      @Value("${posts.export.fetch-size:1000}") int fetchSize,
+      @Value("${posts.export.flush-every:1000}") int flushEvery) {
+    this.postRepository = postRepository;
+    this.objectMapper = objectMapper.copy().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    this.fetchSize = fetchSize;
+    this.flushEvery = flushEvery;
+  }
+
+  /**
+   * Exports posts of a subreddit.
+   *
+   * @param subredditId the subreddit id
+   * @param target      the export target
+   * @return the number of exported posts
+   * @throws IOException if writing the export fails
+   */
+  public long exportSubreddit(Long subredditId, ExportTarget target) throws IOException {
+    long count = 0;
+    try (Stream<PostDto> posts = postRepository.streamPostDtosBySubredditId(subredditId,
+        fetchSize);
+        OutputStream outputStream = target.open();
+        SequenceWriter writer = objectMapper.writer()
+            .withRootValueSeparator("\n")
+            .writeValues(outputStream)) {
+      Iterator<PostDto> iterator = posts.iterator();
+      while (iterator.hasNext()) {
+        writer.write(iterator.next());
+        if (++count % flushEvery == 0) {
+          writer.flush();
+        }
+      }
+      writer.flush();
+      if (count > 0) {
+        outputStream.write('\n');
+      }
+    }
+    logger.info("Exported {} posts of subreddit: {}", count, subredditId);
+    return count;
+  }
+}
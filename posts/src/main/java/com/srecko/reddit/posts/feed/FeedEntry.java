@@ -0,0 +1,65 @@
+package com.srecko.reddit.posts.feed;
+
+import java.util.Comparator;
+import java.util.Date;
+
+/**
+ * The type Feed entry. The part of a post a home feed is ordered by.
+ *
+ * @author Srecko Nikolic
+ */
+public class FeedEntry {
+
+  /**
+   * Orders entries newest first, breaking ties by id.
+   */
+  public static final Comparator<FeedEntry> NEWEST_FIRST = Comparator
+      .comparingLong(FeedEntry::getCreated).reversed()
+      .thenComparing(FeedEntry::getPostId, Comparator.reverseOrder());
+
+  private final Long postId;
+
+  private final Long subredditId;
+
+  private final long created;
+
+  /**
+   * Instantiates a new Feed entry. Used by the projection queries of the post repository.
+   *
+   * @param postId         the post id
+   * @param subredditId    the subreddit id
+   * @param dateOfCreation the date of creation
+   */
+  public FeedEntry(Long postId, Long subredditId, Date dateOfCreation) {
+    this.postId = postId;
+    this.subredditId = subredditId;
+    this.created = dateOfCreation == null ? System.currentTimeMillis() : dateOfCreation.getTime();
+  }
+
+  /**
+   * Gets post id.
+   *
+   * @return the post id
+   */
+  public Long getPostId() {
+    return postId;
+  }
+
+  /**
+   * Gets subreddit id.
+   *
+   * @return the subreddit id
+   */
+  public Long getSubredditId() {
+    return subredditId;
+  }
+
+  /**
+   * Gets creation time in epoch millis.
+   *
+   * @return the created
+   */
+  public long getCreated() {
+    return created;
+  }
+}
@@ -0,0 +1,75 @@
+package com.srecko.reddit.posts.feed;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The type Feed timeline. A bounded, newest first list of feed entries that can be read while it
+ * is written to. Once it is full, adding an entry drops the oldest one.
+ *
+ * @author Srecko Nikolic
+ */
+public class FeedTimeline {
+
+  private final NavigableSet<FeedEntry> entries =
+      new ConcurrentSkipListSet<>(FeedEntry.NEWEST_FIRST);
+  private final AtomicInteger size = new AtomicInteger();
+  private final int capacity;
+
+  /**
+   * Instantiates a new Feed timeline.
+   *
+   * @param capacity the maximum number of entries
+   * @param entries  the initial entries
+   */
+  public FeedTimeline(int capacity, Collection<FeedEntry> entries) {
+    this.capacity = capacity;
+    entries.forEach(this::add);
+  }
+
+  /**
+   * Adds an entry.
+   *
+   * @param entry the entry
+   */
+  public void add(FeedEntry entry) {
+    if (!entries.add(entry)) {
+      return;
+    }
+    if (size.incrementAndGet() > capacity && entries.pollLast() != null) {
+      size.decrementAndGet();
+    }
+  }
+
+  /**
+   * Removes an entry.
+   *
+   * @param entry the entry
+   */
+  public void remove(FeedEntry entry) {
+    if (entries.remove(entry)) {
+      size.decrementAndGet();
+    }
+  }
+
+  /**
+   * Gets an iterator over the entries, newest first.
+   *
+   * @return the iterator
+   */
+  public Iterator<FeedEntry> iterator() {
+    return entries.iterator();
+  }
+
+  /**
+   * Gets the number of entries.
+   *
+   * @return the size
+   */
+  public int size() {
+    return Math.max(0, size.get());
+  }
+}
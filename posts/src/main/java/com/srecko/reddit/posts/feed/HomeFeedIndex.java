@@ -0,0 +1,316 @@
+package com.srecko.reddit.posts.feed;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.srecko.reddit.posts.dto.SubscriptionDto;
+import com.srecko.reddit.posts.entity.Post;
+import com.srecko.reddit.posts.ranking.RankedPage;
+import com.srecko.reddit.posts.repository.PostRepository;
+import com.srecko.reddit.posts.service.client.SubredditsFeignClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * The type Home feed index. Serves the home feed of a user, the newest posts of all subreddits
+ * they are subscribed to, without querying every subscribed subreddit on each read.
+ *
+ * <p>Users that read their feed often get it materialized: the newest posts of their subscribed
+ * subreddits are loaded once and every new post is pushed to them as it is created. Subreddits
+ * with more subscribers than the huge subreddit threshold are never pushed, since one post would
+ * have to be copied to too many feeds. Their newest posts are kept once per subreddit instead and
+ * merged into the feeds of their subscribers on read. Feeds of occasional readers are merged on
+ * read from a single query over their subscribed subreddits.
+ *
+ * <p>The subscriptions of a user are kept for the subscription refresh interval, and so are
+ * materialized feeds, so subscriptions made after they were loaded show up once they are loaded
+ * again. A feed is materialized by one read at a time, reads meanwhile merge it on read.
+ *
+ * @author Srecko Nikolic
+ */
+@Component
+public class HomeFeedIndex {
+
+  private static final Sort NEWEST_FIRST =
+      Sort.by(Direction.DESC, "dateOfCreation").and(Sort.by(Direction.DESC, "id"));
+
+  private final PostRepository postRepository;
+  private final SubredditsFeignClient subredditsFeignClient;
+  private final int depth;
+  private final int hugeSubredditUsers;
+  private final int heavyReaderReads;
+
+  private final Cache<Long, AtomicInteger> reads;
+  private final Cache<Long, Subscriptions> subscriptions;
+  private final Set<Long> materializing = ConcurrentHashMap.newKeySet();
+  private final Cache<Long, UserFeed> feeds;
+  private final Cache<Long, FeedTimeline> hugeSubreddits;
+  private final Map<Long, Set<UserFeed>> followers = new ConcurrentHashMap<>();
+
+  private static final Logger logger = LogManager.getLogger(HomeFeedIndex.class);
+
+  /**
+   * Instantiates a new Home feed index.
+   *
+   * @param postRepository         the post repository
+   * @param subredditsFeignClient  the subreddits feign client
+   * @param depth                  the maximum number of posts in a feed
+   * @param hugeSubredditUsers     the number of subscribers from which a subreddit is huge
+   * @param heavyReaderReads       the number of reads in an hour from which a feed is materialized
+   * @param maxMaterializedUsers   the maximum number of materialized feeds
+   * @param subscriptionsRefresh   the time after which subscriptions and a materialized feed are
+   *                               loaded again
+   */
+  @Autowired
+  public HomeFeedIndex(PostRepository postRepository,
+      SubredditsFeignClient subredditsFeignClient,
+      @Value("${posts.feed.depth:500}") int depth,
+      @Value("${posts.feed.huge-subreddit-users:10000}") int hugeSubredditUsers,
+      @Value("${posts.feed.heavy-reader-reads:3}") int heavyReaderReads,
+      @Value("${posts.feed.max-materialized-users:10000}") long maxMaterializedUsers,
+      @Value("${posts.feed.subscriptions-refresh:PT1M}") Duration subscriptionsRefresh) {
+    this.postRepository = postRepository;
+    this.subredditsFeignClient = subredditsFeignClient;
+    this.depth = depth;
+    this.hugeSubredditUsers = hugeSubredditUsers;
+    this.heavyReaderReads = heavyReaderReads;
+    this.reads = Caffeine.newBuilder()
+        .expireAfterWrite(Duration.ofHours(1))
+        .maximumSize(10 * maxMaterializedUsers)
+        .build();
+    this.subscriptions = Caffeine.newBuilder()
+        .expireAfterWrite(subscriptionsRefresh)
+        .maximumSize(10 * maxMaterializedUsers)
+        .build();
+    this.feeds = Caffeine.newBuilder()
+        .expireAfterWrite(subscriptionsRefresh)
+        .maximumSize(maxMaterializedUsers)
+        .removalListener((Long userId, UserFeed feed, RemovalCause cause) -> unfollow(feed))
+        .build();
+    this.hugeSubreddits = Caffeine.newBuilder()
+        .expireAfterAccess(Duration.ofHours(1))
+        .build();
+  }
+
+  /**
+   * Gets one page of the home feed of a user.
+   *
+   * @param userId the user id
+   * @param offset the offset
+   * @param size   the page size
+   * @return the page of post ids, newest first
+   */
+  public RankedPage getPage(Long userId, long offset, int size) {
+    UserFeed feed = feeds.getIfPresent(userId);
+    if (feed != null) {
+      return merge(feed.sources(), offset, size);
+    }
+    Subscriptions subscribed = getSubscriptions(userId);
+    AtomicInteger userReads = reads.get(userId, id -> new AtomicInteger());
+    if (userReads.incrementAndGet() >= heavyReaderReads && materializing.add(userId)) {
+      try {
+        feed = materialize(userId, subscribed.small(), subscribed.huge());
+      } finally {
+        materializing.remove(userId);
+      }
+      return merge(feed.sources(), offset, size);
+    }
+    int limit = (int) Math.min(depth, offset + size);
+    List<Iterator<FeedEntry>> sources = hugeSources(subscribed.huge());
+    sources.add(load(subscribed.small(), limit).iterator());
+    return merge(sources, offset, size);
+  }
+
+  /**
+   * Pushes a new post to the feeds that follow its subreddit once the current transaction
+   * commits.
+   *
+   * @param post the post
+   */
+  public void onPostCreated(Post post) {
+    FeedEntry entry = new FeedEntry(post.getId(), post.getSubredditId(),
+        post.getDateOfCreation());
+    afterCommit(() -> {
+      FeedTimeline timeline = hugeSubreddits.getIfPresent(entry.getSubredditId());
+      if (timeline != null) {
+        timeline.add(entry);
+      }
+      for (UserFeed feed : followers.getOrDefault(entry.getSubredditId(), Set.of())) {
+        feed.inbox.add(entry);
+      }
+    });
+  }
+
+  /**
+   * Removes a post from all feeds once the current transaction commits.
+   *
+   * @param post the post
+   */
+  public void onPostDeleted(Post post) {
+    FeedEntry entry = new FeedEntry(post.getId(), post.getSubredditId(),
+        post.getDateOfCreation());
+    afterCommit(() -> {
+      FeedTimeline timeline = hugeSubreddits.getIfPresent(entry.getSubredditId());
+      if (timeline != null) {
+        timeline.remove(entry);
+      }
+      for (UserFeed feed : followers.getOrDefault(entry.getSubredditId(), Set.of())) {
+        feed.inbox.remove(entry);
+      }
+    });
+  }
+
+  private Subscriptions getSubscriptions(Long userId) {
+    Subscriptions subscribed = subscriptions.getIfPresent(userId);
+    if (subscribed != null) {
+      return subscribed;
+    }
+    // Fetched outside the cache, so the call does not hold a lock of its map
+    List<Long> small = new ArrayList<>();
+    List<Long> huge = new ArrayList<>();
+    for (SubscriptionDto subscription : subredditsFeignClient.getSubscriptions(userId)) {
+      (subscription.getNumberOfUsers() >= hugeSubredditUsers ? huge : small)
+          .add(subscription.getSubredditId());
+    }
+    subscribed = new Subscriptions(small, huge);
+    subscriptions.put(userId, subscribed);
+    return subscribed;
+  }
+
+  private UserFeed materialize(Long userId, List<Long> small, List<Long> huge) {
+    logger.info("Materializing home feed of user {} with {} subreddits", userId,
+        small.size() + huge.size());
+    UserFeed feed = new UserFeed(new FeedTimeline(depth, List.of()), small, huge);
+    // Follow before loading, so posts created while loading are pushed instead of missed.
+    for (Long subredditId : small) {
+      followers.computeIfAbsent(subredditId, id -> ConcurrentHashMap.newKeySet()).add(feed);
+    }
+    load(small, depth).forEach(feed.inbox::add);
+    feeds.put(userId, feed);
+    return feed;
+  }
+
+  private void unfollow(UserFeed feed) {
+    for (Long subredditId : feed.small) {
+      followers.computeIfPresent(subredditId, (id, users) -> {
+        users.remove(feed);
+        return users.isEmpty() ? null : users;
+      });
+    }
+  }
+
+  private List<FeedEntry> load(Collection<Long> subredditIds, int limit) {
+    if (subredditIds.isEmpty() || limit <= 0) {
+      return List.of();
+    }
+    return postRepository.findFeedEntriesBySubredditIdIn(subredditIds,
+        PageRequest.of(0, limit, NEWEST_FIRST));
+  }
+
+  private List<Iterator<FeedEntry>> hugeSources(Collection<Long> subredditIds) {
+    List<Iterator<FeedEntry>> sources = new ArrayList<>(subredditIds.size() + 1);
+    for (Long subredditId : subredditIds) {
+      FeedTimeline timeline = hugeSubreddits.get(subredditId,
+          id -> new FeedTimeline(depth, load(List.of(id), depth)));
+      sources.add(timeline.iterator());
+    }
+    return sources;
+  }
+
+  private RankedPage merge(List<Iterator<FeedEntry>> sources, long offset, int size) {
+    PriorityQueue<Head> heads = new PriorityQueue<>(Math.max(1, sources.size()));
+    for (Iterator<FeedEntry> source : sources) {
+      if (source.hasNext()) {
+        heads.add(new Head(source.next(), source));
+      }
+    }
+    List<Long> postIds = new ArrayList<>(size);
+    long position = 0;
+    while (!heads.isEmpty() && position < depth && postIds.size() < size) {
+      Head head = heads.poll();
+      if (position++ >= offset) {
+        postIds.add(head.entry.getPostId());
+      }
+      if (head.source.hasNext()) {
+        heads.add(new Head(head.source.next(), head.source));
+      }
+    }
+    while (!heads.isEmpty() && position < depth) {
+      Head head = heads.poll();
+      position++;
+      if (head.source.hasNext()) {
+        heads.add(new Head(head.source.next(), head.source));
+      }
+    }
+    return new RankedPage(postIds, position);
+  }
+
+  private void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          action.run();
+        }
+      });
+    } else {
+      action.run();
+    }
+  }
+
+  private class UserFeed {
+
+    private final FeedTimeline inbox;
+    private final List<Long> small;
+    private final List<Long> huge;
+
+    private UserFeed(FeedTimeline inbox, List<Long> small, List<Long> huge) {
+      this.inbox = inbox;
+      this.small = small;
+      this.huge = huge;
+    }
+
+    private List<Iterator<FeedEntry>> sources() {
+      List<Iterator<FeedEntry>> sources = hugeSources(huge);
+      sources.add(inbox.iterator());
+      return sources;
+    }
+  }
+
+  private record Subscriptions(List<Long> small, List<Long> huge) {
+  }
+
+  private static class Head implements Comparable<Head> {
+
+    private final FeedEntry entry;
+    private final Iterator<FeedEntry> source;
+
+    private Head(FeedEntry entry, Iterator<FeedEntry> source) {
+      this.entry = entry;
+      this.source = source;
+    }
+
+    @Override
+    public int compareTo(Head other) {
+      return FeedEntry.NEWEST_FIRST.compare(entry, other.entry);
+    }
+  }
+}
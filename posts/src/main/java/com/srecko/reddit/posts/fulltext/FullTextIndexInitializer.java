@@ -0,0 +1,72 @@
+package com.srecko.reddit.posts.fulltext;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * The type Full text index initializer. Creates the full-text index on the titles of posts that
+ * post searches go through when <code>posts.search.full-text.enabled</code> is set. It runs once
+ * the entity manager factory has created the schema and leaves an existing index alone.
+ *
+ * @author Srecko Nikolic
+ */
+@Component
+public class FullTextIndexInitializer {
+
+  /**
+   * The table searched.
+   */
+  public static final String TABLE = "posts";
+
+  /**
+   * The column searched.
+   */
+  public static final String COLUMN = "title";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final FullTextDialect dialect;
+  private final boolean enabled;
+
+  private static final Logger logger = LogManager.getLogger(FullTextIndexInitializer.class);
+
+  /**
+   * Instantiates a new Full text index initializer.
+   *
+   * @param dataSource           the data source
+   * @param entityManagerFactory the entity manager factory
+   * @param enabled              whether posts are searched through the full-text index
+   */
+  @Autowired
+  public FullTextIndexInitializer(DataSource dataSource,
+      EntityManagerFactory entityManagerFactory,
+      @Value("${posts.search.full-text.enabled:false}") boolean enabled) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.dialect = enabled ? FullTextDialect.of(entityManagerFactory) : null;
+    this.enabled = enabled;
+  }
+
+  /**
+   * Creates the index unless it exists.
+   */
+  @PostConstruct
+  public void createIndex() {
+    if (!enabled) {
+      return;
+    }
+    String exists = dialect.indexExists(TABLE, COLUMN);
+    if (exists != null && jdbcTemplate.queryForObject(exists, Long.class) > 0) {
+      return;
+    }
+    logger.info("Creating the {} full-text index on {}.{}", dialect, TABLE, COLUMN);
+    for (String statement : dialect.createIndex(TABLE, COLUMN)) {
+      jdbcTemplate.execute(statement);
+    }
+  }
+}
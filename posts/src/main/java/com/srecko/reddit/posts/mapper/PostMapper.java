@@ -0,0 +1,23 @@
+package com.srecko.reddit.posts.mapper;
+
+import com.srecko.reddit.posts.dto.PostDto;
+import com.srecko.reddit.posts.entity.Post;
+import org.mapstruct.Mapper;
+
+/**
+ * The interface Post mapper. The implementation is generated at compile time, so mapping is plain
+ * getter and setter calls without reflection.
+ *
+ * @author Srecko Nikolic
+ */
+@Mapper(componentModel = "spring")
+public interface PostMapper {
+
+  /**
+   * Maps a post to a post dto.
+   *
+   * @param post the post
+   * @return the post dto
+   */
+  PostDto toDto(Post post);
+}
@@ -0,0 +1,54 @@
+package com.srecko.reddit.posts.pagination;
+
+import java.util.List;
+
+/**
+ * The type Keyset page. One page of a keyset listing and the cursor of the page after it.
+ *
+ * @param <T> the type of content
+ * @author Srecko Nikolic
+ */
+public class KeysetPage<T> {
+
+  private final List<T> content;
+
+  private final String nextCursor;
+
+  /**
+   * Instantiates a new Keyset page.
+   *
+   * @param content    the content
+   * @param nextCursor the next cursor, null if this is the last page
+   */
+  public KeysetPage(List<T> content, String nextCursor) {
+    this.content = content;
+    this.nextCursor = nextCursor;
+  }
+
+  /**
+   * Gets content.
+   *
+   * @return the content
+   */
+  public List<T> getContent() {
+    return content;
+  }
+
+  /**
+   * Gets next cursor.
+   *
+   * @return the next cursor
+   */
+  public String getNextCursor() {
+    return nextCursor;
+  }
+
+  /**
+   * Checks if there is a page after this one.
+   *
+   * @return the boolean
+   */
+  public boolean hasNext() {
+    return nextCursor != null;
+  }
+}
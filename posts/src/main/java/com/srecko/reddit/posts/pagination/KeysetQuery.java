@@ -0,0 +1,154 @@
+package com.srecko.reddit.posts.pagination;
+
+import com.srecko.reddit.posts.exception.InvalidCursorException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * The type Keyset query. Reads a page by seeking past the last row of the previous page instead of
+ * skipping an offset, so every page costs the same as the first one as long as the filter columns,
+ * the sort property and the id are covered by an index. Sort properties must not be null.
+ *
+ * @author Srecko Nikolic
+ */
+public class KeysetQuery {
+
+  private KeysetQuery() {
+  }
+
+  /**
+   * Resolves the order of a keyset listing. The order stored in the cursor wins over the requested
+   * one, so a cursor always continues the listing it was taken from.
+   *
+   * @param pageable       the pageable
+   * @param cursor         the cursor, null for the first page
+   * @param availableSorts the available sorts
+   * @param defaultOrder   the default order
+   * @return the order
+   */
+  public static Sort.Order resolveOrder(Pageable pageable, Cursor cursor,
+      List<String> availableSorts, Sort.Order defaultOrder) {
+    if (cursor != null) {
+      if (!availableSorts.contains(cursor.getProperty())) {
+        throw new InvalidCursorException(cursor.getProperty());
+      }
+      return new Sort.Order(cursor.getDirection(), cursor.getProperty());
+    }
+    return pageable.getSort().stream()
+        .findFirst()
+        .filter(order -> availableSorts.contains(order.getProperty()))
+        .orElse(defaultOrder);
+  }
+
+  /**
+   * Finds one page of entities matching the filters, ordered by the given order and the id, and
+   * projects it into dtos through their constructor so no entity is loaded. The dto must have a
+   * constructor taking the selected properties in order and getters for the id and the sort
+   * property, which the next cursor is read from.
+   *
+   * @param <E>           the type of entity
+   * @param <D>           the type of dto
+   * @param entityManager the entity manager
+   * @param entityType    the entity type
+   * @param dtoType       the dto type
+   * @param selection     the entity properties passed to the dto constructor
+   * @param filters       the equality filters by property name
+   * @param order         the order
+   * @param after         the cursor, null for the first page
+   * @param size          the page size
+   * @return the keyset page
+   */
+  public static <E, D> KeysetPage<D> find(EntityManager entityManager, Class<E> entityType,
+      Class<D> dtoType, List<String> selection, Map<String, Object> filters, Sort.Order order,
+      Cursor after, int size) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<D> query = cb.createQuery(dtoType);
+    Root<E> root = query.from(entityType);
+    query.select(cb.construct(dtoType, selection.stream()
+        .map(root::get)
+        .toArray(Selection<?>[]::new)));
+    Path<Comparable<Object>> key = root.get(order.getProperty());
+    Path<Comparable<Object>> id = root.get("id");
+    boolean ascending = order.isAscending();
+
+    List<Predicate> predicates = new ArrayList<>();
+    filters.forEach((property, value) -> predicates.add(cb.equal(root.get(property), value)));
+    if (after != null) {
+      Comparable<Object> value = fromCursorValue(after.getValue(), key.getJavaType());
+      Comparable<Object> lastId = fromCursorValue(after.getId().toString(), id.getJavaType());
+      predicates.add(cb.or(
+          beyond(cb, key, value, ascending),
+          cb.and(cb.equal(key, value), beyond(cb, id, lastId, ascending))));
+    }
+    query.where(predicates.toArray(new Predicate[0]))
+        .orderBy(ascending ? cb.asc(key) : cb.desc(key), ascending ? cb.asc(id) : cb.desc(id));
+
+    List<D> rows = entityManager.createQuery(query)
+        .setMaxResults(size + 1)
+        .getResultList();
+    if (rows.size() <= size) {
+      return new KeysetPage<>(rows, null);
+    }
+    List<D> content = rows.subList(0, size);
+    BeanWrapperImpl last = new BeanWrapperImpl(content.get(size - 1));
+    Cursor next = new Cursor(order.getProperty(), order.getDirection(),
+        toCursorValue(last.getPropertyValue(order.getProperty())),
+        (Long) last.getPropertyValue("id"));
+    return new KeysetPage<>(List.copyOf(content), next.encode());
+  }
+
+  private static Predicate beyond(CriteriaBuilder cb, Expression<Comparable<Object>> expression,
+      Comparable<Object> value, boolean ascending) {
+    return ascending ? cb.greaterThan(expression, value) : cb.lessThan(expression, value);
+  }
+
+  private static String toCursorValue(Object value) {
+    if (value == null) {
+      return null;
+    }
+    if (value instanceof Date date) {
+      return Long.toString(date.getTime());
+    }
+    if (value instanceof Enum<?> constant) {
+      return constant.name();
+    }
+    return value.toString();
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static Comparable<Object> fromCursorValue(String value, Class<?> type) {
+    if (value == null) {
+      throw new InvalidCursorException("null");
+    }
+    try {
+      Object converted;
+      if (Date.class.isAssignableFrom(type)) {
+        converted = new Date(Long.parseLong(value));
+      } else if (type == Integer.class || type == int.class) {
+        converted = Integer.valueOf(value);
+      } else if (type == Long.class || type == long.class) {
+        converted = Long.valueOf(value);
+      } else if (type.isEnum()) {
+        converted = Enum.valueOf((Class<Enum>) type, value);
+      } else {
+        converted = value;
+      }
+      return (Comparable<Object>) converted;
+    } catch (IllegalArgumentException e) {
+      throw new InvalidCursorException(value);
+    }
+  }
+}
@@ -0,0 +1,196 @@
+package com.srecko.reddit.posts.ranking;
+
+import com.srecko.reddit.posts.entity.Post;
+import com.srecko.reddit.posts.repository.PostRepository;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * The type Post ranking index. Keeps hot, top and rising listings of every subreddit that has
+ * been read recently, so ranked pages are served without sorting the posts table. A subreddit is
+ * loaded on its first ranked read and then kept current by the post service, which reports every
+ * created, deleted or re-counted post. Posts reported while a subreddit is loading are held back
+ * and applied to its ranking before it is published, as the load queries may have read them
+ * before they changed.
+ *
+ * @author Srecko Nikolic
+ */
+@Component
+public class PostRankingIndex {
+
+  /**
+   * Rankings that were not read for this long are dropped and loaded again on the next read.
+   */
+  private static final Duration IDLE_EVICTION = Duration.ofHours(1);
+
+  private final PostRepository postRepository;
+  private final int capacity;
+
+  private final Map<Long, SubredditRanking> rankings = new ConcurrentHashMap<>();
+  private final Map<Long, ReentrantLock> loadLocks = new ConcurrentHashMap<>();
+  private final Map<Long, List<Consumer<SubredditRanking>>> pendingChanges =
+      new ConcurrentHashMap<>();
+
+  private static final Logger logger = LogManager.getLogger(PostRankingIndex.class);
+
+  /**
+   * Instantiates a new Post ranking index.
+   *
+   * @param postRepository the post repository
+   * @param capacity       the maximum number of posts served per listing
+   */
+  @Autowired
+  public PostRankingIndex(PostRepository postRepository,
+      @Value("${posts.ranking.capacity:1000}") int capacity) {
+    this.postRepository = postRepository;
+    this.capacity = capacity;
+  }
+
+  /**
+   * Gets one page of a ranked listing.
+   *
+   * @param subredditId the subreddit id
+   * @param sort        the sort
+   * @param window      the window
+   * @param offset      the offset
+   * @param size        the page size
+   * @return the ranked page
+   */
+  public RankedPage getPage(Long subredditId, RankingSort sort, RankingWindow window,
+      long offset, int size) {
+    SubredditRanking ranking = rankings.get(subredditId);
+    if (ranking == null) {
+      ranking = load(subredditId);
+    }
+    return ranking.page(sort, window, offset, size);
+  }
+
+  /**
+   * Ranks a new post or re-scores an existing one once the current transaction commits.
+   *
+   * @param post the post
+   */
+  public void onPostChanged(Post post) {
+    Long subredditId = post.getSubredditId();
+    RankingEntry entry = new RankingEntry(post.getId(), post.getVotes(),
+        post.getCommentsCounter(), post.getDateOfCreation());
+    afterCommit(() -> apply(subredditId,
+        ranking -> ranking.upsert(entry, System.currentTimeMillis())));
+  }
+
+  /**
+   * Removes a post once the current transaction commits.
+   *
+   * @param post the post
+   */
+  public void onPostDeleted(Post post) {
+    Long subredditId = post.getSubredditId();
+    Long postId = post.getId();
+    afterCommit(() -> apply(subredditId, ranking -> ranking.remove(postId)));
+  }
+
+  /**
+   * Recomputes time dependent scores and drops rankings that are no longer read.
+   */
+  @Scheduled(fixedDelayString = "${posts.ranking.refresh-interval:60000}")
+  public void refresh() {
+    long now = System.currentTimeMillis();
+    rankings.entrySet().removeIf(ranking -> {
+      if (now - ranking.getValue().getLastAccess() > IDLE_EVICTION.toMillis()) {
+        logger.info("Evicting idle ranking of subreddit: {}", ranking.getKey());
+        return true;
+      }
+      ranking.getValue().refresh(now);
+      return false;
+    });
+  }
+
+  private SubredditRanking load(Long subredditId) {
+    ReentrantLock lock = loadLocks.computeIfAbsent(subredditId, id -> new ReentrantLock());
+    lock.lock();
+    try {
+      SubredditRanking ranking = rankings.get(subredditId);
+      if (ranking != null) {
+        return ranking;
+      }
+      logger.info("Loading ranking of subreddit: {}", subredditId);
+      pendingChanges.put(subredditId, new ArrayList<>());
+      long now = System.currentTimeMillis();
+      ranking = new SubredditRanking(capacity);
+      Date since = new Date(now - RankingWindow.WEEK.getDuration().toMillis());
+      for (RankingEntry entry : postRepository.findRankingEntriesCreatedSince(subredditId, since,
+          PageRequest.of(0, capacity, Sort.by(Direction.DESC, "dateOfCreation")))) {
+        ranking.upsert(entry, now);
+      }
+      for (RankingEntry entry : postRepository.findRankingEntries(subredditId,
+          PageRequest.of(0, capacity, Sort.by(Direction.DESC, "votes")))) {
+        ranking.upsert(entry, now);
+      }
+      SubredditRanking loaded = ranking;
+      // Published in the same step that drops the held back changes, so that every change is
+      // either held back and applied here or finds the ranking published
+      pendingChanges.compute(subredditId, (id, changes) -> {
+        changes.forEach(change -> change.accept(loaded));
+        rankings.put(subredditId, loaded);
+        return null;
+      });
+      return ranking;
+    } catch (RuntimeException e) {
+      pendingChanges.remove(subredditId);
+      throw e;
+    } finally {
+      lock.unlock();
+      loadLocks.remove(subredditId, lock);
+    }
+  }
+
+  /**
+   * Applies a change to the ranking of a subreddit, or holds it back while the subreddit is
+   * loading. Subreddits that are not ranked ignore it, as their next load reads the change.
+   */
+  private void apply(Long subredditId, Consumer<SubredditRanking> change) {
+    SubredditRanking ranking = rankings.get(subredditId);
+    if (ranking == null && pendingChanges.computeIfPresent(subredditId, (id, changes) -> {
+      changes.add(change);
+      return changes;
+    }) != null) {
+      return;
+    }
+    if (ranking == null) {
+      ranking = rankings.get(subredditId);
+    }
+    if (ranking != null) {
+      change.accept(ranking);
+    }
+  }
+
+  private void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          action.run();
+        }
+      });
+    } else {
+      action.run();
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package com.srecko.reddit.posts.ranking;
+
+import java.util.List;
+
+/**
+ * The type Ranked page. Post ids of one listing page in ranking order.
+ *
+ * @author Srecko Nikolic
+ */
+public class RankedPage {
+
+  private final List<Long> postIds;
+
+  private final long total;
+
+  /**
+   * Instantiates a new Ranked page.
+   *
+   * @param postIds the post ids
+   * @param total   the total number of ranked posts
+   */
+  public RankedPage(List<Long> postIds, long total) {
+    this.postIds = postIds;
+    this.total = total;
+  }
+
+  /**
+   * Gets post ids.
+   *
+   * @return the post ids
+   */
+  public List<Long> getPostIds() {
+    return postIds;
+  }
+
+  /**
+   * Gets total.
+   *
+   * @return the total
+   */
+  public long getTotal() {
+    return total;
+  }
+}
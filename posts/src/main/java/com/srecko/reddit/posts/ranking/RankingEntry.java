@@ -0,0 +1,128 @@
+package com.srecko.reddit.posts.ranking;
+
+import java.util.Date;
+
+/**
+ * The type Ranking entry. Holds the counters of a single post needed to compute its scores.
+ *
+ * @author Srecko Nikolic
+ */
+public class RankingEntry {
+
+  private final Long postId;
+
+  private final long created;
+
+  private int votes;
+
+  private int commentsCounter;
+
+  private double hotScore;
+
+  private double risingScore;
+
+  /**
+   * Instantiates a new Ranking entry.
+   *
+   * @param postId          the post id
+   * @param votes           the votes
+   * @param commentsCounter the comments counter
+   * @param dateOfCreation  the date of creation
+   */
+  public RankingEntry(Long postId, int votes, int commentsCounter, Date dateOfCreation) {
+    this.postId = postId;
+    this.votes = votes;
+    this.commentsCounter = commentsCounter;
+    this.created = dateOfCreation == null ? System.currentTimeMillis() : dateOfCreation.getTime();
+  }
+
+  /**
+   * Gets post id.
+   *
+   * @return the post id
+   */
+  public Long getPostId() {
+    return postId;
+  }
+
+  /**
+   * Gets creation time in epoch millis.
+   *
+   * @return the created
+   */
+  public long getCreated() {
+    return created;
+  }
+
+  /**
+   * Gets votes.
+   *
+   * @return the votes
+   */
+  public int getVotes() {
+    return votes;
+  }
+
+  /**
+   * Sets votes.
+   *
+   * @param votes the votes
+   */
+  public void setVotes(int votes) {
+    this.votes = votes;
+  }
+
+  /**
+   * Gets comments counter.
+   *
+   * @return the comments counter
+   */
+  public int getCommentsCounter() {
+    return commentsCounter;
+  }
+
+  /**
+   * Sets comments counter.
+   *
+   * @param commentsCounter the comments counter
+   */
+  public void setCommentsCounter(int commentsCounter) {
+    this.commentsCounter = commentsCounter;
+  }
+
+  /**
+   * Gets hot score.
+   *
+   * @return the hot score
+   */
+  public double getHotScore() {
+    return hotScore;
+  }
+
+  /**
+   * Sets hot score.
+   *
+   * @param hotScore the hot score
+   */
+  public void setHotScore(double hotScore) {
+    this.hotScore = hotScore;
+  }
+
+  /**
+   * Gets rising score.
+   *
+   * @return the rising score
+   */
+  public double getRisingScore() {
+    return risingScore;
+  }
+
+  /**
+   * Sets rising score.
+   *
+   * @param risingScore the rising score
+   */
+  public void setRisingScore(double risingScore) {
+    this.risingScore = risingScore;
+  }
+}
@@ -0,0 +1,55 @@
+package com.srecko.reddit.posts.ranking;
+
+/**
+ * The type Ranking scores.
+ *
+ * @author Srecko Nikolic
+ */
+public final class RankingScores {
+
+  /**
+   * Reference point for the hot score, in epoch seconds. Any fixed instant works, it only shifts
+   * all scores by the same amount.
+   */
+  private static final long HOT_EPOCH_SECONDS = 1134028003L;
+
+  /**
+   * A post needs ten times more votes to keep its place against one created this much later.
+   */
+  private static final double HOT_DECAY_SECONDS = 45000d;
+
+  private static final double RISING_GRAVITY = 1.5d;
+
+  private RankingScores() {
+  }
+
+  /**
+   * Hot score. The time component is fixed at creation, so the score only changes with votes.
+   *
+   * @param votes   the votes
+   * @param created the creation time in epoch millis
+   * @return the score
+   */
+  public static double hot(int votes, long created) {
+    double order = Math.log10(Math.max(Math.abs(votes), 1));
+    int sign = Integer.signum(votes);
+    double seconds = created / 1000d - HOT_EPOCH_SECONDS;
+    return sign * order + seconds / HOT_DECAY_SECONDS;
+  }
+
+  /**
+   * Rising score. Engagement divided by a power of the age, so it has to be recomputed as time
+   * passes.
+   *
+   * @param votes           the votes
+   * @param commentsCounter the comments counter
+   * @param created         the creation time in epoch millis
+   * @param now             the current time in epoch millis
+   * @return the score
+   */
+  public static double rising(int votes, int commentsCounter, long created, long now) {
+    double ageHours = Math.max(0, now - created) / 3_600_000d;
+    double engagement = Math.max(0, votes) + 2d * Math.max(0, commentsCounter);
+    return engagement / Math.pow(ageHours + 2, RISING_GRAVITY);
+  }
+}
@@ -0,0 +1,42 @@
+package com.srecko.reddit.posts.ranking;
+
+import java.util.Arrays;
+import java.util.Optional;
+import org.springframework.data.domain.Sort;
+
+/**
+ * The enum Ranking sort. Listings sorted by one of these values are served from the
+ * {@link PostRankingIndex} instead of an ORDER BY over the posts table.
+ *
+ * @author Srecko Nikolic
+ */
+public enum RankingSort {
+  /**
+   * Votes with time decay.
+   */
+  HOT,
+  /**
+   * Votes only, optionally limited to a {@link RankingWindow}.
+   */
+  TOP,
+  /**
+   * Engagement velocity of recent posts.
+   */
+  RISING;
+
+  /**
+   * Resolves the ranking sort from the first order of the given sort.
+   *
+   * @param sort the sort
+   * @return the ranking sort, or empty if the sort is a regular property sort
+   */
+  public static Optional<RankingSort> fromSort(Sort sort) {
+    if (sort == null || sort.isUnsorted()) {
+      return Optional.empty();
+    }
+    String property = sort.iterator().next().getProperty();
+    return Arrays.stream(values())
+        .filter(value -> value.name().equalsIgnoreCase(property))
+        .findFirst();
+  }
+}
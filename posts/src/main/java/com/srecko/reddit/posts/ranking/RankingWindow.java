@@ -0,0 +1,52 @@
+package com.srecko.reddit.posts.ranking;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * The enum Ranking window used by {@link RankingSort#TOP} listings.
+ *
+ * @author Srecko Nikolic
+ */
+public enum RankingWindow {
+  /**
+   * Posts created in the last day.
+   */
+  DAY(Duration.ofDays(1)),
+  /**
+   * Posts created in the last week.
+   */
+  WEEK(Duration.ofDays(7)),
+  /**
+   * All posts.
+   */
+  ALL(null);
+
+  private final Duration duration;
+
+  RankingWindow(Duration duration) {
+    this.duration = duration;
+  }
+
+  /**
+   * Gets duration.
+   *
+   * @return the duration, or null when the window is unbounded
+   */
+  public Duration getDuration() {
+    return duration;
+  }
+
+  /**
+   * Resolves the window from a request parameter, falling back to {@link #ALL}.
+   *
+   * @param value the value
+   * @return the ranking window
+   */
+  public static RankingWindow fromParam(String value) {
+    return Arrays.stream(values())
+        .filter(window -> window.name().equalsIgnoreCase(value))
+        .findFirst()
+        .orElse(ALL);
+  }
+}
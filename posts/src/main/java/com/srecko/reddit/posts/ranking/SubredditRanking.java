@@ -0,0 +1,235 @@
+package com.srecko.reddit.posts.ranking;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The type Subreddit ranking. Sorted score sets of a single subreddit. Writers re-score a post by
+ * removing its old key and inserting a new one, readers walk the requested set from the top.
+ *
+ * @author Srecko Nikolic
+ */
+class SubredditRanking {
+
+  /**
+   * Only posts younger than this take part in the rising listing.
+   */
+  static final Duration RISING_MAX_AGE = Duration.ofDays(1);
+
+  private final int capacity;
+
+  private final Map<Long, RankingEntry> entries = new HashMap<>();
+
+  private final NavigableSet<ScoredPost> hot = new TreeSet<>();
+
+  private final NavigableSet<ScoredPost> rising = new TreeSet<>();
+
+  private final Map<RankingWindow, NavigableSet<ScoredPost>> top =
+      new EnumMap<>(RankingWindow.class);
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private volatile long lastAccess;
+
+  /**
+   * Instantiates a new Subreddit ranking.
+   *
+   * @param capacity the maximum number of posts served per listing
+   */
+  SubredditRanking(int capacity) {
+    this.capacity = capacity;
+    for (RankingWindow window : RankingWindow.values()) {
+      top.put(window, new TreeSet<>());
+    }
+    this.lastAccess = System.currentTimeMillis();
+  }
+
+  /**
+   * Inserts a post or re-scores it if it is already ranked.
+   *
+   * @param entry the entry
+   * @param now   the current time in epoch millis
+   */
+  void upsert(RankingEntry entry, long now) {
+    lock.writeLock().lock();
+    try {
+      RankingEntry old = entries.put(entry.getPostId(), entry);
+      if (old != null) {
+        removeFromSets(old);
+      }
+      entry.setHotScore(RankingScores.hot(entry.getVotes(), entry.getCreated()));
+      entry.setRisingScore(RankingScores.rising(entry.getVotes(), entry.getCommentsCounter(),
+          entry.getCreated(), now));
+      addToSets(entry, now);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes a post.
+   *
+   * @param postId the post id
+   */
+  void remove(Long postId) {
+    lock.writeLock().lock();
+    try {
+      RankingEntry old = entries.remove(postId);
+      if (old != null) {
+        removeFromSets(old);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Gets one page of post ids.
+   *
+   * @param sort   the sort
+   * @param window the window, used by {@link RankingSort#TOP} only
+   * @param offset the offset
+   * @param size   the page size
+   * @return the ranked page
+   */
+  RankedPage page(RankingSort sort, RankingWindow window, long offset, int size) {
+    lastAccess = System.currentTimeMillis();
+    lock.readLock().lock();
+    try {
+      NavigableSet<ScoredPost> set = switch (sort) {
+        case HOT -> hot;
+        case TOP -> top.get(window);
+        case RISING -> rising;
+      };
+      long total = Math.min(set.size(), capacity);
+      List<Long> ids = new ArrayList<>(size);
+      Iterator<ScoredPost> iterator = set.iterator();
+      for (long i = 0; i < offset && iterator.hasNext(); i++) {
+        iterator.next();
+      }
+      while (ids.size() < size && offset + ids.size() < total && iterator.hasNext()) {
+        ids.add(iterator.next().postId());
+      }
+      return new RankedPage(ids, total);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Drops posts that fell out of their time windows, recomputes rising scores, which decay with
+   * age, and trims posts that are ranked beyond the capacity in every listing.
+   *
+   * @param now the current time in epoch millis
+   */
+  void refresh(long now) {
+    lock.writeLock().lock();
+    try {
+      for (RankingEntry entry : entries.values()) {
+        removeFromSets(entry);
+        entry.setRisingScore(RankingScores.rising(entry.getVotes(), entry.getCommentsCounter(),
+            entry.getCreated(), now));
+        addToSets(entry, now);
+      }
+      if (entries.size() > capacity) {
+        trim();
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Gets last access.
+   *
+   * @return the time of the last read in epoch millis
+   */
+  long getLastAccess() {
+    return lastAccess;
+  }
+
+  /**
+   * Gets the number of ranked posts.
+   *
+   * @return the size
+   */
+  int size() {
+    lock.readLock().lock();
+    try {
+      return entries.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void trim() {
+    Set<Long> keep = new HashSet<>();
+    collectHead(hot, keep);
+    collectHead(rising, keep);
+    for (NavigableSet<ScoredPost> set : top.values()) {
+      collectHead(set, keep);
+    }
+    entries.values().removeIf(entry -> {
+      if (keep.contains(entry.getPostId())) {
+        return false;
+      }
+      removeFromSets(entry);
+      return true;
+    });
+  }
+
+  private void collectHead(NavigableSet<ScoredPost> set, Set<Long> keep) {
+    Iterator<ScoredPost> iterator = set.iterator();
+    for (int i = 0; i < capacity && iterator.hasNext(); i++) {
+      keep.add(iterator.next().postId());
+    }
+  }
+
+  private void addToSets(RankingEntry entry, long now) {
+    long id = entry.getPostId();
+    long age = now - entry.getCreated();
+    hot.add(new ScoredPost(entry.getHotScore(), id));
+    if (age < RISING_MAX_AGE.toMillis()) {
+      rising.add(new ScoredPost(entry.getRisingScore(), id));
+    }
+    for (Map.Entry<RankingWindow, NavigableSet<ScoredPost>> window : top.entrySet()) {
+      Duration duration = window.getKey().getDuration();
+      if (duration == null || age < duration.toMillis()) {
+        window.getValue().add(new ScoredPost(entry.getVotes(), id));
+      }
+    }
+  }
+
+  private void removeFromSets(RankingEntry entry) {
+    long id = entry.getPostId();
+    hot.remove(new ScoredPost(entry.getHotScore(), id));
+    rising.remove(new ScoredPost(entry.getRisingScore(), id));
+    for (NavigableSet<ScoredPost> set : top.values()) {
+      set.remove(new ScoredPost(entry.getVotes(), id));
+    }
+  }
+
+  /**
+   * Sort key of a post in one of the score sets, highest score first and newest post first on
+   * ties.
+   */
+  private record ScoredPost(double score, long postId) implements Comparable<ScoredPost> {
+
+    @Override
+    public int compareTo(ScoredPost other) {
+      int result = Double.compare(other.score, score);
+      return result != 0 ? result : Long.compare(other.postId, postId);
+    }
+  }
+}
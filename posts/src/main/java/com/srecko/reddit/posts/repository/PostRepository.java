@@ -1,11 +1,18 @@
 package com.srecko.reddit.posts.repository;
 
+import com.srecko.reddit.posts.dto.PostDto;
 import com.srecko.reddit.posts.entity.Post;
+import com.srecko.reddit.posts.feed.FeedEntry;
+import com.srecko.reddit.posts.ranking.RankingEntry;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -14,48 +21,140 @@ import org.springframework.stereotype.Repository;
  * @author Srecko Nikolic
  */
 @Repository
-public interface PostRepository extends JpaRepository<Post, Long> {
+public interface PostRepository extends JpaRepository<Post, Long>, PostRepositoryCustom {
 
   Optional<Post> findById(Long id);
 
   /**
-   * Find all by subreddit list.
+   * Selects posts straight into post dtos, so read only listings skip entity hydration,
+   * dirty checking snapshots and mapping.
+   */
+  String SELECT_POST_DTO = "select new com.srecko.reddit.posts.dto.PostDto(p.id, "
+      + "p.dateOfCreation, p.title, p.text, p.votes, p.commentsCounter, p.userId, p.subredditId) "
+      + "from Post p ";
+
+  /**
+   * The post properties passed to the post dto constructor, in the order of SELECT_POST_DTO, for
+   * criteria queries.
+   */
+  List<String> POST_DTO_PROPERTIES = List.of("id", "dateOfCreation", "title", "text", "votes",
+      "commentsCounter", "userId", "subredditId");
+
+  /**
+   * Find all post dtos page.
+   *
+   * @param pageable the pageable
+   * @return the page
+   */
+  @Query(value = SELECT_POST_DTO, countQuery = "select count(p) from Post p")
+  Page<PostDto> findAllPostDtos(Pageable pageable);
+
+  /**
+   * Find post dtos by subreddit id page.
    *
    * @param subredditId the subreddit id
-   * @param pageRequest the page request
-   * @return the list
+   * @param pageable    the pageable
+   * @return the page
    */
-  Page<Post> findAllBySubredditId(Long subredditId,
-      PageRequest pageRequest);
+  @Query(value = SELECT_POST_DTO + "where p.subredditId = :subredditId",
+      countQuery = "select count(p) from Post p where p.subredditId = :subredditId")
+  Page<PostDto> findPostDtosBySubredditId(@Param("subredditId") Long subredditId,
+      Pageable pageable);
 
   /**
-   * Find all by user list.
+   * Find post dtos by user id page.
    *
    * @param userId   the user id
    * @param pageable the pageable
+   * @return the page
+   */
+  @Query(value = SELECT_POST_DTO + "where p.userId = :userId",
+      countQuery = "select count(p) from Post p where p.userId = :userId")
+  Page<PostDto> findPostDtosByUserId(@Param("userId") Long userId, Pageable pageable);
+
+  /**
+   * Find post dtos by ids list.
+   *
+   * @param ids the ids
+   * @return the list
+   */
+  @Query(SELECT_POST_DTO + "where p.id in :ids")
+  List<PostDto> findPostDtosByIdIn(@Param("ids") Collection<Long> ids);
+
+  /**
+   * Find post dtos with an id greater than the given one, in increasing id order.
+   *
+   * @param afterId  the id the posts follow
+   * @param pageable the pageable
    * @return the list
    */
-  Page<Post> findAllByUserId(Long userId, Pageable pageable);
+  @Query(SELECT_POST_DTO + "where p.id > :afterId order by p.id")
+  List<PostDto> findPostDtosByIdGreaterThan(@Param("afterId") Long afterId, Pageable pageable);
 
   void deleteById(Long id);
 
   /**
-   * Find by title containing page.
+   * Find post dtos by title containing ignore case page.
    *
    * @param query    the query
    * @param pageable the pageable
    * @return the page
    */
-  Page<Post> findByTitleContainingIgnoreCase(String query, Pageable pageable);
+  @Query(value = SELECT_POST_DTO + "where locate(upper(:query), upper(p.title)) > 0",
+      countQuery = "select count(p) from Post p where locate(upper(:query), upper(p.title)) > 0")
+  Page<PostDto> findPostDtosByTitleContaining(@Param("query") String query, Pageable pageable);
 
   /**
-   * Find by subreddit id and title containing ignore case page.
+   * Find post dtos by subreddit id and title containing ignore case page.
    *
    * @param subredditId the subreddit id
    * @param query       the query
    * @param pageable    the pageable
    * @return the page
    */
-  Page<Post> findBySubredditIdAndTitleContainingIgnoreCase(Long subredditId, String query,
+  @Query(value = SELECT_POST_DTO + "where p.subredditId = :subredditId "
+      + "and locate(upper(:query), upper(p.title)) > 0",
+      countQuery = "select count(p) from Post p where p.subredditId = :subredditId "
+          + "and locate(upper(:query), upper(p.title)) > 0")
+  Page<PostDto> findPostDtosBySubredditIdAndTitleContaining(
+      @Param("subredditId") Long subredditId, @Param("query") String query, Pageable pageable);
+
+  /**
+   * Find ranking entries of posts created since the given date.
+   *
+   * @param subredditId the subreddit id
+   * @param since       the since
+   * @param pageable    the pageable
+   * @return the list
+   */
+  @Query("select new com.srecko.reddit.posts.ranking.RankingEntry("
+      + "p.id, p.votes, p.commentsCounter, p.dateOfCreation) "
+      + "from Post p where p.subredditId = :subredditId and p.dateOfCreation >= :since")
+  List<RankingEntry> findRankingEntriesCreatedSince(@Param("subredditId") Long subredditId,
+      @Param("since") Date since, Pageable pageable);
+
+  /**
+   * Find ranking entries of posts in subreddit.
+   *
+   * @param subredditId the subreddit id
+   * @param pageable    the pageable
+   * @return the list
+   */
+  @Query("select new com.srecko.reddit.posts.ranking.RankingEntry("
+      + "p.id, p.votes, p.commentsCounter, p.dateOfCreation) "
+      + "from Post p where p.subredditId = :subredditId")
+  List<RankingEntry> findRankingEntries(@Param("subredditId") Long subredditId,
       Pageable pageable);
+
+  /**
+   * Find feed entries of posts in subreddits.
+   *
+   * @param subredditIds the subreddit ids
+   * @param pageable     the pageable
+   * @return the list
+   */
+  @Query("select new com.srecko.reddit.posts.feed.FeedEntry(p.id, p.subredditId, p.dateOfCreation) "
+      + "from Post p where p.subredditId in :subredditIds")
+  List<FeedEntry> findFeedEntriesBySubredditIdIn(
+      @Param("subredditIds") Collection<Long> subredditIds, Pageable pageable);
 }
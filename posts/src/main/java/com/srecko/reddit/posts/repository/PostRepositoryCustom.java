@@ -0,0 +1,85 @@
+package com.srecko.reddit.posts.repository;
+
+import com.srecko.reddit.posts.dto.PostDto;
+import com.srecko.reddit.posts.entity.Post;
+import com.srecko.reddit.posts.pagination.Cursor;
+import com.srecko.reddit.posts.pagination.KeysetPage;
+import java.util.List;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * The interface Post repository custom. Keyset variants of the listing queries, streaming
+ * reads for exports, batched inserts for bulk ingests and title searches through a full-text
+ * index.
+ *
+ * @author Srecko Nikolic
+ */
+public interface PostRepositoryCustom {
+
+  /**
+   * Find post dtos by subreddit id after the cursor.
+   *
+   * @param subredditId the subreddit id
+   * @param order       the order
+   * @param after       the cursor, null for the first page
+   * @param size        the page size
+   * @return the keyset page
+   */
+  KeysetPage<PostDto> findPostDtosBySubredditIdAfter(Long subredditId, Sort.Order order,
+      Cursor after, int size);
+
+  /**
+   * Find post dtos by user id after the cursor.
+   *
+   * @param userId the user id
+   * @param order  the order
+   * @param after  the cursor, null for the first page
+   * @param size   the page size
+   * @return the keyset page
+   */
+  KeysetPage<PostDto> findPostDtosByUserIdAfter(Long userId, Sort.Order order, Cursor after,
+      int size);
+
+  /**
+   * Stream post dtos of a subreddit in id order. The stream reads through a forward only cursor
+   * and must be closed, inside the transaction it was opened in.
+   *
+   * @param subredditId the subreddit id
+   * @param fetchSize   the number of rows fetched at a time
+   * @return the stream
+   */
+  Stream<PostDto> streamPostDtosBySubredditId(Long subredditId, int fetchSize);
+
+  /**
+   * Insert new posts, flushing and clearing the persistence context after every JDBC batch so
+   * it does not grow with the number of posts.
+   *
+   * @param posts the posts
+   */
+  void insertInBatches(List<Post> posts);
+
+  /**
+   * Find post dtos with a title containing every word of the query page, through the full-text
+   * index on titles. Words are matched whole, ignoring case.
+   *
+   * @param query    the query
+   * @param pageable the pageable, sorted by dateOfCreation, title or votes
+   * @return the page
+   */
+  Page<PostDto> findPostDtosByTitleMatching(String query, Pageable pageable);
+
+  /**
+   * Find post dtos by subreddit id and title containing every word of the query page, through
+   * the full-text index on titles. Words are matched whole, ignoring case.
+   *
+   * @param subredditId the subreddit id
+   * @param query       the query
+   * @param pageable    the pageable, sorted by dateOfCreation, title or votes
+   * @return the page
+   */
+  Page<PostDto> findPostDtosBySubredditIdAndTitleMatching(Long subredditId, String query,
+      Pageable pageable);
+}
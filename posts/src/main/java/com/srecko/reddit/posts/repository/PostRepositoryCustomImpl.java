@@ -0,0 +1,151 @@
+package com.srecko.reddit.posts.repository;
+
+import com.srecko.reddit.posts.dto.PostDto;
+import com.srecko.reddit.posts.entity.Post;
+import com.srecko.reddit.posts.fulltext.FullTextDialect;
+import com.srecko.reddit.posts.fulltext.FullTextIndexInitializer;
+import com.srecko.reddit.posts.pagination.Cursor;
+import com.srecko.reddit.posts.pagination.KeysetPage;
+import com.srecko.reddit.posts.pagination.KeysetQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+
+/**
+ * The type Post repository custom.
+ *
+ * @author Srecko Nikolic
+ */
+public class PostRepositoryCustomImpl implements PostRepositoryCustom {
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+  private int batchSize;
+
+  private static final Map<String, String> SEARCH_SORT_COLUMNS = Map.of(
+      "dateOfCreation", "date_of_creation", "title", "title", "votes", "votes");
+
+  @Override
+  public KeysetPage<PostDto> findPostDtosBySubredditIdAfter(Long subredditId, Sort.Order order,
+      Cursor after, int size) {
+    return KeysetQuery.find(entityManager, Post.class, PostDto.class,
+        PostRepository.POST_DTO_PROPERTIES, Map.of("subredditId", subredditId), order, after, size);
+  }
+
+  @Override
+  public KeysetPage<PostDto> findPostDtosByUserIdAfter(Long userId, Sort.Order order,
+      Cursor after, int size) {
+    return KeysetQuery.find(entityManager, Post.class, PostDto.class,
+        PostRepository.POST_DTO_PROPERTIES, Map.of("userId", userId), order, after, size);
+  }
+
+  @Override
+  public Stream<PostDto> streamPostDtosBySubredditId(Long subredditId, int fetchSize) {
+    return entityManager.createQuery(PostRepository.SELECT_POST_DTO
+            + "where p.subredditId = :subredditId order by p.id", PostDto.class)
+        .setParameter("subredditId", subredditId)
+        .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+        .setHint(HibernateHints.HINT_READ_ONLY, true)
+        .getResultStream();
+  }
+
+  @Override
+  public void insertInBatches(List<Post> posts) {
+    for (int i = 0; i < posts.size(); i++) {
+      entityManager.persist(posts.get(i));
+      if ((i + 1) % batchSize == 0) {
+        entityManager.flush();
+        entityManager.clear();
+      }
+    }
+    entityManager.flush();
+    entityManager.clear();
+  }
+
+  @Override
+  public Page<PostDto> findPostDtosByTitleMatching(String query, Pageable pageable) {
+    return findPostDtosByTitleMatching(Map.of(), query, pageable);
+  }
+
+  @Override
+  public Page<PostDto> findPostDtosBySubredditIdAndTitleMatching(Long subredditId, String query,
+      Pageable pageable) {
+    return findPostDtosByTitleMatching(Map.of("subreddit_id", subredditId), query, pageable);
+  }
+
+  /**
+   * Selects the ids of the page with a native query, as full-text predicates have no JPQL form,
+   * and then the post dtos of those ids.
+   */
+  private Page<PostDto> findPostDtosByTitleMatching(Map<String, Object> filters, String query,
+      Pageable pageable) {
+    List<String> words = FullTextDialect.words(query);
+    if (words.isEmpty()) {
+      return new PageImpl<>(List.of(), pageable, 0);
+    }
+    FullTextDialect dialect = FullTextDialect.of(entityManager.getEntityManagerFactory());
+    StringBuilder from = new StringBuilder("from ")
+        .append(dialect.from(FullTextIndexInitializer.TABLE, "p"))
+        .append(" where ")
+        .append(dialect.matches(FullTextIndexInitializer.TABLE, "p",
+            FullTextIndexInitializer.COLUMN));
+    filters.keySet().forEach(column -> from.append(" and p.").append(column).append(" = :")
+        .append(column));
+    Query select = entityManager.createNativeQuery("select p.id " + from + orderBy(pageable))
+        .setFirstResult((int) pageable.getOffset())
+        .setMaxResults(pageable.getPageSize());
+    Query count = entityManager.createNativeQuery("select count(*) " + from);
+    for (Query nativeQuery : List.of(select, count)) {
+      nativeQuery.setParameter("query", dialect.query(words));
+      filters.forEach(nativeQuery::setParameter);
+    }
+    List<Long> ids = ((List<?>) select.getResultList()).stream()
+        .map(id -> ((Number) id).longValue())
+        .toList();
+    return PageableExecutionUtils.getPage(findPostDtosInOrder(ids), pageable,
+        () -> ((Number) count.getSingleResult()).longValue());
+  }
+
+  private List<PostDto> findPostDtosInOrder(List<Long> ids) {
+    if (ids.isEmpty()) {
+      return List.of();
+    }
+    Map<Long, Integer> positions = new HashMap<>();
+    for (int i = 0; i < ids.size(); i++) {
+      positions.put(ids.get(i), i);
+    }
+    List<PostDto> postDtos = new ArrayList<>(entityManager.createQuery(
+            PostRepository.SELECT_POST_DTO + "where p.id in :ids", PostDto.class)
+        .setParameter("ids", ids)
+        .getResultList());
+    postDtos.sort(Comparator.comparing(postDto -> positions.get(postDto.getId())));
+    return postDtos;
+  }
+
+  private static String orderBy(Pageable pageable) {
+    StringBuilder orderBy = new StringBuilder(" order by ");
+    for (Sort.Order order : pageable.getSort()) {
+      String column = SEARCH_SORT_COLUMNS.get(order.getProperty());
+      if (column == null) {
+        throw new IllegalArgumentException("Posts can not be sorted by " + order.getProperty());
+      }
+      orderBy.append("p.").append(column).append(order.isAscending() ? " asc, " : " desc, ");
+    }
+    return orderBy.append("p.id").toString();
+  }
+}
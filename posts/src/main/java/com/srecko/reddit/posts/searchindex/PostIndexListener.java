@@ -0,0 +1,51 @@
+package com.srecko.reddit.posts.searchindex;
+
+import com.srecko.reddit.posts.entity.Post;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * The type Post index listener. Reports every inserted, updated and deleted post to the search
+ * index publisher, whichever code path wrote it.
+ *
+ * @author Srecko Nikolic
+ */
+@Component
+public class PostIndexListener {
+
+  private final PostIndexPublisher postIndexPublisher;
+
+  /**
+   * Instantiates a new Post index listener.
+   *
+   * @param postIndexPublisher the post index publisher
+   */
+  @Autowired
+  public PostIndexListener(PostIndexPublisher postIndexPublisher) {
+    this.postIndexPublisher = postIndexPublisher;
+  }
+
+  /**
+   * Publishes an inserted or updated post.
+   *
+   * @param post the post
+   */
+  @PostPersist
+  @PostUpdate
+  public void onSave(Post post) {
+    postIndexPublisher.onPostSaved(post);
+  }
+
+  /**
+   * Publishes a deleted post.
+   *
+   * @param post the post
+   */
+  @PostRemove
+  public void onRemove(Post post) {
+    postIndexPublisher.onPostDeleted(post.getId());
+  }
+}
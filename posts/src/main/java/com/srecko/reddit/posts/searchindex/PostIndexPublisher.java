@@ -0,0 +1,188 @@
+package com.srecko.reddit.posts.searchindex;
+
+import com.srecko.reddit.posts.dto.IndexEventType;
+import com.srecko.reddit.posts.dto.PostIndexEvent;
+import com.srecko.reddit.posts.entity.Post;
+import com.srecko.reddit.posts.mapper.PostMapper;
+import com.srecko.reddit.posts.service.client.SearchFeignClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * The type Post index publisher. Sends post changes to the search service in batches, off the
+ * request thread. Changes are queued once their transaction commits, and only the latest change
+ * of a post is kept, so a post edited many times between two flushes is sent once. Changes that
+ * could not be sent are retried on the next flush. Once more than
+ * <code>posts.search-index.max-pending</code> posts are waiting, further changes are dropped and
+ * left to the periodic resync of the search index.
+ *
+ * @author Srecko Nikolic
+ */
+@Component
+public class PostIndexPublisher {
+
+  private final SearchFeignClient searchFeignClient;
+  private final PostMapper postMapper;
+  private final boolean enabled;
+  private final int batchSize;
+  private final int maxPending;
+  private final Counter published;
+  private final Counter dropped;
+  private final Counter failures;
+
+  private final Map<Long, PostIndexEvent> pending = new ConcurrentHashMap<>();
+  // Sending waits on the search service, which would pin the carrier of a virtual thread in a
+  // synchronized method.
+  private final ReentrantLock flushLock = new ReentrantLock();
+
+  private static final Logger logger = LogManager.getLogger(PostIndexPublisher.class);
+
+  /**
+   * Instantiates a new Post index publisher.
+   *
+   * @param searchFeignClient the search feign client, resolved on first use since the entity
+   *                          listener needs the publisher before the web layer exists
+   * @param postMapper        the post mapper
+   * @param meterRegistry     the meter registry
+   * @param enabled           whether changes are sent to the search service
+   * @param batchSize         the number of changes sent in one request at most
+   * @param maxPending        the number of posts with a change waiting to be sent at most
+   */
+  @Autowired
+  public PostIndexPublisher(@Lazy SearchFeignClient searchFeignClient, PostMapper postMapper,
+      MeterRegistry meterRegistry,
+      @Value("${posts.search-index.enabled:true}") boolean enabled,
+      @Value("${posts.search-index.batch-size:500}") int batchSize,
+      @Value("${posts.search-index.max-pending:100000}") int maxPending) {
+    this.searchFeignClient = searchFeignClient;
+    this.postMapper = postMapper;
+    this.enabled = enabled;
+    this.batchSize = batchSize;
+    this.maxPending = maxPending;
+    this.published = Counter.builder("posts.search-index.published")
+        .description("Post changes sent to the search service")
+        .register(meterRegistry);
+    this.dropped = Counter.builder("posts.search-index.dropped")
+        .description("Post changes dropped because too many were waiting")
+        .register(meterRegistry);
+    this.failures = Counter.builder("posts.search-index.failures")
+        .description("Failed attempts to send post changes to the search service")
+        .register(meterRegistry);
+    Gauge.builder("posts.search-index.pending", pending, Map::size)
+        .description("Posts with a change waiting to be sent to the search service")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Queues an inserted or updated post.
+   *
+   * @param post the post
+   */
+  public void onPostSaved(Post post) {
+    if (enabled) {
+      PostIndexEvent event = new PostIndexEvent(IndexEventType.UPSERT, post.getId(),
+          postMapper.toDto(post));
+      afterCommit(() -> offer(event));
+    }
+  }
+
+  /**
+   * Queues a deleted post.
+   *
+   * @param postId the post id
+   */
+  public void onPostDeleted(Long postId) {
+    if (enabled) {
+      PostIndexEvent event = new PostIndexEvent(IndexEventType.DELETE, postId, null);
+      afterCommit(() -> offer(event));
+    }
+  }
+
+  /**
+   * Sends all queued changes. Changes that could not be sent are kept for the next flush.
+   */
+  @Scheduled(fixedDelayString = "${posts.search-index.flush-interval:1000}")
+  public void flush() {
+    flushLock.lock();
+    try {
+      while (!pending.isEmpty()) {
+        List<PostIndexEvent> batch = drain();
+        try {
+          searchFeignClient.indexPosts(batch);
+        } catch (RuntimeException e) {
+          failures.increment();
+          logger.warn("Failed to send {} post changes to search, retrying on the next flush: {}",
+              batch.size(), e.getMessage());
+          // A newer change queued in the meantime wins over the one that failed
+          batch.forEach(event -> pending.putIfAbsent(event.getId(), event));
+          return;
+        }
+        published.increment(batch.size());
+      }
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  /**
+   * Sends queued changes before the application stops.
+   */
+  @PreDestroy
+  public void flushOnShutdown() {
+    logger.info("Sending pending post changes to search before shutdown");
+    flush();
+  }
+
+  private void offer(PostIndexEvent event) {
+    if (pending.size() >= maxPending && !pending.containsKey(event.getId())) {
+      dropped.increment();
+      logger.warn("Too many post changes waiting for search, dropping the change of post {}",
+          event.getId());
+      return;
+    }
+    pending.put(event.getId(), event);
+  }
+
+  private List<PostIndexEvent> drain() {
+    List<PostIndexEvent> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+    for (Long postId : pending.keySet()) {
+      if (batch.size() == batchSize) {
+        break;
+      }
+      PostIndexEvent event = pending.remove(postId);
+      if (event != null) {
+        batch.add(event);
+      }
+    }
+    return batch;
+  }
+
+  private void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          action.run();
+        }
+      });
+    } else {
+      action.run();
+    }
+  }
+}
@@ -1,8 +1,17 @@
 package com.srecko.reddit.posts.service;
 
+import com.srecko.reddit.posts.dto.BulkPostItem;
+import com.srecko.reddit.posts.dto.BulkPostResponse;
 import com.srecko.reddit.posts.dto.CreatePostRequest;
+import com.srecko.reddit.posts.dto.PostBatchResponse;
 import com.srecko.reddit.posts.dto.PostDto;
 import com.srecko.reddit.posts.dto.UpdatePostRequest;
+import com.srecko.reddit.posts.export.ExportTarget;
+import com.srecko.reddit.posts.pagination.KeysetPage;
+import com.srecko.reddit.posts.ranking.RankingSort;
+import com.srecko.reddit.posts.ranking.RankingWindow;
+import java.io.IOException;
+import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -21,6 +30,15 @@ public interface PostService {
    */
   PostDto save(CreatePostRequest postDto);
 
+  /**
+   * Save posts in bulk. Every post is validated on its own, authors and subreddits are checked
+   * once per distinct id, and invalid posts are reported instead of failing the request.
+   *
+   * @param posts the posts
+   * @return the result of every post
+   */
+  BulkPostResponse saveAll(List<BulkPostItem> posts);
+
   /**
    * Gets all posts.
    *
@@ -46,6 +64,49 @@ public interface PostService {
    */
   Page<PostDto> getAllPostsForSubreddit(Long subredditId, Pageable pageable);
 
+  /**
+   * Gets posts for subreddit after the cursor.
+   *
+   * @param subredditId the subreddit id
+   * @param after       the cursor, empty for the first page
+   * @param pageable    the pageable
+   * @return the posts for subreddit
+   */
+  KeysetPage<PostDto> getPostsForSubredditAfter(Long subredditId, String after,
+      Pageable pageable);
+
+  /**
+   * Gets ranked posts for subreddit.
+   *
+   * @param subredditId the subreddit id
+   * @param sort        the ranking sort
+   * @param window      the window of top listing
+   * @param pageable    the pageable
+   * @return the ranked posts for subreddit
+   */
+  Page<PostDto> getRankedPostsForSubreddit(Long subredditId, RankingSort sort,
+      RankingWindow window, Pageable pageable);
+
+  /**
+   * Exports all posts of a subreddit as newline delimited JSON. The target is opened only after
+   * the subreddit was found.
+   *
+   * @param subredditId the subreddit id
+   * @param target      the export target
+   * @return the number of exported posts
+   * @throws IOException if writing the export fails
+   */
+  long exportPostsForSubreddit(Long subredditId, ExportTarget target) throws IOException;
+
+  /**
+   * Gets the home feed of a user, the newest posts of the subreddits they are subscribed to.
+   *
+   * @param userId   the user id
+   * @param pageable the pageable
+   * @return the home feed
+   */
+  Page<PostDto> getHomeFeed(Long userId, Pageable pageable);
+
   /**
    * Gets all posts for user.
    *
@@ -55,6 +116,16 @@ public interface PostService {
    */
   Page<PostDto> getAllPostsForUser(String username, Pageable pageable);
 
+  /**
+   * Gets posts for user after the cursor.
+   *
+   * @param username the username
+   * @param after    the cursor, empty for the first page
+   * @param pageable the pageable
+   * @return the posts for user
+   */
+  KeysetPage<PostDto> getPostsForUserAfter(String username, String after, Pageable pageable);
+
   /**
    * Delete post.
    *
@@ -71,6 +142,24 @@ public interface PostService {
    */
   PostDto update(UpdatePostRequest postDto);
 
+  /**
+   * Gets posts by ids in the order of the ids, reporting the ids that were not found.
+   *
+   * @param ids the ids
+   * @return the post batch response
+   */
+  PostBatchResponse getPostsByIds(List<Long> ids);
+
+  /**
+   * Gets the posts the search service indexes, the ones with an id greater than the given one in
+   * increasing id order.
+   *
+   * @param afterId the id the posts follow
+   * @param limit   the number of posts at most
+   * @return the posts
+   */
+  List<PostDto> getIndexDocuments(Long afterId, int limit);
+
   /**
    * Check if exists.
    *
@@ -104,4 +193,12 @@ public interface PostService {
    * @param value  the value
    */
   void updateCommentsCounter(Long postId, Integer value);
+
+  /**
+   * Update votes.
+   *
+   * @param postId the post id
+   * @param value  the value
+   */
+  void updateVotes(Long postId, Integer value);
 }
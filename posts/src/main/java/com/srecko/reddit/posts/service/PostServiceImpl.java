@@ -1,27 +1,63 @@
 package com.srecko.reddit.posts.service;
 
 import com.srecko.reddit.posts.assembler.PageRequestAssembler;
+import com.srecko.reddit.posts.bloom.PostIdFilter;
+import com.srecko.reddit.posts.cache.PostCache;
+import com.srecko.reddit.posts.counter.PostCounterBuffer;
+import com.srecko.reddit.posts.dto.BulkPostItem;
+import com.srecko.reddit.posts.dto.BulkPostResponse;
+import com.srecko.reddit.posts.dto.BulkPostResult;
 import com.srecko.reddit.posts.dto.CreatePostRequest;
-import com.srecko.reddit.posts.dto.ModelPageToDtoPageConverter;
+import com.srecko.reddit.posts.dto.PostBatchResponse;
 import com.srecko.reddit.posts.dto.PostDto;
 import com.srecko.reddit.posts.dto.UpdatePostRequest;
 import com.srecko.reddit.posts.entity.Post;
 import com.srecko.reddit.posts.exception.PostNotFoundException;
+import com.srecko.reddit.posts.export.ExportTarget;
+import com.srecko.reddit.posts.export.PostExporter;
+import com.srecko.reddit.posts.feed.HomeFeedIndex;
+import com.srecko.reddit.posts.mapper.PostMapper;
+import com.srecko.reddit.posts.pagination.Cursor;
+import com.srecko.reddit.posts.pagination.KeysetPage;
+import com.srecko.reddit.posts.pagination.KeysetQuery;
+import com.srecko.reddit.posts.ranking.PostRankingIndex;
+import com.srecko.reddit.posts.ranking.RankedPage;
+import com.srecko.reddit.posts.ranking.RankingSort;
+import com.srecko.reddit.posts.ranking.RankingWindow;
 import com.srecko.reddit.posts.repository.PostRepository;
+import com.srecko.reddit.posts.service.client.ParallelCalls;
 import com.srecko.reddit.posts.service.client.SubredditsFeignClient;
+import com.srecko.reddit.posts.service.client.UserIdResolver;
 import com.srecko.reddit.posts.service.client.UsersFeignClient;
+import feign.FeignException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -35,8 +71,24 @@ public class PostServiceImpl implements PostService {
 
   private final PostRepository postRepository;
   private final UsersFeignClient usersFeignClient;
+  private final UserIdResolver userIdResolver;
   private final SubredditsFeignClient subredditsFeignClient;
-  private final ModelMapper modelMapper;
+  private final ParallelCalls parallelCalls;
+  private final PostMapper postMapper;
+  private final PostRankingIndex postRankingIndex;
+  private final PostCounterBuffer postCounterBuffer;
+  private final PostCache postCache;
+  private final PostIdFilter postIdFilter;
+  private final HomeFeedIndex homeFeedIndex;
+  private final PostExporter postExporter;
+  private final Validator validator;
+  private final boolean fullTextSearch;
+
+  private static final List<String> AVAILABLE_SORTS = List.of("dateOfCreation", "title", "votes");
+
+  private static final Sort.Order DEFAULT_ORDER = Sort.Order.asc("dateOfCreation");
+
+  private static final int MAX_INDEX_DOCUMENTS = 5000;
 
   private static final Logger logger = LogManager.getLogger(PostServiceImpl.class);
 
@@ -45,18 +97,48 @@ public class PostServiceImpl implements PostService {
    *
    * @param postRepository        the post repository
    * @param usersFeignClient      the users feign client
+   * @param userIdResolver        the user id resolver
    * @param subredditsFeignClient the subreddits feign client
-   * @param modelMapper           the model mapper
+   * @param parallelCalls         the parallel calls
+   * @param postMapper            the post mapper
+   * @param postRankingIndex      the post ranking index
+   * @param postCounterBuffer     the post counter buffer
+   * @param postCache             the post cache
+   * @param postIdFilter          the post id filter
+   * @param homeFeedIndex         the home feed index
+   * @param postExporter          the post exporter
+   * @param validator             the validator
+   * @param fullTextSearch        whether titles are searched through the full-text index
    */
   @Autowired
   public PostServiceImpl(PostRepository postRepository,
       UsersFeignClient usersFeignClient,
+      UserIdResolver userIdResolver,
       SubredditsFeignClient subredditsFeignClient,
-      ModelMapper modelMapper) {
+      ParallelCalls parallelCalls,
+      PostMapper postMapper,
+      PostRankingIndex postRankingIndex,
+      PostCounterBuffer postCounterBuffer,
+      PostCache postCache,
+      PostIdFilter postIdFilter,
+      HomeFeedIndex homeFeedIndex,
+      PostExporter postExporter,
+      Validator validator,
+      @Value("${posts.search.full-text.enabled:false}") boolean fullTextSearch) {
     this.postRepository = postRepository;
     this.usersFeignClient = usersFeignClient;
+    this.userIdResolver = userIdResolver;
     this.subredditsFeignClient = subredditsFeignClient;
-    this.modelMapper = modelMapper;
+    this.parallelCalls = parallelCalls;
+    this.postMapper = postMapper;
+    this.postRankingIndex = postRankingIndex;
+    this.postCounterBuffer = postCounterBuffer;
+    this.postCache = postCache;
+    this.postIdFilter = postIdFilter;
+    this.homeFeedIndex = homeFeedIndex;
+    this.postExporter = postExporter;
+    this.validator = validator;
+    this.fullTextSearch = fullTextSearch;
   }
 
   @Override
@@ -64,58 +146,198 @@ public class PostServiceImpl implements PostService {
     /*UserMediator userMediator = (UserMediator) SecurityContextHolder.getContext()
         .getAuthentication().getPrincipal();
     logger.info("Saving post to the database");
-    Long userId = usersFeignClient.getUserId(userMediator.getUsername());*/
-    Long userId = usersFeignClient.getUserId("username");
-    subredditsFeignClient.checkIfSubredditExists(createPostRequest.getSubredditId());
+    Long userId = userIdResolver.getUserId(userMediator.getUsername());*/
+    Long userId = parallelCalls.join("save",
+        () -> userIdResolver.getUserId("username"),
+        () -> subredditsFeignClient.checkIfSubredditExists(createPostRequest.getSubredditId()));
     Post post = new Post(userId, createPostRequest.getTitle(), createPostRequest.getText(),
         createPostRequest.getSubredditId());
     Post saved = postRepository.save(post);
-    return modelMapper.map(saved, PostDto.class);
+    postRankingIndex.onPostChanged(saved);
+    homeFeedIndex.onPostCreated(saved);
+    return postMapper.toDto(saved);
+  }
+
+  @Override
+  public BulkPostResponse saveAll(List<BulkPostItem> items) {
+    logger.info("Saving {} posts in bulk", items.size());
+    String[] errors = new String[items.size()];
+    Set<Long> userIds = new HashSet<>();
+    Set<Long> subredditIds = new HashSet<>();
+    for (int i = 0; i < items.size(); i++) {
+      Set<ConstraintViolation<BulkPostItem>> violations = validator.validate(items.get(i));
+      if (!violations.isEmpty()) {
+        errors[i] = violations.stream()
+            .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+            .sorted(Comparator.naturalOrder())
+            .collect(Collectors.joining(", "));
+      } else {
+        userIds.add(items.get(i).getUserId());
+        subredditIds.add(items.get(i).getSubredditId());
+      }
+    }
+    Set<Long> missingUsers = findMissing(userIds, usersFeignClient::checkIfExists);
+    Set<Long> missingSubreddits = findMissing(subredditIds,
+        subredditsFeignClient::checkIfSubredditExists);
+    Post[] posts = new Post[items.size()];
+    List<Post> accepted = new ArrayList<>(items.size());
+    for (int i = 0; i < items.size(); i++) {
+      BulkPostItem item = items.get(i);
+      if (errors[i] != null) {
+        continue;
+      }
+      if (missingUsers.contains(item.getUserId())) {
+        errors[i] = "User with id " + item.getUserId() + " is not found.";
+      } else if (missingSubreddits.contains(item.getSubredditId())) {
+        errors[i] = "Subreddit with id " + item.getSubredditId() + " is not found.";
+      } else {
+        Post post = new Post(item.getUserId(), item.getTitle(), item.getText(),
+            item.getSubredditId());
+        if (item.getDateOfCreation() != null) {
+          post.setDateOfCreation(item.getDateOfCreation());
+        }
+        posts[i] = post;
+        accepted.add(post);
+      }
+    }
+    postRepository.insertInBatches(accepted);
+    List<BulkPostResult> results = new ArrayList<>(items.size());
+    for (int i = 0; i < items.size(); i++) {
+      Post post = posts[i];
+      if (post != null) {
+        postRankingIndex.onPostChanged(post);
+        homeFeedIndex.onPostCreated(post);
+        results.add(new BulkPostResult(i, post.getId(), null));
+      } else {
+        results.add(new BulkPostResult(i, null, errors[i]));
+      }
+    }
+    logger.info("Saved {} posts in bulk, rejected {}", accepted.size(),
+        items.size() - accepted.size());
+    return new BulkPostResponse(accepted.size(), items.size() - accepted.size(), results);
   }
 
   @Override
+  @Transactional(readOnly = true)
   public Page<PostDto> getAllPosts(Pageable pageable) {
     logger.info("Getting all posts");
     PageRequest pageRequest =
         PageRequestAssembler.getPageRequest(pageable, List.of("dateOfCreation", "title", "votes"),
             Sort.by(Direction.ASC, "dateOfCreation"));
-    Page<Post> posts = postRepository.findAll(pageRequest);
-    return ModelPageToDtoPageConverter.convertPosts(pageable, posts, modelMapper);
+    return postRepository.findAllPostDtos(pageRequest);
   }
 
   @Override
+  @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
   public PostDto getPost(Long postId) {
     logger.info("Getting post: {}", postId);
-    Optional<Post> postOptional = postRepository.findById(postId);
-    if (postOptional.isPresent()) {
-      return modelMapper.map(postOptional.get(), PostDto.class);
-    } else {
-      throw new PostNotFoundException(postId);
-    }
+    return getCachedPost(postId);
   }
 
   @Override
+  @Transactional(readOnly = true)
   public Page<PostDto> getAllPostsForSubreddit(Long subredditId, Pageable pageable) {
     logger.info("Getting posts for subreddit: {}", subredditId);
     subredditsFeignClient.checkIfSubredditExists(subredditId);
     PageRequest pageRequest =
         PageRequestAssembler.getPageRequest(pageable, List.of("dateOfCreation", "title", "votes"),
             Sort.by(Direction.ASC, "dateOfCreation"));
-    Page<Post> posts = postRepository.findAllBySubredditId(subredditId,
-        pageRequest);
-    return ModelPageToDtoPageConverter.convertPosts(pageable, posts, modelMapper);
+    return postRepository.findPostDtosBySubredditId(subredditId, pageRequest);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public KeysetPage<PostDto> getPostsForSubredditAfter(Long subredditId, String after,
+      Pageable pageable) {
+    logger.info("Getting posts for subreddit {} after cursor: {}", subredditId, after);
+    subredditsFeignClient.checkIfSubredditExists(subredditId);
+    Cursor cursor = Cursor.decode(after);
+    Sort.Order order = KeysetQuery.resolveOrder(pageable, cursor, AVAILABLE_SORTS, DEFAULT_ORDER);
+    return postRepository.findPostDtosBySubredditIdAfter(subredditId, order, cursor,
+        pageable.getPageSize());
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public Page<PostDto> getRankedPostsForSubreddit(Long subredditId, RankingSort sort,
+      RankingWindow window, Pageable pageable) {
+    logger.info("Getting {} posts for subreddit: {}", sort, subredditId);
+    subredditsFeignClient.checkIfSubredditExists(subredditId);
+    RankedPage rankedPage = postRankingIndex.getPage(subredditId, sort, window,
+        pageable.getOffset(), pageable.getPageSize());
+    Map<Long, PostDto> posts = postRepository.findPostDtosByIdIn(rankedPage.getPostIds())
+        .stream()
+        .collect(Collectors.toMap(PostDto::getId, Function.identity()));
+    List<PostDto> content = rankedPage.getPostIds()
+        .stream()
+        .map(posts::get)
+        .filter(Objects::nonNull)
+        .toList();
+    return new PageImpl<>(content, pageable, rankedPage.getTotal());
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public long exportPostsForSubreddit(Long subredditId, ExportTarget target) throws IOException {
+    logger.info("Exporting posts for subreddit: {}", subredditId);
+    subredditsFeignClient.checkIfSubredditExists(subredditId);
+    return postExporter.exportSubreddit(subredditId, target);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public Page<PostDto> getHomeFeed(Long userId, Pageable pageable) {
+    logger.info("Getting home feed for user: {}", userId);
+    RankedPage feedPage = homeFeedIndex.getPage(userId, pageable.getOffset(),
+        pageable.getPageSize());
+    Map<Long, PostDto> posts = new HashMap<>();
+    List<Long> missingIds = new ArrayList<>();
+    for (Long postId : feedPage.getPostIds()) {
+      PostDto cached = postCache.get(postId);
+      if (cached != null) {
+        posts.put(postId, cached);
+      } else {
+        missingIds.add(postId);
+      }
+    }
+    if (!missingIds.isEmpty()) {
+      Map<Long, Long> generations = new HashMap<>();
+      missingIds.forEach(postId -> generations.put(postId, postCache.generation(postId)));
+      for (PostDto post : postRepository.findPostDtosByIdIn(missingIds)) {
+        postCache.putIfUnchanged(post, generations.get(post.getId()));
+        posts.put(post.getId(), post);
+      }
+    }
+    List<PostDto> content = feedPage.getPostIds()
+        .stream()
+        .map(posts::get)
+        .filter(Objects::nonNull)
+        .toList();
+    return new PageImpl<>(content, pageable, feedPage.getTotal());
   }
 
   // todo: change to userId
   @Override
+  @Transactional(readOnly = true)
   public Page<PostDto> getAllPostsForUser(String username, Pageable pageable) {
     logger.info("Getting posts for user: {}", username);
-    Long userId = usersFeignClient.getUserId(username);
+    Long userId = userIdResolver.getUserId(username);
     PageRequest pageRequest =
         PageRequestAssembler.getPageRequest(pageable, List.of("dateOfCreation", "title", "votes"),
             Sort.by(Direction.ASC, "dateOfCreation"));
-    Page<Post> posts = postRepository.findAllByUserId(userId, pageRequest);
-    return ModelPageToDtoPageConverter.convertPosts(pageable, posts, modelMapper);
+    return postRepository.findPostDtosByUserId(userId, pageRequest);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public KeysetPage<PostDto> getPostsForUserAfter(String username, String after,
+      Pageable pageable) {
+    logger.info("Getting posts for user {} after cursor: {}", username, after);
+    Long userId = userIdResolver.getUserId(username);
+    Cursor cursor = Cursor.decode(after);
+    Sort.Order order = KeysetQuery.resolveOrder(pageable, cursor, AVAILABLE_SORTS, DEFAULT_ORDER);
+    return postRepository.findPostDtosByUserIdAfter(userId, order, cursor,
+        pageable.getPageSize());
   }
 
   @Override
@@ -124,7 +346,10 @@ public class PostServiceImpl implements PostService {
     Optional<Post> postOptional = postRepository.findById(postId);
     if (postOptional.isPresent()) {
       postRepository.deleteById(postId);
-      return modelMapper.map(postOptional.get(), PostDto.class);
+      postRankingIndex.onPostDeleted(postOptional.get());
+      homeFeedIndex.onPostDeleted(postOptional.get());
+      postCache.evict(postId);
+      return postMapper.toDto(postOptional.get());
     } else {
       throw new PostNotFoundException(postId);
     }
@@ -140,51 +365,132 @@ public class PostServiceImpl implements PostService {
       post.setText(postDto.getText());
       post.setId(postDto.getPostId());
       post = postRepository.save(post);
-      return modelMapper.map(post, PostDto.class);
+      postCache.evict(postDto.getPostId());
+      return postMapper.toDto(post);
     } else {
       throw new PostNotFoundException(postDto.getPostId());
     }
   }
 
   @Override
+  @Transactional(readOnly = true)
+  public PostBatchResponse getPostsByIds(List<Long> ids) {
+    logger.info("Getting {} posts by id", ids.size());
+    Set<Long> requested = new LinkedHashSet<>(ids);
+    Map<Long, PostDto> found = postRepository.findPostDtosByIdIn(requested)
+        .stream()
+        .collect(Collectors.toMap(PostDto::getId, Function.identity()));
+    List<PostDto> posts = new ArrayList<>(found.size());
+    List<Long> missingIds = new ArrayList<>();
+    for (Long id : requested) {
+      PostDto post = found.get(id);
+      if (post != null) {
+        posts.add(post);
+      } else {
+        missingIds.add(id);
+      }
+    }
+    return new PostBatchResponse(posts, missingIds);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<PostDto> getIndexDocuments(Long afterId, int limit) {
+    int size = Math.max(1, Math.min(limit, MAX_INDEX_DOCUMENTS));
+    List<PostDto> posts = postRepository.findPostDtosByIdGreaterThan(afterId,
+        PageRequest.of(0, size));
+    logger.info("Returning {} posts after id {} to the search index", posts.size(), afterId);
+    return posts;
+  }
+
+  @Override
+  @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
   public void checkIfExists(Long postId) {
-    Optional<Post> postOptional = postRepository.findById(postId);
-    if (postOptional.isEmpty()) {
+    if (!postIdFilter.mightContain(postId)) {
       throw new PostNotFoundException(postId);
     }
+    try {
+      getCachedPost(postId);
+    } catch (PostNotFoundException e) {
+      postIdFilter.recordFalsePositive();
+      throw e;
+    }
   }
 
   @Override
+  @Transactional(readOnly = true)
   public Page<PostDto> searchPosts(String query, Pageable pageable) {
     logger.info("Searching for posts that match query: {}", query);
     PageRequest pageRequest = PageRequestAssembler.getPageRequest(pageable,
         List.of("dateOfCreation", "title", "votes"),
         Sort.by(Direction.ASC, "dateOfCreation"));
-    Page<Post> users = postRepository.findByTitleContainingIgnoreCase(query,
-        pageRequest);
-    return ModelPageToDtoPageConverter.convertPosts(pageable, users, modelMapper);
+    if (fullTextSearch) {
+      return postRepository.findPostDtosByTitleMatching(query, pageRequest);
+    }
+    return postRepository.findPostDtosByTitleContaining(query, pageRequest);
   }
 
   @Override
+  @Transactional(readOnly = true)
   public Page<PostDto> searchPostsInSubreddit(Long subredditId, String query, Pageable pageable) {
     logger.info("Searching for posts in subreddit {} that match query: {}", subredditId, query);
     subredditsFeignClient.checkIfSubredditExists(subredditId);
     PageRequest pageRequest = PageRequestAssembler.getPageRequest(pageable,
         List.of("dateOfCreation", "title", "votes"),
         Sort.by(Direction.ASC, "dateOfCreation"));
-    Page<Post> users = postRepository.findBySubredditIdAndTitleContainingIgnoreCase(subredditId,
-        query, pageRequest);
-    return ModelPageToDtoPageConverter.convertPosts(pageable, users, modelMapper);
+    if (fullTextSearch) {
+      return postRepository.findPostDtosBySubredditIdAndTitleMatching(subredditId, query,
+          pageRequest);
+    }
+    return postRepository.findPostDtosBySubredditIdAndTitleContaining(subredditId, query,
+        pageRequest);
   }
 
   @Override
   public void updateCommentsCounter(Long postId, Integer value) {
+    // Only posts that definitely do not exist are refused, the flush drops the deltas of other
+    // missing posts without a query per change
+    if (!postIdFilter.mightContain(postId)) {
+      throw new PostNotFoundException(postId);
+    }
+    postCounterBuffer.addComments(postId, value);
+  }
+
+  @Override
+  public void updateVotes(Long postId, Integer value) {
+    // Only posts that definitely do not exist are refused, the flush drops the deltas of other
+    // missing posts without a query per change
+    if (!postIdFilter.mightContain(postId)) {
+      throw new PostNotFoundException(postId);
+    }
+    postCounterBuffer.addVotes(postId, value);
+  }
+
+  private Set<Long> findMissing(Set<Long> ids, Consumer<Long> existenceCheck) {
+    Set<Long> missing = new HashSet<>();
+    for (Long id : ids) {
+      try {
+        existenceCheck.accept(id);
+      } catch (FeignException.NotFound | FeignException.Unauthorized e) {
+        // The users service answers unknown users with 401.
+        missing.add(id);
+      }
+    }
+    return missing;
+  }
+
+  private PostDto getCachedPost(Long postId) {
+    PostDto cached = postCache.get(postId);
+    if (cached != null) {
+      return cached;
+    }
+    long generation = postCache.generation(postId);
     Optional<Post> postOptional = postRepository.findById(postId);
     if (postOptional.isEmpty()) {
       throw new PostNotFoundException(postId);
     }
-    Post post = postOptional.get();
-    post.setCommentsCounter(post.getCommentsCounter() + value);
-    postRepository.save(post);
+    PostDto post = postMapper.toDto(postOptional.get());
+    postCache.putIfUnchanged(post, generation);
+    return post;
   }
 }
@@ -0,0 +1,157 @@
+package com.srecko.reddit.posts.service.client;
+
+import com.srecko.reddit.posts.config.VirtualThreads;
+import com.srecko.reddit.posts.exception.RemoteCallTimeoutException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * The type Parallel calls. Runs independent remote calls of one request at the same time on a
+ * bounded pool, so a write waits for its slowest check instead of the sum of all of them.
+ *
+ * <p>The calls share one deadline. As soon as one of them fails or the deadline passes the others
+ * are cancelled and the caller gets the failure. When the pool and its queue are full the calls
+ * run on the calling thread one after another. With virtual threads enabled every call gets a
+ * thread of its own and the pool settings do not apply. Every join is timed twice under
+ * <code>posts.remote.calls</code>: <code>path=parallel</code> is the time the caller waited and
+ * <code>path=sequential</code> the time the calls took together, which is what it waited before.
+ *
+ * @author Srecko Nikolic
+ */
+@Component
+public class ParallelCalls {
+
+  private static final String TIMER_NAME = "posts.remote.calls";
+
+  private final ExecutorService executor;
+  private final Duration timeout;
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * Instantiates a new Parallel calls.
+   *
+   * @param threads        the number of threads running remote calls
+   * @param queueCapacity  the number of calls that wait for a thread before they run on the caller
+   * @param timeout        the time all calls of one join have to complete
+   * @param virtualThreads whether calls run on virtual threads where the runtime has them
+   * @param meterRegistry  the meter registry
+   */
+  @Autowired
+  public ParallelCalls(@Value("${posts.remote-calls.threads:16}") int threads,
+      @Value("${posts.remote-calls.queue-capacity:100}") int queueCapacity,
+      @Value("${posts.remote-calls.timeout:PT5S}") Duration timeout,
+      @Value("${posts.virtual-threads.enabled:false}") boolean virtualThreads,
+      MeterRegistry meterRegistry) {
+    if (virtualThreads && VirtualThreads.isSupported()) {
+      this.executor = VirtualThreads.newPerTaskExecutor();
+    } else {
+      CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("posts-remote-");
+      threadFactory.setDaemon(true);
+      ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES,
+          new ArrayBlockingQueue<>(queueCapacity), threadFactory, new CallerRunsPolicy());
+      pool.allowCoreThreadTimeOut(true);
+      this.executor = pool;
+    }
+    this.timeout = timeout;
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Runs a call that returns a value together with calls that only check something.
+   *
+   * @param <T>       the type of the value
+   * @param operation the name of the operation the calls are timed under
+   * @param call      the call that returns the value
+   * @param checks    the calls that throw when their check fails
+   * @return the value returned by the call
+   * @throws RemoteCallTimeoutException when the calls do not complete before the timeout
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T join(String operation, Supplier<T> call, Runnable... checks) {
+    long start = System.nanoTime();
+    long deadline = start + timeout.toNanos();
+    AtomicLong busy = new AtomicLong();
+    CompletionService<Object> completionService = new ExecutorCompletionService<>(executor);
+    List<Future<Object>> futures = new ArrayList<>(checks.length + 1);
+    try {
+      Future<Object> result = completionService.submit(timed(call::get, busy));
+      futures.add(result);
+      for (Runnable check : checks) {
+        futures.add(completionService.submit(timed(() -> {
+          check.run();
+          return null;
+        }, busy)));
+      }
+      for (int i = 0; i < futures.size(); i++) {
+        Future<Object> done = completionService.poll(deadline - System.nanoTime(),
+            TimeUnit.NANOSECONDS);
+        if (done == null) {
+          throw new RemoteCallTimeoutException(operation, timeout);
+        }
+        done.get();
+      }
+      return (T) result.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof Error error) {
+        throw error;
+      }
+      throw (RuntimeException) e.getCause();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for " + operation, e);
+    } finally {
+      for (Future<Object> future : futures) {
+        future.cancel(true);
+      }
+      timer(operation, "parallel").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      timer(operation, "sequential").record(busy.get(), TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * Stops the threads once the application shuts down.
+   */
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private Timer timer(String operation, String path) {
+    return Timer.builder(TIMER_NAME)
+        .description("Time spent on the remote calls of one request")
+        .tag("operation", operation)
+        .tag("path", path)
+        .register(meterRegistry);
+  }
+
+  private static Callable<Object> timed(Callable<Object> call, AtomicLong busy) {
+    return () -> {
+      long start = System.nanoTime();
+      try {
+        return call.call();
+      } finally {
+        busy.addAndGet(System.nanoTime() - start);
+      }
+    };
+  }
+}
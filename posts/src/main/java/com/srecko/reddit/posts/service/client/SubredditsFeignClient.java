@@ -1,6 +1,9 @@
 package com.srecko.reddit.posts.service.client;
 
+import com.srecko.reddit.posts.dto.SubscriptionDto;
+import java.util.List;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
@@ -19,4 +22,13 @@ public interface SubredditsFeignClient {
   @RequestMapping(method = RequestMethod.HEAD, value = "/api/subreddits/checkIfSubredditExists",
       consumes = "application/json")
   void checkIfSubredditExists(@RequestBody Long subredditId);
+
+  /**
+   * Gets the subreddits a user is subscribed to.
+   *
+   * @param userId the user id
+   * @return the subscriptions
+   */
+  @RequestMapping(method = RequestMethod.GET, value = "/api/subreddits/subscriptions/{userId}")
+  List<SubscriptionDto> getSubscriptions(@PathVariable("userId") Long userId);
 }
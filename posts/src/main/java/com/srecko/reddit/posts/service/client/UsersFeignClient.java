@@ -20,4 +20,13 @@ public interface UsersFeignClient {
   @RequestMapping(method = RequestMethod.GET, value = "/api/users/getUserIdByUsername",
       consumes = "application/json")
   Long getUserId(@RequestBody String username);
+
+  /**
+   * Check if user exists.
+   *
+   * @param userId the user id
+   */
+  @RequestMapping(method = RequestMethod.HEAD, value = "/api/users/checkIfExists",
+      consumes = "application/json")
+  void checkIfExists(@RequestBody Long userId);
 }
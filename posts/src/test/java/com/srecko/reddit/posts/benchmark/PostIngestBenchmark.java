@@ -0,0 +1,121 @@
+package com.srecko.reddit.posts.benchmark;
+
+import com.srecko.reddit.posts.entity.Post;
+import java.util.concurrent.TimeUnit;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The type Post ingest benchmark. Compares the ingest rate of inserting posts one per
+ * transaction, the way the create endpoint does, with inserting one bulk request of posts in
+ * JDBC batches. Scores are posts per second, so the time to load a migration of a million posts
+ * is a million divided by the score.
+ *
+ * @author Srecko Nikolic
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostIngestBenchmark {
+
+  private static final int REQUEST_SIZE = 1000;
+
+  private static final int BATCH_SIZE = 50;
+
+  private SessionFactory sessionFactory;
+
+  private long sequence;
+
+  /**
+   * Creates the schema in an in memory database.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    sessionFactory = new Configuration()
+        .addAnnotatedClass(Post.class)
+        .setProperty(AvailableSettings.URL, "jdbc:h2:mem:posts-ingest;DB_CLOSE_DELAY=-1")
+        .setProperty(AvailableSettings.USER, "sa")
+        .setProperty(AvailableSettings.PASS, "")
+        .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+        // The post id filter listener needs the application context, it is not measured here.
+        .setProperty(AvailableSettings.JPA_CALLBACKS_ENABLED, "false")
+        .setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, String.valueOf(BATCH_SIZE))
+        .setProperty(AvailableSettings.ORDER_INSERTS, "true")
+        .buildSessionFactory();
+  }
+
+  /**
+   * Closes the session factory.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    sessionFactory.close();
+  }
+
+  /**
+   * Inserts posts one per transaction.
+   */
+  @Benchmark
+  @OperationsPerInvocation(REQUEST_SIZE)
+  public void onePostPerTransaction() {
+    for (int i = 0; i < REQUEST_SIZE; i++) {
+      Post post = post();
+      sessionFactory.inTransaction(session -> session.persist(post));
+    }
+  }
+
+  /**
+   * Inserts one bulk request in JDBC batches, clearing the session after every batch.
+   */
+  @Benchmark
+  @OperationsPerInvocation(REQUEST_SIZE)
+  public void bulkInBatches() {
+    sessionFactory.inTransaction(session -> {
+      for (int i = 0; i < REQUEST_SIZE; i++) {
+        session.persist(post());
+        if ((i + 1) % BATCH_SIZE == 0) {
+          session.flush();
+          session.clear();
+        }
+      }
+    });
+  }
+
+  private Post post() {
+    long n = sequence++;
+    return new Post(n % 1000, "Post title " + n, "Text of the post number " + n, n % 100);
+  }
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args the args
+   * @throws RunnerException the runner exception
+   */
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(PostIngestBenchmark.class.getSimpleName())
+        .build())
+        .run();
+  }
+}
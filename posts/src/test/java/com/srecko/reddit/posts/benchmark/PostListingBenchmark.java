@@ -0,0 +1,147 @@
+package com.srecko.reddit.posts.benchmark;
+
+import com.srecko.reddit.posts.dto.PostDto;
+import com.srecko.reddit.posts.entity.Post;
+import com.srecko.reddit.posts.repository.PostRepository;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The type Post listing benchmark. Compares reading one page of a subreddit listing as managed
+ * entities mapped by model mapper with reading it through the dto projection of the post
+ * repository. Run the main method from the test classpath, the gc profiler reports the allocation
+ * per page next to the latency.
+ *
+ * @author Srecko Nikolic
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostListingBenchmark {
+
+  private static final Long SUBREDDIT_ID = 1L;
+
+  private static final int POSTS = 10_000;
+
+  private static final String ENTITY_QUERY = "select p from Post p "
+      + "where p.subredditId = :subredditId order by p.dateOfCreation desc, p.id desc";
+
+  private static final String DTO_QUERY = PostRepository.SELECT_POST_DTO
+      + "where p.subredditId = :subredditId order by p.dateOfCreation desc, p.id desc";
+
+  @Param({"20", "100"})
+  private int pageSize;
+
+  private SessionFactory sessionFactory;
+
+  private ModelMapper modelMapper;
+
+  /**
+   * Creates the schema in an in memory database and fills one subreddit with posts.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    sessionFactory = new Configuration()
+        .addAnnotatedClass(Post.class)
+        .setProperty(AvailableSettings.URL, "jdbc:h2:mem:posts-benchmark;DB_CLOSE_DELAY=-1")
+        .setProperty(AvailableSettings.USER, "sa")
+        .setProperty(AvailableSettings.PASS, "")
+        .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+        // The post id filter listener needs the application context, it is not measured here.
+        .setProperty(AvailableSettings.JPA_CALLBACKS_ENABLED, "false")
+        .setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, "50")
+        .buildSessionFactory();
+    modelMapper = new ModelMapper();
+    sessionFactory.inTransaction(session -> {
+      for (int i = 0; i < POSTS; i++) {
+        Post post = new Post((long) (i % 100), "Post title " + i,
+            "Text of the post number " + i, SUBREDDIT_ID);
+        session.persist(post);
+        if (i % 50 == 0) {
+          session.flush();
+          session.clear();
+        }
+      }
+    });
+  }
+
+  /**
+   * Closes the session factory.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    sessionFactory.close();
+  }
+
+  /**
+   * Reads a page as managed entities and maps them to dtos.
+   *
+   * @return the page content
+   */
+  @Benchmark
+  public List<PostDto> entitiesMappedByModelMapper() {
+    try (Session session = sessionFactory.openSession()) {
+      return session.createQuery(ENTITY_QUERY, Post.class)
+          .setParameter("subredditId", SUBREDDIT_ID)
+          .setMaxResults(pageSize)
+          .getResultList()
+          .stream()
+          .map(post -> modelMapper.map(post, PostDto.class))
+          .toList();
+    }
+  }
+
+  /**
+   * Reads a page straight into dtos.
+   *
+   * @return the page content
+   */
+  @Benchmark
+  public List<PostDto> dtoProjection() {
+    try (Session session = sessionFactory.openSession()) {
+      return session.createQuery(DTO_QUERY, PostDto.class)
+          .setParameter("subredditId", SUBREDDIT_ID)
+          .setMaxResults(pageSize)
+          .getResultList();
+    }
+  }
+
+  /**
+   * Runs the benchmark with the gc profiler.
+   *
+   * @param args the args
+   * @throws RunnerException the runner exception
+   */
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(PostListingBenchmark.class.getSimpleName())
+        .addProfiler(GCProfiler.class)
+        .build())
+        .run();
+  }
+}
@@ -0,0 +1,102 @@
+package com.srecko.reddit.posts.benchmark;
+
+import com.srecko.reddit.posts.dto.PostDto;
+import com.srecko.reddit.posts.entity.Post;
+import com.srecko.reddit.posts.mapper.PostMapper;
+import com.srecko.reddit.posts.mapper.PostMapperImpl;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The type Post mapping benchmark. Compares mapping a page of posts with model mapper, as the
+ * services used to, with the generated post mapper.
+ *
+ * @author Srecko Nikolic
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostMappingBenchmark {
+
+  @Param({"20", "100"})
+  private int pageSize;
+
+  private List<Post> posts;
+
+  private ModelMapper modelMapper;
+
+  private PostMapper postMapper;
+
+  /**
+   * Creates the posts of one page.
+   */
+  @Setup
+  public void setUp() {
+    posts = new ArrayList<>(pageSize);
+    for (int i = 0; i < pageSize; i++) {
+      Post post = new Post((long) i, "Post title " + i, "Text of the post number " + i, 1L);
+      post.setId((long) i);
+      posts.add(post);
+    }
+    modelMapper = new ModelMapper();
+    postMapper = new PostMapperImpl();
+  }
+
+  /**
+   * Maps the page with model mapper.
+   *
+   * @return the dtos
+   */
+  @Benchmark
+  public List<PostDto> modelMapper() {
+    return posts.stream()
+        .map(post -> modelMapper.map(post, PostDto.class))
+        .toList();
+  }
+
+  /**
+   * Maps the page with the generated mapper.
+   *
+   * @return the dtos
+   */
+  @Benchmark
+  public List<PostDto> generatedMapper() {
+    return posts.stream()
+        .map(postMapper::toDto)
+        .toList();
+  }
+
+  /**
+   * Runs the benchmark with the gc profiler.
+   *
+   * @param args the args
+   * @throws RunnerException the runner exception
+   */
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(PostMappingBenchmark.class.getSimpleName())
+        .addProfiler(GCProfiler.class)
+        .build())
+        .run();
+  }
+}
@@ -0,0 +1,153 @@
+package com.srecko.reddit.posts.benchmark;
+
+import com.srecko.reddit.posts.config.VirtualThreads;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The type Request threads benchmark. Load tests the request execution of the service: a burst
+ * of concurrent requests, each making two blocking HTTP calls one after the other the way
+ * creating a post resolves its author and checks its subreddit, runs on a fixed pool of platform
+ * threads as Tomcat does and on a virtual thread per request as the virtual-threads profile does.
+ * Scores are requests per second. The <code>virtual</code> rows need Java 21 or later.
+ *
+ * @author Srecko Nikolic
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class RequestThreadsBenchmark {
+
+  private static final int CONCURRENT_REQUESTS = 1000;
+
+  private static final int REMOTE_LATENCY_MILLIS = 20;
+
+  @Param({"platform-50", "platform-200", "virtual"})
+  private String threads;
+
+  private HttpServer server;
+
+  private ExecutorService serverExecutor;
+
+  private ExecutorService executor;
+
+  private URL url;
+
+  /**
+   * Starts a remote service that answers after a fixed latency and the executor under test.
+   *
+   * @throws IOException the io exception
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+        CONCURRENT_REQUESTS);
+    server.createContext("/", exchange -> {
+      try {
+        Thread.sleep(REMOTE_LATENCY_MILLIS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      byte[] body = "1".getBytes();
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream outputStream = exchange.getResponseBody()) {
+        outputStream.write(body);
+      }
+    });
+    serverExecutor = Executors.newCachedThreadPool();
+    server.setExecutor(serverExecutor);
+    server.start();
+    url = new URL("http://localhost:" + server.getAddress().getPort() + "/");
+    if (threads.equals("virtual")) {
+      executor = VirtualThreads.newPerTaskExecutor();
+    } else {
+      executor = Executors.newFixedThreadPool(
+          Integer.parseInt(threads.substring("platform-".length())));
+    }
+  }
+
+  /**
+   * Stops the remote service and the executor.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    executor.shutdownNow();
+    server.stop(0);
+    serverExecutor.shutdownNow();
+  }
+
+  /**
+   * Serves a burst of concurrent requests.
+   *
+   * @throws ExecutionException   the execution exception
+   * @throws InterruptedException the interrupted exception
+   */
+  @Benchmark
+  @OperationsPerInvocation(CONCURRENT_REQUESTS)
+  public void serveRequests() throws ExecutionException, InterruptedException {
+    List<Future<?>> requests = new ArrayList<>(CONCURRENT_REQUESTS);
+    for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+      requests.add(executor.submit(() -> {
+        call();
+        call();
+        return null;
+      }));
+    }
+    for (Future<?> request : requests) {
+      request.get();
+    }
+  }
+
+  private void call() throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    try (InputStream inputStream = connection.getInputStream()) {
+      inputStream.readAllBytes();
+    }
+  }
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args the args
+   * @throws RunnerException the runner exception
+   */
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(RequestThreadsBenchmark.class.getSimpleName())
+        .build())
+        .run();
+  }
+}
@@ -0,0 +1,83 @@
+package com.srecko.reddit.posts.bloom;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class IdBloomFilterTest {
+
+  @Test
+  void mightContain_ReturnsTrue_ForEveryAddedId() {
+    // given
+    IdBloomFilter filter = new IdBloomFilter(10_000, 0.01);
+
+    // when
+    for (long id = 1; id <= 10_000; id++) {
+      filter.put(id);
+    }
+
+    // then
+    for (long id = 1; id <= 10_000; id++) {
+      assertTrue(filter.mightContain(id));
+    }
+  }
+
+  @Test
+  void mightContain_KeepsFalsePositivesNearConfiguredRate() {
+    // given
+    IdBloomFilter filter = new IdBloomFilter(10_000, 0.01);
+    for (long id = 1; id <= 10_000; id++) {
+      filter.put(id);
+    }
+
+    // when
+    int falsePositives = 0;
+    for (long id = 10_001; id <= 110_000; id++) {
+      if (filter.mightContain(id)) {
+        falsePositives++;
+      }
+    }
+
+    // then
+    assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    assertTrue(filter.expectedFpp() < 0.02);
+    assertFalse(filter.isSaturated());
+  }
+
+  @Test
+  void isSaturated_ReturnsFalse_WhenExpectedIdsWereEachAddedTwice() {
+    // given
+    IdBloomFilter filter = new IdBloomFilter(10, 0.01);
+
+    // when
+    for (long id = 1; id <= 10; id++) {
+      filter.put(id);
+      filter.put(id);
+    }
+
+    // then
+    assertFalse(filter.isSaturated());
+  }
+
+  @Test
+  void isSaturated_ReturnsTrue_WhenMoreIdsWereAddedThanExpected() {
+    // given
+    IdBloomFilter filter = new IdBloomFilter(10, 0.01);
+
+    // when
+    for (long id = 1; id <= 11; id++) {
+      filter.put(id);
+    }
+
+    // then
+    assertTrue(filter.isSaturated());
+  }
+
+  @Test
+  void constructor_ThrowsIllegalArgumentException_WhenFppIsOutOfRange() {
+    // given when then
+    assertThrows(IllegalArgumentException.class, () -> new IdBloomFilter(10, 1));
+  }
+}
@@ -0,0 +1,104 @@
+package com.srecko.reddit.posts.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.srecko.reddit.posts.dto.PostDto;
+import java.util.Date;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class PostCacheTest {
+
+  private PostCache postCache;
+
+  @BeforeEach
+  void setUp() {
+    postCache = new PostCache(new ConcurrentMapCacheManager(PostCache.NAME));
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void get_ReturnsPutPost() {
+    // given
+    PostDto post = post(1L);
+
+    // when
+    postCache.put(post);
+
+    // then
+    assertEquals(post, postCache.get(1L));
+    assertNull(postCache.get(2L));
+  }
+
+  @Test
+  void evictAll_RemovesGivenPosts() {
+    // given
+    postCache.put(post(1L));
+    postCache.put(post(2L));
+    postCache.put(post(3L));
+
+    // when
+    postCache.evictAll(List.of(1L, 3L));
+
+    // then
+    assertNull(postCache.get(1L));
+    assertNotNull(postCache.get(2L));
+    assertNull(postCache.get(3L));
+  }
+
+  @Test
+  void evict_IsAppliedAfterCommit_WhenTransactionIsActive() {
+    // given
+    postCache.put(post(1L));
+    TransactionSynchronizationManager.initSynchronization();
+
+    // when
+    postCache.evict(1L);
+
+    // then
+    assertNotNull(postCache.get(1L));
+    List<TransactionSynchronization> synchronizations =
+        TransactionSynchronizationManager.getSynchronizations();
+    synchronizations.forEach(TransactionSynchronization::afterCommit);
+    assertNull(postCache.get(1L));
+  }
+
+  @Test
+  void putIfUnchanged_SkipsPostLoadedBeforeEviction() {
+    // given
+    long generation = postCache.generation(1L);
+    PostDto stale = post(1L);
+    TransactionSynchronizationManager.initSynchronization();
+    postCache.evict(1L);
+    List<TransactionSynchronization> update =
+        TransactionSynchronizationManager.getSynchronizations();
+    TransactionSynchronizationManager.clearSynchronization();
+
+    // when
+    update.forEach(TransactionSynchronization::afterCommit);
+    postCache.putIfUnchanged(stale, generation);
+
+    // then
+    assertNull(postCache.get(1L));
+    PostDto fresh = post(1L);
+    postCache.putIfUnchanged(fresh, postCache.generation(1L));
+    assertEquals(fresh, postCache.get(1L));
+  }
+
+  private PostDto post(Long id) {
+    return new PostDto(id, new Date(), "Title " + id, "Text", 0, 0, 1L, 1L);
+  }
+}
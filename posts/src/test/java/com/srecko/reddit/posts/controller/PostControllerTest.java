@@ -9,19 +9,39 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import com.srecko.reddit.posts.counter.PostCounterBuffer;
+import com.srecko.reddit.posts.dto.BulkPostItem;
+import com.srecko.reddit.posts.dto.BulkPostRequest;
 import com.srecko.reddit.posts.dto.CreatePostRequest;
+import com.srecko.reddit.posts.dto.PostBatchRequest;
 import com.srecko.reddit.posts.dto.UpdatePostRequest;
 import com.srecko.reddit.posts.entity.Post;
 import com.srecko.reddit.posts.repository.PostRepository;
 import com.srecko.reddit.posts.service.client.SubredditsFeignClient;
 import com.srecko.reddit.posts.service.client.UsersFeignClient;
+import feign.FeignException;
+import feign.Request;
+import feign.Request.HttpMethod;
+import feign.Response;
+import jakarta.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPInputStream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -30,9 +50,11 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -48,6 +70,12 @@ class PostControllerTest {
   @Autowired
   private PostRepository postRepository;
 
+  @Autowired
+  private PostCounterBuffer postCounterBuffer;
+
+  @Autowired
+  private EntityManager entityManager;
+
   @MockBean
   private UsersFeignClient usersFeignClient;
 
@@ -93,6 +121,36 @@ class PostControllerTest {
         .andExpect(jsonPath("$.page.totalPages", is(1)));
   }
 
+  @Test
+  void createBulk_CreatesValidPostsAndReportsRejectedOnes() throws Exception {
+    Long missingSubredditId = 999L;
+    doNothing().when(usersFeignClient).checkIfExists(any());
+    doNothing().when(subredditsFeignClient).checkIfSubredditExists(subredditId);
+    doThrow(notFound()).when(subredditsFeignClient).checkIfSubredditExists(missingSubredditId);
+    BulkPostRequest request = new BulkPostRequest(List.of(
+        new BulkPostItem(userId, subredditId, "First post", "First text"),
+        new BulkPostItem(userId, subredditId, "No", "Title is too short"),
+        new BulkPostItem(userId, missingSubredditId, "Lost post", "Nowhere to go"),
+        new BulkPostItem(userId, subredditId, "Second post", "Second text")));
+
+    mockMvc.perform(MockMvcRequestBuilders.post("/api/posts/bulk")
+            .header("AUTHORIZATION", "Bearer " + jwt)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(new ObjectMapper().writeValueAsString(request)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.created", is(2)))
+        .andExpect(jsonPath("$.rejected", is(2)))
+        .andExpect(jsonPath("$.results", hasSize(4)))
+        .andExpect(jsonPath("$.results[0].postId").isNumber())
+        .andExpect(jsonPath("$.results[1].error", containsString("title")))
+        .andExpect(jsonPath("$.results[2].error",
+            is("Subreddit with id 999 is not found.")))
+        .andExpect(jsonPath("$.results[3].postId").isNumber());
+
+    assertEquals(2, postRepository.count());
+    verify(subredditsFeignClient, times(1)).checkIfSubredditExists(subredditId);
+  }
+
   @Test
   void getPost_ReturnsPost_WhenPostExists() throws Exception {
     Post post = new Post(userId, "I love you.", "I do.", subredditId);
@@ -109,6 +167,55 @@ class PostControllerTest {
         .andExpect(jsonPath("$.subredditId", is(post.getSubredditId().intValue())));
   }
 
+  @Test
+  void getPostsByIds_ReturnsPostsInRequestOrderAndMissingIds() throws Exception {
+    Post post1 = new Post(userId, "I love you.", "I do.", subredditId);
+    Post post2 = new Post(userId, "What's up.", "Not much.", subredditId);
+    postRepository.saveAll(List.of(post1, post2));
+    PostBatchRequest request = new PostBatchRequest(List.of(post2.getId(), 0L, post1.getId()));
+    String valueAsString = new ObjectMapper().writeValueAsString(request);
+
+    mockMvc.perform(MockMvcRequestBuilders.post("/api/posts/batch")
+            .header("AUTHORIZATION", "Bearer " + jwt)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(valueAsString))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.posts", hasSize(2)))
+        .andExpect(jsonPath("$.posts[0].id", is(post2.getId().intValue())))
+        .andExpect(jsonPath("$.posts[1].id", is(post1.getId().intValue())))
+        .andExpect(jsonPath("$.missingIds", hasSize(1)))
+        .andExpect(jsonPath("$.missingIds[0]", is(0)));
+  }
+
+  @Test
+  void getIndexDocuments_ReturnsPostsAfterIdInIdOrder() throws Exception {
+    Post post1 = new Post(userId, "I love you.", "I do.", subredditId);
+    Post post2 = new Post(userId, "What's up.", "Not much.", subredditId);
+    Post post3 = new Post(userId, "Good night.", "Sleep well.", subredditId);
+    postRepository.saveAll(List.of(post1, post2, post3));
+
+    mockMvc.perform(MockMvcRequestBuilders.get("/api/posts/search-index")
+            .header("AUTHORIZATION", "Bearer " + jwt)
+            .param("afterId", String.valueOf(post1.getId()))
+            .param("limit", "1"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(1)))
+        .andExpect(jsonPath("$[0].id", is(post2.getId().intValue())))
+        .andExpect(jsonPath("$[0].title", is("What's up.")));
+  }
+
+  @Test
+  void getPostsByIds_ThrowsDtoValidationException_WhenTooManyIds() throws Exception {
+    List<Long> ids = LongStream.rangeClosed(1, PostBatchRequest.MAX_IDS + 1).boxed().toList();
+    String valueAsString = new ObjectMapper().writeValueAsString(new PostBatchRequest(ids));
+
+    mockMvc.perform(MockMvcRequestBuilders.post("/api/posts/batch")
+            .header("AUTHORIZATION", "Bearer " + jwt)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(valueAsString))
+        .andExpect(status().is4xxClientError());
+  }
+
   @Test
   void getPost_ThrowsPostNotFoundException_WhenPostDoesNotExist() throws Exception {
     mockMvc.perform(MockMvcRequestBuilders.get("/api/posts/{postId}", 0)
@@ -140,6 +247,50 @@ class PostControllerTest {
         .andExpect(jsonPath("$.page.totalPages", is(1)));
   }
 
+  @Test
+  void exportPostsForSubreddit_WritesOnePostPerLine() throws Exception {
+    Post post1 = new Post(userId, "I love you.", "I do.", subredditId);
+    Post post2 = new Post(userId, "What's up.", "Not much.", subredditId);
+    Post other = new Post(userId, "Elsewhere.", "Not here.", subredditId + 1);
+    postRepository.saveAllAndFlush(List.of(post1, post2, other));
+
+    doNothing().when(subredditsFeignClient).checkIfSubredditExists(any());
+
+    MvcResult result = mockMvc.perform(
+            MockMvcRequestBuilders.get("/api/posts/export/subreddit/{subredditId}", subredditId)
+                .header("AUTHORIZATION", "Bearer " + jwt))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType("application/x-ndjson"))
+        .andReturn();
+
+    String[] lines = result.getResponse().getContentAsString().split("\n");
+    assertEquals(2, lines.length);
+    assertEquals(post1.getTitle(), JsonPath.read(lines[0], "$.title"));
+    assertEquals(post2.getTitle(), JsonPath.read(lines[1], "$.title"));
+  }
+
+  @Test
+  void exportPostsForSubreddit_CompressesExport_WhenClientAcceptsGzip() throws Exception {
+    Post post = new Post(userId, "I love you.", "I do.", subredditId);
+    postRepository.saveAndFlush(post);
+
+    doNothing().when(subredditsFeignClient).checkIfSubredditExists(any());
+
+    MvcResult result = mockMvc.perform(
+            MockMvcRequestBuilders.get("/api/posts/export/subreddit/{subredditId}", subredditId)
+                .header("AUTHORIZATION", "Bearer " + jwt)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+        .andReturn();
+
+    try (GZIPInputStream inputStream = new GZIPInputStream(
+        new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+      String export = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+      assertEquals(post.getTitle(), JsonPath.read(export.trim(), "$.title"));
+    }
+  }
+
   @Test
   void getPostsForUser_ReturnsPosts_WhenUserExists() throws Exception {
     Post post1 = new Post(userId, "I love you.", "I do.", subredditId);
@@ -280,7 +431,7 @@ class PostControllerTest {
   @Test
   void checkIfPostExists_NothingHappens_WhenPostExists() throws Exception {
     Post post = new Post(userId, "I love you.", "I do.", subredditId);
-    postRepository.save(post);
+    postRepository.saveAndFlush(post);
 
     mockMvc.perform(MockMvcRequestBuilders.head("/api/posts/checkIfExists")
         .servletPath("/api/posts/checkIfExists")
@@ -380,14 +531,124 @@ class PostControllerTest {
         .andExpect(jsonPath("$.page.totalPages", is(0)));
   }
 
+  @Test
+  void getAllPostsForSubreddit_ReturnsPagesByCursor_WhenAfterProvided() throws Exception {
+    Post post1 = new Post(userId, "I love you.", "I do.", subredditId);
+    Post post2 = new Post(userId, "What's up.", "Not much.", subredditId);
+    Post post3 = new Post(userId, "Hello there.", "General.", subredditId);
+    post2.setDateOfCreation(new Date(post1.getDateOfCreation().getTime() + 1000));
+    post3.setDateOfCreation(new Date(post1.getDateOfCreation().getTime() + 2000));
+    postRepository.saveAll(List.of(post1, post2, post3));
+
+    doNothing().when(subredditsFeignClient).checkIfSubredditExists(any());
+
+    MvcResult firstPage = mockMvc.perform(
+            MockMvcRequestBuilders.get("/api/posts/subreddit/{subredditId}", subredditId)
+                .param("after", "")
+                .param("size", "2")
+                .header("AUTHORIZATION", "Bearer " + jwt))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaTypes.HAL_JSON))
+        .andExpect(jsonPath("$._embedded.postDtoList", hasSize(2)))
+        .andExpect(jsonPath("$._embedded.postDtoList[0].title", is(post1.getTitle())))
+        .andExpect(jsonPath("$._embedded.postDtoList[1].title", is(post2.getTitle())))
+        .andExpect(jsonPath("$._links.next.href", containsString("after=")))
+        .andReturn();
+    String next = JsonPath.read(firstPage.getResponse().getContentAsString(),
+        "$._links.next.href");
+
+    mockMvc.perform(MockMvcRequestBuilders.get(next)
+            .header("AUTHORIZATION", "Bearer " + jwt))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$._embedded.postDtoList", hasSize(1)))
+        .andExpect(jsonPath("$._embedded.postDtoList[0].title", is(post3.getTitle())))
+        .andExpect(jsonPath("$._links.next").doesNotExist());
+  }
+
+  @Test
+  void getAllPostsForSubreddit_ReturnsBadRequest_WhenCursorIsInvalid() throws Exception {
+    doNothing().when(subredditsFeignClient).checkIfSubredditExists(any());
+
+    mockMvc.perform(MockMvcRequestBuilders.get("/api/posts/subreddit/{subredditId}", subredditId)
+            .param("after", "not-a-cursor")
+            .header("AUTHORIZATION", "Bearer " + jwt))
+        .andExpect(status().isBadRequest())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+  }
+
+  @Test
+  void getPostsForUser_ReturnsPagesByCursor_WhenAfterProvided() throws Exception {
+    Post post1 = new Post(userId, "I love you.", "I do.", subredditId);
+    Post post2 = new Post(userId, "What's up.", "Not much.", subredditId);
+    post1.setVotes(3);
+    post2.setVotes(7);
+    postRepository.saveAll(List.of(post1, post2));
+
+    given(usersFeignClient.getUserId(any())).willReturn(userId);
+
+    mockMvc.perform(MockMvcRequestBuilders.get("/api/posts/user/{username}", "username")
+            .param("after", "")
+            .param("size", "1")
+            .param("sort", "votes,desc")
+            .header("AUTHORIZATION", "Bearer " + jwt))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$._embedded.postDtoList", hasSize(1)))
+        .andExpect(jsonPath("$._embedded.postDtoList[0].title", is(post2.getTitle())))
+        .andExpect(jsonPath("$._links.next.href", containsString("after=")));
+  }
+
+  @Test
+  void getAllPostsForSubreddit_ReturnsHotPosts_WhenSortedByHot() throws Exception {
+    Long rankedSubredditId = 345L;
+    Post post1 = new Post(userId, "I love you.", "I do.", rankedSubredditId);
+    Post post2 = new Post(userId, "What's up.", "Not much.", rankedSubredditId);
+    post2.setVotes(10);
+    postRepository.saveAll(List.of(post1, post2));
+
+    doNothing().when(subredditsFeignClient).checkIfSubredditExists(any());
+
+    mockMvc.perform(MockMvcRequestBuilders.get("/api/posts/subreddit/{subredditId}",
+                rankedSubredditId)
+            .param("sort", "hot")
+            .header("AUTHORIZATION", "Bearer " + jwt))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaTypes.HAL_JSON))
+        .andExpect(jsonPath("$.['_embedded'].postDtoList", hasSize(2)))
+        .andExpect(jsonPath("$._embedded.postDtoList[0].title", is(post2.getTitle())))
+        .andExpect(jsonPath("$._embedded.postDtoList[1].title", is(post1.getTitle())))
+        .andExpect(jsonPath("$.page.totalElements", is(2)));
+  }
+
+  @Test
+  void increaseVotes_IncreasesVotes_WhenPostExists() throws Exception {
+    Post post = new Post(userId, "I love you.", "I do.", subredditId);
+    postRepository.saveAndFlush(post);
+
+    mockMvc.perform(MockMvcRequestBuilders.head("/api/posts/increaseVotes/{postId}", post.getId()))
+        .andExpect(status().isOk());
+    flushCounters();
+
+    Optional<Post> savedOptional = postRepository.findById(post.getId());
+
+    assertFalse(savedOptional.isEmpty());
+    assertEquals(1, savedOptional.get().getVotes());
+  }
+
+  @Test
+  void decreaseVotes_ThrowsPostNotFound_WhenPostDoesNotExist() throws Exception {
+    mockMvc.perform(MockMvcRequestBuilders.head("/api/posts/decreaseVotes/{postId}", 0L))
+        .andExpect(status().is4xxClientError());
+  }
+
   @Test
   void increaseCommentCounter_IncreasesCommentsCounter_WhenPostExists() throws Exception {
     Post post = new Post(userId, "I love you.", "I do.", subredditId);
     post.setCommentsCounter(4);
-    postRepository.save(post);
+    postRepository.saveAndFlush(post);
 
     mockMvc.perform(MockMvcRequestBuilders.head("/api/posts/increaseCommentsCounter/{postId}", post.getId()))
         .andExpect(status().isOk());
+    flushCounters();
 
     Optional<Post> savedOptional = postRepository.findById(post.getId());
 
@@ -406,10 +667,11 @@ class PostControllerTest {
   void decreaseCommentCounter_DecreasesCommentsCounter_WhenPostExists() throws Exception {
     Post post = new Post(userId, "I love you.", "I do.", subredditId);
     post.setCommentsCounter(5);
-    postRepository.save(post);
+    postRepository.saveAndFlush(post);
 
     mockMvc.perform(MockMvcRequestBuilders.head("/api/posts/decreaseCommentsCounter/{postId}", post.getId()))
         .andExpect(status().isOk());
+    flushCounters();
 
     Optional<Post> savedOptional = postRepository.findById(post.getId());
 
@@ -423,4 +685,20 @@ class PostControllerTest {
     mockMvc.perform(MockMvcRequestBuilders.head("/api/posts/decreaseCommentsCounter/{postId}", 0L))
         .andExpect(status().is4xxClientError());
   }
-}
\ No newline at end of file
+
+  private void flushCounters() {
+    entityManager.flush();
+    postCounterBuffer.flush();
+    entityManager.clear();
+  }
+
+  private FeignException notFound() {
+    Request request = Request.create(HttpMethod.HEAD, "/api/subreddits/checkIfSubredditExists",
+        Collections.emptyMap(), null, null, null);
+    return FeignException.errorStatus("checkIfSubredditExists", Response.builder()
+        .status(404)
+        .request(request)
+        .headers(Collections.emptyMap())
+        .build());
+  }
+}
@@ -0,0 +1,192 @@
+package com.srecko.reddit.posts.feed;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.srecko.reddit.posts.dto.SubscriptionDto;
+import com.srecko.reddit.posts.entity.Post;
+import com.srecko.reddit.posts.ranking.RankedPage;
+import com.srecko.reddit.posts.repository.PostRepository;
+import com.srecko.reddit.posts.service.client.SubredditsFeignClient;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+
+class HomeFeedIndexTest {
+
+  private PostRepository postRepository;
+
+  private SubredditsFeignClient subredditsFeignClient;
+
+  private Long userId;
+
+  private long now;
+
+  @BeforeEach
+  void setUp() {
+    postRepository = mock(PostRepository.class);
+    subredditsFeignClient = mock(SubredditsFeignClient.class);
+    userId = 7L;
+    now = System.currentTimeMillis();
+    given(subredditsFeignClient.getSubscriptions(userId)).willReturn(List.of(
+        new SubscriptionDto(1L, 10),
+        new SubscriptionDto(2L, 50000)));
+  }
+
+  @Test
+  void getPage_MergesSmallAndHugeSubredditsNewestFirst() {
+    // given
+    HomeFeedIndex homeFeedIndex = homeFeedIndex(100, 3);
+    given(postRepository.findFeedEntriesBySubredditIdIn(eq(List.of(1L)), any()))
+        .willReturn(List.of(entry(10L, 1L, 1), entry(11L, 1L, 4)));
+    given(postRepository.findFeedEntriesBySubredditIdIn(eq(List.of(2L)), any()))
+        .willReturn(List.of(entry(20L, 2L, 2), entry(21L, 2L, 3)));
+
+    // when
+    RankedPage first = homeFeedIndex.getPage(userId, 0, 3);
+    RankedPage second = homeFeedIndex.getPage(userId, 3, 3);
+
+    // then
+    assertEquals(List.of(10L, 20L, 21L), first.getPostIds());
+    assertEquals(List.of(11L), second.getPostIds());
+    assertEquals(4, first.getTotal());
+  }
+
+  @Test
+  void getPage_PushesNewPostsToMaterializedFeed_WhenUserReadsOften() {
+    // given
+    HomeFeedIndex homeFeedIndex = homeFeedIndex(100, 1);
+    given(postRepository.findFeedEntriesBySubredditIdIn(eq(List.of(1L)), any()))
+        .willReturn(List.of(entry(10L, 1L, 1)));
+    homeFeedIndex.getPage(userId, 0, 10);
+
+    // when
+    homeFeedIndex.onPostCreated(post(12L, 1L, 0));
+    homeFeedIndex.onPostCreated(post(13L, 3L, 0));
+    RankedPage page = homeFeedIndex.getPage(userId, 0, 10);
+
+    // then
+    assertEquals(List.of(12L, 10L), page.getPostIds());
+    verify(postRepository, times(1)).findFeedEntriesBySubredditIdIn(eq(List.of(1L)), any());
+    verify(subredditsFeignClient, times(1)).getSubscriptions(userId);
+  }
+
+  @Test
+  void getPage_FetchesSubscriptionsOnce_ForReadsBeforeMaterializing() {
+    // given
+    HomeFeedIndex homeFeedIndex = homeFeedIndex(100, 3);
+    given(postRepository.findFeedEntriesBySubredditIdIn(any(), any()))
+        .willReturn(List.of(entry(10L, 1L, 1)));
+
+    // when
+    homeFeedIndex.getPage(userId, 0, 10);
+    homeFeedIndex.getPage(userId, 0, 10);
+
+    // then
+    verify(subredditsFeignClient, times(1)).getSubscriptions(userId);
+  }
+
+  @Test
+  void getPage_MaterializesFeedOnce_WhenReadsOverlap() throws Exception {
+    // given
+    HomeFeedIndex homeFeedIndex = homeFeedIndex(100, 1);
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger loads = new AtomicInteger();
+    given(postRepository.findFeedEntriesBySubredditIdIn(eq(List.of(1L)), any()))
+        .willAnswer(invocation -> {
+          if (loads.incrementAndGet() == 1) {
+            loading.countDown();
+            release.await();
+          }
+          return List.of(entry(10L, 1L, 1));
+        });
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    // when
+    Future<RankedPage> first = executor.submit(() -> homeFeedIndex.getPage(userId, 0, 10));
+    loading.await();
+    RankedPage second = homeFeedIndex.getPage(userId, 0, 10);
+    release.countDown();
+
+    // then
+    assertEquals(List.of(10L), second.getPostIds());
+    assertEquals(List.of(10L), first.get().getPostIds());
+    verify(postRepository, times(1))
+        .findFeedEntriesBySubredditIdIn(eq(List.of(1L)), eq(PageRequest.of(0, 100,
+            Sort.by(Direction.DESC, "dateOfCreation").and(Sort.by(Direction.DESC, "id")))));
+    executor.shutdown();
+  }
+
+  @Test
+  void onPostDeleted_RemovesPostFromFeeds() {
+    // given
+    HomeFeedIndex homeFeedIndex = homeFeedIndex(100, 1);
+    Post deleted = post(10L, 1L, 1);
+    given(postRepository.findFeedEntriesBySubredditIdIn(eq(List.of(1L)), any()))
+        .willReturn(List.of(entry(10L, 1L, 1), entry(11L, 1L, 2)));
+    given(postRepository.findFeedEntriesBySubredditIdIn(eq(List.of(2L)), any()))
+        .willReturn(List.of(entry(20L, 2L, 3)));
+    homeFeedIndex.getPage(userId, 0, 10);
+
+    // when
+    homeFeedIndex.onPostDeleted(deleted);
+    homeFeedIndex.onPostDeleted(post(20L, 2L, 3));
+    RankedPage page = homeFeedIndex.getPage(userId, 0, 10);
+
+    // then
+    assertEquals(List.of(11L), page.getPostIds());
+  }
+
+  @Test
+  void getPage_CapsTotalAtDepth() {
+    // given
+    HomeFeedIndex homeFeedIndex = homeFeedIndex(2, 3);
+    given(postRepository.findFeedEntriesBySubredditIdIn(eq(List.of(1L)), any()))
+        .willReturn(List.of(entry(10L, 1L, 1), entry(11L, 1L, 2)));
+    given(postRepository.findFeedEntriesBySubredditIdIn(eq(List.of(2L)), any()))
+        .willReturn(List.of(entry(20L, 2L, 3), entry(21L, 2L, 4)));
+
+    // when
+    RankedPage page = homeFeedIndex.getPage(userId, 0, 10);
+
+    // then
+    assertEquals(List.of(10L, 11L), page.getPostIds());
+    assertEquals(2, page.getTotal());
+  }
+
+  private HomeFeedIndex homeFeedIndex(int depth, int heavyReaderReads) {
+    return new HomeFeedIndex(postRepository, subredditsFeignClient, depth, 10000,
+        heavyReaderReads, 100, Duration.ofMinutes(1));
+  }
+
+  private FeedEntry entry(Long postId, Long subredditId, int minutesAgo) {
+    return new FeedEntry(postId, subredditId, date(minutesAgo));
+  }
+
+  private Post post(Long postId, Long subredditId, int minutesAgo) {
+    Post post = new Post(1L, "Title", "Text", subredditId);
+    post.setId(postId);
+    post.setDateOfCreation(date(minutesAgo));
+    return post;
+  }
+
+  private Date date(int minutesAgo) {
+    return new Date(now - Duration.ofMinutes(minutesAgo).toMillis());
+  }
+}
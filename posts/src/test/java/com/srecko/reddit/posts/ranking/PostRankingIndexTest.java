@@ -0,0 +1,196 @@
+package com.srecko.reddit.posts.ranking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.srecko.reddit.posts.entity.Post;
+import com.srecko.reddit.posts.repository.PostRepository;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+class PostRankingIndexTest {
+
+  private PostRepository postRepository;
+
+  private PostRankingIndex postRankingIndex;
+
+  private Long subredditId;
+
+  private Date now;
+
+  @BeforeEach
+  void setUp() {
+    postRepository = mock(PostRepository.class);
+    postRankingIndex = new PostRankingIndex(postRepository, 100);
+    subredditId = 123L;
+    now = new Date();
+  }
+
+  @Test
+  void getPage_ReturnsPostsByHotScore_WhenSortedByHot() {
+    // given
+    Date twoDaysAgo = new Date(now.getTime() - Duration.ofDays(2).toMillis());
+    given(postRepository.findRankingEntries(eq(subredditId), any())).willReturn(List.of(
+        new RankingEntry(1L, 5, 0, twoDaysAgo),
+        new RankingEntry(2L, 5, 0, now),
+        new RankingEntry(3L, 50, 0, now)));
+
+    // when
+    RankedPage page = postRankingIndex.getPage(subredditId, RankingSort.HOT, RankingWindow.ALL,
+        0, 10);
+
+    // then
+    assertEquals(List.of(3L, 2L, 1L), page.getPostIds());
+    assertEquals(3, page.getTotal());
+  }
+
+  @Test
+  void getPage_ReturnsOnlyPostsInWindow_WhenSortedByTopOfDay() {
+    // given
+    Date twoDaysAgo = new Date(now.getTime() - Duration.ofDays(2).toMillis());
+    given(postRepository.findRankingEntries(eq(subredditId), any())).willReturn(List.of(
+        new RankingEntry(1L, 100, 0, twoDaysAgo),
+        new RankingEntry(2L, 5, 0, now),
+        new RankingEntry(3L, 50, 0, now)));
+
+    // when
+    RankedPage day = postRankingIndex.getPage(subredditId, RankingSort.TOP, RankingWindow.DAY,
+        0, 10);
+    RankedPage all = postRankingIndex.getPage(subredditId, RankingSort.TOP, RankingWindow.ALL,
+        0, 10);
+
+    // then
+    assertEquals(List.of(3L, 2L), day.getPostIds());
+    assertEquals(List.of(1L, 3L, 2L), all.getPostIds());
+  }
+
+  @Test
+  void getPage_ReturnsRequestedPage_WhenOffsetGiven() {
+    // given
+    given(postRepository.findRankingEntries(eq(subredditId), any())).willReturn(List.of(
+        new RankingEntry(1L, 1, 0, now),
+        new RankingEntry(2L, 2, 0, now),
+        new RankingEntry(3L, 3, 0, now)));
+
+    // when
+    RankedPage page = postRankingIndex.getPage(subredditId, RankingSort.TOP, RankingWindow.ALL,
+        2, 2);
+
+    // then
+    assertEquals(List.of(1L), page.getPostIds());
+    assertEquals(3, page.getTotal());
+  }
+
+  @Test
+  void getPage_LoadsSubredditOnce_WhenCalledRepeatedly() {
+    // when
+    postRankingIndex.getPage(subredditId, RankingSort.HOT, RankingWindow.ALL, 0, 10);
+    postRankingIndex.getPage(subredditId, RankingSort.RISING, RankingWindow.ALL, 0, 10);
+
+    // then
+    verify(postRepository, times(1)).findRankingEntries(eq(subredditId), any(Pageable.class));
+    verify(postRepository, times(1)).findRankingEntriesCreatedSince(eq(subredditId), any(),
+        any(Pageable.class));
+  }
+
+  @Test
+  void onPostChanged_ReordersListing_WhenVotesChange() {
+    // given
+    Post post = post(1L, 0);
+    given(postRepository.findRankingEntries(eq(subredditId), any())).willReturn(List.of(
+        new RankingEntry(1L, 0, 0, post.getDateOfCreation()),
+        new RankingEntry(2L, 5, 0, post.getDateOfCreation())));
+    postRankingIndex.getPage(subredditId, RankingSort.HOT, RankingWindow.ALL, 0, 10);
+
+    // when
+    post.setVotes(10);
+    postRankingIndex.onPostChanged(post);
+
+    // then
+    RankedPage page = postRankingIndex.getPage(subredditId, RankingSort.HOT, RankingWindow.ALL,
+        0, 10);
+    assertEquals(List.of(1L, 2L), page.getPostIds());
+  }
+
+  @Test
+  void onPostChanged_AddsPost_WhenPostIsCreated() {
+    // given
+    postRankingIndex.getPage(subredditId, RankingSort.RISING, RankingWindow.ALL, 0, 10);
+
+    // when
+    postRankingIndex.onPostChanged(post(7L, 0));
+
+    // then
+    RankedPage page = postRankingIndex.getPage(subredditId, RankingSort.RISING, RankingWindow.ALL,
+        0, 10);
+    assertEquals(List.of(7L), page.getPostIds());
+  }
+
+  @Test
+  void onPostDeleted_RemovesPost_WhenPostIsRanked() {
+    // given
+    Post post = post(1L, 3);
+    given(postRepository.findRankingEntries(eq(subredditId), any())).willReturn(List.of(
+        new RankingEntry(1L, 3, 0, post.getDateOfCreation())));
+    postRankingIndex.getPage(subredditId, RankingSort.HOT, RankingWindow.ALL, 0, 10);
+
+    // when
+    postRankingIndex.onPostDeleted(post);
+
+    // then
+    RankedPage page = postRankingIndex.getPage(subredditId, RankingSort.HOT, RankingWindow.ALL,
+        0, 10);
+    assertTrue(page.getPostIds().isEmpty());
+    assertEquals(0, page.getTotal());
+  }
+
+  @Test
+  void getPage_IncludesPostsChanged_WhileSubredditIsLoading() {
+    // given
+    Post deleted = post(1L, 3);
+    given(postRepository.findRankingEntries(eq(subredditId), any())).willAnswer(invocation -> {
+      // Committed after the queries read the posts, but before the ranking is published
+      postRankingIndex.onPostChanged(post(7L, 10));
+      postRankingIndex.onPostDeleted(deleted);
+      return List.of(new RankingEntry(1L, 3, 0, deleted.getDateOfCreation()),
+          new RankingEntry(2L, 1, 0, now));
+    });
+
+    // when
+    RankedPage page = postRankingIndex.getPage(subredditId, RankingSort.TOP, RankingWindow.ALL,
+        0, 10);
+
+    // then
+    assertEquals(List.of(7L, 2L), page.getPostIds());
+    postRankingIndex.onPostChanged(post(8L, 20));
+    assertEquals(List.of(8L, 7L, 2L), postRankingIndex.getPage(subredditId, RankingSort.TOP,
+        RankingWindow.ALL, 0, 10).getPostIds());
+  }
+
+  @Test
+  void fromSort_ReturnsRankingSort_WhenSortedByRankingName() {
+    // given when then
+    assertEquals(RankingSort.HOT, RankingSort.fromSort(Sort.by("hot")).orElseThrow());
+    assertTrue(RankingSort.fromSort(Sort.by("dateOfCreation")).isEmpty());
+    assertEquals(RankingWindow.WEEK, RankingWindow.fromParam("week"));
+    assertEquals(RankingWindow.ALL, RankingWindow.fromParam(null));
+  }
+
+  private Post post(Long id, int votes) {
+    Post post = new Post(1L, "Title", "Text", subredditId);
+    post.setId(id);
+    post.setVotes(votes);
+    return post;
+  }
+}
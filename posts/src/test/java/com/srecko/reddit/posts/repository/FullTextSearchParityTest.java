@@ -0,0 +1,214 @@
+package com.srecko.reddit.posts.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.srecko.reddit.posts.dto.PostDto;
+import com.srecko.reddit.posts.entity.Post;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource({"/application-test.properties", "/application-full-text.properties"})
+@SpringBootTest
+@Tag("full-text")
+@TestInstance(Lifecycle.PER_CLASS)
+class FullTextSearchParityTest {
+
+  private static final int WORD_LENGTH = 6;
+
+  private static final int SUBREDDITS = 10;
+
+  private static final Logger logger = LogManager.getLogger(FullTextSearchParityTest.class);
+
+  @Autowired
+  private PostRepository postRepository;
+
+  @Value("${posts.search.full-text.parity.posts}")
+  private int posts;
+
+  @Value("${posts.search.full-text.parity.words}")
+  private int words;
+
+  @Value("${posts.search.full-text.parity.queries}")
+  private int queries;
+
+  private final Random random = new Random(7);
+
+  private List<String> vocabulary;
+
+  @BeforeAll
+  void setUp() {
+    // Words of one length only contain each other when they are equal, so a single word query
+    // matches the same titles as a substring and as a whole word
+    Set<String> distinct = new LinkedHashSet<>();
+    while (distinct.size() < words) {
+      distinct.add(random.ints(WORD_LENGTH, 'a', 'z' + 1)
+          .mapToObj(c -> String.valueOf((char) c))
+          .collect(Collectors.joining()));
+    }
+    vocabulary = new ArrayList<>(distinct);
+    List<Post> generated = new ArrayList<>(posts);
+    for (int i = 0; i < posts; i++) {
+      String title = random.ints(1 + random.nextInt(4), 0, vocabulary.size())
+          .mapToObj(vocabulary::get)
+          .map(word -> random.nextBoolean() ? word : word.toUpperCase(Locale.ROOT))
+          .collect(Collectors.joining(" "));
+      Post post = new Post(1L, title, "Generated", 1L + random.nextInt(SUBREDDITS));
+      post.setVotes(random.nextInt(100));
+      generated.add(post);
+    }
+    long start = System.nanoTime();
+    postRepository.saveAll(generated);
+    logger.info("Generated {} posts in {} ms", posts, (System.nanoTime() - start) / 1_000_000);
+  }
+
+  @AfterAll
+  void tearDown() {
+    postRepository.deleteAllInBatch();
+  }
+
+  @Test
+  void findPostDtosByTitleMatching_MatchesSubstringSearch_ForSingleWords() {
+    // given
+    Latency substring = new Latency();
+    Latency fullText = new Latency();
+
+    for (int i = 0; i < queries; i++) {
+      String query = word();
+      Pageable all = PageRequest.of(0, posts, Sort.by(Sort.Direction.DESC, "votes"));
+
+      // when
+      Page<PostDto> expected = substring.time(
+          () -> postRepository.findPostDtosByTitleContaining(query, all));
+      Page<PostDto> actual = fullText.time(
+          () -> postRepository.findPostDtosByTitleMatching(query, all));
+
+      // then
+      assertEquals(ids(expected).stream().sorted().toList(),
+          ids(actual).stream().sorted().toList(), "query " + query);
+      assertEquals(expected.getTotalElements(), actual.getTotalElements());
+      for (int j = 1; j < actual.getNumberOfElements(); j++) {
+        assertTrue(actual.getContent().get(j - 1).getVotes()
+            >= actual.getContent().get(j).getVotes());
+      }
+      Page<PostDto> second = postRepository.findPostDtosByTitleMatching(query,
+          PageRequest.of(1, 3, Sort.by(Sort.Direction.DESC, "votes")));
+      assertEquals(ids(actual).stream().skip(3).limit(3).toList(), ids(second));
+      assertEquals(actual.getTotalElements(), second.getTotalElements());
+    }
+    logger.info("Title search over {} posts, substring: {}, full-text: {}", posts, substring,
+        fullText);
+  }
+
+  @Test
+  void findPostDtosBySubredditIdAndTitleMatching_MatchesSubstringSearch_ForSingleWords() {
+    // given
+    Latency substring = new Latency();
+    Latency fullText = new Latency();
+
+    for (int i = 0; i < queries; i++) {
+      String query = word();
+      Long subredditId = 1L + random.nextInt(SUBREDDITS);
+      Pageable firstPage = PageRequest.of(0, 20, Sort.by("dateOfCreation", "title"));
+
+      // when
+      Page<PostDto> expected = substring.time(() -> postRepository
+          .findPostDtosBySubredditIdAndTitleContaining(subredditId, query, firstPage));
+      Page<PostDto> actual = fullText.time(() -> postRepository
+          .findPostDtosBySubredditIdAndTitleMatching(subredditId, query, firstPage));
+
+      // then
+      assertEquals(expected.getTotalElements(), actual.getTotalElements(), "query " + query);
+      assertTrue(actual.getContent().stream()
+          .allMatch(postDto -> postDto.getSubredditId().equals(subredditId)));
+    }
+    logger.info("Subreddit title search over {} posts, substring: {}, full-text: {}", posts,
+        substring, fullText);
+  }
+
+  @Test
+  void findPostDtosByTitleMatching_MatchesEveryWordAnywhereInTitle() {
+    for (int i = 0; i < queries; i++) {
+      // given
+      String first = word();
+      String second = word();
+      Pageable all = PageRequest.of(0, posts, Sort.by("title"));
+
+      // when
+      List<Long> adjacent = ids(postRepository.findPostDtosByTitleContaining(
+          first + " " + second, all));
+      List<PostDto> actual = postRepository.findPostDtosByTitleMatching(
+          first + ", " + second + "!", all).getContent();
+
+      // then
+      assertTrue(ids(actual).containsAll(adjacent));
+      for (PostDto postDto : actual) {
+        List<String> titleWords = List.of(postDto.getTitle().toLowerCase(Locale.ROOT).split(" "));
+        assertTrue(titleWords.contains(first.toLowerCase(Locale.ROOT))
+            && titleWords.contains(second.toLowerCase(Locale.ROOT)), postDto.getTitle());
+      }
+    }
+    assertFalse(postRepository.findPostDtosByTitleMatching(vocabulary.get(0).substring(1),
+        PageRequest.of(0, 10, Sort.by("title"))).hasContent());
+    assertFalse(postRepository.findPostDtosByTitleMatching(" !? ",
+        PageRequest.of(0, 10, Sort.by("title"))).hasContent());
+  }
+
+  private String word() {
+    String word = vocabulary.get(random.nextInt(vocabulary.size()));
+    return random.nextBoolean() ? word : word.toUpperCase(Locale.ROOT);
+  }
+
+  private static List<Long> ids(Page<PostDto> page) {
+    return ids(page.getContent());
+  }
+
+  private static List<Long> ids(List<PostDto> postDtos) {
+    return postDtos.stream().map(PostDto::getId).toList();
+  }
+
+  /**
+   * Sums up the time queries take.
+   */
+  private static class Latency {
+
+    private long nanos;
+    private int count;
+
+    private <T> T time(Supplier<T> query) {
+      long start = System.nanoTime();
+      T result = query.get();
+      nanos += System.nanoTime() - start;
+      count++;
+      return result;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT, "%.3f ms per query", nanos / 1e6 / Math.max(count, 1));
+    }
+  }
+}
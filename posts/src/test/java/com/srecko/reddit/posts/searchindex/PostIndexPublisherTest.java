@@ -0,0 +1,140 @@
+package com.srecko.reddit.posts.searchindex;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.srecko.reddit.posts.dto.IndexEventType;
+import com.srecko.reddit.posts.dto.PostDto;
+import com.srecko.reddit.posts.dto.PostIndexEvent;
+import com.srecko.reddit.posts.entity.Post;
+import com.srecko.reddit.posts.mapper.PostMapper;
+import com.srecko.reddit.posts.service.client.SearchFeignClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class PostIndexPublisherTest {
+
+  private SearchFeignClient searchFeignClient;
+
+  private PostMapper postMapper;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private PostIndexPublisher postIndexPublisher;
+
+  @BeforeEach
+  void setUp() {
+    searchFeignClient = mock(SearchFeignClient.class);
+    postMapper = mock(PostMapper.class);
+    meterRegistry = new SimpleMeterRegistry();
+    postIndexPublisher = new PostIndexPublisher(searchFeignClient, postMapper, meterRegistry,
+        true, 2, 3);
+    given(postMapper.toDto(any(Post.class)))
+        .willAnswer(invocation -> {
+          Post post = invocation.getArgument(0);
+          PostDto postDto = new PostDto();
+          postDto.setId(post.getId());
+          postDto.setTitle(post.getTitle());
+          return postDto;
+        });
+  }
+
+  @Test
+  void flush_SendsOnlyLatestChangeOfPost() {
+    // given
+    postIndexPublisher.onPostSaved(post(1L, "First title"));
+    postIndexPublisher.onPostSaved(post(1L, "Second title"));
+    postIndexPublisher.onPostSaved(post(2L, "Other post"));
+    postIndexPublisher.onPostDeleted(2L);
+
+    // when
+    postIndexPublisher.flush();
+
+    // then
+    List<PostIndexEvent> sent = sentEvents(1);
+    assertEquals(2, sent.size());
+    PostIndexEvent first = sent.stream().filter(e -> e.getId() == 1L).findFirst().orElseThrow();
+    assertEquals(IndexEventType.UPSERT, first.getType());
+    assertEquals("Second title", first.getDocument().getTitle());
+    PostIndexEvent second = sent.stream().filter(e -> e.getId() == 2L).findFirst().orElseThrow();
+    assertEquals(IndexEventType.DELETE, second.getType());
+    assertNull(second.getDocument());
+    assertEquals(2, meterRegistry.get("posts.search-index.published").counter().count());
+  }
+
+  @Test
+  void flush_SendsChangesInBatches() {
+    // given
+    postIndexPublisher.onPostSaved(post(1L, "First"));
+    postIndexPublisher.onPostSaved(post(2L, "Second"));
+    postIndexPublisher.onPostSaved(post(3L, "Third"));
+
+    // when
+    postIndexPublisher.flush();
+
+    // then
+    List<PostIndexEvent> sent = sentEvents(2);
+    assertEquals(3, sent.size());
+  }
+
+  @Test
+  void flush_KeepsChangesForNextFlush_WhenSearchIsUnavailable() {
+    // given
+    postIndexPublisher.onPostSaved(post(1L, "First"));
+    willThrow(new IllegalStateException("Connection refused"))
+        .given(searchFeignClient).indexPosts(anyList());
+    postIndexPublisher.flush();
+    assertEquals(1, meterRegistry.get("posts.search-index.failures").counter().count());
+
+    // when
+    reset(searchFeignClient);
+    postIndexPublisher.flush();
+
+    // then
+    verify(searchFeignClient).indexPosts(anyList());
+    assertEquals(1, meterRegistry.get("posts.search-index.published").counter().count());
+  }
+
+  @Test
+  void onPostSaved_DropsChangesOfNewPosts_WhenTooManyAreWaiting() {
+    // given
+    for (long id = 1; id <= 3; id++) {
+      postIndexPublisher.onPostSaved(post(id, "Post " + id));
+    }
+
+    // when
+    postIndexPublisher.onPostSaved(post(4L, "Dropped"));
+    postIndexPublisher.onPostSaved(post(3L, "Still kept"));
+
+    // then
+    assertEquals(1, meterRegistry.get("posts.search-index.dropped").counter().count());
+    assertEquals(3, meterRegistry.get("posts.search-index.pending").gauge().value());
+  }
+
+  private List<PostIndexEvent> sentEvents(int requests) {
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<PostIndexEvent>> captor = ArgumentCaptor.forClass(List.class);
+    verify(searchFeignClient, times(requests)).indexPosts(captor.capture());
+    List<PostIndexEvent> sent = new ArrayList<>();
+    captor.getAllValues().forEach(sent::addAll);
+    return sent;
+  }
+
+  private static Post post(Long id, String title) {
+    Post post = new Post(1L, title, "Text", 1L);
+    post.setId(id);
+    return post;
+  }
+}
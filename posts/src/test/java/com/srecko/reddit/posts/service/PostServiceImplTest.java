@@ -5,18 +5,44 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doNothing;
-
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.srecko.reddit.posts.bloom.PostIdFilter;
+import com.srecko.reddit.posts.cache.PostCache;
+import com.srecko.reddit.posts.counter.PostCounterBuffer;
+import com.srecko.reddit.posts.dto.BulkPostItem;
+import com.srecko.reddit.posts.dto.BulkPostResponse;
 import com.srecko.reddit.posts.dto.CreatePostRequest;
+import com.srecko.reddit.posts.dto.PostBatchResponse;
 import com.srecko.reddit.posts.dto.PostDto;
 import com.srecko.reddit.posts.dto.UpdatePostRequest;
 import com.srecko.reddit.posts.entity.Post;
+import com.srecko.reddit.posts.exception.InvalidCursorException;
 import com.srecko.reddit.posts.exception.PostNotFoundException;
+import com.srecko.reddit.posts.export.ExportTarget;
+import com.srecko.reddit.posts.export.PostExporter;
+import com.srecko.reddit.posts.feed.HomeFeedIndex;
+import com.srecko.reddit.posts.mapper.PostMapper;
+import com.srecko.reddit.posts.pagination.Cursor;
+import com.srecko.reddit.posts.pagination.KeysetPage;
+import com.srecko.reddit.posts.ranking.PostRankingIndex;
+import com.srecko.reddit.posts.ranking.RankedPage;
+import com.srecko.reddit.posts.ranking.RankingSort;
+import com.srecko.reddit.posts.ranking.RankingWindow;
 import com.srecko.reddit.posts.repository.PostRepository;
+import com.srecko.reddit.posts.service.client.ParallelCalls;
 import com.srecko.reddit.posts.service.client.SubredditsFeignClient;
+import com.srecko.reddit.posts.service.client.UserIdResolver;
 import com.srecko.reddit.posts.service.client.UsersFeignClient;
 import com.srecko.reddit.posts.service.utils.TestConfig;
+import java.io.ByteArrayOutputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -26,7 +52,6 @@ import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
@@ -39,7 +64,8 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
-@ContextConfiguration(classes = {PostServiceImpl.class, TestConfig.class})
+@ContextConfiguration(classes = {PostServiceImpl.class, ParallelCalls.class,
+    TestConfig.class})
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("dev")
 class PostServiceImplTest {
@@ -50,13 +76,35 @@ class PostServiceImplTest {
   @MockBean
   private UsersFeignClient usersFeignClient;
 
+  @MockBean
+  private UserIdResolver userIdResolver;
+
   @MockBean
   private SubredditsFeignClient subredditsFeignClient;
 
+  @MockBean
+  private PostRankingIndex postRankingIndex;
+
+  @MockBean
+  private PostCounterBuffer postCounterBuffer;
+
+  @MockBean
+  private PostCache postCache;
+
+  @MockBean
+  private PostIdFilter postIdFilter;
+
+  @MockBean
+  private HomeFeedIndex homeFeedIndex;
+
+  @MockBean
+  private PostExporter postExporter;
+
   @Autowired
   private PostService postService;
 
-  private final ModelMapper modelMapper = new ModelMapper();
+  @Autowired
+  private PostMapper postMapper;
 
   private Long userId;
   private Long subredditId;
@@ -72,6 +120,7 @@ class PostServiceImplTest {
     LocalDateTime atStartOfDayResult3 = LocalDate.of(1970, 1, 1).atStartOfDay();
     post.setDateOfCreation(Date.from(atStartOfDayResult3.atZone(ZoneId.of("UTC")).toInstant()));
     post.setId(123L);
+    given(postIdFilter.mightContain(any())).willReturn(true);
   }
 
   @Test
@@ -101,10 +150,31 @@ class PostServiceImplTest {
     assertEquals(post.getSubredditId(), saved.getSubredditId());
   }
 
+  @Test
+  void saveAll_ChecksEachAuthorAndSubredditOnce_AndInsertsValidPosts() {
+    // given
+    List<BulkPostItem> items = List.of(
+        new BulkPostItem(userId, subredditId, "First post", "First text"),
+        new BulkPostItem(userId, subredditId, "Second post", "Second text"),
+        new BulkPostItem(userId, subredditId, "", "Empty title"));
+
+    // when
+    BulkPostResponse response = postService.saveAll(items);
+
+    // then
+    assertEquals(2, response.getCreated());
+    assertEquals(1, response.getRejected());
+    assertNotNull(response.getResults().get(2).getError());
+    verify(usersFeignClient, times(1)).checkIfExists(userId);
+    verify(subredditsFeignClient, times(1)).checkIfSubredditExists(subredditId);
+    verify(postRepository).insertInBatches(argThat(posts -> posts.size() == 2));
+  }
+
   @Test
   void getAllPosts_ReturnsAllPosts() {
     // given
-    given(postRepository.findAll(any(Pageable.class))).willReturn(new PageImpl<>(List.of(post)));
+    given(postRepository.findAllPostDtos(any(Pageable.class)))
+        .willReturn(new PageImpl<>(List.of(postMapper.toDto(post))));
     PageRequest pageRequest = PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "title"));
 
     // when
@@ -112,7 +182,7 @@ class PostServiceImplTest {
 
     // then
     assertEquals(1, result.getTotalElements());
-    assertTrue(result.getContent().contains(modelMapper.map(post, PostDto.class)));
+    assertTrue(result.getContent().contains(postMapper.toDto(post)));
   }
 
   @Test
@@ -130,6 +200,69 @@ class PostServiceImplTest {
     assertEquals(post.getSubredditId(), returned.getSubredditId());
   }
 
+  @Test
+  void getPost_CachesLoadedPost_UnlessEvictedSinceLoading() {
+    // given
+    given(postCache.generation(post.getId())).willReturn(7L);
+    given(postRepository.findById(any())).willReturn(Optional.ofNullable(post));
+
+    // when
+    PostDto returned = postService.getPost(this.post.getId());
+
+    // then
+    verify(postCache).putIfUnchanged(returned, 7L);
+  }
+
+  @Test
+  void getPost_ReturnsCachedPost_WithoutQueryingRepository() {
+    // given
+    PostDto cached = postMapper.toDto(post);
+    given(postCache.get(post.getId())).willReturn(cached);
+
+    // when
+    PostDto returned = postService.getPost(post.getId());
+
+    // then
+    assertEquals(cached, returned);
+    verify(postRepository, never()).findById(any());
+  }
+
+  @Test
+  void exportPostsForSubreddit_ChecksSubredditBeforeExporting() throws Exception {
+    // given
+    ExportTarget target = ByteArrayOutputStream::new;
+    doThrow(new IllegalStateException("Subreddit not found"))
+        .when(subredditsFeignClient).checkIfSubredditExists(subredditId);
+
+    // when then
+    assertThrows(IllegalStateException.class,
+        () -> postService.exportPostsForSubreddit(subredditId, target));
+    verify(postExporter, never()).exportSubreddit(any(), any());
+  }
+
+  @Test
+  void getHomeFeed_ReturnsPostsInFeedOrder_LoadingOnlyUncachedPosts() {
+    // given
+    Post newer = new Post(userId, "Newer Post", "This is a newer post", subredditId);
+    newer.setId(124L);
+    newer.setDateOfCreation(new Date());
+    PostDto cached = postMapper.toDto(newer);
+    given(homeFeedIndex.getPage(userId, 0, 10))
+        .willReturn(new RankedPage(List.of(newer.getId(), post.getId()), 2));
+    given(postCache.get(newer.getId())).willReturn(cached);
+    given(postRepository.findPostDtosByIdIn(List.of(post.getId())))
+        .willReturn(List.of(postMapper.toDto(post)));
+
+    // when
+    Page<PostDto> feed = postService.getHomeFeed(userId, PageRequest.of(0, 10));
+
+    // then
+    assertEquals(List.of(newer.getId(), post.getId()),
+        feed.getContent().stream().map(PostDto::getId).toList());
+    assertEquals(2, feed.getTotalElements());
+    verify(postCache).putIfUnchanged(postMapper.toDto(post), 0L);
+  }
+
   @Test
   void getPost_ThrowsPostNotFoundException_WhenPostDoesNotExist() {
     // given when then
@@ -139,8 +272,8 @@ class PostServiceImplTest {
   @Test
   void getAllPostsForSubreddit_ReturnsPosts() {
     // given
-    given(postRepository.findAllBySubredditId(any(), any(PageRequest.class)))
-        .willReturn(new PageImpl<>(List.of(post)));
+    given(postRepository.findPostDtosBySubredditId(any(), any(Pageable.class)))
+        .willReturn(new PageImpl<>(List.of(postMapper.toDto(post))));
     PageRequest pageRequest = PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "title"));
 
     // when
@@ -148,13 +281,14 @@ class PostServiceImplTest {
 
     // then
     assertEquals(1, page.getTotalElements());
-    assertTrue(page.getContent().contains(modelMapper.map(post, PostDto.class)));
+    assertTrue(page.getContent().contains(postMapper.toDto(post)));
   }
 
   @Test
   void getAllPostsForUser_ReturnsPosts() {
     // given
-    given(postRepository.findAllByUserId(any(), any())).willReturn(new PageImpl<>(List.of(post)));
+    given(postRepository.findPostDtosByUserId(any(), any()))
+        .willReturn(new PageImpl<>(List.of(postMapper.toDto(post))));
     PageRequest pageRequest = PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "title"));
 
     // when
@@ -162,7 +296,7 @@ class PostServiceImplTest {
 
     // then
     assertEquals(1, page.getTotalElements());
-    assertTrue(page.getContent().contains(modelMapper.map(post, PostDto.class)));
+    assertTrue(page.getContent().contains(postMapper.toDto(post)));
   }
 
   @Test
@@ -175,6 +309,7 @@ class PostServiceImplTest {
 
     // then
     assertNotNull(deleted);
+    verify(postCache).evict(post.getId());
     assertEquals(post.getTitle(), deleted.getTitle());
     assertEquals(post.getText(), deleted.getText());
     assertEquals(post.getUserId(), deleted.getUserId());
@@ -199,6 +334,7 @@ class PostServiceImplTest {
 
     // then
     assertNotNull(updated);
+    verify(postCache).evict(this.post.getId());
     assertEquals(post.getTitle(), updated.getTitle());
     assertEquals(post.getText(), updated.getText());
   }
@@ -219,6 +355,18 @@ class PostServiceImplTest {
     postService.checkIfExists(post.getId());
   }
 
+  @Test
+  void checkIfExists_DoesNotQueryRepository_WhenPostIsCached() {
+    // given
+    given(postCache.get(post.getId())).willReturn(postMapper.toDto(post));
+
+    // when
+    postService.checkIfExists(post.getId());
+
+    // then
+    verify(postRepository, never()).findById(any());
+  }
+
   @Test
   void checkIfExists_ThrowsPostNotFoundException_WhenPostDoesNotExist() {
     // given
@@ -228,6 +376,18 @@ class PostServiceImplTest {
     assertThrows(PostNotFoundException.class, () -> {
       postService.checkIfExists(post.getId());
     });
+    verify(postIdFilter).recordFalsePositive();
+  }
+
+  @Test
+  void checkIfExists_ThrowsPostNotFoundException_WhenFilterRulesPostOut() {
+    // given
+    given(postIdFilter.mightContain(post.getId())).willReturn(false);
+
+    // when then
+    assertThrows(PostNotFoundException.class, () -> postService.checkIfExists(post.getId()));
+    verify(postCache, never()).get(any());
+    verify(postRepository, never()).findById(any());
   }
 
   @Test
@@ -238,8 +398,9 @@ class PostServiceImplTest {
     Post post1 = new Post(userId, "New Post 2", "This is a new post", subredditId);
     post1.setId(12L);
 
-    given(postRepository.findByTitleContainingIgnoreCase(any(), any())).willReturn(
-        new PageImpl<>(List.of(post, post1))
+    given(postRepository.findPostDtosByTitleContaining(any(), any())).willReturn(
+        new PageImpl<>(List.of(postMapper.toDto(post),
+            postMapper.toDto(post1)))
     );
 
     // when
@@ -249,8 +410,8 @@ class PostServiceImplTest {
     assertNotNull(actual);
     List<PostDto> content = actual.getContent();
     assertEquals(2, content.size());
-    assertTrue(content.contains(modelMapper.map(post, PostDto.class)));
-    assertTrue(content.contains(modelMapper.map(post1, PostDto.class)));
+    assertTrue(content.contains(postMapper.toDto(post)));
+    assertTrue(content.contains(postMapper.toDto(post1)));
   }
 
   @Test
@@ -262,9 +423,9 @@ class PostServiceImplTest {
     post1.setId(12L);
 
     doNothing().when(subredditsFeignClient).checkIfSubredditExists(any());
-    given(postRepository.findBySubredditIdAndTitleContainingIgnoreCase(any(), any(), any())).willReturn(
-        new PageImpl<>(List.of(post, post1))
-    );
+    given(postRepository.findPostDtosBySubredditIdAndTitleContaining(any(), any(), any()))
+        .willReturn(new PageImpl<>(List.of(postMapper.toDto(post),
+            postMapper.toDto(post1))));
 
     // when
     Page<PostDto> actual = postService.searchPostsInSubreddit(subredditId, query, pageable);
@@ -273,43 +434,154 @@ class PostServiceImplTest {
     assertNotNull(actual);
     List<PostDto> content = actual.getContent();
     assertEquals(2, content.size());
-    assertTrue(content.contains(modelMapper.map(post, PostDto.class)));
-    assertTrue(content.contains(modelMapper.map(post1, PostDto.class)));
+    assertTrue(content.contains(postMapper.toDto(post)));
+    assertTrue(content.contains(postMapper.toDto(post1)));
   }
 
   @Test
   void updateCommentsCounter_IncreasesCommentsCounter_WhenGivenPositiveValue() {
     // given
-    given(postRepository.findById(any())).willReturn(Optional.ofNullable(post));
-    given(postRepository.save(any())).willReturn(post);
     int value = 4;
 
     // when
     postService.updateCommentsCounter(post.getId(), value);
 
     // then
-    assertEquals(5, post.getCommentsCounter());
+    verify(postCounterBuffer).addComments(post.getId(), value);
+    verify(postRepository, never()).save(any());
+    verify(postRepository, never()).existsById(any());
   }
 
   @Test
   void updateCommentsCounter_DecreasesCommentsCounter_WhenGivenNegativeValue() {
     // given
-    given(postRepository.findById(any())).willReturn(Optional.ofNullable(post));
-    given(postRepository.save(any())).willReturn(post);
     int value = -6;
 
     // when
     postService.updateCommentsCounter(post.getId(), value);
 
     // then
-    assertEquals(-5, post.getCommentsCounter());
+    verify(postCounterBuffer).addComments(post.getId(), value);
+    verify(postRepository, never()).save(any());
+    verify(postRepository, never()).existsById(any());
   }
 
   @Test
   void updateCommentsCounter_ThrowsPostNotFoundException_WhenPostNotFound() {
-    // given when then
+    // given
+    given(postIdFilter.mightContain(post.getId())).willReturn(false);
+
+    // when then
     assertThrows(PostNotFoundException.class, () -> {
       postService.updateCommentsCounter(post.getId(), 5);
     });
   }
-}
\ No newline at end of file
+
+  @Test
+  void getRankedPostsForSubreddit_ReturnsPostsInRankingOrder() {
+    // given
+    Post second = new Post(userId, "Second Post", "This is a second post", subredditId);
+    second.setId(124L);
+    PageRequest pageRequest = PageRequest.of(0, 2, Sort.by("hot"));
+    doNothing().when(subredditsFeignClient).checkIfSubredditExists(subredditId);
+    given(postRankingIndex.getPage(subredditId, RankingSort.HOT, RankingWindow.ALL, 0, 2))
+        .willReturn(new RankedPage(List.of(124L, 123L), 5));
+    given(postRepository.findPostDtosByIdIn(List.of(124L, 123L))).willReturn(
+        List.of(postMapper.toDto(post), postMapper.toDto(second)));
+
+    // when
+    Page<PostDto> page = postService.getRankedPostsForSubreddit(subredditId, RankingSort.HOT,
+        RankingWindow.ALL, pageRequest);
+
+    // then
+    assertEquals(2, page.getContent().size());
+    assertEquals(124L, page.getContent().get(0).getId());
+    assertEquals(123L, page.getContent().get(1).getId());
+    assertEquals(5, page.getTotalElements());
+  }
+
+  @Test
+  void getPostsByIds_ReturnsPostsInRequestOrderAndMissingIds() {
+    // given
+    Post second = new Post(userId, "Second Post", "This is a second post", subredditId);
+    second.setId(124L);
+    given(postRepository.findPostDtosByIdIn(any())).willReturn(
+        List.of(postMapper.toDto(post), postMapper.toDto(second)));
+
+    // when
+    PostBatchResponse response = postService.getPostsByIds(List.of(124L, 999L, 123L, 124L));
+
+    // then
+    assertEquals(List.of(124L, 123L), response.getPosts().stream().map(PostDto::getId).toList());
+    assertEquals(List.of(999L), response.getMissingIds());
+    verify(postRepository).findPostDtosByIdIn(any());
+  }
+
+  @Test
+  void getIndexDocuments_CapsLimit() {
+    // given
+    given(postRepository.findPostDtosByIdGreaterThan(any(), any())).willReturn(
+        List.of(postMapper.toDto(post)));
+
+    // when
+    List<PostDto> posts = postService.getIndexDocuments(100L, 1_000_000);
+
+    // then
+    assertEquals(List.of(post.getId()), posts.stream().map(PostDto::getId).toList());
+    verify(postRepository).findPostDtosByIdGreaterThan(100L, PageRequest.of(0, 5000));
+  }
+
+  @Test
+  void updateVotes_IncreasesVotes_WhenGivenPositiveValue() {
+    // when
+    postService.updateVotes(post.getId(), 1);
+
+    // then
+    verify(postCounterBuffer).addVotes(post.getId(), 1);
+    verify(postRepository, never()).save(any());
+    verify(postRepository, never()).existsById(any());
+  }
+
+  @Test
+  void updateVotes_ThrowsPostNotFoundException_WhenPostNotFound() {
+    // given
+    given(postIdFilter.mightContain(post.getId())).willReturn(false);
+
+    // when then
+    assertThrows(PostNotFoundException.class, () -> {
+      postService.updateVotes(post.getId(), 1);
+    });
+  }
+
+  @Test
+  void getPostsForSubredditAfter_SeeksPastCursor_WhenCursorProvided() {
+    // given
+    Cursor cursor = new Cursor("votes", Direction.DESC, "5", 122L);
+    PageRequest pageRequest = PageRequest.of(0, 1, Sort.by("title"));
+    doNothing().when(subredditsFeignClient).checkIfSubredditExists(subredditId);
+    given(postRepository.findPostDtosBySubredditIdAfter(eq(subredditId),
+        eq(Sort.Order.desc("votes")), any(), eq(1)))
+        .willReturn(new KeysetPage<>(List.of(postMapper.toDto(post)), "next"));
+
+    // when
+    KeysetPage<PostDto> page = postService.getPostsForSubredditAfter(subredditId,
+        cursor.encode(), pageRequest);
+
+    // then
+    assertEquals(1, page.getContent().size());
+    assertEquals(post.getId(), page.getContent().get(0).getId());
+    assertEquals("next", page.getNextCursor());
+  }
+
+  @Test
+  void getPostsForSubredditAfter_ThrowsInvalidCursorException_WhenCursorIsInvalid() {
+    // given
+    PageRequest pageRequest = PageRequest.of(0, 1);
+    doNothing().when(subredditsFeignClient).checkIfSubredditExists(subredditId);
+
+    // when then
+    assertThrows(InvalidCursorException.class, () -> {
+      postService.getPostsForSubredditAfter(subredditId, "@@@", pageRequest);
+    });
+  }
+}
@@ -0,0 +1,106 @@
+package com.srecko.reddit.posts.service.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.srecko.reddit.posts.exception.RemoteCallTimeoutException;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ParallelCallsTest {
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private ParallelCalls parallelCalls;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    parallelCalls = new ParallelCalls(4, 10, Duration.ofSeconds(5), false,
+        meterRegistry);
+  }
+
+  @AfterEach
+  void tearDown() {
+    parallelCalls.shutdown();
+  }
+
+  @Test
+  void join_RunsCallsConcurrently_WhenCallsWaitForEachOther() {
+    // given
+    CountDownLatch started = new CountDownLatch(2);
+
+    // when
+    Long userId = parallelCalls.join("save", () -> {
+      await(started);
+      return 123L;
+    }, () -> await(started));
+
+    // then
+    assertEquals(123L, userId);
+    Timer parallel = meterRegistry.get("posts.remote.calls").tag("operation", "save")
+        .tag("path", "parallel").timer();
+    Timer sequential = meterRegistry.get("posts.remote.calls").tag("operation", "save")
+        .tag("path", "sequential").timer();
+    assertEquals(1, parallel.count());
+    assertEquals(1, sequential.count());
+  }
+
+  @Test
+  void join_ThrowsFailureAndCancelsOtherCalls_WhenOneCallFails() throws InterruptedException {
+    // given
+    IllegalArgumentException failure = new IllegalArgumentException("missing");
+    CountDownLatch started = new CountDownLatch(2);
+    CountDownLatch interrupted = new CountDownLatch(1);
+
+    // when
+    IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+        () -> parallelCalls.join("save", () -> {
+          await(started);
+          try {
+            Thread.sleep(10_000);
+          } catch (InterruptedException e) {
+            interrupted.countDown();
+          }
+          return 123L;
+        }, () -> {
+          await(started);
+          throw failure;
+        }));
+
+    // then
+    assertSame(failure, thrown);
+    assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void join_ThrowsRemoteCallTimeoutException_WhenCallsAreTooSlow() {
+    // given
+    parallelCalls.shutdown();
+    parallelCalls = new ParallelCalls(4, 10, Duration.ofMillis(50), false,
+        meterRegistry);
+
+    // when then
+    assertThrows(RemoteCallTimeoutException.class,
+        () -> parallelCalls.join("save", () -> 123L, () -> await(new CountDownLatch(2))));
+  }
+
+  private static void await(CountDownLatch latch) {
+    latch.countDown();
+    try {
+      if (!latch.await(1, TimeUnit.SECONDS)) {
+        throw new IllegalStateException("The other call did not start");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
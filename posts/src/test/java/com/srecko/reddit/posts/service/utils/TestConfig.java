@@ -1,16 +1,35 @@
 package com.srecko.reddit.posts.service.utils;
 
-import org.modelmapper.ModelMapper;
+import com.srecko.reddit.posts.mapper.PostMapper;
+import com.srecko.reddit.posts.mapper.PostMapperImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.convert.ApplicationConversionService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Profile;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 
 @Configuration
-@Profile("dev")
 public class TestConfig {
 
-  @Bean("testModelMapper")
-  public ModelMapper modelMapper() {
-    return new ModelMapper();
+  @Bean
+  public PostMapper postMapper() {
+    return new PostMapperImpl();
+  }
+
+  @Bean
+  public LocalValidatorFactoryBean validator() {
+    return new LocalValidatorFactoryBean();
+  }
+
+  @Bean
+  public MeterRegistry meterRegistry() {
+    return new SimpleMeterRegistry();
+  }
+
+  @Bean
+  public ConversionService conversionService() {
+    return ApplicationConversionService.getSharedInstance();
   }
 }
@@ -0,0 +1,35 @@
+package com.srecko.reddit.search.cache;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * The type Query normalizer. Brings the spellings of a query that find the same results to one
+ * form: compatibility characters are folded by NFKC, so a full width or ligature letter equals its
+ * plain form, letters are lowercased, and runs of whitespace become one space. Accents are kept,
+ * since the search index tells accented terms apart.
+ *
+ * @author Srecko Nikolic
+ */
+public final class QueryNormalizer {
+
+  private static final Pattern WHITESPACE = Pattern.compile("[\\s\\p{Z}]+");
+
+  private QueryNormalizer() {
+  }
+
+  /**
+   * Normalizes a query.
+   *
+   * @param query the query
+   * @return the normalized query, empty for null
+   */
+  public static String normalize(String query) {
+    if (query == null) {
+      return "";
+    }
+    String folded = Normalizer.normalize(query, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    return WHITESPACE.matcher(folded).replaceAll(" ").strip();
+  }
+}
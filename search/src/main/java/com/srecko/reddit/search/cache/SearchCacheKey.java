@@ -0,0 +1,36 @@
+package com.srecko.reddit.search.cache;
+
+import org.springframework.data.domain.Pageable;
+
+/**
+ * The type Search cache key. Identifies one page of the results of a normalized query.
+ *
+ * @param type    the search type
+ * @param scopeId the id of the subreddit searched in, null for searches over everything
+ * @param query   the normalized query
+ * @param page    the page number, -1 when unpaged
+ * @param size    the page size, -1 when unpaged
+ * @param sort    the sort
+ * @author Srecko Nikolic
+ */
+public record SearchCacheKey(SearchType type, Long scopeId, String query, int page, int size,
+                             String sort) {
+
+  /**
+   * Creates the key of a page of results.
+   *
+   * @param type     the search type
+   * @param scopeId  the id of the subreddit searched in, null for searches over everything
+   * @param query    the normalized query
+   * @param pageable the pageable
+   * @return the key
+   */
+  public static SearchCacheKey of(SearchType type, Long scopeId, String query,
+      Pageable pageable) {
+    if (pageable.isUnpaged()) {
+      return new SearchCacheKey(type, scopeId, query, -1, -1, pageable.getSort().toString());
+    }
+    return new SearchCacheKey(type, scopeId, query, pageable.getPageNumber(),
+        pageable.getPageSize(), pageable.getSort().toString());
+  }
+}
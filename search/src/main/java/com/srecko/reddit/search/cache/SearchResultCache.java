@@ -0,0 +1,193 @@
+package com.srecko.reddit.search.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * The type Search result cache. Keeps pages of search results by normalized query for
+ * <code>search.cache.ttl</code>, holding at most <code>search.cache.maximum-size</code> pages.
+ * Concurrent searches of a page that is not cached share one search.
+ *
+ * <p>A page older than its time to live is still served for up to
+ * <code>search.cache.stale-while-revalidate</code> longer while a single search refreshes it in
+ * the background, so a query that keeps being asked never waits for the backend once it is
+ * cached. Pages nobody asks for in that window expire. Hits, stale hits and misses are counted
+ * per search type in <code>search.cache.requests</code>, and the size and evictions of the whole
+ * cache are published as the <code>search-results</code> cache metrics.
+ *
+ * @author Srecko Nikolic
+ */
+@Component
+public class SearchResultCache {
+
+  /**
+   * The name the cache metrics are published under.
+   */
+  public static final String CACHE_NAME = "search-results";
+
+  private final boolean enabled;
+  private final long ttlNanos;
+  private final Ticker ticker;
+  private final AsyncCache<SearchCacheKey, CachedPage> pages;
+  private final Set<SearchCacheKey> refreshing = ConcurrentHashMap.newKeySet();
+  private final Map<SearchType, Counter> hits = new EnumMap<>(SearchType.class);
+  private final Map<SearchType, Counter> staleHits = new EnumMap<>(SearchType.class);
+  private final Map<SearchType, Counter> misses = new EnumMap<>(SearchType.class);
+
+  private static final Logger logger = LogManager.getLogger(SearchResultCache.class);
+
+  /**
+   * Instantiates a new Search result cache.
+   *
+   * @param enabled              whether results are cached
+   * @param maximumSize          the number of cached pages at most
+   * @param ttl                  the time a page is served without being refreshed
+   * @param staleWhileRevalidate the time an expired page is still served while it is refreshed
+   * @param meterRegistry        the meter registry
+   */
+  @Autowired
+  public SearchResultCache(@Value("${search.cache.enabled:true}") boolean enabled,
+      @Value("${search.cache.maximum-size:10000}") long maximumSize,
+      @Value("${search.cache.ttl:PT5S}") Duration ttl,
+      @Value("${search.cache.stale-while-revalidate:PT30S}") Duration staleWhileRevalidate,
+      MeterRegistry meterRegistry) {
+    this(enabled, maximumSize, ttl, staleWhileRevalidate, meterRegistry, Ticker.systemTicker());
+  }
+
+  /**
+   * Instantiates a new Search result cache reading the time from a ticker.
+   *
+   * @param enabled              whether results are cached
+   * @param maximumSize          the number of cached pages at most
+   * @param ttl                  the time a page is served without being refreshed
+   * @param staleWhileRevalidate the time an expired page is still served while it is refreshed
+   * @param meterRegistry        the meter registry
+   * @param ticker               the ticker
+   */
+  SearchResultCache(boolean enabled, long maximumSize, Duration ttl,
+      Duration staleWhileRevalidate, MeterRegistry meterRegistry, Ticker ticker) {
+    this.enabled = enabled;
+    this.ttlNanos = ttl.toNanos();
+    this.ticker = ticker;
+    this.pages = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(ttl.plus(staleWhileRevalidate))
+        .ticker(ticker)
+        .recordStats()
+        .executor(Runnable::run)
+        .buildAsync();
+    CaffeineCacheMetrics.monitor(meterRegistry, pages, CACHE_NAME);
+    for (SearchType type : SearchType.values()) {
+      hits.put(type, requests(meterRegistry, type, "hit"));
+      staleHits.put(type, requests(meterRegistry, type, "stale"));
+      misses.put(type, requests(meterRegistry, type, "miss"));
+    }
+  }
+
+  /**
+   * Gets a page of results from the cache, or searches and caches it.
+   *
+   * @param <T>    the type of the page
+   * @param key    the key of the page
+   * @param search the search producing the page
+   * @return the page
+   */
+  @SuppressWarnings("unchecked")
+  public <T> Mono<T> get(SearchCacheKey key, Supplier<Mono<T>> search) {
+    if (!enabled) {
+      return search.get();
+    }
+    return Mono.defer(() -> {
+      CompletableFuture<CachedPage> cached = pages.getIfPresent(key);
+      boolean missed = false;
+      if (cached == null) {
+        // Searched outside the compute of the cache map, which would hold its bin lock
+        CompletableFuture<CachedPage> pending = new CompletableFuture<>();
+        cached = pages.asMap().putIfAbsent(key, pending);
+        if (cached == null) {
+          missed = true;
+          cached = pending;
+          misses.get(key.type()).increment();
+          load(key, search, pending);
+        }
+      }
+      boolean loaded = missed;
+      // The search is shared with other callers and must not be cancelled along with this one
+      return Mono.fromFuture(cached, true).map(page -> {
+        if (!loaded) {
+          if (ticker.read() - page.cachedAt() >= ttlNanos) {
+            staleHits.get(key.type()).increment();
+            refresh(key, search);
+          } else {
+            hits.get(key.type()).increment();
+          }
+        }
+        return (T) page.value();
+      });
+    });
+  }
+
+  /**
+   * Drops all cached pages.
+   */
+  public void invalidateAll() {
+    pages.synchronous().invalidateAll();
+  }
+
+  private <T> void load(SearchCacheKey key, Supplier<Mono<T>> search,
+      CompletableFuture<CachedPage> pending) {
+    Mono.defer(search).subscribe(
+        value -> pending.complete(new CachedPage(value, ticker.read())),
+        e -> {
+          pages.asMap().remove(key, pending);
+          pending.completeExceptionally(e);
+        },
+        () -> {
+          if (!pending.isDone()) {
+            pages.asMap().remove(key, pending);
+            pending.complete(null);
+          }
+        });
+  }
+
+  private <T> void refresh(SearchCacheKey key, Supplier<Mono<T>> search) {
+    if (!refreshing.add(key)) {
+      return;
+    }
+    search.get()
+        .doFinally(signal -> refreshing.remove(key))
+        .subscribe(
+            value -> pages.put(key,
+                CompletableFuture.completedFuture(new CachedPage(value, ticker.read()))),
+            e -> logger.warn("Failed to refresh cached {} search results, serving them until "
+                + "they expire: {}", key.type().getTag(), e.getMessage()));
+  }
+
+  private static Counter requests(MeterRegistry meterRegistry, SearchType type, String result) {
+    return Counter.builder("search.cache.requests")
+        .description("Search result cache lookups")
+        .tag("type", type.getTag())
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+
+  private record CachedPage(Object value, long cachedAt) {
+  }
+}
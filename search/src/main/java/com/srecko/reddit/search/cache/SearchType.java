@@ -0,0 +1,45 @@
+package com.srecko.reddit.search.cache;
+
+/**
+ * The enum Search type. The kinds of searches whose results are cached, each with metrics of its
+ * own.
+ *
+ * @author Srecko Nikolic
+ */
+public enum SearchType {
+  /**
+   * Users search type.
+   */
+  USERS("users"),
+  /**
+   * Subreddits search type.
+   */
+  SUBREDDITS("subreddits"),
+  /**
+   * Posts search type.
+   */
+  POSTS("posts"),
+  /**
+   * Posts in subreddit search type.
+   */
+  POSTS_IN_SUBREDDIT("posts-in-subreddit"),
+  /**
+   * Comments search type.
+   */
+  COMMENTS("comments");
+
+  private final String tag;
+
+  SearchType(String tag) {
+    this.tag = tag;
+  }
+
+  /**
+   * Gets the value of the type tag of the cache metrics.
+   *
+   * @return the tag
+   */
+  public String getTag() {
+    return tag;
+  }
+}
@@ -1,12 +1,12 @@
 package com.srecko.reddit.search.config;
 
-import feign.codec.Encoder;
-import feign.form.spring.SpringFormEncoder;
-import org.springframework.beans.factory.ObjectFactory;
-import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
-import org.springframework.cloud.openfeign.support.SpringEncoder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.hateoas.config.HypermediaWebClientConfigurer;
+import org.springframework.web.reactive.function.client.WebClient;
 
 /**
  * The type App configuration.
@@ -17,13 +17,19 @@ import org.springframework.context.annotation.Configuration;
 public class AppConfiguration {
 
   /**
-   * Encoder encoder.
+   * Web client builder that resolves service names through Eureka and reads HAL responses.
    *
-   * @param converters the converters
-   * @return the encoder
+   * @param customizers          the web client customizers
+   * @param hypermediaConfigurer the hypermedia web client configurer
+   * @return the web client builder
    */
   @Bean
-  public Encoder encoder(ObjectFactory<HttpMessageConverters> converters) {
-    return new SpringFormEncoder(new SpringEncoder(converters));
+  @LoadBalanced
+  public WebClient.Builder loadBalancedWebClientBuilder(
+      ObjectProvider<WebClientCustomizer> customizers,
+      HypermediaWebClientConfigurer hypermediaConfigurer) {
+    WebClient.Builder builder = WebClient.builder();
+    customizers.orderedStream().forEach(customizer -> customizer.customize(builder));
+    return hypermediaConfigurer.registerHypermediaTypes(builder);
   }
 }
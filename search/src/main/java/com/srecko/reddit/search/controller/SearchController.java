@@ -2,9 +2,11 @@ package com.srecko.reddit.search.controller;
 
 import com.srecko.reddit.search.dto.CommentDto;
 import com.srecko.reddit.search.dto.PostDto;
+import com.srecko.reddit.search.dto.SearchResultsDto;
 import com.srecko.reddit.search.dto.SubredditDto;
 import com.srecko.reddit.search.dto.UserDto;
 import com.srecko.reddit.search.service.SearchService;
+import java.util.List;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,6 +21,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
 
 /**
  * The type Search controller.
@@ -51,13 +54,14 @@ public class SearchController {
    * @return the response entity
    */
   @GetMapping("/users")
-  public ResponseEntity<PagedModel<EntityModel<UserDto>>> searchUsers(
+  public Mono<ResponseEntity<PagedModel<EntityModel<UserDto>>>> searchUsers(
       @RequestParam(name = "q") String query,
       @PageableDefault(sort = "username", direction = Sort.Direction.ASC) Pageable pageable) {
-    PagedModel<EntityModel<UserDto>> page = searchService.searchUsers(query, pageable);
-    logger.info("Returning a page {}/{} of users",
-        page.getMetadata().getNumber(), page.getMetadata().getTotalPages());
-    return ResponseEntity.ok(page);
+    return searchService.searchUsers(query, pageable).map(page -> {
+      logger.info("Returning a page {}/{} of users",
+          page.getMetadata().getNumber(), page.getMetadata().getTotalPages());
+      return ResponseEntity.ok(page);
+    });
   }
 
   /**
@@ -68,13 +72,14 @@ public class SearchController {
    * @return the response entity
    */
   @GetMapping("/subreddits")
-  public ResponseEntity<PagedModel<EntityModel<SubredditDto>>> searchSubreddits(
+  public Mono<ResponseEntity<PagedModel<EntityModel<SubredditDto>>>> searchSubreddits(
       @RequestParam(name = "q") String query,
       @PageableDefault(sort = "name", direction = Sort.Direction.ASC) Pageable pageable) {
-    PagedModel<EntityModel<SubredditDto>> page = searchService.searchSubreddits(query, pageable);
-    logger.info("Returning a page {}/{} of subreddits",
-        page.getMetadata().getNumber(), page.getMetadata().getTotalPages());
-    return ResponseEntity.ok(page);
+    return searchService.searchSubreddits(query, pageable).map(page -> {
+      logger.info("Returning a page {}/{} of subreddits",
+          page.getMetadata().getNumber(), page.getMetadata().getTotalPages());
+      return ResponseEntity.ok(page);
+    });
   }
 
   /**
@@ -85,13 +90,14 @@ public class SearchController {
    * @return the response entity
    */
   @GetMapping("/posts")
-  public ResponseEntity<PagedModel<EntityModel<PostDto>>> searchPosts(
+  public Mono<ResponseEntity<PagedModel<EntityModel<PostDto>>>> searchPosts(
       @RequestParam(name = "q") String query,
       @PageableDefault(sort = "dateOfCreation", direction = Sort.Direction.ASC) Pageable pageable) {
-    PagedModel<EntityModel<PostDto>> page = searchService.searchPosts(query, pageable);
-    logger.info("Returning a page {}/{} of posts",
-        page.getMetadata().getNumber(), page.getMetadata().getTotalPages());
-    return ResponseEntity.ok(page);
+    return searchService.searchPosts(query, pageable).map(page -> {
+      logger.info("Returning a page {}/{} of posts",
+          page.getMetadata().getNumber(), page.getMetadata().getTotalPages());
+      return ResponseEntity.ok(page);
+    });
   }
 
   /**
@@ -103,15 +109,15 @@ public class SearchController {
    * @return the response entity
    */
   @GetMapping("/posts/subreddit/{subredditId}")
-  public ResponseEntity<PagedModel<EntityModel<PostDto>>> searchPostsInSubreddit(
+  public Mono<ResponseEntity<PagedModel<EntityModel<PostDto>>>> searchPostsInSubreddit(
       @PathVariable("subredditId") Long subredditId,
       @RequestParam(name = "q") String query,
       @PageableDefault(sort = "dateOfCreation", direction = Sort.Direction.ASC) Pageable pageable) {
-    PagedModel<EntityModel<PostDto>> page = searchService
-        .searchPostsInSubreddit(subredditId, query, pageable);
-    logger.info("Returning a page {}/{} of posts for subreddit: {}",
-        page.getMetadata().getNumber(), page.getMetadata().getTotalPages(), subredditId);
-    return ResponseEntity.ok(page);
+    return searchService.searchPostsInSubreddit(subredditId, query, pageable).map(page -> {
+      logger.info("Returning a page {}/{} of posts for subreddit: {}",
+          page.getMetadata().getNumber(), page.getMetadata().getTotalPages(), subredditId);
+      return ResponseEntity.ok(page);
+    });
   }
 
   /**
@@ -122,12 +128,65 @@ public class SearchController {
    * @return the response entity
    */
   @GetMapping("/comments")
-  public ResponseEntity<PagedModel<EntityModel<CommentDto>>> searchComment(
+  public Mono<ResponseEntity<PagedModel<EntityModel<CommentDto>>>> searchComment(
       @RequestParam(name = "q") String query,
       @PageableDefault(sort = "text", direction = Sort.Direction.ASC) Pageable pageable) {
-    PagedModel<EntityModel<CommentDto>> page = searchService.searchComments(query, pageable);
-    logger.info("Returning a page {}/{} of comments",
-        page.getMetadata().getNumber(), page.getMetadata().getTotalPages());
-    return ResponseEntity.ok(page);
+    return searchService.searchComments(query, pageable).map(page -> {
+      logger.info("Returning a page {}/{} of comments",
+          page.getMetadata().getNumber(), page.getMetadata().getTotalPages());
+      return ResponseEntity.ok(page);
+    });
   }
-}
\ No newline at end of file
+
+  /**
+   * Search users, subreddits, posts and comments at once.
+   *
+   * @param query the query
+   * @param size  the number of results in every section
+   * @return the response entity
+   */
+  @GetMapping("/all")
+  public Mono<ResponseEntity<SearchResultsDto>> searchAll(
+      @RequestParam(name = "q") String query,
+      @RequestParam(name = "size", defaultValue = "5") int size) {
+    return searchService.searchAll(query, size).map(results -> {
+      logger.info("Returning {} search results for query: {}",
+          results.isPartial() ? "partial" : "complete", query);
+      return ResponseEntity.ok(results);
+    });
+  }
+
+  /**
+   * Autocomplete usernames.
+   *
+   * @param prefix the prefix
+   * @param limit  the number of users at most
+   * @return the response entity
+   */
+  @GetMapping("/autocomplete/users")
+  public Mono<ResponseEntity<List<UserDto>>> autocompleteUsers(
+      @RequestParam(name = "prefix") String prefix,
+      @RequestParam(name = "limit", defaultValue = "10") int limit) {
+    return searchService.autocompleteUsers(prefix, limit).map(users -> {
+      logger.debug("Returning {} usernames starting with: {}", users.size(), prefix);
+      return ResponseEntity.ok(users);
+    });
+  }
+
+  /**
+   * Autocomplete subreddit names.
+   *
+   * @param prefix the prefix
+   * @param limit  the number of subreddits at most
+   * @return the response entity
+   */
+  @GetMapping("/autocomplete/subreddits")
+  public Mono<ResponseEntity<List<SubredditDto>>> autocompleteSubreddits(
+      @RequestParam(name = "prefix") String prefix,
+      @RequestParam(name = "limit", defaultValue = "10") int limit) {
+    return searchService.autocompleteSubreddits(prefix, limit).map(subreddits -> {
+      logger.debug("Returning {} subreddit names starting with: {}", subreddits.size(), prefix);
+      return ResponseEntity.ok(subreddits);
+    });
+  }
+}
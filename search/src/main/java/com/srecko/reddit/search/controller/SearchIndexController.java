@@ -0,0 +1,106 @@
+package com.srecko.reddit.search.controller;
+
+import com.srecko.reddit.search.dto.CommentDto;
+import com.srecko.reddit.search.dto.IndexEventDto;
+import com.srecko.reddit.search.dto.IndexEventType;
+import com.srecko.reddit.search.dto.PostDto;
+import com.srecko.reddit.search.dto.SubredditDto;
+import com.srecko.reddit.search.dto.UserDto;
+import com.srecko.reddit.search.index.DocumentIndex;
+import com.srecko.reddit.search.index.SearchIndex;
+import java.util.List;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * The type Search index controller. Receives the change events the users, subreddits, posts and
+ * comments services publish and applies them to the search index.
+ *
+ * @author Srecko Nikolic
+ */
+@RestController
+@RequestMapping("/api/search/index")
+public class SearchIndexController {
+
+  private final SearchIndex searchIndex;
+
+  private static final Logger logger = LogManager.getLogger(SearchIndexController.class);
+
+  /**
+   * Instantiates a new Search index controller.
+   *
+   * @param searchIndex the search index
+   */
+  @Autowired
+  public SearchIndexController(SearchIndex searchIndex) {
+    this.searchIndex = searchIndex;
+  }
+
+  /**
+   * Index user changes.
+   *
+   * @param events the events
+   * @return the response entity
+   */
+  @PostMapping("/users")
+  public ResponseEntity<Void> indexUsers(@RequestBody List<IndexEventDto<UserDto>> events) {
+    apply(searchIndex.users(), events);
+    return ResponseEntity.noContent().build();
+  }
+
+  /**
+   * Index subreddit changes.
+   *
+   * @param events the events
+   * @return the response entity
+   */
+  @PostMapping("/subreddits")
+  public ResponseEntity<Void> indexSubreddits(
+      @RequestBody List<IndexEventDto<SubredditDto>> events) {
+    apply(searchIndex.subreddits(), events);
+    return ResponseEntity.noContent().build();
+  }
+
+  /**
+   * Index post changes.
+   *
+   * @param events the events
+   * @return the response entity
+   */
+  @PostMapping("/posts")
+  public ResponseEntity<Void> indexPosts(@RequestBody List<IndexEventDto<PostDto>> events) {
+    apply(searchIndex.posts(), events);
+    return ResponseEntity.noContent().build();
+  }
+
+  /**
+   * Index comment changes.
+   *
+   * @param events the events
+   * @return the response entity
+   */
+  @PostMapping("/comments")
+  public ResponseEntity<Void> indexComments(
+      @RequestBody List<IndexEventDto<CommentDto>> events) {
+    apply(searchIndex.comments(), events);
+    return ResponseEntity.noContent().build();
+  }
+
+  private static <T> void apply(DocumentIndex<T> index, List<IndexEventDto<T>> events) {
+    for (IndexEventDto<T> event : events) {
+      if (event.getType() == IndexEventType.DELETE) {
+        index.delete(event.getId());
+      } else {
+        index.upsert(event.getDocument());
+      }
+    }
+    logger.debug("Applied {} {} change events", events.size(),
+        index.getBackend().getServiceId());
+  }
+}
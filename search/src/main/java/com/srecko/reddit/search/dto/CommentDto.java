@@ -1,5 +1,6 @@
 package com.srecko.reddit.search.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.util.Date;
 import java.util.Objects;
 
@@ -12,6 +13,7 @@ public class CommentDto {
 
   private Long id;
 
+  @JsonInclude(JsonInclude.Include.NON_NULL)
   private String text;
 
   private int votes;
@@ -22,12 +24,30 @@ public class CommentDto {
 
   private Long postId;
 
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private String snippet;
+
   /**
    * Instantiates a new Comment dto.
    */
   public CommentDto() {
   }
 
+  /**
+   * Instantiates a new Comment dto copying another one.
+   *
+   * @param commentDto the comment dto
+   */
+  public CommentDto(CommentDto commentDto) {
+    this.id = commentDto.id;
+    this.text = commentDto.text;
+    this.votes = commentDto.votes;
+    this.created = commentDto.created;
+    this.userId = commentDto.userId;
+    this.postId = commentDto.postId;
+    this.snippet = commentDto.snippet;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -37,7 +57,8 @@ public class CommentDto {
       return false;
     }
     CommentDto that = (CommentDto) o;
-    return id.equals(that.id) && text.equals(that.text) && Objects.equals(created, that.created)
+    return Objects.equals(id, that.id) && Objects.equals(text, that.text)
+        && Objects.equals(created, that.created)
         && Objects.equals(userId, that.userId) && Objects.equals(postId, that.postId);
   }
 
@@ -153,4 +174,23 @@ public class CommentDto {
   public void setPostId(Long postId) {
     this.postId = postId;
   }
+
+  /**
+   * Gets snippet, the part of the text around the matches of a search query with the matches
+   * highlighted. Only search results have one.
+   *
+   * @return the snippet
+   */
+  public String getSnippet() {
+    return snippet;
+  }
+
+  /**
+   * Sets snippet.
+   *
+   * @param snippet the snippet
+   */
+  public void setSnippet(String snippet) {
+    this.snippet = snippet;
+  }
 }
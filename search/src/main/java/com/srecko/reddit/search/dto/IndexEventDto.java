@@ -0,0 +1,90 @@
+package com.srecko.reddit.search.dto;
+
+/**
+ * The type Index event dto. A change of a document published by the service that owns it.
+ * Deletions only carry the id.
+ *
+ * @param <T> the type of the document
+ * @author Srecko Nikolic
+ */
+public class IndexEventDto<T> {
+
+  private IndexEventType type;
+
+  private Long id;
+
+  private T document;
+
+  /**
+   * Instantiates a new Index event dto.
+   */
+  public IndexEventDto() {
+  }
+
+  /**
+   * Instantiates a new Index event dto.
+   *
+   * @param type     the type
+   * @param id       the id
+   * @param document the document
+   */
+  public IndexEventDto(IndexEventType type, Long id, T document) {
+    this.type = type;
+    this.id = id;
+    this.document = document;
+  }
+
+  /**
+   * Gets type.
+   *
+   * @return the type
+   */
+  public IndexEventType getType() {
+    return type;
+  }
+
+  /**
+   * Sets type.
+   *
+   * @param type the type
+   */
+  public void setType(IndexEventType type) {
+    this.type = type;
+  }
+
+  /**
+   * Gets id.
+   *
+   * @return the id
+   */
+  public Long getId() {
+    return id;
+  }
+
+  /**
+   * Sets id.
+   *
+   * @param id the id
+   */
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  /**
+   * Gets document.
+   *
+   * @return the document
+   */
+  public T getDocument() {
+    return document;
+  }
+
+  /**
+   * Sets document.
+   *
+   * @param document the document
+   */
+  public void setDocument(T document) {
+    this.document = document;
+  }
+}
@@ -0,0 +1,19 @@
+package com.srecko.reddit.search.dto;
+
+/**
+ * The enum Index event type.
+ *
+ * @author Srecko Nikolic
+ */
+public enum IndexEventType {
+
+  /**
+   * The document was created or updated.
+   */
+  UPSERT,
+
+  /**
+   * The document was deleted.
+   */
+  DELETE
+}
@@ -0,0 +1,69 @@
+package com.srecko.reddit.search.dto;
+
+import java.util.List;
+
+/**
+ * The type Post batch response. Found posts in the order they were requested and the ids that
+ * were not found.
+ *
+ * @author Srecko Nikolic
+ */
+public class PostBatchResponse {
+
+  private List<PostDto> posts;
+
+  private List<Long> missingIds;
+
+  /**
+   * Instantiates a new Post batch response.
+   */
+  public PostBatchResponse() {
+  }
+
+  /**
+   * Instantiates a new Post batch response.
+   *
+   * @param posts      the posts
+   * @param missingIds the missing ids
+   */
+  public PostBatchResponse(List<PostDto> posts, List<Long> missingIds) {
+    this.posts = posts;
+    this.missingIds = missingIds;
+  }
+
+  /**
+   * Gets posts.
+   *
+   * @return the posts
+   */
+  public List<PostDto> getPosts() {
+    return posts;
+  }
+
+  /**
+   * Sets posts.
+   *
+   * @param posts the posts
+   */
+  public void setPosts(List<PostDto> posts) {
+    this.posts = posts;
+  }
+
+  /**
+   * Gets missing ids.
+   *
+   * @return the missing ids
+   */
+  public List<Long> getMissingIds() {
+    return missingIds;
+  }
+
+  /**
+   * Sets missing ids.
+   *
+   * @param missingIds the missing ids
+   */
+  public void setMissingIds(List<Long> missingIds) {
+    this.missingIds = missingIds;
+  }
+}
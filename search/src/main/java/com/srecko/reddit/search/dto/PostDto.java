@@ -1,5 +1,6 @@
 package com.srecko.reddit.search.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.util.Date;
 import java.util.Objects;
 
@@ -16,6 +17,7 @@ public class PostDto {
 
   private String title;
 
+  @JsonInclude(JsonInclude.Include.NON_NULL)
   private String text;
 
   private int votes;
@@ -26,12 +28,32 @@ public class PostDto {
 
   private Long subredditId;
 
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private String snippet;
+
   /**
    * Instantiates a new Post dto.
    */
   public PostDto() {
   }
 
+  /**
+   * Instantiates a new Post dto copying another one.
+   *
+   * @param postDto the post dto
+   */
+  public PostDto(PostDto postDto) {
+    this.id = postDto.id;
+    this.dateOfCreation = postDto.dateOfCreation;
+    this.title = postDto.title;
+    this.text = postDto.text;
+    this.votes = postDto.votes;
+    this.commentsCounter = postDto.commentsCounter;
+    this.userId = postDto.userId;
+    this.subredditId = postDto.subredditId;
+    this.snippet = postDto.snippet;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -41,9 +63,11 @@ public class PostDto {
       return false;
     }
     PostDto postDto = (PostDto) o;
-    return id.equals(postDto.id) && Objects.equals(dateOfCreation, postDto.dateOfCreation)
-        && title.equals(postDto.title) && text.equals(postDto.text) && userId.equals(postDto.userId)
-        && subredditId.equals(postDto.subredditId);
+    return Objects.equals(id, postDto.id)
+        && Objects.equals(dateOfCreation, postDto.dateOfCreation)
+        && Objects.equals(title, postDto.title) && Objects.equals(text, postDto.text)
+        && Objects.equals(userId, postDto.userId)
+        && Objects.equals(subredditId, postDto.subredditId);
   }
 
   @Override
@@ -194,4 +218,23 @@ public class PostDto {
   public void setSubredditId(Long subredditId) {
     this.subredditId = subredditId;
   }
+
+  /**
+   * Gets snippet, the part of the text around the matches of a search query with the matches
+   * highlighted. Only search results have one.
+   *
+   * @return the snippet
+   */
+  public String getSnippet() {
+    return snippet;
+  }
+
+  /**
+   * Sets snippet.
+   *
+   * @param snippet the snippet
+   */
+  public void setSnippet(String snippet) {
+    this.snippet = snippet;
+  }
 }
@@ -0,0 +1,160 @@
+package com.srecko.reddit.search.dto;
+
+/**
+ * The type Search results dto. The blended answer of a federated search, with a section for every
+ * backend.
+ *
+ * @author Srecko Nikolic
+ */
+public class SearchResultsDto {
+
+  private String query;
+
+  private boolean partial;
+
+  private SearchSectionDto<UserDto> users;
+
+  private SearchSectionDto<SubredditDto> subreddits;
+
+  private SearchSectionDto<PostDto> posts;
+
+  private SearchSectionDto<CommentDto> comments;
+
+  /**
+   * Instantiates a new Search results dto.
+   */
+  public SearchResultsDto() {
+  }
+
+  /**
+   * Instantiates a new Search results dto. It is partial when a section is not
+   * {@link SearchSectionStatus#OK}.
+   *
+   * @param query      the query
+   * @param users      the users
+   * @param subreddits the subreddits
+   * @param posts      the posts
+   * @param comments   the comments
+   */
+  public SearchResultsDto(String query, SearchSectionDto<UserDto> users,
+      SearchSectionDto<SubredditDto> subreddits, SearchSectionDto<PostDto> posts,
+      SearchSectionDto<CommentDto> comments) {
+    this.query = query;
+    this.users = users;
+    this.subreddits = subreddits;
+    this.posts = posts;
+    this.comments = comments;
+    this.partial = users.getStatus() != SearchSectionStatus.OK
+        || subreddits.getStatus() != SearchSectionStatus.OK
+        || posts.getStatus() != SearchSectionStatus.OK
+        || comments.getStatus() != SearchSectionStatus.OK;
+  }
+
+  /**
+   * Gets query.
+   *
+   * @return the query
+   */
+  public String getQuery() {
+    return query;
+  }
+
+  /**
+   * Sets query.
+   *
+   * @param query the query
+   */
+  public void setQuery(String query) {
+    this.query = query;
+  }
+
+  /**
+   * Is partial boolean.
+   *
+   * @return the boolean
+   */
+  public boolean isPartial() {
+    return partial;
+  }
+
+  /**
+   * Sets partial.
+   *
+   * @param partial the partial
+   */
+  public void setPartial(boolean partial) {
+    this.partial = partial;
+  }
+
+  /**
+   * Gets users.
+   *
+   * @return the users
+   */
+  public SearchSectionDto<UserDto> getUsers() {
+    return users;
+  }
+
+  /**
+   * Sets users.
+   *
+   * @param users the users
+   */
+  public void setUsers(SearchSectionDto<UserDto> users) {
+    this.users = users;
+  }
+
+  /**
+   * Gets subreddits.
+   *
+   * @return the subreddits
+   */
+  public SearchSectionDto<SubredditDto> getSubreddits() {
+    return subreddits;
+  }
+
+  /**
+   * Sets subreddits.
+   *
+   * @param subreddits the subreddits
+   */
+  public void setSubreddits(SearchSectionDto<SubredditDto> subreddits) {
+    this.subreddits = subreddits;
+  }
+
+  /**
+   * Gets posts.
+   *
+   * @return the posts
+   */
+  public SearchSectionDto<PostDto> getPosts() {
+    return posts;
+  }
+
+  /**
+   * Sets posts.
+   *
+   * @param posts the posts
+   */
+  public void setPosts(SearchSectionDto<PostDto> posts) {
+    this.posts = posts;
+  }
+
+  /**
+   * Gets comments.
+   *
+   * @return the comments
+   */
+  public SearchSectionDto<CommentDto> getComments() {
+    return comments;
+  }
+
+  /**
+   * Sets comments.
+   *
+   * @param comments the comments
+   */
+  public void setComments(SearchSectionDto<CommentDto> comments) {
+    this.comments = comments;
+  }
+}
@@ -0,0 +1,104 @@
+package com.srecko.reddit.search.dto;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The type Search section dto. One section of a federated search, holding the first results of a
+ * single backend.
+ *
+ * @param <T> the type of the results
+ * @author Srecko Nikolic
+ */
+public class SearchSectionDto<T> {
+
+  private SearchSectionStatus status;
+
+  private List<T> content;
+
+  private long totalElements;
+
+  /**
+   * Instantiates a new Search section dto.
+   */
+  public SearchSectionDto() {
+  }
+
+  /**
+   * Instantiates a new Search section dto.
+   *
+   * @param status        the status
+   * @param content       the content
+   * @param totalElements the total elements
+   */
+  public SearchSectionDto(SearchSectionStatus status, List<T> content, long totalElements) {
+    this.status = status;
+    this.content = content;
+    this.totalElements = totalElements;
+  }
+
+  /**
+   * Creates an empty section for a backend that did not answer.
+   *
+   * @param <T>    the type of the results
+   * @param status the status
+   * @return the search section dto
+   */
+  public static <T> SearchSectionDto<T> empty(SearchSectionStatus status) {
+    return new SearchSectionDto<>(status, Collections.emptyList(), 0);
+  }
+
+  /**
+   * Gets status.
+   *
+   * @return the status
+   */
+  public SearchSectionStatus getStatus() {
+    return status;
+  }
+
+  /**
+   * Sets status.
+   *
+   * @param status the status
+   */
+  public void setStatus(SearchSectionStatus status) {
+    this.status = status;
+  }
+
+  /**
+   * Gets content.
+   *
+   * @return the content
+   */
+  public List<T> getContent() {
+    return content;
+  }
+
+  /**
+   * Sets content.
+   *
+   * @param content the content
+   */
+  public void setContent(List<T> content) {
+    this.content = content;
+  }
+
+  /**
+   * Gets total elements.
+   *
+   * @return the total elements
+   */
+  public long getTotalElements() {
+    return totalElements;
+  }
+
+  /**
+   * Sets total elements.
+   *
+   * @param totalElements the total elements
+   */
+  public void setTotalElements(long totalElements) {
+    this.totalElements = totalElements;
+  }
+}
@@ -0,0 +1,25 @@
+package com.srecko.reddit.search.dto;
+
+/**
+ * The enum Search section status. Tells whether a section of a federated search holds the results
+ * of its backend.
+ *
+ * @author Srecko Nikolic
+ */
+public enum SearchSectionStatus {
+
+  /**
+   * The backend answered and the section holds its results.
+   */
+  OK,
+
+  /**
+   * The backend did not answer before the deadline and the section is empty.
+   */
+  TIMEOUT,
+
+  /**
+   * The backend could not be reached or failed and the section is empty.
+   */
+  UNAVAILABLE
+}
@@ -0,0 +1,50 @@
+package com.srecko.reddit.search.exception;
+
+import com.srecko.reddit.search.exception.utils.ExceptionResponse;
+import java.time.LocalDateTime;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
+
+/**
+ * The type Global exception handler.
+ *
+ * @author Srecko Nikolic
+ */
+@RestControllerAdvice
+public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
+
+  private static final Logger logger = LogManager.getLogger(GlobalExceptionHandler.class);
+
+  /**
+   * Handle search backend timeout exception response entity.
+   *
+   * @param exception the exception
+   * @return the response entity
+   */
+  @ExceptionHandler(SearchBackendTimeoutException.class)
+  public ResponseEntity<?> handleSearchBackendTimeoutException(
+      SearchBackendTimeoutException exception) {
+    logger.debug("Handling {}", SearchBackendTimeoutException.class);
+    return new ResponseEntity<>(new ExceptionResponse(exception.getMessage(), LocalDateTime.now()),
+        HttpStatus.GATEWAY_TIMEOUT);
+  }
+
+  /**
+   * Handle search backend unavailable exception response entity.
+   *
+   * @param exception the exception
+   * @return the response entity
+   */
+  @ExceptionHandler(SearchBackendUnavailableException.class)
+  public ResponseEntity<?> handleSearchBackendUnavailableException(
+      SearchBackendUnavailableException exception) {
+    logger.debug("Handling {}", SearchBackendUnavailableException.class);
+    return new ResponseEntity<>(new ExceptionResponse(exception.getMessage(), LocalDateTime.now()),
+        HttpStatus.SERVICE_UNAVAILABLE);
+  }
+}
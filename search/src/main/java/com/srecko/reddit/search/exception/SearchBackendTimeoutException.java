@@ -0,0 +1,28 @@
+package com.srecko.reddit.search.exception;
+
+import com.srecko.reddit.search.service.client.SearchBackend;
+import java.time.Duration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The type Search backend timeout exception.
+ *
+ * @author Srecko Nikolic
+ */
+public class SearchBackendTimeoutException extends RuntimeException {
+
+  private static final Logger logger = LogManager.getLogger(SearchBackendTimeoutException.class);
+
+  /**
+   * Instantiates a new Search backend timeout exception.
+   *
+   * @param backend the backend
+   * @param timeout the timeout
+   */
+  public SearchBackendTimeoutException(SearchBackend backend, Duration timeout) {
+    super("Search in " + backend.getServiceId() + " did not complete within "
+        + timeout.toMillis() + " ms.");
+    logger.error("Search in {} timed out after {}", backend.getServiceId(), timeout);
+  }
+}
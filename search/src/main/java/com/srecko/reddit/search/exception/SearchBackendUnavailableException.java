@@ -0,0 +1,27 @@
+package com.srecko.reddit.search.exception;
+
+import com.srecko.reddit.search.service.client.SearchBackend;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The type Search backend unavailable exception.
+ *
+ * @author Srecko Nikolic
+ */
+public class SearchBackendUnavailableException extends RuntimeException {
+
+  private static final Logger logger =
+      LogManager.getLogger(SearchBackendUnavailableException.class);
+
+  /**
+   * Instantiates a new Search backend unavailable exception.
+   *
+   * @param backend the backend
+   * @param cause   the cause
+   */
+  public SearchBackendUnavailableException(SearchBackend backend, Throwable cause) {
+    super("Search in " + backend.getServiceId() + " is unavailable.", cause);
+    logger.error("Search in {} failed: {}", backend.getServiceId(), cause.getMessage());
+  }
+}
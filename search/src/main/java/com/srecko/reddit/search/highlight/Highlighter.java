@@ -0,0 +1,202 @@
+package com.srecko.reddit.search.highlight;
+
+import com.srecko.reddit.search.index.Tokenizer;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The type Highlighter. Cuts a snippet of at most a given number of characters out of a text
+ * found by a query, around the first place the query matches, and marks the matches in it with
+ * {@link #PRE_TAG} and {@link #POST_TAG}. The rest of the snippet is escaped for HTML.
+ *
+ * <p>The whole query is marked wherever it appears, as it was matched as a substring, and each of
+ * its terms where it appears as a word of its own. A highlighter is made once per query, and a
+ * snippet is built with one builder sized by the snippet length, reading the text in place, so
+ * long texts cost no more memory than short ones.
+ *
+ * @author Srecko Nikolic
+ */
+public class Highlighter {
+
+  /**
+   * The tag opening a match.
+   */
+  public static final String PRE_TAG = "<em>";
+
+  /**
+   * The tag closing a match.
+   */
+  public static final String POST_TAG = "</em>";
+
+  private static final char ELLIPSIS = '\u2026';
+
+  /**
+   * How far the ends of a snippet move to fall between words instead of inside one.
+   */
+  private static final int WORD_BOUNDARY_REACH = 16;
+
+  private final String phrase;
+  private final String[] needles;
+  private final int length;
+
+  /**
+   * Instantiates a new Highlighter.
+   *
+   * @param query  the query
+   * @param length the maximum number of characters of text in a snippet
+   * @throws IllegalArgumentException if the length is not positive
+   */
+  public Highlighter(String query, int length) {
+    if (length <= 0) {
+      throw new IllegalArgumentException("Snippet length must be positive: " + length);
+    }
+    this.phrase = query == null ? "" : query.strip();
+    Set<String> distinct = new LinkedHashSet<>();
+    if (!phrase.isEmpty()) {
+      distinct.add(phrase);
+    }
+    distinct.addAll(Tokenizer.tokenize(phrase));
+    // Longest first, so a match of the whole query is not split into matches of its terms
+    this.needles = distinct.stream()
+        .sorted(Comparator.comparingInt(String::length).reversed())
+        .toArray(String[]::new);
+    this.length = length;
+  }
+
+  /**
+   * Builds the snippet of a text.
+   *
+   * @param text the text
+   * @return the snippet, null for a null text
+   */
+  public String snippet(String text) {
+    if (text == null) {
+      return null;
+    }
+    int start = 0;
+    int end = text.length();
+    if (end > length) {
+      int anchor = anchor(text);
+      start = Math.max(0, Math.min(anchor - length / 4, text.length() - length));
+      end = start + length;
+      start = wordStart(text, start, Math.max(start, anchor));
+      end = wordEnd(text, end, Math.max(start + 1, anchor + 1));
+    }
+    StringBuilder snippet = new StringBuilder(end - start + 2
+        + 4 * (PRE_TAG.length() + POST_TAG.length()));
+    if (start > 0) {
+      snippet.append(ELLIPSIS);
+    }
+    int i = start;
+    while (i < end) {
+      int matched = matchAt(text, i, end);
+      if (matched > 0) {
+        snippet.append(PRE_TAG);
+        escape(text, i, i + matched, snippet);
+        snippet.append(POST_TAG);
+        i += matched;
+      } else {
+        escape(text, i, i + 1, snippet);
+        i++;
+      }
+    }
+    if (end < text.length()) {
+      snippet.append(ELLIPSIS);
+    }
+    return snippet.toString();
+  }
+
+  /**
+   * Finds where the longest needle first matches, the snippet being placed around it.
+   */
+  private int anchor(String text) {
+    for (String needle : needles) {
+      for (int i = 0; i + needle.length() <= text.length(); i++) {
+        if (matches(text, i, text.length(), needle)) {
+          return i;
+        }
+      }
+    }
+    return 0;
+  }
+
+  private int matchAt(String text, int at, int end) {
+    for (String needle : needles) {
+      if (matches(text, at, end, needle)) {
+        return needle.length();
+      }
+    }
+    return 0;
+  }
+
+  private boolean matches(String text, int at, int end, String needle) {
+    int stop = at + needle.length();
+    if (stop > end || !text.regionMatches(true, at, needle, 0, needle.length())) {
+      return false;
+    }
+    return needle.equals(phrase) || (!isWordChar(text, at - 1) && !isWordChar(text, stop));
+  }
+
+  /**
+   * Moves the start of a snippet forward to the start of a word, unless that would pass the
+   * limit, and past the whitespace there.
+   */
+  private static int wordStart(String text, int start, int limit) {
+    if (start == 0) {
+      return 0;
+    }
+    int moved = start;
+    int reach = Math.min(start + WORD_BOUNDARY_REACH, limit);
+    for (int i = start; i <= reach; i++) {
+      if (!isWordChar(text, i - 1)) {
+        moved = i;
+        break;
+      }
+    }
+    while (moved < limit && Character.isWhitespace(text.charAt(moved))) {
+      moved++;
+    }
+    return moved;
+  }
+
+  /**
+   * Moves the end of a snippet back to the end of a word, unless that would pass the limit, and
+   * before the whitespace there.
+   */
+  private static int wordEnd(String text, int end, int limit) {
+    if (end == text.length()) {
+      return end;
+    }
+    int moved = end;
+    int reach = Math.max(end - WORD_BOUNDARY_REACH, limit);
+    for (int i = end; i >= reach; i--) {
+      if (!isWordChar(text, i)) {
+        moved = i;
+        break;
+      }
+    }
+    while (moved > limit && Character.isWhitespace(text.charAt(moved - 1))) {
+      moved--;
+    }
+    return moved;
+  }
+
+  private static boolean isWordChar(String text, int at) {
+    return at >= 0 && at < text.length() && Character.isLetterOrDigit(text.charAt(at));
+  }
+
+  private static void escape(String text, int from, int to, StringBuilder snippet) {
+    for (int i = from; i < to; i++) {
+      char c = text.charAt(i);
+      switch (c) {
+        case '&' -> snippet.append("&amp;");
+        case '<' -> snippet.append("&lt;");
+        case '>' -> snippet.append("&gt;");
+        case '"' -> snippet.append("&quot;");
+        case '\'' -> snippet.append("&#39;");
+        default -> snippet.append(c);
+      }
+    }
+  }
+}
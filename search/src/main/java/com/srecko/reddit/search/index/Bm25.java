@@ -0,0 +1,59 @@
+package com.srecko.reddit.search.index;
+
+/**
+ * The type Bm25. The Okapi BM25 relevance function, extended to documents with several weighted
+ * fields. A term counts for more the fewer documents contain it, and for more the more often it
+ * appears in a document, though every further occurrence adds less than the one before. Its
+ * frequency in a field is weighed against how long the field is compared to the same field of an
+ * average document, so a term in a short title counts for more than one in a long text.
+ *
+ * @param k1 how quickly further occurrences of a term stop adding to the score
+ * @param b  how much the length of a field discounts the frequency of its terms, from 0 to 1
+ * @author Srecko Nikolic
+ */
+public record Bm25(double k1, double b) {
+
+  /**
+   * The parameters commonly used for short texts.
+   */
+  public static final Bm25 DEFAULT = new Bm25(1.2, 0.75);
+
+  /**
+   * Gets the inverse document frequency of a term. It stays positive for terms contained in more
+   * than half of the documents, so a match never lowers the score.
+   *
+   * @param documentFrequency the number of documents containing the term
+   * @param documents         the number of documents
+   * @return the inverse document frequency
+   */
+  public double idf(int documentFrequency, int documents) {
+    return Math.log(1 + (documents - documentFrequency + 0.5) / (documentFrequency + 0.5));
+  }
+
+  /**
+   * Gets the frequency of a term in a field, discounted by the length of the field.
+   *
+   * @param frequency     the number of occurrences of the term in the field
+   * @param length        the number of terms of the field
+   * @param averageLength the average number of terms of the field over all documents
+   * @return the normalized frequency
+   */
+  public double normalize(int frequency, int length, double averageLength) {
+    if (frequency == 0) {
+      return 0;
+    }
+    double relativeLength = averageLength > 0 ? length / averageLength : 1;
+    return frequency / (1 - b + b * relativeLength);
+  }
+
+  /**
+   * Gets the score of a term in a document.
+   *
+   * @param idf       the inverse document frequency of the term
+   * @param frequency the weighted sum of the normalized frequencies of the term in every field
+   * @return the score
+   */
+  public double score(double idf, double frequency) {
+    return idf * frequency * (k1 + 1) / (k1 + frequency);
+  }
+}
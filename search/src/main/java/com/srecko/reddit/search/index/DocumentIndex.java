@@ -0,0 +1,582 @@
+package com.srecko.reddit.search.index;
+
+import com.srecko.reddit.search.dto.IndexEventType;
+import com.srecko.reddit.search.service.client.SearchBackend;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * The type Document index. The searchable copy of the documents of one backend. It is filled from
+ * a snapshot of the backend and kept up to date by the change events the backend publishes.
+ *
+ * <p>A rebuild loads a new snapshot next to the index in use and swaps it in once complete, so
+ * queries keep being answered while it runs. Change events are applied to both. A document that
+ * changed while the snapshot was loading keeps the state of its event, since the snapshot page
+ * holding it may have been read before the change. Until the first snapshot is loaded the index
+ * is not ready and queries have to go to the backend.
+ *
+ * <p>A document matches when one of its matched fields contains the query, ignoring case, as it
+ * does in the backend, and the matches are looked up in a trigram index. Results are sorted by the
+ * requested properties, or by relevance when the first of them is {@value #RELEVANCE}, most
+ * relevant first whatever the requested direction.
+ *
+ * <p>Documents can also be indexed by prefix for autocompletion, and by the deletions of their
+ * key for matching misspelled queries. These indexes are rebuilt and updated together with the
+ * inverted index.
+ *
+ * <p>With a journal attached, every change event is logged to disk, and the documents in use can
+ * be written to a checkpoint and restored from it, and the changes logged after it, at startup.
+ * A checkpoint after a rebuild writes every document, any other only the documents changed since
+ * the last one.
+ *
+ * @param <T> the type of the documents
+ * @author Srecko Nikolic
+ */
+public class DocumentIndex<T> {
+
+  /**
+   * The sort property ranking results by relevance to the query.
+   */
+  public static final String RELEVANCE = "relevance";
+
+  private final SearchBackend backend;
+  private final Function<T, Long> idOf;
+  private final List<IndexedField<T>> fields;
+  private final Bm25 bm25;
+  private final Map<String, Comparator<T>> sorts;
+  private final Sort defaultSort;
+  private final Supplier<PrefixIndex<T>> prefixIndexes;
+  private final Supplier<FuzzyIndex<T>> fuzzyIndexes;
+
+  private final ReentrantLock writeLock = new ReentrantLock();
+
+  private volatile Segment<T> current;
+  private Segment<T> next;
+  private Set<Long> changedDuringRebuild;
+  private IndexJournal<T> journal;
+  private boolean rebuiltSinceCheckpoint;
+  private Set<Long> changedSinceCheckpoint = new HashSet<>();
+
+  private static final Logger logger = LogManager.getLogger(DocumentIndex.class);
+
+  /**
+   * Instantiates a new Document index.
+   *
+   * @param backend     the backend the documents come from
+   * @param idOf        the function returning the id of a document
+   * @param fields      the searchable fields of a document
+   * @param bm25        the relevance function
+   * @param sorts       the comparators of the properties results can be sorted by
+   * @param defaultSort the sort used when none of the requested properties is supported
+   */
+  public DocumentIndex(SearchBackend backend, Function<T, Long> idOf,
+      List<IndexedField<T>> fields, Bm25 bm25, Map<String, Comparator<T>> sorts,
+      Sort defaultSort) {
+    this(backend, idOf, fields, bm25, sorts, defaultSort, null);
+  }
+
+  /**
+   * Instantiates a new Document index that can also complete prefixes.
+   *
+   * @param backend       the backend the documents come from
+   * @param idOf          the function returning the id of a document
+   * @param fields        the searchable fields of a document
+   * @param bm25          the relevance function
+   * @param sorts         the comparators of the properties results can be sorted by
+   * @param defaultSort   the sort used when none of the requested properties is supported
+   * @param prefixIndexes the factory of empty prefix indexes, null when prefixes are not indexed
+   */
+  public DocumentIndex(SearchBackend backend, Function<T, Long> idOf,
+      List<IndexedField<T>> fields, Bm25 bm25, Map<String, Comparator<T>> sorts,
+      Sort defaultSort, Supplier<PrefixIndex<T>> prefixIndexes) {
+    this(backend, idOf, fields, bm25, sorts, defaultSort, prefixIndexes, null);
+  }
+
+  /**
+   * Instantiates a new Document index that can also complete prefixes and match misspelled
+   * keys.
+   *
+   * @param backend       the backend the documents come from
+   * @param idOf          the function returning the id of a document
+   * @param fields        the searchable fields of a document
+   * @param bm25          the relevance function
+   * @param sorts         the comparators of the properties results can be sorted by
+   * @param defaultSort   the sort used when none of the requested properties is supported
+   * @param prefixIndexes the factory of empty prefix indexes, null when prefixes are not indexed
+   * @param fuzzyIndexes  the factory of empty fuzzy indexes, null when misspelled keys are not
+   *                      matched
+   */
+  public DocumentIndex(SearchBackend backend, Function<T, Long> idOf,
+      List<IndexedField<T>> fields, Bm25 bm25, Map<String, Comparator<T>> sorts,
+      Sort defaultSort, Supplier<PrefixIndex<T>> prefixIndexes,
+      Supplier<FuzzyIndex<T>> fuzzyIndexes) {
+    this.backend = backend;
+    this.idOf = idOf;
+    this.fields = fields;
+    this.bm25 = bm25;
+    this.sorts = sorts;
+    this.defaultSort = defaultSort;
+    this.prefixIndexes = prefixIndexes;
+    this.fuzzyIndexes = fuzzyIndexes;
+  }
+
+  /**
+   * Gets backend.
+   *
+   * @return the backend
+   */
+  public SearchBackend getBackend() {
+    return backend;
+  }
+
+  /**
+   * Checks if misspelled keys are matched.
+   *
+   * @return whether the index has a fuzzy index
+   */
+  public boolean hasFuzzyIndex() {
+    return fuzzyIndexes != null;
+  }
+
+  /**
+   * Checks if the first snapshot is loaded and queries can be answered.
+   *
+   * @return whether the index is ready
+   */
+  public boolean isReady() {
+    return current != null;
+  }
+
+  /**
+   * Adds a created or updated document.
+   *
+   * @param document the document
+   */
+  public void upsert(T document) {
+    writeLock.lock();
+    try {
+      if (journal != null) {
+        journal.append(IndexEventType.UPSERT, idOf.apply(document), document);
+        changedSinceCheckpoint.add(idOf.apply(document));
+      }
+      if (next != null) {
+        changedDuringRebuild.add(idOf.apply(document));
+        next.put(document);
+      }
+      Segment<T> segment = current;
+      if (segment != null) {
+        segment.put(document);
+      }
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Removes a deleted document.
+   *
+   * @param id the id of the document
+   */
+  public void delete(Long id) {
+    writeLock.lock();
+    try {
+      if (journal != null) {
+        journal.append(IndexEventType.DELETE, id, null);
+        changedSinceCheckpoint.add(id);
+      }
+      if (next != null) {
+        changedDuringRebuild.add(id);
+        next.remove(id);
+      }
+      Segment<T> segment = current;
+      if (segment != null) {
+        segment.remove(id);
+      }
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Starts loading a new snapshot.
+   *
+   * @return whether it started, false when another rebuild is still running
+   */
+  public boolean beginRebuild() {
+    writeLock.lock();
+    try {
+      if (next != null) {
+        return false;
+      }
+      next = new Segment<>(new InvertedIndex<>(idOf, fields, bm25),
+          new TrigramIndex<>(idOf, fields.stream()
+              .filter(IndexedField::matched)
+              .map(IndexedField::textOf)
+              .toList()),
+          prefixIndexes == null ? null : prefixIndexes.get(),
+          fuzzyIndexes == null ? null : fuzzyIndexes.get());
+      changedDuringRebuild = new HashSet<>();
+      return true;
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Adds a page of the snapshot to the index being rebuilt.
+   *
+   * @param documents the documents
+   */
+  public void load(List<T> documents) {
+    writeLock.lock();
+    try {
+      if (next == null) {
+        return;
+      }
+      for (T document : documents) {
+        if (!changedDuringRebuild.contains(idOf.apply(document))) {
+          next.put(document);
+        }
+      }
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Swaps the rebuilt index in.
+   */
+  public void completeRebuild() {
+    completeRebuild(null);
+  }
+
+  /**
+   * Swaps the rebuilt index in. An index restored from the journal only has to checkpoint the
+   * documents of the changes replayed after the checkpoints it was read from.
+   */
+  private void completeRebuild(Set<Long> replayed) {
+    writeLock.lock();
+    try {
+      if (next == null) {
+        return;
+      }
+      current = next;
+      next = null;
+      changedDuringRebuild = null;
+      if (replayed == null) {
+        rebuiltSinceCheckpoint = true;
+      } else {
+        changedSinceCheckpoint.addAll(replayed);
+      }
+      logger.info("Indexed {} {} documents with {} terms", current.terms().size(),
+          backend.getServiceId(), current.terms().termCount());
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Drops the index being rebuilt and keeps the one in use.
+   */
+  public void abortRebuild() {
+    writeLock.lock();
+    try {
+      next = null;
+      changedDuringRebuild = null;
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Attaches the journal change events are logged to from now on.
+   *
+   * @param journal the journal
+   */
+  public void attach(IndexJournal<T> journal) {
+    writeLock.lock();
+    try {
+      this.journal = journal;
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Loads the documents of the last checkpoint and the changes logged after it, like a snapshot.
+   * The documents are indexed again as they are read, so it takes as long as a snapshot of the
+   * same size, less the calls to the backend.
+   *
+   * @return the time the checkpoint was written, empty when nothing was restored
+   * @throws java.io.UncheckedIOException when the checkpoint cannot be read
+   */
+  public Optional<Instant> restore() {
+    IndexJournal<T> source;
+    writeLock.lock();
+    try {
+      source = journal;
+    } finally {
+      writeLock.unlock();
+    }
+    if (source == null || !beginRebuild()) {
+      return Optional.empty();
+    }
+    long start = System.nanoTime();
+    Optional<IndexJournal.Recovery<T>> recovery;
+    try {
+      recovery = source.recover();
+    } catch (RuntimeException e) {
+      abortRebuild();
+      throw e;
+    }
+    if (recovery.isEmpty()) {
+      abortRebuild();
+      return Optional.empty();
+    }
+    long read = System.nanoTime();
+    load(recovery.get().documents());
+    completeRebuild(recovery.get().changed());
+    long indexed = System.nanoTime();
+    logger.info("Restored {} {} documents from checkpoint {} and {} changes logged after it in "
+            + "{} ms, reading them took {} ms and indexing them {} ms",
+        recovery.get().documents().size(), backend.getServiceId(),
+        recovery.get().checkpoint(), recovery.get().replayed(),
+        TimeUnit.NANOSECONDS.toMillis(indexed - start),
+        TimeUnit.NANOSECONDS.toMillis(read - start),
+        TimeUnit.NANOSECONDS.toMillis(indexed - read));
+    return Optional.of(recovery.get().createdAt());
+  }
+
+  /**
+   * Writes a new checkpoint of the journal, unless nothing changed since the last one. It holds
+   * every document in use after a rebuild, and otherwise only the documents changed since the
+   * last checkpoint.
+   *
+   * @return whether a checkpoint was written
+   * @throws java.io.UncheckedIOException when the checkpoint cannot be written
+   */
+  public boolean checkpoint() {
+    IndexJournal<T> target;
+    boolean full;
+    List<T> documents;
+    Set<Long> changed;
+    List<Long> deleted = new ArrayList<>();
+    long sequence;
+    writeLock.lock();
+    try {
+      target = journal;
+      Segment<T> segment = current;
+      if (target == null || segment == null
+          || !rebuiltSinceCheckpoint && changedSinceCheckpoint.isEmpty()) {
+        return false;
+      }
+      // Copied under the lock, so that the documents reflect exactly the changes logged so far,
+      // which the roll-over leaves in the older logs
+      sequence = target.rollOver();
+      full = rebuiltSinceCheckpoint;
+      changed = changedSinceCheckpoint;
+      if (full) {
+        documents = segment.terms().documents();
+      } else {
+        documents = new ArrayList<>(changed.size());
+        for (Long id : changed) {
+          T document = segment.terms().get(id);
+          if (document == null) {
+            deleted.add(id);
+          } else {
+            documents.add(document);
+          }
+        }
+      }
+      rebuiltSinceCheckpoint = false;
+      changedSinceCheckpoint = new HashSet<>();
+    } finally {
+      writeLock.unlock();
+    }
+    try {
+      if (full) {
+        target.writeSegment(documents, sequence);
+      } else {
+        target.writeDelta(documents, deleted, sequence);
+      }
+    } catch (RuntimeException e) {
+      writeLock.lock();
+      try {
+        rebuiltSinceCheckpoint |= full;
+        changedSinceCheckpoint.addAll(changed);
+      } finally {
+        writeLock.unlock();
+      }
+      throw e;
+    }
+    logger.info("Wrote a {} checkpoint of {} {} documents and {} deletions",
+        full ? "full" : "delta", documents.size(), backend.getServiceId(), deleted.size());
+    return true;
+  }
+
+  /**
+   * Finds a page of the documents with a matched field containing a query that pass a filter.
+   *
+   * @param query    the query
+   * @param filter   the filter
+   * @param pageable the pageable
+   * @return the page
+   * @throws IllegalStateException when the index is not ready
+   */
+  public Page<T> search(String query, Predicate<T> filter, Pageable pageable) {
+    Segment<T> segment = ready();
+    List<T> matches = segment.substrings().search(query, filter);
+    if (isByRelevance(pageable.getSort())) {
+      matches = segment.terms().rank(query, matches);
+    } else {
+      matches.sort(comparator(pageable.getSort()));
+    }
+    return page(matches, pageable);
+  }
+
+  /**
+   * Finds a page of the documents with a key within a few edits of a query that pass a filter,
+   * closest first whatever the requested sort. Meant for queries no key contains, which are
+   * likely misspelled.
+   *
+   * @param query    the query
+   * @param filter   the filter
+   * @param pageable the pageable
+   * @return the page
+   * @throws IllegalStateException when the index is not ready or does not match misspelled keys
+   */
+  public Page<T> searchSimilar(String query, Predicate<T> filter, Pageable pageable) {
+    FuzzyIndex<T> similar = ready().similar();
+    if (similar == null) {
+      throw new IllegalStateException("The " + backend.getServiceId()
+          + " index does not match misspelled keys");
+    }
+    return page(similar.search(query, filter), pageable);
+  }
+
+  /**
+   * Finds the most popular documents whose key starts with a prefix.
+   *
+   * @param prefix the prefix
+   * @param limit  the number of documents at most
+   * @return the documents, most popular first
+   * @throws IllegalStateException when the index is not ready
+   */
+  public List<T> complete(String prefix, int limit) {
+    PrefixIndex<T> prefixes = ready().prefixes();
+    if (prefixes == null) {
+      throw new IllegalStateException("The " + backend.getServiceId()
+          + " index does not complete prefixes");
+    }
+    return prefixes.complete(prefix, limit);
+  }
+
+  /**
+   * Gets the number of indexed documents.
+   *
+   * @return the number of documents
+   */
+  public int size() {
+    Segment<T> segment = current;
+    return segment == null ? 0 : segment.terms().size();
+  }
+
+  /**
+   * Gets the number of distinct terms.
+   *
+   * @return the number of terms
+   */
+  public int termCount() {
+    Segment<T> segment = current;
+    return segment == null ? 0 : segment.terms().termCount();
+  }
+
+  private Segment<T> ready() {
+    Segment<T> segment = current;
+    if (segment == null) {
+      throw new IllegalStateException("The " + backend.getServiceId() + " index is not ready");
+    }
+    return segment;
+  }
+
+  private static <T> Page<T> page(List<T> matches, Pageable pageable) {
+    if (pageable.isUnpaged()) {
+      return new PageImpl<>(matches, pageable, matches.size());
+    }
+    int from = (int) Math.min(pageable.getOffset(), matches.size());
+    int to = Math.min(from + pageable.getPageSize(), matches.size());
+    return new PageImpl<>(matches.subList(from, to), pageable, matches.size());
+  }
+
+  private static boolean isByRelevance(Sort sort) {
+    return sort.stream().findFirst().map(order -> RELEVANCE.equals(order.getProperty()))
+        .orElse(false);
+  }
+
+  private Comparator<T> comparator(Sort sort) {
+    Comparator<T> comparator = orderBy(sort);
+    if (comparator == null) {
+      comparator = orderBy(defaultSort);
+    }
+    Comparator<T> byId = Comparator.comparing(idOf);
+    return comparator == null ? byId : comparator.thenComparing(byId);
+  }
+
+  private Comparator<T> orderBy(Sort sort) {
+    Comparator<T> comparator = null;
+    for (Sort.Order order : sort) {
+      Comparator<T> property = sorts.get(order.getProperty());
+      if (property == null) {
+        continue;
+      }
+      if (order.isDescending()) {
+        property = property.reversed();
+      }
+      comparator = comparator == null ? property : comparator.thenComparing(property);
+    }
+    return comparator;
+  }
+
+  private record Segment<T>(InvertedIndex<T> terms, TrigramIndex<T> substrings,
+      PrefixIndex<T> prefixes, FuzzyIndex<T> similar) {
+
+    private void put(T document) {
+      terms.put(document);
+      substrings.put(document);
+      if (prefixes != null) {
+        prefixes.put(document);
+      }
+      if (similar != null) {
+        similar.put(document);
+      }
+    }
+
+    private void remove(Long id) {
+      terms.remove(id);
+      substrings.remove(id);
+      if (prefixes != null) {
+        prefixes.remove(id);
+      }
+      if (similar != null) {
+        similar.remove(id);
+      }
+    }
+  }
+}
@@ -0,0 +1,312 @@
+package com.srecko.reddit.search.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * The type Fuzzy index. Finds the documents whose key, such as a username or a subreddit name, is
+ * within a small edit distance of a misspelled query, counting an insertion, a deletion, a
+ * substitution or a swap of two neighbouring characters as one edit.
+ *
+ * <p>Works like SymSpell: every string made by deleting up to the maximum distance of characters
+ * from the start of a key is mapped to the ids of the documents with that key. Two strings within
+ * the distance share such a deletion, so a query only looks up its own deletions and checks the
+ * distance to the keys found there. Only the first <code>prefixLength</code> characters are
+ * deleted from, which bounds the deletions of a key, and so the work of a query, whatever its
+ * length. Adding or removing a document only touches the deletions of its key.
+ *
+ * <p>Queries of up to {@value #SHORT_QUERY_LENGTH} characters are allowed a single edit, as two
+ * edits to such a short query match too many unrelated keys, and queries shorter than
+ * {@value #MIN_QUERY_LENGTH} characters match nothing.
+ *
+ * @param <T> the type of the documents
+ * @author Srecko Nikolic
+ */
+public class FuzzyIndex<T> {
+
+  private static final int MIN_QUERY_LENGTH = 3;
+
+  private static final int SHORT_QUERY_LENGTH = 4;
+
+  /**
+   * The shortest deletion a query looks up, that of a query of {@value #MIN_QUERY_LENGTH}
+   * characters with its single edit, so shorter ones are not indexed.
+   */
+  private static final int MIN_DELETION_LENGTH = MIN_QUERY_LENGTH - 1;
+
+  private final Function<T, Long> idOf;
+  private final Function<T, String> keyOf;
+  private final ToLongFunction<T> scoreOf;
+  private final int maxDistance;
+  private final int prefixLength;
+  private final int capacity;
+
+  private final Map<String, PostingList> deletions = new HashMap<>();
+  private final Map<Long, Entry<T>> entries = new HashMap<>();
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private final Comparator<Match<T>> ranking = Comparator.<Match<T>>comparingInt(Match::distance)
+      .thenComparingLong(match -> -match.entry().score())
+      .thenComparing(match -> match.entry().key())
+      .thenComparingLong(match -> match.entry().id());
+
+  /**
+   * Instantiates a new Fuzzy index.
+   *
+   * @param idOf         the function returning the id of a document
+   * @param keyOf        the function returning the key a document is matched by
+   * @param scoreOf      the function returning the popularity of a document, higher ranks first
+   *                     among equally distant keys
+   * @param maxDistance  the number of edits at most, 1 or 2
+   * @param prefixLength the number of leading characters of a key deletions are made from
+   * @param capacity     the number of documents a search returns at most
+   * @throws IllegalArgumentException if the distance is not 1 or 2, or the prefix length is
+   *     not longer than the distance
+   */
+  public FuzzyIndex(Function<T, Long> idOf, Function<T, String> keyOf,
+      ToLongFunction<T> scoreOf, int maxDistance, int prefixLength, int capacity) {
+    if (maxDistance < 1 || maxDistance > 2) {
+      throw new IllegalArgumentException("Maximum edit distance must be 1 or 2: " + maxDistance);
+    }
+    if (prefixLength <= maxDistance) {
+      throw new IllegalArgumentException("Prefix length must exceed the edit distance: "
+          + prefixLength);
+    }
+    this.idOf = idOf;
+    this.keyOf = keyOf;
+    this.scoreOf = scoreOf;
+    this.maxDistance = maxDistance;
+    this.prefixLength = prefixLength;
+    this.capacity = capacity;
+  }
+
+  /**
+   * Adds a document or replaces the one with the same id.
+   *
+   * @param document the document
+   */
+  public void put(T document) {
+    Long id = idOf.apply(document);
+    String key = normalize(keyOf.apply(document));
+    if (key.isEmpty()) {
+      remove(id);
+      return;
+    }
+    Entry<T> entry = new Entry<>(id, key, scoreOf.applyAsLong(document), document);
+    Set<String> keyDeletions = deletionsOf(key, maxDistance);
+    lock.writeLock().lock();
+    try {
+      Entry<T> previous = entries.put(id, entry);
+      if (previous != null) {
+        unindex(previous);
+      }
+      for (String deletion : keyDeletions) {
+        deletions.computeIfAbsent(deletion, d -> new PostingList()).add(id);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes a document.
+   *
+   * @param id the id of the document
+   */
+  public void remove(Long id) {
+    lock.writeLock().lock();
+    try {
+      Entry<T> previous = entries.remove(id);
+      if (previous != null) {
+        unindex(previous);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Finds the documents whose key is within the allowed number of edits of a query, ignoring
+   * case, that pass a filter.
+   *
+   * @param query  the query
+   * @param filter the filter
+   * @return the documents, closest first, then most popular, then by key and id, in a list the
+   *     caller may modify
+   */
+  public List<T> search(String query, Predicate<T> filter) {
+    String normalized = normalize(query);
+    if (normalized.length() < MIN_QUERY_LENGTH) {
+      return new ArrayList<>();
+    }
+    int distance = normalized.length() <= SHORT_QUERY_LENGTH ? 1 : maxDistance;
+    Set<String> queryDeletions = deletionsOf(normalized, distance);
+    Distance bounded = new Distance(normalized, distance);
+    List<Match<T>> matches = new ArrayList<>();
+    lock.readLock().lock();
+    try {
+      Set<Long> checked = new HashSet<>();
+      for (String deletion : queryDeletions) {
+        PostingList list = deletions.get(deletion);
+        if (list == null) {
+          continue;
+        }
+        for (long id : list.toArray()) {
+          if (!checked.add(id)) {
+            continue;
+          }
+          Entry<T> entry = entries.get(id);
+          int edits = bounded.to(entry.key());
+          if (edits <= distance && filter.test(entry.document())) {
+            matches.add(new Match<>(edits, entry));
+          }
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    matches.sort(ranking);
+    List<T> documents = new ArrayList<>(Math.min(matches.size(), capacity));
+    for (int i = 0; i < matches.size() && i < capacity; i++) {
+      documents.add(matches.get(i).entry().document());
+    }
+    return documents;
+  }
+
+  /**
+   * Gets the number of indexed documents.
+   *
+   * @return the number of documents
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return entries.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Gets the number of distinct deletions.
+   *
+   * @return the number of deletions
+   */
+  public int deletionCount() {
+    lock.readLock().lock();
+    try {
+      return deletions.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private Set<String> deletionsOf(String key, int distance) {
+    String prefix = key.length() > prefixLength ? key.substring(0, prefixLength) : key;
+    Set<String> result = new HashSet<>();
+    result.add(prefix);
+    delete(prefix, distance, result);
+    return result;
+  }
+
+  private static void delete(String word, int distance, Set<String> result) {
+    if (distance == 0 || word.length() <= MIN_DELETION_LENGTH) {
+      return;
+    }
+    for (int i = 0; i < word.length(); i++) {
+      String deletion = word.substring(0, i) + word.substring(i + 1);
+      // Every path to a deletion takes the same number of edits, so it is expanded only once
+      if (result.add(deletion)) {
+        delete(deletion, distance - 1, result);
+      }
+    }
+  }
+
+  private void unindex(Entry<T> entry) {
+    for (String deletion : deletionsOf(entry.key(), maxDistance)) {
+      PostingList list = deletions.get(deletion);
+      if (list != null && list.remove(entry.id()) && list.isEmpty()) {
+        deletions.remove(deletion);
+      }
+    }
+  }
+
+  private static String normalize(String key) {
+    return key == null ? "" : key.strip().toLowerCase(Locale.ROOT);
+  }
+
+  private record Entry<T>(long id, String key, long score, T document) {
+  }
+
+  private record Match<T>(int distance, Entry<T> entry) {
+  }
+
+  /**
+   * The optimal string alignment distance from one query to keys, computed one row per
+   * character of the key and given up once every alignment needs more than the allowed edits.
+   * The rows are allocated once per query.
+   */
+  private static final class Distance {
+
+    private final String query;
+    private final int limit;
+    private int[] previous;
+    private int[] current;
+    private int[] beforePrevious;
+
+    private Distance(String query, int limit) {
+      this.query = query;
+      this.limit = limit;
+      this.previous = new int[query.length() + 1];
+      this.current = new int[query.length() + 1];
+      this.beforePrevious = new int[query.length() + 1];
+    }
+
+    /**
+     * Computes the distance to a key.
+     *
+     * @return the distance, or more than the limit when it exceeds it
+     */
+    private int to(String key) {
+      if (Math.abs(key.length() - query.length()) > limit) {
+        return limit + 1;
+      }
+      for (int j = 0; j <= query.length(); j++) {
+        previous[j] = j;
+      }
+      for (int i = 1; i <= key.length(); i++) {
+        current[0] = i;
+        int rowMinimum = i;
+        for (int j = 1; j <= query.length(); j++) {
+          int cost = key.charAt(i - 1) == query.charAt(j - 1) ? 0 : 1;
+          int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1),
+              previous[j - 1] + cost);
+          if (i > 1 && j > 1 && key.charAt(i - 1) == query.charAt(j - 2)
+              && key.charAt(i - 2) == query.charAt(j - 1)) {
+            value = Math.min(value, beforePrevious[j - 2] + 1);
+          }
+          current[j] = value;
+          rowMinimum = Math.min(rowMinimum, value);
+        }
+        if (rowMinimum > limit) {
+          return limit + 1;
+        }
+        int[] recycled = beforePrevious;
+        beforePrevious = previous;
+        previous = current;
+        current = recycled;
+      }
+      return previous[query.length()];
+    }
+  }
+}
@@ -0,0 +1,626 @@
+package com.srecko.reddit.search.index;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.srecko.reddit.search.dto.IndexEventType;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The type Index journal. Keeps the documents of one index on local disk, so a restarted search
+ * service can serve queries from them instead of loading every backend again.
+ *
+ * <p>The documents are written to immutable segment files named after their checkpoint, the
+ * sequence number of the last change they contain. A full segment holds every document and
+ * replaces the older segments. A delta segment only holds the documents changed and the ids of
+ * those deleted since the segment before it, so a checkpoint costs as much as the changes since
+ * the last one. Recovery reads the segments from the latest back to the last full one, and once
+ * there are too many of them, they are merged into a new full segment in the background.
+ *
+ * <p>Every change is appended to a change log named after the sequence number it follows. At a
+ * checkpoint the journal rolls over to a new log, so the logs older than a written segment hold
+ * only changes it contains and are deleted whole, while appends go on to the new log. Documents
+ * are encoded with Smile, a binary form of JSON, and every log record and every segment carries a
+ * checksum, so a record torn by a crash is cut off and a damaged segment is not loaded. Segments
+ * are read memory mapped, but every document in them is decoded, since the index structures are
+ * built again from the documents rather than stored.
+ *
+ * <p>Appends only wait for each other and for a roll-over, never for a segment being written or
+ * read. The log is not forced to disk on every change, only when the journal is closed. A change
+ * lost in a power failure is repaired by the next resync.
+ *
+ * @param <T> the type of the documents
+ * @author Srecko Nikolic
+ */
+public class IndexJournal<T> implements Closeable {
+
+  private static final int SEGMENT_MAGIC = 0x52534547;
+  private static final int SEGMENT_VERSION = 1;
+  private static final int SEGMENT_HEADER_SIZE = 28;
+  private static final int FULL = 1;
+  private static final int DELTA = 0;
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SEGMENT_SUFFIX = ".seg";
+  private static final String LOG_PREFIX = "changes-";
+  private static final String LOG_SUFFIX = ".log";
+  private static final int LOG_RECORD_HEADER_SIZE = 8;
+  private static final byte UPSERT = 0;
+  private static final byte DELETE = 1;
+
+  private final Path directory;
+  private final Function<T, Long> idOf;
+  private final ObjectReader reader;
+  private final ObjectWriter writer;
+
+  private final ReentrantLock logLock = new ReentrantLock();
+  private final ReentrantLock segmentLock = new ReentrantLock();
+
+  private FileChannel log;
+  private long logStart;
+  private long sequence;
+  private volatile long checkpoint;
+
+  private static final Logger logger = LogManager.getLogger(IndexJournal.class);
+
+  /**
+   * Opens the journal in a directory, creating it when missing. A torn record at the end of the
+   * change log is cut off.
+   *
+   * @param directory the directory
+   * @param type      the type of the documents
+   * @param idOf      the function returning the id of a document
+   * @param smile     the object mapper writing Smile
+   * @throws IOException when the directory cannot be read or written
+   */
+  public IndexJournal(Path directory, Class<T> type, Function<T, Long> idOf, ObjectMapper smile)
+      throws IOException {
+    this.directory = directory;
+    this.idOf = idOf;
+    this.reader = smile.readerFor(type);
+    this.writer = smile.writerFor(type);
+    Files.createDirectories(directory);
+    List<Path> segments = segments();
+    checkpoint = segments.isEmpty() ? 0 : checkpointOf(segments.get(0));
+    List<Path> logs = logs();
+    long[] last = {checkpoint};
+    for (Path older : logs.subList(0, Math.max(logs.size() - 1, 0))) {
+      readLog(older, change -> last[0] = Math.max(last[0], change.sequence()));
+    }
+    logStart = logs.isEmpty() ? checkpoint : startOf(logs.get(logs.size() - 1));
+    log = FileChannel.open(logPath(logStart), StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    long end = readLog(log, change -> last[0] = Math.max(last[0], change.sequence()));
+    if (end < log.size()) {
+      logger.warn("Cutting a torn change off the search index log in {}", directory);
+      log.truncate(end);
+    }
+    log.position(end);
+    sequence = Math.max(last[0], logStart);
+  }
+
+  /**
+   * Appends a change to the log. A change that cannot be written is logged and skipped.
+   *
+   * @param type     the type of the change
+   * @param id       the id of the document
+   * @param document the document, null for a deletion
+   */
+  public void append(IndexEventType type, Long id, T document) {
+    byte[] encoded;
+    try {
+      encoded = document == null ? new byte[0] : writer.writeValueAsBytes(document);
+    } catch (IOException e) {
+      logger.error("Failed to encode document {} for {}, the next resync repairs it: {}",
+          id, directory, e.getMessage());
+      return;
+    }
+    logLock.lock();
+    try {
+      ByteBuffer payload = ByteBuffer.allocate(17 + encoded.length)
+          .putLong(sequence + 1)
+          .put(type == IndexEventType.DELETE ? DELETE : UPSERT)
+          .putLong(id)
+          .put(encoded)
+          .flip();
+      CRC32C crc = new CRC32C();
+      crc.update(payload.duplicate());
+      ByteBuffer header = ByteBuffer.allocate(LOG_RECORD_HEADER_SIZE)
+          .putInt(payload.remaining())
+          .putInt((int) crc.getValue())
+          .flip();
+      log.write(new ByteBuffer[]{header, payload});
+      sequence++;
+    } catch (IOException e) {
+      logger.error("Failed to log a change of document {} in {}, the next resync repairs it: {}",
+          id, directory, e.getMessage());
+    } finally {
+      logLock.unlock();
+    }
+  }
+
+  /**
+   * Gets the sequence number of the last change appended.
+   *
+   * @return the sequence number
+   */
+  public long lastSequence() {
+    logLock.lock();
+    try {
+      return sequence;
+    } finally {
+      logLock.unlock();
+    }
+  }
+
+  /**
+   * Starts a new log for the changes appended from now on, unless nothing was appended to the
+   * current one, so that a segment of the changes appended so far makes the older logs
+   * redundant.
+   *
+   * @return the sequence number of the last change appended to the older logs
+   * @throws UncheckedIOException when the new log cannot be created
+   */
+  public long rollOver() {
+    FileChannel retired;
+    long last;
+    logLock.lock();
+    try {
+      last = sequence;
+      if (last == logStart) {
+        return last;
+      }
+      FileChannel next = FileChannel.open(logPath(last), StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+          StandardOpenOption.WRITE);
+      retired = log;
+      log = next;
+      logStart = last;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      logLock.unlock();
+    }
+    try {
+      retired.close();
+    } catch (IOException e) {
+      logger.warn("Failed to close a rolled over search index log in {}: {}", directory,
+          e.getMessage());
+    }
+    return last;
+  }
+
+  /**
+   * Gets the sequence number of the last change contained in the latest segment.
+   *
+   * @return the checkpoint
+   */
+  public long checkpoint() {
+    return checkpoint;
+  }
+
+  /**
+   * Reads the segments from the latest back to the last full one, a document or deletion in a
+   * newer segment hiding those of the same id in older ones, and applies the logged changes
+   * newer than the latest.
+   *
+   * @return the documents, empty when there is no segment
+   * @throws UncheckedIOException when a segment cannot be read or is damaged
+   */
+  public Optional<Recovery<T>> recover() {
+    segmentLock.lock();
+    try {
+      List<Path> chain = chain();
+      if (chain.isEmpty()) {
+        return Optional.empty();
+      }
+      Map<Long, T> documents = new HashMap<>();
+      Set<Long> seen = new HashSet<>();
+      SegmentHeader latest = null;
+      for (Path segment : chain) {
+        SegmentHeader header = readSegment(segment, documents, seen);
+        latest = latest == null ? header : latest;
+      }
+      long segmentCheckpoint = latest.checkpoint();
+      int[] replayed = {0};
+      Set<Long> changed = new HashSet<>();
+      for (Path changes : logs()) {
+        readLog(changes, change -> {
+          if (change.sequence() > segmentCheckpoint) {
+            apply(documents, change);
+            changed.add(change.id());
+            replayed[0]++;
+          }
+        });
+      }
+      return Optional.of(new Recovery<>(new ArrayList<>(documents.values()), segmentCheckpoint,
+          latest.createdAt(), replayed[0], changed));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      segmentLock.unlock();
+    }
+  }
+
+  /**
+   * Writes all the documents to a new full segment and deletes the older segments and the logs
+   * holding only changes it contains.
+   *
+   * @param documents          the documents
+   * @param documentCheckpoint the sequence number of the last change applied to the documents
+   * @throws UncheckedIOException when the segment cannot be written
+   */
+  public void writeSegment(List<T> documents, long documentCheckpoint) {
+    segmentLock.lock();
+    try {
+      writeSegmentFile(documents, List.of(), true, documentCheckpoint, Instant.now());
+      deleteSegmentsBefore(documentCheckpoint);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      segmentLock.unlock();
+    }
+  }
+
+  /**
+   * Writes the documents changed and the ids of the documents deleted since the latest segment
+   * to a new delta segment on top of it, and deletes the logs holding only changes it contains.
+   *
+   * @param documents          the documents changed
+   * @param deleted            the ids of the documents deleted
+   * @param documentCheckpoint the sequence number of the last change applied to the documents
+   * @throws UncheckedIOException when the segment cannot be written, or there is no segment to
+   *     write it on top of
+   */
+  public void writeDelta(List<T> documents, Collection<Long> deleted, long documentCheckpoint) {
+    segmentLock.lock();
+    try {
+      if (chain().isEmpty()) {
+        throw new IOException("No segment in " + directory + " to write a delta on top of");
+      }
+      writeSegmentFile(documents, deleted, false, documentCheckpoint, Instant.now());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      segmentLock.unlock();
+    }
+  }
+
+  /**
+   * Merges the segments into a single full one once there are more than a given number of them.
+   * The merged segment keeps the checkpoint and time of the latest, which it replaces, so the
+   * segments on disk make up the same documents at every step.
+   *
+   * @param maxSegments the number of segments kept without merging
+   * @return whether the segments were merged
+   * @throws UncheckedIOException when a segment cannot be read or written
+   */
+  public boolean merge(int maxSegments) {
+    segmentLock.lock();
+    try {
+      List<Path> chain = chain();
+      if (chain.size() <= maxSegments) {
+        return false;
+      }
+      Map<Long, T> documents = new HashMap<>();
+      Set<Long> seen = new HashSet<>();
+      SegmentHeader latest = null;
+      for (Path segment : chain) {
+        SegmentHeader header = readSegment(segment, documents, seen);
+        latest = latest == null ? header : latest;
+      }
+      writeSegmentFile(new ArrayList<>(documents.values()), List.of(), true,
+          latest.checkpoint(), latest.createdAt());
+      deleteSegmentsBefore(latest.checkpoint());
+      logger.info("Merged {} search index segments of {} documents in {}", chain.size(),
+          documents.size(), directory);
+      return true;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      segmentLock.unlock();
+    }
+  }
+
+  /**
+   * Reads a segment, keeping the documents and deletions whose ids no newer segment had.
+   */
+  private SegmentHeader readSegment(Path segment, Map<Long, T> documents, Set<Long> seen)
+      throws IOException {
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.limit() < SEGMENT_HEADER_SIZE + 4) {
+        throw new IOException("Segment " + segment + " is truncated");
+      }
+      CRC32C crc = new CRC32C();
+      crc.update(buffer.slice(0, buffer.limit() - 4));
+      if ((int) crc.getValue() != buffer.getInt(buffer.limit() - 4)) {
+        throw new IOException("Segment " + segment + " is damaged");
+      }
+      int version = buffer.getInt() == SEGMENT_MAGIC ? buffer.getInt() : -1;
+      if (version != SEGMENT_VERSION) {
+        throw new IOException("Segment " + segment + " has an unknown format");
+      }
+      long segmentCheckpoint = buffer.getLong();
+      Instant createdAt = Instant.ofEpochMilli(buffer.getLong());
+      // Whether the segment is full, which the chain was already built from
+      buffer.getInt();
+      int count = buffer.getInt();
+      for (int i = 0; i < count; i++) {
+        long id = buffer.getLong();
+        int length = buffer.getInt();
+        if (seen.add(id)) {
+          documents.put(id, decode(buffer.slice(buffer.position(), length)));
+        }
+        buffer.position(buffer.position() + length);
+      }
+      int deletions = buffer.getInt();
+      for (int i = 0; i < deletions; i++) {
+        seen.add(buffer.getLong());
+      }
+      return new SegmentHeader(segmentCheckpoint, createdAt);
+    }
+  }
+
+  private void writeSegmentFile(List<T> documents, Collection<Long> deleted, boolean full,
+      long documentCheckpoint, Instant createdAt) throws IOException {
+    Path target = directory.resolve(SEGMENT_PREFIX + documentCheckpoint + SEGMENT_SUFFIX);
+    Path temporary = directory.resolve(target.getFileName() + ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+        CheckedOutputStream checked = new CheckedOutputStream(
+            new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), new CRC32C());
+        DataOutputStream out = new DataOutputStream(checked);
+        out.writeInt(SEGMENT_MAGIC);
+        out.writeInt(SEGMENT_VERSION);
+        out.writeLong(documentCheckpoint);
+        out.writeLong(createdAt.toEpochMilli());
+        out.writeInt(full ? FULL : DELTA);
+        out.writeInt(documents.size());
+        for (T document : documents) {
+          byte[] encoded = writer.writeValueAsBytes(document);
+          out.writeLong(idOf.apply(document));
+          out.writeInt(encoded.length);
+          out.write(encoded);
+        }
+        out.writeInt(deleted.size());
+        for (Long id : deleted) {
+          out.writeLong(id);
+        }
+        out.writeInt((int) checked.getChecksum().getValue());
+        out.flush();
+        channel.force(true);
+      }
+      Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+      checkpoint = Math.max(checkpoint, documentCheckpoint);
+      deleteLogsBefore(checkpoint);
+    } finally {
+      try {
+        Files.deleteIfExists(temporary);
+      } catch (IOException e) {
+        logger.warn("Failed to delete {}: {}", temporary, e.getMessage());
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    logLock.lock();
+    try {
+      if (log.isOpen()) {
+        log.force(false);
+        log.close();
+      }
+    } finally {
+      logLock.unlock();
+    }
+  }
+
+  /**
+   * Deletes the logs whose changes all precede a checkpoint, which is every log followed by one
+   * starting at or before it. The current log is always kept.
+   */
+  private void deleteLogsBefore(long segmentCheckpoint) throws IOException {
+    List<Path> logs = logs();
+    for (int i = 0; i + 1 < logs.size(); i++) {
+      if (startOf(logs.get(i + 1)) <= segmentCheckpoint) {
+        Files.deleteIfExists(logs.get(i));
+      }
+    }
+  }
+
+  private void deleteSegmentsBefore(long segmentCheckpoint) throws IOException {
+    for (Path file : segments()) {
+      if (checkpointOf(file) < segmentCheckpoint) {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+
+  /**
+   * Lists the segments recovery reads, from the latest back to the last full one. A segment
+   * older than that is no longer needed and is left to the next full segment to delete.
+   */
+  private List<Path> chain() throws IOException {
+    List<Path> chain = new ArrayList<>();
+    for (Path segment : segments()) {
+      chain.add(segment);
+      if (isFull(segment)) {
+        return chain;
+      }
+    }
+    if (!chain.isEmpty()) {
+      throw new IOException("No full segment under the delta segments in " + directory);
+    }
+    return chain;
+  }
+
+  private static boolean isFull(Path segment) throws IOException {
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+      channel.read(header, 0);
+      // A segment too short to tell is damaged, and reading it says so
+      return header.position() < SEGMENT_HEADER_SIZE || header.getInt(24) == FULL;
+    }
+  }
+
+  /**
+   * Lists the segments, the latest first.
+   */
+  private List<Path> segments() {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(IndexJournal::isSegment)
+          .sorted(Comparator.comparingLong((Path file) -> checkpointOf(file)).reversed())
+          .toList();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private List<Path> logs() {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(IndexJournal::isLog)
+          .sorted(Comparator.comparingLong(IndexJournal::startOf))
+          .toList();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private Path logPath(long start) {
+    return directory.resolve(LOG_PREFIX + start + LOG_SUFFIX);
+  }
+
+  private static boolean isLog(Path file) {
+    String name = file.getFileName().toString();
+    return name.startsWith(LOG_PREFIX) && name.endsWith(LOG_SUFFIX);
+  }
+
+  private static long startOf(Path log) {
+    String name = log.getFileName().toString();
+    return Long.parseLong(name.substring(LOG_PREFIX.length(),
+        name.length() - LOG_SUFFIX.length()));
+  }
+
+  private static boolean isSegment(Path file) {
+    String name = file.getFileName().toString();
+    return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+  }
+
+  private static long checkpointOf(Path segment) {
+    String name = segment.getFileName().toString();
+    return Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+        name.length() - SEGMENT_SUFFIX.length()));
+  }
+
+  /**
+   * Reads the valid changes of a log that is not appended to, stopping at the first torn one.
+   */
+  private void readLog(Path file, Consumer<Change<T>> consumer) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      readLog(channel, consumer);
+    }
+  }
+
+  /**
+   * Reads the valid changes of the log from its position, stopping at the first torn one.
+   *
+   * @return the position after the last valid change
+   */
+  private long readLog(FileChannel channel, Consumer<Change<T>> consumer) throws IOException {
+    long position = channel.position();
+    long size = channel.size();
+    if (size == position) {
+      return position;
+    }
+    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position,
+        size - position);
+    CRC32C crc = new CRC32C();
+    while (buffer.remaining() >= LOG_RECORD_HEADER_SIZE) {
+      int start = buffer.position();
+      int length = buffer.getInt();
+      int checksum = buffer.getInt();
+      if (length < 17 || length > buffer.remaining()) {
+        return position + start;
+      }
+      ByteBuffer payload = buffer.slice(buffer.position(), length);
+      crc.reset();
+      crc.update(payload.duplicate());
+      if ((int) crc.getValue() != checksum) {
+        return position + start;
+      }
+      long changeSequence = payload.getLong();
+      IndexEventType type = payload.get() == DELETE ? IndexEventType.DELETE
+          : IndexEventType.UPSERT;
+      long id = payload.getLong();
+      T document = payload.hasRemaining() ? decode(payload.slice()) : null;
+      consumer.accept(new Change<>(changeSequence, type, id, document));
+      buffer.position(buffer.position() + length);
+    }
+    return position + buffer.position();
+  }
+
+  private T decode(ByteBuffer encoded) throws IOException {
+    return reader.readValue(new ByteBufferBackedInputStream(encoded));
+  }
+
+  private static <T> void apply(Map<Long, T> documents, Change<T> change) {
+    if (change.type() == IndexEventType.DELETE) {
+      documents.remove(change.id());
+    } else {
+      documents.put(change.id(), change.document());
+    }
+  }
+
+  /**
+   * The documents of an index read back from disk.
+   *
+   * @param <T>        the type of the documents
+   * @param documents  the documents
+   * @param checkpoint the checkpoint of the segment they were read from
+   * @param createdAt  the time the segment was written
+   * @param replayed   the number of logged changes applied after the segment
+   * @param changed    the ids of the documents those changes touched
+   */
+  public record Recovery<T>(List<T> documents, long checkpoint, Instant createdAt,
+      int replayed, Set<Long> changed) {
+  }
+
+  private record SegmentHeader(long checkpoint, Instant createdAt) {
+  }
+
+  private record Change<T>(long sequence, IndexEventType type, long id, T document) {
+  }
+}
@@ -0,0 +1,64 @@
+package com.srecko.reddit.search.index;
+
+import java.util.function.Function;
+
+/**
+ * The type Indexed field. A text of a document that is searched, and how much a term found in it
+ * counts towards the relevance of the document compared to the other fields. A field that is not
+ * matched only adds to the relevance of documents matched by the other fields, for texts the
+ * backend does not search either.
+ *
+ * @param <T>     the type of the documents
+ * @param textOf  the function returning the text of the field
+ * @param weight  the weight of the field, 1 for plain text
+ * @param matched whether a document matches when the field contains the query
+ * @author Srecko Nikolic
+ */
+public record IndexedField<T>(Function<T, String> textOf, double weight, boolean matched) {
+
+  /**
+   * Instantiates a new Indexed field.
+   *
+   * @param textOf  the function returning the text of the field
+   * @param weight  the weight of the field, 1 for plain text
+   * @param matched whether a document matches when the field contains the query
+   * @throws IllegalArgumentException when the weight is not positive
+   */
+  public IndexedField {
+    if (!(weight > 0)) {
+      throw new IllegalArgumentException("The weight of a field must be positive: " + weight);
+    }
+  }
+
+  /**
+   * Instantiates a new Indexed field documents are matched by.
+   *
+   * @param textOf the function returning the text of the field
+   * @param weight the weight of the field, 1 for plain text
+   */
+  public IndexedField(Function<T, String> textOf, double weight) {
+    this(textOf, weight, true);
+  }
+
+  /**
+   * Creates a field of weight 1.
+   *
+   * @param <T>    the type of the documents
+   * @param textOf the function returning the text of the field
+   * @return the field
+   */
+  public static <T> IndexedField<T> of(Function<T, String> textOf) {
+    return new IndexedField<>(textOf, 1);
+  }
+
+  /**
+   * Creates a field of weight 1 that only counts towards relevance.
+   *
+   * @param <T>    the type of the documents
+   * @param textOf the function returning the text of the field
+   * @return the field
+   */
+  public static <T> IndexedField<T> scored(Function<T, String> textOf) {
+    return new IndexedField<>(textOf, 1, false);
+  }
+}
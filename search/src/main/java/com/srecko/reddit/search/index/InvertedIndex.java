@@ -0,0 +1,316 @@
+package com.srecko.reddit.search.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * The type Inverted index. Maps every term of the indexed text of a document to the ids of the
+ * documents containing it, so a query only touches the documents that share its terms instead of
+ * scanning all of them. A document matches when its text contains every term of the query.
+ *
+ * <p>Matches can also be ranked by relevance with {@link Bm25}. The statistics it needs, how
+ * often every term appears in every field of a document, how long those fields are and how many
+ * documents contain a term, are updated as documents are added and removed, so ranking only
+ * reads the matching documents.
+ *
+ * @param <T> the type of the documents
+ * @author Srecko Nikolic
+ */
+public class InvertedIndex<T> {
+
+  private final Function<T, Long> idOf;
+  private final List<IndexedField<T>> fields;
+  private final Bm25 bm25;
+
+  private final Map<String, PostingList> postings = new HashMap<>();
+  private final Map<Long, T> documents = new HashMap<>();
+  private final Map<Long, DocumentTerms> terms = new HashMap<>();
+  private final long[] totalLengths;
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /**
+   * Instantiates a new Inverted index of a single text.
+   *
+   * @param idOf   the function returning the id of a document
+   * @param textOf the function returning the indexed text of a document
+   */
+  public InvertedIndex(Function<T, Long> idOf, Function<T, String> textOf) {
+    this(idOf, List.of(IndexedField.of(textOf)), Bm25.DEFAULT);
+  }
+
+  /**
+   * Instantiates a new Inverted index of several weighted texts.
+   *
+   * @param idOf   the function returning the id of a document
+   * @param fields the indexed fields of a document
+   * @param bm25   the relevance function
+   */
+  public InvertedIndex(Function<T, Long> idOf, List<IndexedField<T>> fields, Bm25 bm25) {
+    this.idOf = idOf;
+    this.fields = List.copyOf(fields);
+    this.bm25 = bm25;
+    this.totalLengths = new long[fields.size()];
+  }
+
+  /**
+   * Adds a document or replaces the one with the same id.
+   *
+   * @param document the document
+   */
+  public void put(T document) {
+    Long id = idOf.apply(document);
+    DocumentTerms documentTerms = analyze(document);
+    lock.writeLock().lock();
+    try {
+      unindex(id);
+      documents.put(id, document);
+      terms.put(id, documentTerms);
+      for (String term : documentTerms.terms()) {
+        postings.computeIfAbsent(term, t -> new PostingList()).add(id);
+      }
+      for (int field = 0; field < totalLengths.length; field++) {
+        totalLengths[field] += documentTerms.lengths()[field];
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes a document.
+   *
+   * @param id the id of the document
+   */
+  public void remove(Long id) {
+    lock.writeLock().lock();
+    try {
+      unindex(id);
+      documents.remove(id);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Finds the documents that contain every term of a query and pass a filter.
+   *
+   * @param query  the query
+   * @param filter the filter
+   * @return the matching documents in increasing id order, in a list the caller may modify
+   */
+  public List<T> search(String query, Predicate<T> filter) {
+    List<String> queryTerms = Tokenizer.tokenize(query);
+    lock.readLock().lock();
+    try {
+      long[] ids = match(queryTerms);
+      List<T> matches = new ArrayList<>(ids.length);
+      for (long id : ids) {
+        T document = documents.get(id);
+        if (filter.test(document)) {
+          matches.add(document);
+        }
+      }
+      return matches;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Finds the documents that contain every term of a query and pass a filter, most relevant
+   * first. Equally relevant documents are in increasing id order.
+   *
+   * @param query  the query
+   * @param filter the filter
+   * @return the matching documents, in a list the caller may modify
+   */
+  public List<T> rank(String query, Predicate<T> filter) {
+    return rank(query, search(query, filter));
+  }
+
+  /**
+   * Ranks documents, such as the ones matched by another index, by their relevance to a query,
+   * most relevant first. Equally relevant documents are in increasing id order. A document that
+   * contains none of the terms of the query, or is not indexed, is ranked as least relevant.
+   *
+   * @param query      the query
+   * @param candidates the documents
+   * @return the documents, in a list the caller may modify
+   */
+  public List<T> rank(String query, List<T> candidates) {
+    List<String> queryTerms = Tokenizer.tokenize(query);
+    lock.readLock().lock();
+    try {
+      double[] idfs = new double[queryTerms.size()];
+      for (int i = 0; i < idfs.length; i++) {
+        PostingList list = postings.get(queryTerms.get(i));
+        idfs[i] = bm25.idf(list == null ? 0 : list.size(), documents.size());
+      }
+      double[] averageLengths = new double[totalLengths.length];
+      for (int field = 0; field < averageLengths.length && !documents.isEmpty(); field++) {
+        averageLengths[field] = (double) totalLengths[field] / documents.size();
+      }
+      List<Scored<T>> scored = new ArrayList<>(candidates.size());
+      for (T document : candidates) {
+        Long id = idOf.apply(document);
+        DocumentTerms documentTerms = terms.get(id);
+        double score = documentTerms == null ? 0
+            : score(documentTerms, queryTerms, idfs, averageLengths);
+        scored.add(new Scored<>(id, score, document));
+      }
+      scored.sort((a, b) -> a.score() != b.score() ? Double.compare(b.score(), a.score())
+          : Long.compare(a.id(), b.id()));
+      List<T> ranked = new ArrayList<>(scored.size());
+      for (Scored<T> match : scored) {
+        ranked.add(match.document());
+      }
+      return ranked;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Gets an indexed document.
+   *
+   * @param id the id of the document
+   * @return the document, null when it is not indexed
+   */
+  public T get(Long id) {
+    lock.readLock().lock();
+    try {
+      return documents.get(id);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Copies the indexed documents.
+   *
+   * @return the documents in no particular order
+   */
+  public List<T> documents() {
+    lock.readLock().lock();
+    try {
+      return new ArrayList<>(documents.values());
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Gets the number of indexed documents.
+   *
+   * @return the number of documents
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return documents.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Gets the number of distinct terms.
+   *
+   * @return the number of terms
+   */
+  public int termCount() {
+    lock.readLock().lock();
+    try {
+      return postings.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private long[] match(List<String> queryTerms) {
+    if (queryTerms.isEmpty()) {
+      return new long[0];
+    }
+    List<PostingList> lists = new ArrayList<>(queryTerms.size());
+    for (String term : queryTerms) {
+      PostingList list = postings.get(term);
+      if (list == null) {
+        return new long[0];
+      }
+      lists.add(list);
+    }
+    return PostingList.intersect(lists);
+  }
+
+  private double score(DocumentTerms documentTerms, List<String> queryTerms, double[] idfs,
+      double[] averageLengths) {
+    double score = 0;
+    for (int i = 0; i < idfs.length; i++) {
+      int at = Arrays.binarySearch(documentTerms.terms(), queryTerms.get(i));
+      double frequency = 0;
+      for (int field = 0; field < fields.size(); field++) {
+        frequency += fields.get(field).weight() * bm25.normalize(
+            documentTerms.frequency(at, field), documentTerms.lengths()[field],
+            averageLengths[field]);
+      }
+      score += bm25.score(idfs[i], frequency);
+    }
+    return score;
+  }
+
+  private DocumentTerms analyze(T document) {
+    Map<String, int[]> frequencies = new TreeMap<>();
+    int[] lengths = new int[fields.size()];
+    for (int field = 0; field < lengths.length; field++) {
+      List<String> fieldTerms = Tokenizer.terms(fields.get(field).textOf().apply(document));
+      lengths[field] = fieldTerms.size();
+      for (String term : fieldTerms) {
+        frequencies.computeIfAbsent(term, t -> new int[lengths.length])[field]++;
+      }
+    }
+    String[] sortedTerms = frequencies.keySet().toArray(new String[0]);
+    int[] flattened = new int[sortedTerms.length * lengths.length];
+    for (int i = 0; i < sortedTerms.length; i++) {
+      System.arraycopy(frequencies.get(sortedTerms[i]), 0, flattened, i * lengths.length,
+          lengths.length);
+    }
+    return new DocumentTerms(sortedTerms, flattened, lengths);
+  }
+
+  private void unindex(Long id) {
+    DocumentTerms previous = terms.remove(id);
+    if (previous == null) {
+      return;
+    }
+    for (String term : previous.terms()) {
+      PostingList list = postings.get(term);
+      if (list != null && list.remove(id) && list.isEmpty()) {
+        postings.remove(term);
+      }
+    }
+    for (int field = 0; field < totalLengths.length; field++) {
+      totalLengths[field] -= previous.lengths()[field];
+    }
+  }
+
+  /**
+   * The terms of a document in sorted order, with how often each appears in every field, the
+   * frequencies of a term being stored next to each other.
+   */
+  private record DocumentTerms(String[] terms, int[] frequencies, int[] lengths) {
+
+    private int frequency(int term, int field) {
+      return term < 0 ? 0 : frequencies[term * lengths.length + field];
+    }
+  }
+
+  private record Scored<T>(long id, double score, T document) {
+  }
+}
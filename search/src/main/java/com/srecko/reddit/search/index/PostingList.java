@@ -0,0 +1,139 @@
+package com.srecko.reddit.search.index;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The type Posting list. The ids of the documents that contain a term, kept sorted in a primitive
+ * array. Ids mostly arrive in increasing order, so adding one is usually an append.
+ *
+ * @author Srecko Nikolic
+ */
+public class PostingList {
+
+  private static final int INITIAL_CAPACITY = 4;
+
+  private long[] ids = new long[INITIAL_CAPACITY];
+  private int size;
+
+  /**
+   * Adds a document id.
+   *
+   * @param id the id
+   * @return whether the id was not in the list yet
+   */
+  public boolean add(long id) {
+    if (size > 0 && ids[size - 1] < id) {
+      grow();
+      ids[size++] = id;
+      return true;
+    }
+    int index = Arrays.binarySearch(ids, 0, size, id);
+    if (index >= 0) {
+      return false;
+    }
+    int insertion = -index - 1;
+    grow();
+    System.arraycopy(ids, insertion, ids, insertion + 1, size - insertion);
+    ids[insertion] = id;
+    size++;
+    return true;
+  }
+
+  /**
+   * Removes a document id.
+   *
+   * @param id the id
+   * @return whether the id was in the list
+   */
+  public boolean remove(long id) {
+    int index = Arrays.binarySearch(ids, 0, size, id);
+    if (index < 0) {
+      return false;
+    }
+    System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+    size--;
+    return true;
+  }
+
+  /**
+   * Checks if the list holds a document id.
+   *
+   * @param id the id
+   * @return whether the list holds the id
+   */
+  public boolean contains(long id) {
+    return Arrays.binarySearch(ids, 0, size, id) >= 0;
+  }
+
+  /**
+   * Gets size.
+   *
+   * @return the size
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Checks if the list is empty.
+   *
+   * @return whether the list is empty
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Copies the ids.
+   *
+   * @return the ids in increasing order
+   */
+  public long[] toArray() {
+    return Arrays.copyOf(ids, size);
+  }
+
+  /**
+   * Intersects posting lists. The shortest list is walked and every id of it is looked up in the
+   * others, starting from where the previous lookup ended, so the cost follows the shortest list.
+   *
+   * @param lists the posting lists
+   * @return the ids contained in all lists, in increasing order
+   */
+  public static long[] intersect(List<PostingList> lists) {
+    if (lists.isEmpty()) {
+      return new long[0];
+    }
+    PostingList[] sorted = lists.toArray(new PostingList[0]);
+    Arrays.sort(sorted, Comparator.comparingInt(PostingList::size));
+    PostingList shortest = sorted[0];
+    long[] result = new long[shortest.size];
+    int[] positions = new int[sorted.length];
+    int count = 0;
+    candidates:
+    for (int i = 0; i < shortest.size; i++) {
+      long id = shortest.ids[i];
+      for (int j = 1; j < sorted.length; j++) {
+        PostingList other = sorted[j];
+        int index = Arrays.binarySearch(other.ids, positions[j], other.size, id);
+        if (index < 0) {
+          positions[j] = -index - 1;
+          if (positions[j] == other.size) {
+            break candidates;
+          }
+          continue candidates;
+        }
+        positions[j] = index + 1;
+      }
+      result[count++] = id;
+    }
+    return Arrays.copyOf(result, count);
+  }
+
+  private void grow() {
+    if (size == ids.length) {
+      ids = Arrays.copyOf(ids, ids.length * 2);
+    }
+  }
+}
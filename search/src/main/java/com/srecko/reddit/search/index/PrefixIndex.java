@@ -0,0 +1,266 @@
+package com.srecko.reddit.search.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * The type Prefix index. A trie over the lowercased key of every document, such as a subreddit
+ * name or a username, answering which documents have a key starting with a prefix.
+ *
+ * <p>Every node keeps the best documents below it, ranked by score, then key, then id, so a
+ * lookup walks one node per character of the prefix and copies at most <code>capacity</code>
+ * documents, no matter how many keys share the prefix. Inserting a document offers it to the
+ * nodes on its path. Removing one that a node ranked among its best refills that node from its
+ * children, which already hold their own best documents.
+ *
+ * @param <T> the type of the documents
+ * @author Srecko Nikolic
+ */
+public class PrefixIndex<T> {
+
+  private final Function<T, Long> idOf;
+  private final Function<T, String> keyOf;
+  private final ToLongFunction<T> scoreOf;
+  private final int capacity;
+
+  private final Node<T> root = new Node<>();
+  private final Map<Long, Entry<T>> entries = new HashMap<>();
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private final Comparator<Entry<T>> ranking = Comparator.<Entry<T>>comparingLong(e -> -e.score)
+      .thenComparing(e -> e.key)
+      .thenComparingLong(e -> e.id);
+
+  /**
+   * Instantiates a new Prefix index.
+   *
+   * @param idOf     the function returning the id of a document
+   * @param keyOf    the function returning the key a document is completed by
+   * @param scoreOf  the function returning the popularity of a document, higher ranks first
+   * @param capacity the number of documents a lookup returns at most
+   */
+  public PrefixIndex(Function<T, Long> idOf, Function<T, String> keyOf,
+      ToLongFunction<T> scoreOf, int capacity) {
+    this.idOf = idOf;
+    this.keyOf = keyOf;
+    this.scoreOf = scoreOf;
+    this.capacity = capacity;
+  }
+
+  /**
+   * Adds a document or replaces the one with the same id.
+   *
+   * @param document the document
+   */
+  public void put(T document) {
+    String key = keyOf.apply(document);
+    if (key == null || key.isBlank()) {
+      remove(idOf.apply(document));
+      return;
+    }
+    Entry<T> entry = new Entry<>(idOf.apply(document), normalize(key),
+        scoreOf.applyAsLong(document), document);
+    lock.writeLock().lock();
+    try {
+      Entry<T> previous = entries.put(entry.id, entry);
+      if (previous != null) {
+        unlink(previous);
+      }
+      Node<T> node = root;
+      node.offer(entry, ranking, capacity);
+      for (int i = 0; i < entry.key.length(); i++) {
+        node = node.childOrCreate(entry.key.charAt(i));
+        node.offer(entry, ranking, capacity);
+      }
+      node.terminals.add(entry);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes a document.
+   *
+   * @param id the id of the document
+   */
+  public void remove(Long id) {
+    lock.writeLock().lock();
+    try {
+      Entry<T> previous = entries.remove(id);
+      if (previous != null) {
+        unlink(previous);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Finds the best ranked documents whose key starts with a prefix, ignoring case.
+   *
+   * @param prefix the prefix
+   * @param limit  the number of documents at most, capped at the capacity of the index
+   * @return the documents, best first
+   */
+  public List<T> complete(String prefix, int limit) {
+    String normalized = normalize(prefix);
+    int size = Math.min(limit, capacity);
+    lock.readLock().lock();
+    try {
+      Node<T> node = root;
+      for (int i = 0; i < normalized.length() && node != null; i++) {
+        node = node.child(normalized.charAt(i));
+      }
+      if (node == null || size <= 0) {
+        return List.of();
+      }
+      List<T> documents = new ArrayList<>(Math.min(size, node.best.length));
+      for (int i = 0; i < node.best.length && i < size; i++) {
+        documents.add(node.best[i].document);
+      }
+      return documents;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Gets the number of indexed documents.
+   *
+   * @return the number of documents
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return entries.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void unlink(Entry<T> entry) {
+    List<Node<T>> path = new ArrayList<>(entry.key.length() + 1);
+    Node<T> node = root;
+    path.add(node);
+    for (int i = 0; i < entry.key.length(); i++) {
+      node = node.child(entry.key.charAt(i));
+      path.add(node);
+    }
+    node.terminals.remove(entry);
+    // Children first, so a node is refilled from children that no longer hold the entry
+    for (int depth = path.size() - 1; depth >= 0; depth--) {
+      Node<T> current = path.get(depth);
+      if (depth > 0 && current.isEmpty()) {
+        path.get(depth - 1).removeChild(entry.key.charAt(depth - 1));
+      } else if (current.holds(entry)) {
+        current.refill(ranking, capacity);
+      }
+    }
+  }
+
+  private static String normalize(String key) {
+    return key == null ? "" : key.strip().toLowerCase(Locale.ROOT);
+  }
+
+  private record Entry<T>(long id, String key, long score, T document) {
+  }
+
+  private static final class Node<T> {
+
+    private char[] labels = new char[0];
+    @SuppressWarnings("unchecked")
+    private Node<T>[] children = new Node[0];
+    private final List<Entry<T>> terminals = new ArrayList<>(1);
+    @SuppressWarnings("unchecked")
+    private Entry<T>[] best = new Entry[0];
+
+    private Node<T> child(char label) {
+      int i = Arrays.binarySearch(labels, label);
+      return i >= 0 ? children[i] : null;
+    }
+
+    private Node<T> childOrCreate(char label) {
+      int i = Arrays.binarySearch(labels, label);
+      if (i >= 0) {
+        return children[i];
+      }
+      int at = -i - 1;
+      Node<T> child = new Node<>();
+      labels = insert(labels, at, label);
+      children = insert(children, at, child);
+      return child;
+    }
+
+    private void removeChild(char label) {
+      int i = Arrays.binarySearch(labels, label);
+      if (i < 0) {
+        return;
+      }
+      char[] newLabels = new char[labels.length - 1];
+      System.arraycopy(labels, 0, newLabels, 0, i);
+      System.arraycopy(labels, i + 1, newLabels, i, labels.length - i - 1);
+      Node<T>[] newChildren = Arrays.copyOf(children, children.length - 1);
+      System.arraycopy(children, i + 1, newChildren, i, children.length - i - 1);
+      labels = newLabels;
+      children = newChildren;
+    }
+
+    private boolean isEmpty() {
+      return terminals.isEmpty() && children.length == 0;
+    }
+
+    private boolean holds(Entry<T> entry) {
+      for (Entry<T> candidate : best) {
+        if (candidate == entry) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private void offer(Entry<T> entry, Comparator<Entry<T>> ranking, int capacity) {
+      int at = Arrays.binarySearch(best, entry, ranking);
+      at = at >= 0 ? at : -at - 1;
+      if (at >= capacity) {
+        return;
+      }
+      Entry<T>[] grown = insert(best, at, entry);
+      best = grown.length > capacity ? Arrays.copyOf(grown, capacity) : grown;
+    }
+
+    private void refill(Comparator<Entry<T>> ranking, int capacity) {
+      List<Entry<T>> candidates = new ArrayList<>(terminals);
+      for (Node<T> child : children) {
+        candidates.addAll(Arrays.asList(child.best));
+      }
+      candidates.sort(ranking);
+      @SuppressWarnings("unchecked")
+      Entry<T>[] refilled = candidates.subList(0, Math.min(capacity, candidates.size()))
+          .toArray(new Entry[0]);
+      best = refilled;
+    }
+
+    private static char[] insert(char[] array, int at, char value) {
+      char[] grown = new char[array.length + 1];
+      System.arraycopy(array, 0, grown, 0, at);
+      grown[at] = value;
+      System.arraycopy(array, at, grown, at + 1, array.length - at);
+      return grown;
+    }
+
+    private static <E> E[] insert(E[] array, int at, E value) {
+      E[] grown = Arrays.copyOf(array, array.length + 1);
+      System.arraycopy(array, at, grown, at + 1, array.length - at);
+      grown[at] = value;
+      return grown;
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package com.srecko.reddit.search.index;
+
+import com.srecko.reddit.search.dto.CommentDto;
+import com.srecko.reddit.search.dto.PostDto;
+import com.srecko.reddit.search.dto.SubredditDto;
+import com.srecko.reddit.search.dto.UserDto;
+import com.srecko.reddit.search.service.client.SearchBackend;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.stereotype.Component;
+
+/**
+ * The type Search index. Holds the in-process indexes of users, subreddits, posts and comments
+ * the search queries are answered from. Users, subreddits and comments are searched by the same
+ * field their backend searched, the username, the subreddit name, the comment text and the post
+ * title. The text of a post only counts towards relevance, with terms of the title counting
+ * <code>search.ranking.title-boost</code> times as much. Results can be sorted by the properties their backend sorts
+ * by, or by relevance. Subreddit names and usernames are also indexed by prefix for
+ * autocompletion, and by their deletions for matching them within
+ * <code>search.fuzzy.max-distance</code> edits of a misspelled query.
+ *
+ * @author Srecko Nikolic
+ */
+@Component
+public class SearchIndex {
+
+  private final DocumentIndex<UserDto> users;
+
+  private final DocumentIndex<SubredditDto> subreddits;
+
+  private final DocumentIndex<PostDto> posts;
+
+  private final DocumentIndex<CommentDto> comments = new DocumentIndex<>(SearchBackend.COMMENTS,
+      CommentDto::getId, List.of(IndexedField.of(CommentDto::getText)), Bm25.DEFAULT,
+      Map.of("text", byText(CommentDto::getText),
+          "created", Comparator.comparing(CommentDto::getCreated,
+              Comparator.nullsLast(Comparator.naturalOrder()))),
+      Sort.by(Direction.ASC, "text"));
+
+  /**
+   * Instantiates a new Search index.
+   *
+   * @param meterRegistry  the meter registry
+   * @param maxSuggestions the number of completions of a prefix at most
+   * @param titleBoost     the weight of a post title against the weight 1 of its text
+   * @param maxDistance    the number of edits a misspelled name may be away, 0 to match names
+   *                       only as typed
+   * @param prefixLength   the number of leading characters of a name misspellings are looked
+   *                       up by
+   * @param maxSimilar     the number of similar names a query matches at most
+   */
+  @Autowired
+  public SearchIndex(MeterRegistry meterRegistry,
+      @Value("${search.autocomplete.max-suggestions:10}") int maxSuggestions,
+      @Value("${search.ranking.title-boost:2.0}") double titleBoost,
+      @Value("${search.fuzzy.max-distance:2}") int maxDistance,
+      @Value("${search.fuzzy.prefix-length:7}") int prefixLength,
+      @Value("${search.fuzzy.max-results:50}") int maxSimilar) {
+    // Users have no popularity of their own, so equally ranked usernames complete alphabetically
+    users = new DocumentIndex<>(SearchBackend.USERS, UserDto::getId,
+        List.of(IndexedField.of(UserDto::getUsername)), Bm25.DEFAULT,
+        Map.of("username", byText(UserDto::getUsername)),
+        Sort.by(Direction.ASC, "username"),
+        () -> new PrefixIndex<>(UserDto::getId, UserDto::getUsername, user -> 0,
+            maxSuggestions),
+        maxDistance == 0 ? null : () -> new FuzzyIndex<>(UserDto::getId, UserDto::getUsername,
+            user -> 0, maxDistance, prefixLength, maxSimilar));
+    subreddits = new DocumentIndex<>(SearchBackend.SUBREDDITS, SubredditDto::getId,
+        List.of(IndexedField.of(SubredditDto::getName)), Bm25.DEFAULT,
+        Map.of("name", byText(SubredditDto::getName)),
+        Sort.by(Direction.ASC, "name"),
+        () -> new PrefixIndex<>(SubredditDto::getId, SubredditDto::getName,
+            SubredditDto::getNumberOfUsers, maxSuggestions),
+        maxDistance == 0 ? null : () -> new FuzzyIndex<>(SubredditDto::getId,
+            SubredditDto::getName, SubredditDto::getNumberOfUsers, maxDistance, prefixLength,
+            maxSimilar));
+    // The posts service searches titles only, the text just ranks the posts a title matched
+    posts = new DocumentIndex<>(SearchBackend.POSTS, PostDto::getId,
+        List.of(new IndexedField<>(PostDto::getTitle, titleBoost),
+            IndexedField.scored(PostDto::getText)), Bm25.DEFAULT,
+        Map.of("dateOfCreation", Comparator.comparing(PostDto::getDateOfCreation,
+                Comparator.nullsLast(Comparator.naturalOrder())),
+            "title", byText(PostDto::getTitle),
+            "votes", Comparator.comparingInt(PostDto::getVotes)),
+        Sort.by(Direction.ASC, "dateOfCreation"));
+    for (DocumentIndex<?> index : all()) {
+      Gauge.builder("search.index.documents", index, DocumentIndex::size)
+          .description("Documents in the search index")
+          .tag("backend", index.getBackend().getServiceId())
+          .register(meterRegistry);
+      Gauge.builder("search.index.terms", index, DocumentIndex::termCount)
+          .description("Distinct terms in the search index")
+          .tag("backend", index.getBackend().getServiceId())
+          .register(meterRegistry);
+    }
+  }
+
+  /**
+   * Gets the users index.
+   *
+   * @return the users index
+   */
+  public DocumentIndex<UserDto> users() {
+    return users;
+  }
+
+  /**
+   * Gets the subreddits index.
+   *
+   * @return the subreddits index
+   */
+  public DocumentIndex<SubredditDto> subreddits() {
+    return subreddits;
+  }
+
+  /**
+   * Gets the posts index.
+   *
+   * @return the posts index
+   */
+  public DocumentIndex<PostDto> posts() {
+    return posts;
+  }
+
+  /**
+   * Gets the comments index.
+   *
+   * @return the comments index
+   */
+  public DocumentIndex<CommentDto> comments() {
+    return comments;
+  }
+
+  /**
+   * Gets all indexes.
+   *
+   * @return the indexes
+   */
+  public List<DocumentIndex<?>> all() {
+    return List.of(users, subreddits, posts, comments);
+  }
+
+  private static <T> Comparator<T> byText(Function<T, String> text) {
+    return Comparator.comparing(text, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+  }
+}
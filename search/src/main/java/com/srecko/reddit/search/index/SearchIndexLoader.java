@@ -0,0 +1,142 @@
+package com.srecko.reddit.search.index;
+
+import com.srecko.reddit.search.dto.CommentDto;
+import com.srecko.reddit.search.dto.PostDto;
+import com.srecko.reddit.search.dto.SubredditDto;
+import com.srecko.reddit.search.dto.UserDto;
+import com.srecko.reddit.search.service.client.ReactiveSearchClient;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * The type Search index loader. Loads a snapshot of every backend into the search index once the
+ * application is ready, and again every <code>search.index.resync-interval</code> to repair what
+ * lost change events left behind, such as counters the backends update in bulk. Snapshots are
+ * read in pages ordered by id without blocking a thread, and a failed snapshot keeps the index
+ * that was in use. At startup an index is first restored from disk, and its backend is only
+ * loaded when there is no recent checkpoint of it.
+ *
+ * @author Srecko Nikolic
+ */
+@Component
+public class SearchIndexLoader {
+
+  private final SearchIndex searchIndex;
+  private final SearchIndexStore searchIndexStore;
+  private final ReactiveSearchClient searchClient;
+  private final boolean enabled;
+  private final int pageSize;
+
+  private static final Logger logger = LogManager.getLogger(SearchIndexLoader.class);
+
+  /**
+   * Instantiates a new Search index loader.
+   *
+   * @param searchIndex      the search index
+   * @param searchIndexStore the search index store
+   * @param searchClient     the search client
+   * @param enabled          whether the index is loaded, queries go to the backends when it is not
+   * @param pageSize         the number of documents read per snapshot request
+   */
+  @Autowired
+  public SearchIndexLoader(SearchIndex searchIndex, SearchIndexStore searchIndexStore,
+      ReactiveSearchClient searchClient, @Value("${search.index.enabled:true}") boolean enabled,
+      @Value("${search.index.page-size:1000}") int pageSize) {
+    this.searchIndex = searchIndex;
+    this.searchIndexStore = searchIndexStore;
+    this.searchClient = searchClient;
+    this.enabled = enabled;
+    this.pageSize = pageSize;
+  }
+
+  /**
+   * Restores or loads the index once the application is ready.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    if (!enabled) {
+      return;
+    }
+    if (!searchIndexStore.restore(searchIndex.users())) {
+      load(searchIndex.users(), searchClient::getUserDocuments, UserDto::getId).subscribe();
+    }
+    if (!searchIndexStore.restore(searchIndex.subreddits())) {
+      load(searchIndex.subreddits(), searchClient::getSubredditDocuments, SubredditDto::getId)
+          .subscribe();
+    }
+    if (!searchIndexStore.restore(searchIndex.posts())) {
+      load(searchIndex.posts(), searchClient::getPostDocuments, PostDto::getId).subscribe();
+    }
+    if (!searchIndexStore.restore(searchIndex.comments())) {
+      load(searchIndex.comments(), searchClient::getCommentDocuments, CommentDto::getId)
+          .subscribe();
+    }
+  }
+
+  /**
+   * Reloads the index from fresh snapshots.
+   */
+  @Scheduled(fixedDelayString = "${search.index.resync-interval:3600000}",
+      initialDelayString = "${search.index.resync-interval:3600000}")
+  public void resync() {
+    loadAll();
+  }
+
+  /**
+   * Starts loading a snapshot of every backend. Backends that are still being loaded are skipped.
+   */
+  public void loadAll() {
+    if (!enabled) {
+      return;
+    }
+    load(searchIndex.users(), searchClient::getUserDocuments, UserDto::getId).subscribe();
+    load(searchIndex.subreddits(), searchClient::getSubredditDocuments, SubredditDto::getId)
+        .subscribe();
+    load(searchIndex.posts(), searchClient::getPostDocuments, PostDto::getId).subscribe();
+    load(searchIndex.comments(), searchClient::getCommentDocuments, CommentDto::getId)
+        .subscribe();
+  }
+
+  /**
+   * Loads a snapshot of one backend into its index.
+   *
+   * @param <T>   the type of the documents
+   * @param index the index
+   * @param pages the function reading the page of documents after an id
+   * @param idOf  the function returning the id of a document
+   * @return the mono completing once the snapshot is loaded or failed
+   */
+  <T> Mono<Void> load(DocumentIndex<T> index,
+      BiFunction<Long, Integer, Mono<List<T>>> pages, Function<T, Long> idOf) {
+    return Mono.defer(() -> {
+      if (!index.beginRebuild()) {
+        return Mono.empty();
+      }
+      String backend = index.getBackend().getServiceId();
+      logger.info("Loading a snapshot of {} into the search index", backend);
+      return Mono.defer(() -> pages.apply(0L, pageSize))
+          .expand(page -> page.size() < pageSize
+              ? Mono.empty()
+              : Mono.defer(() -> pages.apply(idOf.apply(page.get(page.size() - 1)), pageSize)))
+          .doOnNext(index::load)
+          .then(Mono.fromRunnable(index::completeRebuild))
+          .onErrorResume(e -> {
+            logger.error("Failed to load a snapshot of {}, keeping the previous index: {}",
+                backend, e.getMessage());
+            index.abortRebuild();
+            return Mono.empty();
+          })
+          .then();
+    });
+  }
+}
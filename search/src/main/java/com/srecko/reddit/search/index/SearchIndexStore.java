@@ -0,0 +1,173 @@
+package com.srecko.reddit.search.index;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.srecko.reddit.search.dto.CommentDto;
+import com.srecko.reddit.search.dto.PostDto;
+import com.srecko.reddit.search.dto.SubredditDto;
+import com.srecko.reddit.search.dto.UserDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * The type Search index store. Persists the search index under
+ * <code>search.index.persistence.directory</code>, one journal per backend, so a restarted
+ * instance is ready as soon as it has read its checkpoints back. Every
+ * <code>search.index.persistence.checkpoint-interval</code> the changes of every index since its
+ * last checkpoint are written to a new one in the background, and the checkpoints of an index are
+ * merged once there are more than <code>search.index.persistence.max-segments</code> of them.
+ *
+ * <p>A checkpoint older than <code>search.index.persistence.max-age</code> is still restored, so
+ * queries are answered from it at once, but the backend is also loaded again right away, as it
+ * may have missed more changes than the resync is meant to repair.
+ *
+ * <p>Only the documents are persisted, not the structures they are indexed by, so a restore
+ * decodes every document and indexes it again. It spares the calls to the backends, but still
+ * takes time in proportion to the number of documents, which is published per index as the
+ * <code>search.index.restore</code> timer.
+ *
+ * @author Srecko Nikolic
+ */
+@Component
+public class SearchIndexStore {
+
+  private final SearchIndex searchIndex;
+  private final boolean enabled;
+  private final Duration maxAge;
+  private final int maxSegments;
+  private final MeterRegistry meterRegistry;
+  private final List<IndexJournal<?>> journals = new ArrayList<>();
+
+  private static final Logger logger = LogManager.getLogger(SearchIndexStore.class);
+
+  /**
+   * Instantiates a new Search index store and attaches a journal to every index.
+   *
+   * @param searchIndex   the search index
+   * @param enabled       whether the index is persisted
+   * @param directory     the directory the journals are kept in, by default under the home
+   *                      directory of the user running the service
+   * @param maxAge        the age of a checkpoint after which the backend is loaded again
+   * @param maxSegments   the number of checkpoint segments of an index kept without merging
+   * @param meterRegistry the meter registry
+   */
+  @Autowired
+  public SearchIndexStore(SearchIndex searchIndex,
+      @Value("${search.index.persistence.enabled:true}") boolean enabled,
+      @Value("${search.index.persistence.directory:${user.home}/.reddit/search-index}")
+      String directory,
+      @Value("${search.index.persistence.max-age:PT1H}") Duration maxAge,
+      @Value("${search.index.persistence.max-segments:8}") int maxSegments,
+      MeterRegistry meterRegistry) {
+    this.searchIndex = searchIndex;
+    this.enabled = enabled;
+    this.maxAge = maxAge;
+    this.maxSegments = maxSegments;
+    this.meterRegistry = meterRegistry;
+    if (enabled) {
+      ObjectMapper smile = new ObjectMapper(new SmileFactory());
+      Path root = Path.of(directory);
+      attach(searchIndex.users(), root, UserDto.class, UserDto::getId, smile);
+      attach(searchIndex.subreddits(), root, SubredditDto.class, SubredditDto::getId, smile);
+      attach(searchIndex.posts(), root, PostDto.class, PostDto::getId, smile);
+      attach(searchIndex.comments(), root, CommentDto.class, CommentDto::getId, smile);
+    }
+  }
+
+  /**
+   * Restores an index from its last checkpoint.
+   *
+   * @param index the index
+   * @return whether the index was restored from a checkpoint recent enough to skip loading its
+   *     backend
+   */
+  public boolean restore(DocumentIndex<?> index) {
+    if (!enabled) {
+      return false;
+    }
+    try {
+      Optional<Instant> createdAt = Timer.builder("search.index.restore")
+          .description("Time taken to restore an index from its checkpoints at startup")
+          .tag("backend", index.getBackend().getServiceId())
+          .register(meterRegistry)
+          .record(index::restore);
+      return createdAt.isPresent() && createdAt.get().plus(maxAge).isAfter(Instant.now());
+    } catch (UncheckedIOException e) {
+      logger.error("Failed to restore the {} index from disk, loading it from the backend: {}",
+          index.getBackend().getServiceId(), e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * Writes a checkpoint of every index that changed since its last one, and merges the
+   * checkpoints of the indexes that have too many.
+   */
+  @Scheduled(fixedDelayString = "${search.index.persistence.checkpoint-interval:60000}",
+      initialDelayString = "${search.index.persistence.checkpoint-interval:60000}")
+  public void checkpointAll() {
+    if (!enabled) {
+      return;
+    }
+    for (DocumentIndex<?> index : searchIndex.all()) {
+      try {
+        index.checkpoint();
+      } catch (UncheckedIOException e) {
+        logger.error("Failed to write a checkpoint of the {} index, retrying later: {}",
+            index.getBackend().getServiceId(), e.getMessage());
+      }
+    }
+    for (IndexJournal<?> journal : journals) {
+      try {
+        journal.merge(maxSegments);
+      } catch (UncheckedIOException e) {
+        logger.error("Failed to merge search index checkpoints, retrying later: {}",
+            e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Writes the last checkpoints and closes the journals.
+   */
+  @PreDestroy
+  public void close() {
+    checkpointAll();
+    for (IndexJournal<?> journal : journals) {
+      try {
+        journal.close();
+      } catch (IOException e) {
+        logger.warn("Failed to close a search index journal: {}", e.getMessage());
+      }
+    }
+  }
+
+  private <T> void attach(DocumentIndex<T> index, Path root, Class<T> type,
+      Function<T, Long> idOf, ObjectMapper smile) {
+    String backend = index.getBackend().getServiceId();
+    try {
+      IndexJournal<T> journal = new IndexJournal<>(root.resolve(backend), type, idOf, smile);
+      journals.add(journal);
+      index.attach(journal);
+    } catch (IOException | UncheckedIOException e) {
+      logger.error("Failed to open the {} index journal in {}, the index is not persisted: {}",
+          backend, root, e.getMessage());
+    }
+  }
+}
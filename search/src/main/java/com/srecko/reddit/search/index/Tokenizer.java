@@ -0,0 +1,57 @@
+package com.srecko.reddit.search.index;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The type Tokenizer. Splits text into the lower case runs of letters and digits it is indexed
+ * and searched by.
+ *
+ * @author Srecko Nikolic
+ */
+public final class Tokenizer {
+
+  private Tokenizer() {
+  }
+
+  /**
+   * Splits a text into its distinct terms, in the order they first appear.
+   *
+   * @param text the text
+   * @return the terms
+   */
+  public static List<String> tokenize(String text) {
+    return new ArrayList<>(new LinkedHashSet<>(terms(text)));
+  }
+
+  /**
+   * Splits a text into its terms, keeping every occurrence, so that how often a term appears can
+   * be counted.
+   *
+   * @param text the text
+   * @return the terms in the order they appear
+   */
+  public static List<String> terms(String text) {
+    if (text == null || text.isEmpty()) {
+      return List.of();
+    }
+    List<String> terms = new ArrayList<>();
+    int start = -1;
+    for (int i = 0; i < text.length(); i++) {
+      if (Character.isLetterOrDigit(text.charAt(i))) {
+        if (start < 0) {
+          start = i;
+        }
+      } else if (start >= 0) {
+        terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+        start = -1;
+      }
+    }
+    if (start >= 0) {
+      terms.add(text.substring(start).toLowerCase(Locale.ROOT));
+    }
+    return terms;
+  }
+}
@@ -0,0 +1,239 @@
+package com.srecko.reddit.search.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * The type Trigram index. Answers which documents contain a query anywhere in one of their texts,
+ * ignoring case, the way the backends match with <code>locate(upper(query), upper(text))</code>.
+ *
+ * <p>Every run of three characters of a text is mapped to the ids of the documents containing it.
+ * A document containing the query contains all of its trigrams, so only the documents in the
+ * intersection of their posting lists are candidates, and each candidate is then checked for the
+ * whole query. Queries shorter than three characters have no trigram to narrow the candidates by
+ * and check every document.
+ *
+ * @param <T> the type of the documents
+ * @author Srecko Nikolic
+ */
+public class TrigramIndex<T> {
+
+  private static final long[] NO_TRIGRAMS = new long[0];
+
+  private final Function<T, Long> idOf;
+  private final List<Function<T, String>> textsOf;
+
+  private final Map<Long, PostingList> postings = new HashMap<>();
+  private final Map<Long, T> documents = new HashMap<>();
+  private final Map<Long, long[]> trigrams = new HashMap<>();
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /**
+   * Instantiates a new Trigram index.
+   *
+   * @param idOf    the function returning the id of a document
+   * @param textsOf the functions returning the texts of a document that are searched
+   */
+  public TrigramIndex(Function<T, Long> idOf, List<Function<T, String>> textsOf) {
+    this.idOf = idOf;
+    this.textsOf = List.copyOf(textsOf);
+  }
+
+  /**
+   * Adds a document or replaces the one with the same id.
+   *
+   * @param document the document
+   */
+  public void put(T document) {
+    Long id = idOf.apply(document);
+    long[] documentTrigrams = trigramsOf(document);
+    lock.writeLock().lock();
+    try {
+      unindex(id);
+      documents.put(id, document);
+      trigrams.put(id, documentTrigrams);
+      for (long trigram : documentTrigrams) {
+        postings.computeIfAbsent(trigram, t -> new PostingList()).add(id);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes a document.
+   *
+   * @param id the id of the document
+   */
+  public void remove(Long id) {
+    lock.writeLock().lock();
+    try {
+      unindex(id);
+      documents.remove(id);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Finds the documents with a text containing a query, ignoring case, that pass a filter.
+   *
+   * @param query  the query
+   * @param filter the filter
+   * @return the matching documents in increasing id order, in a list the caller may modify
+   */
+  public List<T> search(String query, Predicate<T> filter) {
+    String substring = query == null ? "" : query;
+    long[] queryTrigrams = trigramsOf(substring);
+    lock.readLock().lock();
+    try {
+      if (queryTrigrams.length == 0) {
+        return scan(substring, filter);
+      }
+      List<PostingList> lists = new ArrayList<>(queryTrigrams.length);
+      for (long trigram : queryTrigrams) {
+        PostingList list = postings.get(trigram);
+        if (list == null) {
+          return new ArrayList<>();
+        }
+        lists.add(list);
+      }
+      List<T> matches = new ArrayList<>();
+      for (long id : PostingList.intersect(lists)) {
+        T document = documents.get(id);
+        if (contains(document, substring) && filter.test(document)) {
+          matches.add(document);
+        }
+      }
+      return matches;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Gets the number of indexed documents.
+   *
+   * @return the number of documents
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return documents.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Gets the number of distinct trigrams.
+   *
+   * @return the number of trigrams
+   */
+  public int trigramCount() {
+    lock.readLock().lock();
+    try {
+      return postings.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private List<T> scan(String substring, Predicate<T> filter) {
+    List<T> matches = new ArrayList<>();
+    for (T document : documents.values()) {
+      if (contains(document, substring) && filter.test(document)) {
+        matches.add(document);
+      }
+    }
+    matches.sort(Comparator.comparing(idOf));
+    return matches;
+  }
+
+  private boolean contains(T document, String substring) {
+    if (substring.isEmpty()) {
+      return true;
+    }
+    char first = fold(substring.charAt(0));
+    for (Function<T, String> textOf : textsOf) {
+      String text = textOf.apply(document);
+      if (text == null) {
+        continue;
+      }
+      for (int i = 0; i + substring.length() <= text.length(); i++) {
+        // Cheaper than comparing the whole query at every position
+        if (fold(text.charAt(i)) == first
+            && text.regionMatches(true, i, substring, 0, substring.length())) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private long[] trigramsOf(T document) {
+    long[] all = NO_TRIGRAMS;
+    for (Function<T, String> textOf : textsOf) {
+      long[] text = trigramsOf(textOf.apply(document));
+      long[] merged = Arrays.copyOf(all, all.length + text.length);
+      System.arraycopy(text, 0, merged, all.length, text.length);
+      all = merged;
+    }
+    return distinct(all);
+  }
+
+  private static long[] trigramsOf(String text) {
+    if (text == null || text.length() < 3) {
+      return NO_TRIGRAMS;
+    }
+    long[] all = new long[text.length() - 2];
+    for (int i = 0; i < all.length; i++) {
+      all[i] = (long) fold(text.charAt(i)) << 32 | (long) fold(text.charAt(i + 1)) << 16
+          | fold(text.charAt(i + 2));
+    }
+    return distinct(all);
+  }
+
+  /**
+   * Folds a character to the form every character equal to it ignoring case, as compared by
+   * {@link String#regionMatches(boolean, int, String, int, int)}, shares.
+   */
+  private static char fold(char c) {
+    return Character.toLowerCase(Character.toUpperCase(c));
+  }
+
+  private static long[] distinct(long[] values) {
+    if (values.length == 0) {
+      return values;
+    }
+    long[] sorted = values.clone();
+    Arrays.sort(sorted);
+    int count = 1;
+    for (int i = 1; i < sorted.length; i++) {
+      if (sorted[i] != sorted[count - 1]) {
+        sorted[count++] = sorted[i];
+      }
+    }
+    return Arrays.copyOf(sorted, count);
+  }
+
+  private void unindex(Long id) {
+    long[] previous = trigrams.remove(id);
+    if (previous == null) {
+      return;
+    }
+    for (long trigram : previous) {
+      PostingList list = postings.get(trigram);
+      if (list != null && list.remove(id) && list.isEmpty()) {
+        postings.remove(trigram);
+      }
+    }
+  }
+}
@@ -2,11 +2,14 @@ package com.srecko.reddit.search.service;
 
 import com.srecko.reddit.search.dto.CommentDto;
 import com.srecko.reddit.search.dto.PostDto;
+import com.srecko.reddit.search.dto.SearchResultsDto;
 import com.srecko.reddit.search.dto.SubredditDto;
 import com.srecko.reddit.search.dto.UserDto;
+import java.util.List;
 import org.springframework.data.domain.Pageable;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.PagedModel;
+import reactor.core.publisher.Mono;
 
 /**
  * The interface Search service.
@@ -22,7 +25,7 @@ public interface SearchService {
    * @param pageable the pageable
    * @return the page
    */
-  PagedModel<EntityModel<UserDto>> searchUsers(String query, Pageable pageable);
+  Mono<PagedModel<EntityModel<UserDto>>> searchUsers(String query, Pageable pageable);
 
   /**
    * Search subreddits page.
@@ -31,7 +34,7 @@ public interface SearchService {
    * @param pageable the pageable
    * @return the page
    */
-  PagedModel<EntityModel<SubredditDto>> searchSubreddits(String query, Pageable pageable);
+  Mono<PagedModel<EntityModel<SubredditDto>>> searchSubreddits(String query, Pageable pageable);
 
   /**
    * Search posts page.
@@ -40,8 +43,7 @@ public interface SearchService {
    * @param pageable the pageable
    * @return the page
    */
-  PagedModel<EntityModel<PostDto>> searchPosts(String query, Pageable pageable);
-
+  Mono<PagedModel<EntityModel<PostDto>>> searchPosts(String query, Pageable pageable);
 
   /**
    * Search posts in subreddit page.
@@ -51,7 +53,7 @@ public interface SearchService {
    * @param pageable    the pageable
    * @return the page
    */
-  PagedModel<EntityModel<PostDto>> searchPostsInSubreddit(Long subredditId,
+  Mono<PagedModel<EntityModel<PostDto>>> searchPostsInSubreddit(Long subredditId,
       String query, Pageable pageable);
 
   /**
@@ -61,5 +63,32 @@ public interface SearchService {
    * @param pageable the pageable
    * @return the page
    */
-  PagedModel<EntityModel<CommentDto>> searchComments(String query, Pageable pageable);
+  Mono<PagedModel<EntityModel<CommentDto>>> searchComments(String query, Pageable pageable);
+
+  /**
+   * Search users, subreddits, posts and comments at once.
+   *
+   * @param query the query
+   * @param size  the number of results in every section
+   * @return the search results
+   */
+  Mono<SearchResultsDto> searchAll(String query, int size);
+
+  /**
+   * Completes a prefix of a username.
+   *
+   * @param prefix the prefix
+   * @param limit  the number of users at most
+   * @return the users with a username starting with the prefix
+   */
+  Mono<List<UserDto>> autocompleteUsers(String prefix, int limit);
+
+  /**
+   * Completes a prefix of a subreddit name. The subreddits with the most members come first.
+   *
+   * @param prefix the prefix
+   * @param limit  the number of subreddits at most
+   * @return the subreddits with a name starting with the prefix
+   */
+  Mono<List<SubredditDto>> autocompleteSubreddits(String prefix, int limit);
 }
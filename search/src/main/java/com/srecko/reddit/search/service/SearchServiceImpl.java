@@ -1,84 +1,325 @@
 package com.srecko.reddit.search.service;
 
+import com.srecko.reddit.search.cache.QueryNormalizer;
+import com.srecko.reddit.search.cache.SearchCacheKey;
+import com.srecko.reddit.search.cache.SearchResultCache;
+import com.srecko.reddit.search.cache.SearchType;
 import com.srecko.reddit.search.dto.CommentDto;
 import com.srecko.reddit.search.dto.PostDto;
+import com.srecko.reddit.search.dto.SearchResultsDto;
+import com.srecko.reddit.search.dto.SearchSectionDto;
+import com.srecko.reddit.search.dto.SearchSectionStatus;
 import com.srecko.reddit.search.dto.SubredditDto;
 import com.srecko.reddit.search.dto.UserDto;
-import com.srecko.reddit.search.service.client.CommentsFeignClient;
-import com.srecko.reddit.search.service.client.PostsFeignClient;
-import com.srecko.reddit.search.service.client.SubredditsFeignClient;
-import com.srecko.reddit.search.service.client.UsersFeignClient;
+import com.srecko.reddit.search.exception.SearchBackendTimeoutException;
+import com.srecko.reddit.search.highlight.Highlighter;
+import com.srecko.reddit.search.index.DocumentIndex;
+import com.srecko.reddit.search.index.SearchIndex;
+import com.srecko.reddit.search.service.client.ReactiveSearchClient;
+import com.srecko.reddit.search.service.client.SearchBackend;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.PagedModel;
+import org.springframework.hateoas.PagedModel.PageMetadata;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
 
 /**
- * The type Search service.
+ * The type Search service. Queries are answered from the in-process search index once it holds
+ * a snapshot of the backend, and go to the backend until then. Prefixes are completed from the
+ * prefix index of subreddit names and usernames, or from a backend search until it is loaded.
+ * Queries are normalized before they run, and their result pages are cached under the normalized
+ * query.
+ *
+ * <p>Posts and comments found by a query carry a highlighted snippet of their text, and leave
+ * the whole text out when <code>search.snippets.include-text</code> is off, so a result page only
+ * holds what a result line shows.
  *
  * @author Srecko Nikolic
  */
 @Service
 public class SearchServiceImpl implements SearchService {
 
-  private final UsersFeignClient usersFeignClient;
-  private final SubredditsFeignClient subredditsFeignClient;
-  private final PostsFeignClient postsFeignClient;
-  private final CommentsFeignClient commentsFeignClient;
+  private static final int MAX_SECTION_SIZE = 50;
+
+  private final ReactiveSearchClient searchClient;
+  private final SearchIndex searchIndex;
+  private final SearchResultCache searchResultCache;
+  private final Duration deadline;
+  private final int snippetLength;
+  private final boolean includeText;
+  private final Timer userCompletions;
+  private final Timer subredditCompletions;
+  private final Timer similarUsers;
+  private final Timer similarSubreddits;
 
   private static final Logger logger = LogManager.getLogger(SearchServiceImpl.class);
 
   /**
    * Instantiates a new Search service.
    *
-   * @param usersFeignClient      the users feign client
-   * @param subredditsFeignClient the subreddits feign client
-   * @param postsFeignClient      the posts feign client
-   * @param commentsFeignClient   the comments feign client
+   * @param searchClient the search client
+   * @param searchIndex       the search index
+   * @param searchResultCache the search result cache
+   * @param deadline          the time all backends of a federated search have to answer
+   * @param meterRegistry     the meter registry
+   * @param snippetLength     the maximum number of characters of text in a snippet
+   * @param includeText       whether found posts and comments keep their whole text
    */
   @Autowired
-  public SearchServiceImpl(UsersFeignClient usersFeignClient,
-      SubredditsFeignClient subredditsFeignClient,
-      PostsFeignClient postsFeignClient,
-      CommentsFeignClient commentsFeignClient) {
-    this.usersFeignClient = usersFeignClient;
-    this.subredditsFeignClient = subredditsFeignClient;
-    this.postsFeignClient = postsFeignClient;
-    this.commentsFeignClient = commentsFeignClient;
+  public SearchServiceImpl(ReactiveSearchClient searchClient, SearchIndex searchIndex,
+      SearchResultCache searchResultCache,
+      @Value("${search.all.deadline:PT1S}") Duration deadline, MeterRegistry meterRegistry,
+      @Value("${search.snippets.length:160}") int snippetLength,
+      @Value("${search.snippets.include-text:true}") boolean includeText) {
+    if (snippetLength <= 0) {
+      throw new IllegalArgumentException("search.snippets.length must be positive");
+    }
+    this.searchClient = searchClient;
+    this.searchIndex = searchIndex;
+    this.searchResultCache = searchResultCache;
+    this.deadline = deadline;
+    this.snippetLength = snippetLength;
+    this.includeText = includeText;
+    this.userCompletions = completionTimer(meterRegistry, SearchBackend.USERS);
+    this.subredditCompletions = completionTimer(meterRegistry, SearchBackend.SUBREDDITS);
+    this.similarUsers = similarTimer(meterRegistry, SearchBackend.USERS);
+    this.similarSubreddits = similarTimer(meterRegistry, SearchBackend.SUBREDDITS);
   }
 
   @Override
-  public PagedModel<EntityModel<UserDto>> searchUsers(String query, Pageable pageable) {
+  public Mono<PagedModel<EntityModel<UserDto>>> searchUsers(String query, Pageable pageable) {
     logger.info("Searching for usernames that match query: {}", query);
-    return usersFeignClient.searchUsers(query, pageable);
+    String normalized = QueryNormalizer.normalize(query);
+    return searchResultCache.get(SearchCacheKey.of(SearchType.USERS, null, normalized, pageable),
+        () -> searchNames(searchIndex.users(), similarUsers, normalized, pageable,
+            () -> searchClient.searchUsers(normalized, pageable)));
   }
 
   @Override
-  public PagedModel<EntityModel<SubredditDto>> searchSubreddits(String query, Pageable pageable) {
+  public Mono<PagedModel<EntityModel<SubredditDto>>> searchSubreddits(String query,
+      Pageable pageable) {
     logger.info("Searching for subreddits that match query: {}", query);
-    return subredditsFeignClient.searchSubreddits(query, pageable);
+    String normalized = QueryNormalizer.normalize(query);
+    return searchResultCache.get(
+        SearchCacheKey.of(SearchType.SUBREDDITS, null, normalized, pageable),
+        () -> searchNames(searchIndex.subreddits(), similarSubreddits, normalized, pageable,
+            () -> searchClient.searchSubreddits(normalized, pageable)));
   }
 
   @Override
-  public PagedModel<EntityModel<PostDto>> searchPosts(String query, Pageable pageable) {
+  public Mono<PagedModel<EntityModel<PostDto>>> searchPosts(String query, Pageable pageable) {
     logger.info("Searching for posts that match query: {}", query);
-    return postsFeignClient.searchPosts(query, pageable);
+    String normalized = QueryNormalizer.normalize(query);
+    return searchResultCache.get(SearchCacheKey.of(SearchType.POSTS, null, normalized, pageable),
+        () -> withSnippets(search(searchIndex.posts(), normalized, post -> true, pageable,
+            () -> searchClient.searchPosts(normalized, pageable)), normalized,
+            this::withSnippet));
   }
 
   @Override
-  public PagedModel<EntityModel<PostDto>> searchPostsInSubreddit(Long subredditId,
+  public Mono<PagedModel<EntityModel<PostDto>>> searchPostsInSubreddit(Long subredditId,
       String query, Pageable pageable) {
     logger.info("Searching for posts in subreddit with id {} that match query: {}",
         subredditId, query);
-    return postsFeignClient.searchPostsInSubreddit(subredditId, query, pageable);
+    String normalized = QueryNormalizer.normalize(query);
+    return searchResultCache.get(
+        SearchCacheKey.of(SearchType.POSTS_IN_SUBREDDIT, subredditId, normalized, pageable),
+        () -> withSnippets(search(searchIndex.posts(), normalized,
+                post -> subredditId.equals(post.getSubredditId()), pageable,
+                () -> searchClient.searchPostsInSubreddit(subredditId, normalized, pageable)),
+            normalized, this::withSnippet));
   }
 
   @Override
-  public PagedModel<EntityModel<CommentDto>> searchComments(String query, Pageable pageable) {
+  public Mono<PagedModel<EntityModel<CommentDto>>> searchComments(String query,
+      Pageable pageable) {
     logger.info("Searching for comments that match query: {}", query);
-    return commentsFeignClient.searchComments(query, pageable);
+    String normalized = QueryNormalizer.normalize(query);
+    return searchResultCache.get(
+        SearchCacheKey.of(SearchType.COMMENTS, null, normalized, pageable),
+        () -> withSnippets(search(searchIndex.comments(), normalized, comment -> true, pageable,
+            () -> searchClient.searchComments(normalized, pageable)), normalized,
+            this::withSnippet));
+  }
+
+  @Override
+  public Mono<SearchResultsDto> searchAll(String query, int size) {
+    logger.info("Searching for users, subreddits, posts and comments that match query: {}",
+        query);
+    int sectionSize = Math.max(1, Math.min(size, MAX_SECTION_SIZE));
+    return Mono.zip(
+        section(SearchBackend.USERS,
+            searchUsers(query, firstPage(sectionSize, "username"))),
+        section(SearchBackend.SUBREDDITS,
+            searchSubreddits(query, firstPage(sectionSize, "name"))),
+        section(SearchBackend.POSTS,
+            searchPosts(query, firstPage(sectionSize, DocumentIndex.RELEVANCE))),
+        section(SearchBackend.COMMENTS,
+            searchComments(query, firstPage(sectionSize, DocumentIndex.RELEVANCE)))
+    ).map(sections -> new SearchResultsDto(query, sections.getT1(), sections.getT2(),
+        sections.getT3(), sections.getT4()));
+  }
+
+  @Override
+  public Mono<List<UserDto>> autocompleteUsers(String prefix, int limit) {
+    int size = Math.max(1, Math.min(limit, MAX_SECTION_SIZE));
+    return complete(searchIndex.users(), userCompletions, prefix, size, UserDto::getUsername,
+        () -> searchClient.searchUsers(prefix, firstPage(size, "username")));
+  }
+
+  @Override
+  public Mono<List<SubredditDto>> autocompleteSubreddits(String prefix, int limit) {
+    int size = Math.max(1, Math.min(limit, MAX_SECTION_SIZE));
+    return complete(searchIndex.subreddits(), subredditCompletions, prefix, size,
+        SubredditDto::getName,
+        () -> searchClient.searchSubreddits(prefix, firstPage(size, "name")));
+  }
+
+  /**
+   * Turns the page of a backend into a section. All sections are subscribed to at the same time,
+   * so the deadline of each one ends at the same moment and a backend that answers after it, or
+   * fails, leaves an empty section behind instead of failing the whole search.
+   */
+  private <T> Mono<SearchSectionDto<T>> section(SearchBackend backend,
+      Mono<PagedModel<EntityModel<T>>> page) {
+    return page
+        .map(SearchServiceImpl::toSection)
+        .timeout(deadline, Mono.fromSupplier(() -> {
+          logger.warn("Search in {} missed the deadline of {}", backend.getServiceId(), deadline);
+          return SearchSectionDto.empty(SearchSectionStatus.TIMEOUT);
+        }))
+        .onErrorResume(SearchBackendTimeoutException.class,
+            e -> Mono.just(SearchSectionDto.empty(SearchSectionStatus.TIMEOUT)))
+        .onErrorResume(e -> {
+          logger.warn("Search in {} failed: {}", backend.getServiceId(), e.getMessage());
+          return Mono.just(SearchSectionDto.empty(SearchSectionStatus.UNAVAILABLE));
+        });
+  }
+
+  private static <T> Mono<PagedModel<EntityModel<T>>> search(DocumentIndex<T> index,
+      String query, Predicate<T> filter, Pageable pageable,
+      Supplier<Mono<PagedModel<EntityModel<T>>>> backend) {
+    if (!index.isReady()) {
+      return backend.get();
+    }
+    return Mono.fromSupplier(() -> toPagedModel(index.search(query, filter, pageable)));
+  }
+
+  /**
+   * Searches names as substrings, and when no name contains the query, which is then likely
+   * misspelled, for names within a few edits of it.
+   */
+  private static <T> Mono<PagedModel<EntityModel<T>>> searchNames(DocumentIndex<T> index,
+      Timer timer, String query, Pageable pageable,
+      Supplier<Mono<PagedModel<EntityModel<T>>>> backend) {
+    if (!index.isReady()) {
+      return backend.get();
+    }
+    return Mono.fromSupplier(() -> {
+      Page<T> page = index.search(query, document -> true, pageable);
+      if (page.getTotalElements() == 0 && index.hasFuzzyIndex()) {
+        page = timer.record(() -> index.searchSimilar(query, document -> true, pageable));
+      }
+      return toPagedModel(page);
+    });
+  }
+
+  /**
+   * Replaces the documents of a page with copies carrying snippets, leaving the indexed and
+   * cached documents as they are. The highlighter is shared by the whole page.
+   */
+  private <T> Mono<PagedModel<EntityModel<T>>> withSnippets(Mono<PagedModel<EntityModel<T>>> page,
+      String query, BiFunction<T, Highlighter, T> withSnippet) {
+    Highlighter highlighter = new Highlighter(query, snippetLength);
+    return page.map(model -> PagedModel.of(model.getContent().stream()
+            .map(entity -> EntityModel.of(withSnippet.apply(entity.getContent(), highlighter),
+                entity.getLinks()))
+            .toList(),
+        model.getMetadata(), model.getLinks()));
+  }
+
+  private PostDto withSnippet(PostDto post, Highlighter highlighter) {
+    PostDto result = new PostDto(post);
+    result.setSnippet(highlighter.snippet(post.getText()));
+    if (!includeText) {
+      result.setText(null);
+    }
+    return result;
+  }
+
+  private CommentDto withSnippet(CommentDto comment, Highlighter highlighter) {
+    CommentDto result = new CommentDto(comment);
+    result.setSnippet(highlighter.snippet(comment.getText()));
+    if (!includeText) {
+      result.setText(null);
+    }
+    return result;
+  }
+
+  /**
+   * Completes a prefix from the index. Until it is loaded the backend is searched for the prefix
+   * anywhere in the key, and only the keys starting with it are kept.
+   */
+  private static <T> Mono<List<T>> complete(DocumentIndex<T> index, Timer timer, String prefix,
+      int limit, Function<T, String> keyOf, Supplier<Mono<PagedModel<EntityModel<T>>>> backend) {
+    if (!index.isReady()) {
+      String normalized = prefix.strip().toLowerCase(Locale.ROOT);
+      return backend.get().map(page -> page.getContent().stream()
+          .map(EntityModel::getContent)
+          .filter(document -> keyOf.apply(document) != null
+              && keyOf.apply(document).toLowerCase(Locale.ROOT).startsWith(normalized))
+          .toList());
+    }
+    return Mono.fromSupplier(() -> timer.record(() -> index.complete(prefix, limit)));
+  }
+
+  private static Timer completionTimer(MeterRegistry meterRegistry, SearchBackend backend) {
+    return Timer.builder("search.autocomplete")
+        .description("Time taken to complete a prefix from the search index")
+        .tag("backend", backend.getServiceId())
+        .publishPercentiles(0.5, 0.99)
+        .register(meterRegistry);
+  }
+
+  private static Timer similarTimer(MeterRegistry meterRegistry, SearchBackend backend) {
+    return Timer.builder("search.fuzzy")
+        .description("Time taken to find the names within a few edits of a query")
+        .tag("backend", backend.getServiceId())
+        .publishPercentiles(0.5, 0.99)
+        .register(meterRegistry);
+  }
+
+  private static <T> PagedModel<EntityModel<T>> toPagedModel(Page<T> page) {
+    return PagedModel.of(page.getContent().stream().map(EntityModel::of).toList(),
+        new PageMetadata(page.getSize(), page.getNumber(), page.getTotalElements(),
+            page.getTotalPages()));
+  }
+
+  private static <T> SearchSectionDto<T> toSection(PagedModel<EntityModel<T>> page) {
+    List<T> content = page.getContent().stream().map(EntityModel::getContent).toList();
+    long totalElements = page.getMetadata() != null
+        ? page.getMetadata().getTotalElements() : content.size();
+    return new SearchSectionDto<>(SearchSectionStatus.OK, content, totalElements);
+  }
+
+  private static Pageable firstPage(int size, String sort) {
+    return PageRequest.of(0, size, Sort.by(Sort.Direction.ASC, sort));
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,298 @@
+package com.srecko.reddit.search.service.client;
+
+import com.srecko.reddit.search.dto.CommentDto;
+import com.srecko.reddit.search.dto.PostBatchRequest;
+import com.srecko.reddit.search.dto.PostBatchResponse;
+import com.srecko.reddit.search.dto.PostDto;
+import com.srecko.reddit.search.dto.SubredditDto;
+import com.srecko.reddit.search.dto.UserDto;
+import com.srecko.reddit.search.exception.SearchBackendTimeoutException;
+import com.srecko.reddit.search.exception.SearchBackendUnavailableException;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.PagedModel;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.util.UriBuilder;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * The type Reactive search client. Sends search queries to the users, subreddits, posts and
+ * comments services without blocking: requests are written and responses read on the few event
+ * loop threads of reactor-netty, so a query in flight holds a connection but no thread.
+ *
+ * <p>Every backend has a connection pool of its own holding at most
+ * <code>search.backends.max-connections</code> connections, with at most
+ * <code>search.backends.max-pending</code> queries waiting for one, so a slow backend cannot take
+ * the connections of the others. A query that does not complete within
+ * <code>search.backends.&lt;name&gt;.timeout</code> is cancelled. Instances are looked up in
+ * Eureka by the service name in <code>search.backends.&lt;name&gt;.url</code>.
+ *
+ * @author Srecko Nikolic
+ */
+@Component
+public class ReactiveSearchClient {
+
+  private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(2);
+
+  private static final ParameterizedTypeReference<PagedModel<EntityModel<UserDto>>> USERS_PAGE =
+      new ParameterizedTypeReference<>() {
+      };
+
+  private static final ParameterizedTypeReference<PagedModel<EntityModel<SubredditDto>>>
+      SUBREDDITS_PAGE = new ParameterizedTypeReference<>() {
+      };
+
+  private static final ParameterizedTypeReference<PagedModel<EntityModel<PostDto>>> POSTS_PAGE =
+      new ParameterizedTypeReference<>() {
+      };
+
+  private static final ParameterizedTypeReference<PagedModel<EntityModel<CommentDto>>>
+      COMMENTS_PAGE = new ParameterizedTypeReference<>() {
+      };
+
+  private static final ParameterizedTypeReference<List<UserDto>> USERS =
+      new ParameterizedTypeReference<>() {
+      };
+
+  private static final ParameterizedTypeReference<List<SubredditDto>> SUBREDDITS =
+      new ParameterizedTypeReference<>() {
+      };
+
+  private static final ParameterizedTypeReference<List<PostDto>> POSTS =
+      new ParameterizedTypeReference<>() {
+      };
+
+  private static final ParameterizedTypeReference<List<CommentDto>> COMMENTS =
+      new ParameterizedTypeReference<>() {
+      };
+
+  private final Map<SearchBackend, WebClient> webClients = new EnumMap<>(SearchBackend.class);
+  private final Map<SearchBackend, Duration> timeouts = new EnumMap<>(SearchBackend.class);
+  private final Map<SearchBackend, ConnectionProvider> connectionProviders =
+      new EnumMap<>(SearchBackend.class);
+
+  /**
+   * Instantiates a new Reactive search client.
+   *
+   * @param webClientBuilder the web client builder
+   * @param environment      the environment holding the url and timeout of every backend
+   * @param maxConnections   the number of connections open to one backend at most
+   * @param maxPending       the number of queries waiting for a connection to one backend at most
+   */
+  @Autowired
+  public ReactiveSearchClient(@LoadBalanced WebClient.Builder webClientBuilder,
+      Environment environment,
+      @Value("${search.backends.max-connections:100}") int maxConnections,
+      @Value("${search.backends.max-pending:1000}") int maxPending) {
+    for (SearchBackend backend : SearchBackend.values()) {
+      String prefix = "search.backends." + backend.getServiceId();
+      Duration timeout = environment.getProperty(prefix + ".timeout", Duration.class,
+          DEFAULT_TIMEOUT);
+      String url = environment.getProperty(prefix + ".url", "http://" + backend.getServiceId());
+      ConnectionProvider connectionProvider = ConnectionProvider
+          .builder("search-" + backend.getServiceId())
+          .maxConnections(maxConnections)
+          .pendingAcquireMaxCount(maxPending)
+          .pendingAcquireTimeout(timeout)
+          .build();
+      connectionProviders.put(backend, connectionProvider);
+      timeouts.put(backend, timeout);
+      webClients.put(backend, webClientBuilder.clone()
+          .baseUrl(url)
+          .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connectionProvider)))
+          .build());
+    }
+  }
+
+  /**
+   * Search users.
+   *
+   * @param query    the query
+   * @param pageable the pageable
+   * @return the page
+   */
+  public Mono<PagedModel<EntityModel<UserDto>>> searchUsers(String query, Pageable pageable) {
+    return search(SearchBackend.USERS, "/api/users/search", query, pageable, USERS_PAGE);
+  }
+
+  /**
+   * Search subreddits.
+   *
+   * @param query    the query
+   * @param pageable the pageable
+   * @return the page
+   */
+  public Mono<PagedModel<EntityModel<SubredditDto>>> searchSubreddits(String query,
+      Pageable pageable) {
+    return search(SearchBackend.SUBREDDITS, "/api/subreddits/search", query, pageable,
+        SUBREDDITS_PAGE);
+  }
+
+  /**
+   * Search posts.
+   *
+   * @param query    the query
+   * @param pageable the pageable
+   * @return the page
+   */
+  public Mono<PagedModel<EntityModel<PostDto>>> searchPosts(String query, Pageable pageable) {
+    return search(SearchBackend.POSTS, "/api/posts/search", query, pageable, POSTS_PAGE);
+  }
+
+  /**
+   * Search posts in subreddit.
+   *
+   * @param subredditId the subreddit id
+   * @param query       the query
+   * @param pageable    the pageable
+   * @return the page
+   */
+  public Mono<PagedModel<EntityModel<PostDto>>> searchPostsInSubreddit(Long subredditId,
+      String query, Pageable pageable) {
+    return search(SearchBackend.POSTS, "/api/posts/search/subreddit/" + subredditId, query,
+        pageable, POSTS_PAGE);
+  }
+
+  /**
+   * Search comments.
+   *
+   * @param query    the query
+   * @param pageable the pageable
+   * @return the page
+   */
+  public Mono<PagedModel<EntityModel<CommentDto>>> searchComments(String query,
+      Pageable pageable) {
+    return search(SearchBackend.COMMENTS, "/api/comments/search", query, pageable,
+        COMMENTS_PAGE);
+  }
+
+  /**
+   * Gets posts by ids in one request.
+   *
+   * @param postBatchRequest the post batch request
+   * @return the post batch response
+   */
+  public Mono<PostBatchResponse> getPostsByIds(PostBatchRequest postBatchRequest) {
+    return exchange(SearchBackend.POSTS, webClients.get(SearchBackend.POSTS).post()
+        .uri("/api/posts/batch")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(postBatchRequest)
+        .retrieve()
+        .bodyToMono(PostBatchResponse.class));
+  }
+
+  /**
+   * Gets the users with an id greater than the given one, in increasing id order.
+   *
+   * @param afterId the id the users follow
+   * @param limit   the number of users at most
+   * @return the users
+   */
+  public Mono<List<UserDto>> getUserDocuments(long afterId, int limit) {
+    return documents(SearchBackend.USERS, "/api/users/search-index", afterId, limit, USERS);
+  }
+
+  /**
+   * Gets the subreddits with an id greater than the given one, in increasing id order.
+   *
+   * @param afterId the id the subreddits follow
+   * @param limit   the number of subreddits at most
+   * @return the subreddits
+   */
+  public Mono<List<SubredditDto>> getSubredditDocuments(long afterId, int limit) {
+    return documents(SearchBackend.SUBREDDITS, "/api/subreddits/search-index", afterId, limit,
+        SUBREDDITS);
+  }
+
+  /**
+   * Gets the posts with an id greater than the given one, in increasing id order.
+   *
+   * @param afterId the id the posts follow
+   * @param limit   the number of posts at most
+   * @return the posts
+   */
+  public Mono<List<PostDto>> getPostDocuments(long afterId, int limit) {
+    return documents(SearchBackend.POSTS, "/api/posts/search-index", afterId, limit, POSTS);
+  }
+
+  /**
+   * Gets the comments with an id greater than the given one, in increasing id order.
+   *
+   * @param afterId the id the comments follow
+   * @param limit   the number of comments at most
+   * @return the comments
+   */
+  public Mono<List<CommentDto>> getCommentDocuments(long afterId, int limit) {
+    return documents(SearchBackend.COMMENTS, "/api/comments/search-index", afterId, limit,
+        COMMENTS);
+  }
+
+  /**
+   * Closes the connections to the backends once the application shuts down.
+   */
+  @PreDestroy
+  public void shutdown() {
+    connectionProviders.values().forEach(ConnectionProvider::dispose);
+  }
+
+  private <T> Mono<T> search(SearchBackend backend, String path, String query,
+      Pageable pageable, ParameterizedTypeReference<T> type) {
+    return exchange(backend, webClients.get(backend).post()
+        .uri(uriBuilder -> withPageable(uriBuilder.path(path), pageable).build())
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(query)
+        .retrieve()
+        .bodyToMono(type));
+  }
+
+  private <T> Mono<List<T>> documents(SearchBackend backend, String path, long afterId,
+      int limit, ParameterizedTypeReference<List<T>> type) {
+    return exchange(backend, webClients.get(backend).get()
+        .uri(uriBuilder -> uriBuilder.path(path)
+            .queryParam("afterId", afterId)
+            .queryParam("limit", limit)
+            .build())
+        .retrieve()
+        .bodyToMono(type));
+  }
+
+  private <T> Mono<T> exchange(SearchBackend backend, Mono<T> response) {
+    Duration timeout = timeouts.get(backend);
+    return response
+        .timeout(timeout)
+        .onErrorMap(TimeoutException.class,
+            e -> new SearchBackendTimeoutException(backend, timeout))
+        .onErrorMap(WebClientRequestException.class,
+            e -> new SearchBackendUnavailableException(backend, e));
+  }
+
+  private static UriBuilder withPageable(UriBuilder uriBuilder, Pageable pageable) {
+    if (pageable.isUnpaged()) {
+      return uriBuilder;
+    }
+    uriBuilder.queryParam("page", pageable.getPageNumber())
+        .queryParam("size", pageable.getPageSize());
+    for (Sort.Order order : pageable.getSort()) {
+      uriBuilder.queryParam("sort", order.getProperty() + "," + order.getDirection());
+    }
+    return uriBuilder;
+  }
+}
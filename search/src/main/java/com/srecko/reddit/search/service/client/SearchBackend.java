@@ -0,0 +1,45 @@
+package com.srecko.reddit.search.service.client;
+
+/**
+ * The enum Search backend. The services a search query is sent to, each named the way it is
+ * registered with Eureka.
+ *
+ * @author Srecko Nikolic
+ */
+public enum SearchBackend {
+
+  /**
+   * Users search backend.
+   */
+  USERS("users"),
+
+  /**
+   * Subreddits search backend.
+   */
+  SUBREDDITS("subreddits"),
+
+  /**
+   * Posts search backend.
+   */
+  POSTS("posts"),
+
+  /**
+   * Comments search backend.
+   */
+  COMMENTS("comments");
+
+  private final String serviceId;
+
+  SearchBackend(String serviceId) {
+    this.serviceId = serviceId;
+  }
+
+  /**
+   * Gets service id.
+   *
+   * @return the service id
+   */
+  public String getServiceId() {
+    return serviceId;
+  }
+}
@@ -3,7 +3,7 @@ package com.srecko.reddit.search;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "search.index.persistence.enabled=false")
 class SearchApplicationTests {
 
 	@Test
@@ -0,0 +1,138 @@
+package com.srecko.reddit.search.benchmark;
+
+import com.srecko.reddit.search.dto.PostDto;
+import com.srecko.reddit.search.index.TrigramIndex;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The type Substring search benchmark. Compares finding the post titles that contain a query,
+ * ignoring case, through the trigram index with scanning every title, the way the backends'
+ * <code>locate(upper(query), upper(title))</code> does. Titles are made of words drawn from a
+ * skewed vocabulary and every query is part of a word, so a few hundred to a few thousand titles
+ * match at a million rows. The ten million rows need a heap of about 12 GB.
+ *
+ * @author Srecko Nikolic
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx12g")
+public class SubstringSearchBenchmark {
+
+  private static final int WORDS = 20000;
+
+  @Param({"1000000", "10000000"})
+  private int rows;
+
+  private List<PostDto> posts;
+
+  private TrigramIndex<PostDto> index;
+
+  private String[] queries;
+
+  private int next;
+
+  /**
+   * Generates the titles and indexes them.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    Random random = new Random(1);
+    String[] words = new String[WORDS];
+    for (int i = 0; i < WORDS; i++) {
+      char[] word = new char[3 + random.nextInt(7)];
+      for (int j = 0; j < word.length; j++) {
+        word[j] = (char) ('a' + random.nextInt(26));
+      }
+      words[i] = new String(word);
+    }
+    posts = new ArrayList<>(rows);
+    index = new TrigramIndex<>(PostDto::getId, List.of(PostDto::getTitle));
+    for (long id = 1; id <= rows; id++) {
+      StringBuilder title = new StringBuilder();
+      for (int j = 3 + random.nextInt(8); j > 0; j--) {
+        int word = (int) Math.min(WORDS - 1, Math.abs(random.nextGaussian()) * WORDS / 5);
+        title.append(words[word]).append(j > 1 ? " " : "");
+      }
+      PostDto post = new PostDto();
+      post.setId(id);
+      post.setTitle(title.toString());
+      posts.add(post);
+      index.put(post);
+    }
+    queries = new String[64];
+    for (int i = 0; i < queries.length; i++) {
+      String word = words[random.nextInt(WORDS / 5)];
+      queries[i] = word.substring(0, Math.min(word.length(), 4)).toUpperCase(Locale.ROOT);
+    }
+  }
+
+  /**
+   * Finds the matching titles through the trigram index.
+   *
+   * @return the number of matches
+   */
+  @Benchmark
+  public int trigramIndex() {
+    return index.search(query(), post -> true).size();
+  }
+
+  /**
+   * Finds the matching titles by scanning all of them.
+   *
+   * @return the number of matches
+   */
+  @Benchmark
+  public int linearScan() {
+    String query = query();
+    int matches = 0;
+    for (PostDto post : posts) {
+      String title = post.getTitle();
+      for (int i = 0; i + query.length() <= title.length(); i++) {
+        if (title.regionMatches(true, i, query, 0, query.length())) {
+          matches++;
+          break;
+        }
+      }
+    }
+    return matches;
+  }
+
+  private String query() {
+    return queries[next++ & (queries.length - 1)];
+  }
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args the args
+   * @throws RunnerException the runner exception
+   */
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(SubstringSearchBenchmark.class.getSimpleName())
+        .build())
+        .run();
+  }
+}
@@ -0,0 +1,170 @@
+package com.srecko.reddit.search.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class SearchResultCacheTest {
+
+  private final AtomicLong now = new AtomicLong();
+
+  private final AtomicInteger searches = new AtomicInteger();
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private SearchResultCache cache;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    cache = new SearchResultCache(true, 100, Duration.ofSeconds(5), Duration.ofSeconds(30),
+        meterRegistry, now::get);
+  }
+
+  @Test
+  void get_SearchesOnce_ForQueriesThatNormalizeToTheSameKey() {
+    // given
+    SearchCacheKey first = key(QueryNormalizer.normalize("  Serbia\u3000WEATHER "));
+    SearchCacheKey second = key(QueryNormalizer.normalize("serbia weather"));
+
+    // when
+    String firstResult = cache.get(first, this::search).block();
+    String secondResult = cache.get(second, this::search).block();
+
+    // then
+    assertEquals(first, second);
+    assertEquals("result 1", firstResult);
+    assertEquals("result 1", secondResult);
+    assertEquals(1, searches.get());
+    assertEquals(1, count("miss"));
+    assertEquals(1, count("hit"));
+  }
+
+  @Test
+  void get_ServesStalePageAndRefreshesItOnce_AfterTimeToLive() {
+    // given
+    SearchCacheKey key = key("serbia");
+    cache.get(key, this::search).block();
+    now.addAndGet(Duration.ofSeconds(6).toNanos());
+
+    // when
+    String stale = cache.get(key, this::search).block();
+    String refreshed = cache.get(key, this::search).block();
+
+    // then
+    assertEquals("result 1", stale);
+    assertEquals("result 2", refreshed);
+    assertEquals(2, searches.get());
+    assertEquals(1, count("stale"));
+    assertEquals(1, count("hit"));
+  }
+
+  @Test
+  void get_SearchesAgain_AfterStaleWindow() {
+    // given
+    SearchCacheKey key = key("serbia");
+    cache.get(key, this::search).block();
+    now.addAndGet(Duration.ofSeconds(36).toNanos());
+
+    // when
+    String actual = cache.get(key, this::search).block();
+
+    // then
+    assertEquals("result 2", actual);
+    assertEquals(2, count("miss"));
+  }
+
+  @Test
+  void get_SharesSearchInFlight_AndDoesNotCacheFailures() {
+    // given
+    SearchCacheKey key = key("serbia");
+    Sinks.One<String> backend = Sinks.one();
+    Mono<String> first = cache.get(key, () -> {
+      searches.incrementAndGet();
+      return backend.asMono();
+    });
+    Mono<String> second = cache.get(key, this::search);
+
+    // when
+    first.subscribe();
+    second.subscribe();
+    backend.tryEmitError(new IllegalStateException("Connection refused"));
+
+    // then
+    assertEquals(1, searches.get());
+    assertThrows(IllegalStateException.class, () -> cache.get(key, () -> Mono.<String>error(
+        new IllegalStateException("Connection refused"))).block());
+    assertEquals("result 2", cache.get(key, this::search).block());
+  }
+
+  @Test
+  void get_SearchesOutsideCacheMapLocks() {
+    // given
+    SearchCacheKey key = key("serbia");
+
+    // when
+    String actual = cache.get(key, () -> Mono.fromSupplier(() -> {
+      for (StackTraceElement frame : Thread.currentThread().getStackTrace()) {
+        if (frame.getClassName().equals(ConcurrentHashMap.class.getName())) {
+          throw new AssertionError("Searched inside " + frame);
+        }
+      }
+      return "result";
+    })).block();
+
+    // then
+    assertEquals("result", actual);
+    assertEquals(1, count("miss"));
+  }
+
+  @Test
+  void get_KeepsPagesOfDifferentTypesAndWindowsApart() {
+    // given
+    cache.get(key("serbia"), this::search).block();
+
+    // when
+    String otherType = cache.get(SearchCacheKey.of(SearchType.POSTS, null, "serbia",
+        PageRequest.of(0, 10, Sort.by("title"))), this::search).block();
+    String otherPage = cache.get(SearchCacheKey.of(SearchType.SUBREDDITS, null, "serbia",
+        PageRequest.of(1, 10, Sort.by("name"))), this::search).block();
+
+    // then
+    assertEquals("result 2", otherType);
+    assertEquals("result 3", otherPage);
+  }
+
+  @Test
+  void normalize_FoldsCaseWhitespaceAndCompatibilityCharacters() {
+    // Full width letters
+    assertEquals("serbia weather",
+        QueryNormalizer.normalize("\t\uff33\uff45\uff52\uff42\uff49\uff41 \n Weather  "));
+    assertEquals("file", QueryNormalizer.normalize("\ufb01le"));
+    assertEquals("\u010devapi", QueryNormalizer.normalize("\u010cEVAPI"));
+    assertEquals("", QueryNormalizer.normalize(null));
+  }
+
+  private Mono<String> search() {
+    return Mono.fromSupplier(() -> "result " + searches.incrementAndGet());
+  }
+
+  private double count(String result) {
+    return meterRegistry.get("search.cache.requests").tag("type", "subreddits")
+        .tag("result", result).counter().count();
+  }
+
+  private static SearchCacheKey key(String query) {
+    return SearchCacheKey.of(SearchType.SUBREDDITS, null, query,
+        PageRequest.of(0, 10, Sort.by("name")));
+  }
+}
@@ -5,17 +5,18 @@ import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.srecko.reddit.search.dto.CommentDto;
 import com.srecko.reddit.search.dto.PostDto;
 import com.srecko.reddit.search.dto.SubredditDto;
 import com.srecko.reddit.search.dto.UserDto;
-import com.srecko.reddit.search.service.client.CommentsFeignClient;
-import com.srecko.reddit.search.service.client.PostsFeignClient;
-import com.srecko.reddit.search.service.client.SubredditsFeignClient;
-import com.srecko.reddit.search.service.client.UsersFeignClient;
+import com.srecko.reddit.search.exception.SearchBackendUnavailableException;
+import com.srecko.reddit.search.service.client.ReactiveSearchClient;
+import com.srecko.reddit.search.service.client.SearchBackend;
 import java.util.Arrays;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -27,11 +28,16 @@ import org.springframework.hateoas.MediaTypes;
 import org.springframework.hateoas.PagedModel;
 import org.springframework.hateoas.PagedModel.PageMetadata;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import reactor.core.publisher.Mono;
 
 // @TestPropertySource("/application-test.properties")
 @AutoConfigureMockMvc
-@SpringBootTest
+@SpringBootTest(properties = {"search.cache.enabled=false",
+    "search.index.persistence.enabled=false"})
 /*@WithMockUser(username = "janedoe", password = "iloveyou")
 @WithUserDetails("janedoe")*/
 //@Transactional
@@ -41,16 +47,7 @@ class SearchControllerTest {
   private MockMvc mockMvc;
 
   @MockBean
-  private UsersFeignClient usersFeignClient;
-
-  @MockBean
-  private SubredditsFeignClient subredditsFeignClient;
-
-  @MockBean
-  private PostsFeignClient postsFeignClient;
-
-  @MockBean
-  private CommentsFeignClient commentsFeignClient;
+  private ReactiveSearchClient searchClient;
 
   @Test
   void searchSubreddits_ReturnsSubredditsPage_WithDefaultSort() throws Exception {
@@ -60,11 +57,11 @@ class SearchControllerTest {
     SubredditDto subredditDto1 = new SubredditDto();
     subredditDto1.setName("Programming Serbia");
 
-    given(subredditsFeignClient.searchSubreddits(any(), any())).willReturn(
+    given(searchClient.searchSubreddits(any(), any())).willReturn(Mono.just(
         PagedModel.of(Arrays.asList(EntityModel.of(subredditDto), EntityModel.of(subredditDto1)), new PageMetadata(2, 0, 2))
-    );
+    ));
 
-    mockMvc.perform(MockMvcRequestBuilders.get("/api/search/subreddits")
+    performAsync(MockMvcRequestBuilders.get("/api/search/subreddits")
             .servletPath("/api/search/subreddits")
             .param("q", "Serbia"))
         .andExpect(status().isOk())
@@ -86,11 +83,11 @@ class SearchControllerTest {
     SubredditDto subredditDto1 = new SubredditDto();
     subredditDto1.setName("Programming Serbia");
 
-    given(subredditsFeignClient.searchSubreddits(any(), any())).willReturn(
+    given(searchClient.searchSubreddits(any(), any())).willReturn(Mono.just(
         PagedModel.of(Arrays.asList(EntityModel.of(subredditDto), EntityModel.of(subredditDto1)), new PageMetadata(2, 0, 2))
-    );
+    ));
 
-    mockMvc.perform(MockMvcRequestBuilders.get("/api/search/subreddits")
+    performAsync(MockMvcRequestBuilders.get("/api/search/subreddits")
             .servletPath("/api/search/subreddits")
             .param("q", "serbia"))
         .andExpect(status().isOk())
@@ -112,11 +109,11 @@ class SearchControllerTest {
     SubredditDto subredditDto1 = new SubredditDto();
     subredditDto1.setName("Programming Serbia");
 
-    given(subredditsFeignClient.searchSubreddits(any(), any())).willReturn(
+    given(searchClient.searchSubreddits(any(), any())).willReturn(Mono.just(
         PagedModel.of(Arrays.asList(EntityModel.of(subredditDto), EntityModel.of(subredditDto1)), new PageMetadata(2, 0, 2))
-    );
+    ));
 
-    mockMvc.perform(MockMvcRequestBuilders.get("/api/search/subreddits")
+    performAsync(MockMvcRequestBuilders.get("/api/search/subreddits")
             .servletPath("/api/search/subreddits")
             .param("q", "Serbia")
             .param("sort", "id"))
@@ -133,11 +130,11 @@ class SearchControllerTest {
 
   @Test
   void searchSubreddits_ReturnsEmptyList_WhenSubredditsDontMatchQuery() throws Exception {
-    given(subredditsFeignClient.searchSubreddits(any(), any())).willReturn(
+    given(searchClient.searchSubreddits(any(), any())).willReturn(Mono.just(
         PagedModel.empty(new PageMetadata(0, 0, 0))
-    );
+    ));
 
-    mockMvc.perform(MockMvcRequestBuilders.get("/api/search/subreddits")
+    performAsync(MockMvcRequestBuilders.get("/api/search/subreddits")
             .servletPath("/api/search/subreddits")
             .param("q", "Serbia")
             .param("sort", "id"))
@@ -162,11 +159,11 @@ class SearchControllerTest {
     postDto2.setTitle("Serbia's player just won");
     postDto2.setText("Congrats");
 
-    given(postsFeignClient.searchPosts(any(), any())).willReturn(
+    given(searchClient.searchPosts(any(), any())).willReturn(Mono.just(
         PagedModel.of(Arrays.asList(EntityModel.of(postDto1), EntityModel.of(postDto2)), new PageMetadata(2, 0, 2))
-    );
+    ));
 
-    mockMvc.perform(MockMvcRequestBuilders.get("/api/search/posts")
+    performAsync(MockMvcRequestBuilders.get("/api/search/posts")
             .servletPath("/api/search/posts")
             .param("q", "Serbia"))
         .andExpect(status().isOk())
@@ -192,11 +189,11 @@ class SearchControllerTest {
     postDto2.setTitle("Serbia's player just won");
     postDto2.setText("Congrats");
 
-    given(postsFeignClient.searchPosts(any(), any())).willReturn(
+    given(searchClient.searchPosts(any(), any())).willReturn(Mono.just(
         PagedModel.of(Arrays.asList(EntityModel.of(postDto1), EntityModel.of(postDto2)), new PageMetadata(2, 0, 2))
-    );
+    ));
 
-    mockMvc.perform(MockMvcRequestBuilders.get("/api/search/posts")
+    performAsync(MockMvcRequestBuilders.get("/api/search/posts")
             .servletPath("/api/search/posts")
             .param("q", "serbia"))
         .andExpect(status().isOk())
@@ -222,11 +219,11 @@ class SearchControllerTest {
     postDto2.setTitle("Serbia's player just won");
     postDto2.setText("Congrats");
 
-    given(postsFeignClient.searchPosts(any(), any())).willReturn(
+    given(searchClient.searchPosts(any(), any())).willReturn(Mono.just(
         PagedModel.of(Arrays.asList(EntityModel.of(postDto1), EntityModel.of(postDto2)), new PageMetadata(2, 0, 2))
-    );
+    ));
 
-    mockMvc.perform(MockMvcRequestBuilders.get("/api/search/posts")
+    performAsync(MockMvcRequestBuilders.get("/api/search/posts")
             .servletPath("/api/search/posts")
             .param("q", "serbia")
             .param("sort", "id"))
@@ -243,11 +240,11 @@ class SearchControllerTest {
 
   @Test
   void searchPosts_ReturnsEmptyPage_WhenNoPostsMatchQuery() throws Exception {
-    given(postsFeignClient.searchPosts(any(), any())).willReturn(
+    given(searchClient.searchPosts(any(), any())).willReturn(Mono.just(
         PagedModel.empty(new PageMetadata(0, 0, 0))
-    );
+    ));
 
-    mockMvc.perform(MockMvcRequestBuilders.get("/api/search/posts")
+    performAsync(MockMvcRequestBuilders.get("/api/search/posts")
             .servletPath("/api/search/posts")
             .param("q", "serbia")
             .param("sort", "id"))
@@ -270,11 +267,11 @@ class SearchControllerTest {
     commentDto2.setId(124L);
     commentDto2.setText("I love weather in Serbia");
 
-    given(commentsFeignClient.searchComments(any(), any())).willReturn(
+    given(searchClient.searchComments(any(), any())).willReturn(Mono.just(
         PagedModel.of(Arrays.asList(EntityModel.of(commentDto1), EntityModel.of(commentDto2)), new PageMetadata(2, 0, 2))
-    );
+    ));
 
-    mockMvc.perform(MockMvcRequestBuilders.get("/api/search/comments")
+    performAsync(MockMvcRequestBuilders.get("/api/search/comments")
             .servletPath("/api/search/comments")
             .param("q", "Serbia"))
         .andExpect(status().isOk())
@@ -298,11 +295,11 @@ class SearchControllerTest {
     commentDto2.setId(124L);
     commentDto2.setText("I love weather in Serbia");
 
-    given(commentsFeignClient.searchComments(any(), any())).willReturn(
+    given(searchClient.searchComments(any(), any())).willReturn(Mono.just(
         PagedModel.of(Arrays.asList(EntityModel.of(commentDto1), EntityModel.of(commentDto2)), new PageMetadata(2, 0, 2))
-    );
+    ));
 
-    mockMvc.perform(MockMvcRequestBuilders.get("/api/search/comments")
+    performAsync(MockMvcRequestBuilders.get("/api/search/comments")
             .servletPath("/api/search/comments")
             .param("q", "serbia"))
         .andExpect(status().isOk())
@@ -326,11 +323,11 @@ class SearchControllerTest {
     commentDto2.setId(124L);
     commentDto2.setText("I love weather in Serbia");
 
-    given(commentsFeignClient.searchComments(any(), any())).willReturn(
+    given(searchClient.searchComments(any(), any())).willReturn(Mono.just(
         PagedModel.of(Arrays.asList(EntityModel.of(commentDto1), EntityModel.of(commentDto2)), new PageMetadata(2, 0, 2))
-    );
+    ));
 
-    mockMvc.perform(MockMvcRequestBuilders.get("/api/search/comments")
+    performAsync(MockMvcRequestBuilders.get("/api/search/comments")
             .servletPath("/api/search/comments")
             .param("q", "Serbia")
             .param("sort", "id"))
@@ -347,11 +344,11 @@ class SearchControllerTest {
 
   @Test
   void searchComment_ReturnsEmptyPage_WhenNoPostsMatchQuery() throws Exception {
-    given(commentsFeignClient.searchComments(any(), any())).willReturn(
+    given(searchClient.searchComments(any(), any())).willReturn(Mono.just(
         PagedModel.empty(new PageMetadata(0, 0, 0))
-    );
+    ));
 
-    mockMvc.perform(MockMvcRequestBuilders.get("/api/search/comments")
+    performAsync(MockMvcRequestBuilders.get("/api/search/comments")
             .servletPath("/api/search/comments")
             .param("q", "Serbia"))
         .andExpect(status().isOk())
@@ -371,11 +368,11 @@ class SearchControllerTest {
     UserDto userDto2 = new UserDto();
     userDto2.setUsername("janeserbia");
 
-    given(usersFeignClient.searchUsers(any(), any())).willReturn(
+    given(searchClient.searchUsers(any(), any())).willReturn(Mono.just(
         PagedModel.of(Arrays.asList(EntityModel.of(userDto1), EntityModel.of(userDto2)), new PageMetadata(2, 0, 2))
-    );
+    ));
 
-    mockMvc.perform(MockMvcRequestBuilders.get("/api/search/users")
+    performAsync(MockMvcRequestBuilders.get("/api/search/users")
             .servletPath("/api/search/users")
             .param("q", "Serbia"))
         .andExpect(status().isOk())
@@ -397,11 +394,11 @@ class SearchControllerTest {
     UserDto userDto2 = new UserDto();
     userDto2.setUsername("janeserbia");
 
-    given(usersFeignClient.searchUsers(any(), any())).willReturn(
+    given(searchClient.searchUsers(any(), any())).willReturn(Mono.just(
         PagedModel.of(Arrays.asList(EntityModel.of(userDto1), EntityModel.of(userDto2)), new PageMetadata(2, 0, 2))
-    );
+    ));
 
-    mockMvc.perform(MockMvcRequestBuilders.get("/api/search/users")
+    performAsync(MockMvcRequestBuilders.get("/api/search/users")
             .servletPath("/api/search/users")
             .param("q", "serbia"))
         .andExpect(status().isOk())
@@ -423,11 +420,11 @@ class SearchControllerTest {
     UserDto userDto2 = new UserDto();
     userDto2.setUsername("janeserbia");
 
-    given(usersFeignClient.searchUsers(any(), any())).willReturn(
+    given(searchClient.searchUsers(any(), any())).willReturn(Mono.just(
         PagedModel.of(Arrays.asList(EntityModel.of(userDto1), EntityModel.of(userDto2)), new PageMetadata(2, 0, 2))
-    );
+    ));
 
-    mockMvc.perform(MockMvcRequestBuilders.get("/api/search/users")
+    performAsync(MockMvcRequestBuilders.get("/api/search/users")
             .servletPath("/api/search/users")
             .param("q", "Serbia")
             .param("sort", "id"))
@@ -444,11 +441,11 @@ class SearchControllerTest {
 
   @Test
   void searchUsers_ReturnsEmptyPage_WhenNoPostsMatchQuery() throws Exception {
-    given(usersFeignClient.searchUsers(any(), any())).willReturn(
+    given(searchClient.searchUsers(any(), any())).willReturn(Mono.just(
         PagedModel.empty(new PageMetadata(0, 0, 0))
-    );
+    ));
 
-    mockMvc.perform(MockMvcRequestBuilders.get("/api/search/users")
+    performAsync(MockMvcRequestBuilders.get("/api/search/users")
             .servletPath("/api/search/users")
             .param("q", "Serbia"))
         .andExpect(status().isOk())
@@ -476,11 +473,11 @@ class SearchControllerTest {
     postDto2.setText("Congrats");
     postDto2.setSubredditId(subredditId);
 
-    given(postsFeignClient.searchPostsInSubreddit(any(), any(), any())).willReturn(
+    given(searchClient.searchPostsInSubreddit(any(), any(), any())).willReturn(Mono.just(
         PagedModel.of(Arrays.asList(EntityModel.of(postDto1), EntityModel.of(postDto2)), new PageMetadata(2, 0, 2))
-    );
+    ));
 
-    mockMvc.perform(MockMvcRequestBuilders.get("/api/search/posts/subreddit/{subredditId}", subredditId)
+    performAsync(MockMvcRequestBuilders.get("/api/search/posts/subreddit/{subredditId}", subredditId)
         .servletPath("/api/search/posts/subreddit/" + subredditId)
         .param("q", "Serbia"))
         .andExpect(status().isOk())
@@ -510,11 +507,11 @@ class SearchControllerTest {
     postDto2.setText("Congrats");
     postDto2.setSubredditId(subredditId);
 
-    given(postsFeignClient.searchPostsInSubreddit(any(), any(), any())).willReturn(
+    given(searchClient.searchPostsInSubreddit(any(), any(), any())).willReturn(Mono.just(
         PagedModel.of(Arrays.asList(EntityModel.of(postDto1), EntityModel.of(postDto2)), new PageMetadata(2, 0, 2))
-    );
+    ));
 
-    mockMvc.perform(MockMvcRequestBuilders.get("/api/search/posts/subreddit/{subredditId}", subredditId)
+    performAsync(MockMvcRequestBuilders.get("/api/search/posts/subreddit/{subredditId}", subredditId)
             .servletPath("/api/search/posts/subreddit/" + subredditId)
             .param("q", "serbia"))
         .andExpect(status().isOk())
@@ -544,11 +541,11 @@ class SearchControllerTest {
     postDto2.setText("Congrats");
     postDto2.setSubredditId(subredditId);
 
-    given(postsFeignClient.searchPostsInSubreddit(any(), any(), any())).willReturn(
+    given(searchClient.searchPostsInSubreddit(any(), any(), any())).willReturn(Mono.just(
         PagedModel.of(Arrays.asList(EntityModel.of(postDto1), EntityModel.of(postDto2)), new PageMetadata(2, 0, 2))
-    );
+    ));
 
-    mockMvc.perform(MockMvcRequestBuilders.get("/api/search/posts/subreddit/{subredditId}", subredditId)
+    performAsync(MockMvcRequestBuilders.get("/api/search/posts/subreddit/{subredditId}", subredditId)
             .servletPath("/api/search/posts/subreddit/" + subredditId)
             .param("q", "serbia")
             .param("sort", "id"))
@@ -562,4 +559,63 @@ class SearchControllerTest {
         .andExpect(jsonPath("$.page.totalElements", is(2)))
         .andExpect(jsonPath("$.page.totalPages", is(1)));
   }
-}
\ No newline at end of file
+
+  @Test
+  void searchAll_ReturnsSectionsOfEveryBackend_WithStatusOfEach() throws Exception {
+    SubredditDto subredditDto = new SubredditDto();
+    subredditDto.setName("Serbia");
+
+    given(searchClient.searchUsers(any(), any())).willReturn(Mono.just(
+        PagedModel.empty(new PageMetadata(5, 0, 0))));
+    given(searchClient.searchSubreddits(any(), any())).willReturn(Mono.just(
+        PagedModel.of(Arrays.asList(EntityModel.of(subredditDto)), new PageMetadata(5, 0, 1))));
+    given(searchClient.searchPosts(any(), any())).willReturn(Mono.just(
+        PagedModel.empty(new PageMetadata(5, 0, 0))));
+    given(searchClient.searchComments(any(), any())).willReturn(Mono.error(
+        new SearchBackendUnavailableException(SearchBackend.COMMENTS,
+            new IllegalStateException("Connection refused"))));
+
+    performAsync(MockMvcRequestBuilders.get("/api/search/all")
+            .servletPath("/api/search/all")
+            .param("q", "Serbia"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.query", is("Serbia")))
+        .andExpect(jsonPath("$.partial", is(true)))
+        .andExpect(jsonPath("$.users.status", is("OK")))
+        .andExpect(jsonPath("$.subreddits.status", is("OK")))
+        .andExpect(jsonPath("$.subreddits.content", hasSize(1)))
+        .andExpect(jsonPath("$.subreddits.content[0].name", is(subredditDto.getName())))
+        .andExpect(jsonPath("$.subreddits.totalElements", is(1)))
+        .andExpect(jsonPath("$.posts.status", is("OK")))
+        .andExpect(jsonPath("$.comments.status", is("UNAVAILABLE")))
+        .andExpect(jsonPath("$.comments.content", hasSize(0)));
+  }
+
+  private ResultActions performAsync(MockHttpServletRequestBuilder requestBuilder)
+      throws Exception {
+    MvcResult result = mockMvc.perform(requestBuilder)
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    return mockMvc.perform(asyncDispatch(result));
+  }
+
+  @Test
+  void autocompleteSubreddits_ReturnsSubredditsStartingWithPrefix() throws Exception {
+    SubredditDto subredditDto = new SubredditDto();
+    subredditDto.setName("Serbia");
+
+    SubredditDto subredditDto1 = new SubredditDto();
+    subredditDto1.setName("Programming Serbia");
+
+    given(searchClient.searchSubreddits(any(), any())).willReturn(Mono.just(
+        PagedModel.of(Arrays.asList(EntityModel.of(subredditDto), EntityModel.of(subredditDto1)),
+            new PageMetadata(2, 0, 2))));
+
+    performAsync(MockMvcRequestBuilders.get("/api/search/autocomplete/subreddits")
+            .servletPath("/api/search/autocomplete/subreddits")
+            .param("prefix", "ser"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(1)))
+        .andExpect(jsonPath("$[0].name", is(subredditDto.getName())));
+  }
+}
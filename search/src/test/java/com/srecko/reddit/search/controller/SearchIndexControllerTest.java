@@ -0,0 +1,53 @@
+package com.srecko.reddit.search.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.srecko.reddit.search.dto.PostDto;
+import com.srecko.reddit.search.index.SearchIndex;
+import com.srecko.reddit.search.service.client.ReactiveSearchClient;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+@AutoConfigureMockMvc
+@SpringBootTest(properties = "search.index.persistence.enabled=false")
+@DirtiesContext
+class SearchIndexControllerTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private SearchIndex searchIndex;
+
+  @MockBean
+  private ReactiveSearchClient searchClient;
+
+  @Test
+  void indexPosts_AppliesUpsertsAndDeletes() throws Exception {
+    searchIndex.posts().beginRebuild();
+    searchIndex.posts().completeRebuild();
+
+    mockMvc.perform(MockMvcRequestBuilders.post("/api/search/index/posts")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("""
+                [{"type": "UPSERT", "id": 1, "document": {"id": 1, "title": "Serbia weather"}},
+                 {"type": "UPSERT", "id": 2, "document": {"id": 2, "title": "Serbia football"}},
+                 {"type": "DELETE", "id": 2}]
+                """))
+        .andExpect(status().isNoContent());
+
+    List<Long> ids = searchIndex.posts().search("serbia", post -> true, PageRequest.of(0, 10))
+        .map(PostDto::getId).getContent();
+    assertEquals(List.of(1L), ids);
+  }
+}
@@ -0,0 +1,79 @@
+package com.srecko.reddit.search.highlight;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class HighlighterTest {
+
+  @Test
+  void snippet_HighlightsQueryAnywhere_AndTermsAsWholeWords() {
+    // given
+    Highlighter highlighter = new Highlighter("serbia weather", 200);
+
+    // when
+    String snippet = highlighter.snippet(
+        "Serbia weather: in Serbia's capital the weatherman says Weather is fine");
+
+    // then
+    assertEquals("<em>Serbia weather</em>: in <em>Serbia</em>&#39;s capital the weatherman says "
+        + "<em>Weather</em> is fine", snippet);
+  }
+
+  @Test
+  void snippet_CutsLongTextAroundFirstMatch_AtWordBoundaries() {
+    // given
+    Highlighter highlighter = new Highlighter("belgrade", 40);
+    String text = "Some words before the place we are looking for, which is Belgrade, "
+        + "and many more words after it that nobody wants to read in a result line.";
+
+    // when
+    String snippet = highlighter.snippet(text);
+
+    // then
+    assertEquals("\u2026which is <em>Belgrade</em>, and many more words\u2026", snippet);
+  }
+
+  @Test
+  void snippet_StartsAtBeginning_WhenNothingMatches() {
+    // given
+    Highlighter highlighter = new Highlighter("novi sad", 20);
+
+    // when
+    String snippet = highlighter.snippet("Weather in Belgrade is sunny and warm today");
+
+    // then
+    assertEquals("Weather in Belgrade\u2026", snippet);
+  }
+
+  @Test
+  void snippet_EscapesHtml_AndKeepsShortTextWhole() {
+    // given
+    Highlighter highlighter = new Highlighter("a&b", 100);
+
+    // when then
+    assertEquals("&lt;p&gt; <em>A&amp;B</em> &amp; &quot;c&quot;",
+        highlighter.snippet("<p> A&B & \"c\""));
+    assertNull(highlighter.snippet(null));
+    assertEquals("", highlighter.snippet(""));
+  }
+
+  @Test
+  void snippet_StaysWithinLength_ForLongTexts() {
+    // given
+    Highlighter highlighter = new Highlighter("needle", 60);
+    String text = "hay ".repeat(5000) + "needle " + "hay ".repeat(5000);
+
+    // when
+    String snippet = highlighter.snippet(text);
+
+    // then
+    String plain = snippet.replace(Highlighter.PRE_TAG, "").replace(Highlighter.POST_TAG, "");
+    assertTrue(plain.length() <= 62, snippet);
+    assertTrue(snippet.contains("<em>needle</em>"), snippet);
+    assertThrows(IllegalArgumentException.class, () -> new Highlighter("needle", 0));
+  }
+}
@@ -0,0 +1,136 @@
+package com.srecko.reddit.search.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.srecko.reddit.search.dto.PostDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Date;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+
+class DocumentIndexTest {
+
+  private DocumentIndex<PostDto> index;
+
+  @BeforeEach
+  void setUp() {
+    index = new SearchIndex(new SimpleMeterRegistry(), 10, 2.0, 2, 7, 50).posts();
+  }
+
+  @Test
+  void isReady_ReturnsTrue_OnlyOnceFirstSnapshotIsLoaded() {
+    // given
+    index.upsert(post(1L, "Serbia weather", 1000));
+    assertFalse(index.isReady());
+
+    // when
+    assertTrue(index.beginRebuild());
+    assertFalse(index.beginRebuild());
+    index.load(List.of(post(2L, "Serbia football", 2000)));
+    assertFalse(index.isReady());
+    index.completeRebuild();
+
+    // then
+    assertTrue(index.isReady());
+    assertEquals(1, index.size());
+  }
+
+  @Test
+  void completeRebuild_KeepsChangesMadeDuringRebuild_OverSnapshot() {
+    // given
+    index.beginRebuild();
+    index.load(List.of(post(1L, "Serbia weather", 1000)));
+    index.completeRebuild();
+
+    // when
+    index.beginRebuild();
+    index.upsert(post(2L, "Serbia football updated", 2000));
+    index.delete(3L);
+    index.load(List.of(post(1L, "Serbia weather", 1000), post(2L, "Serbia football", 2000),
+        post(3L, "Serbia tennis", 3000)));
+    index.completeRebuild();
+
+    // then
+    Page<PostDto> page = index.search("serbia", post -> true, PageRequest.of(0, 10));
+    assertEquals(List.of(1L, 2L), page.getContent().stream().map(PostDto::getId).toList());
+    assertEquals("Serbia football updated", page.getContent().get(1).getTitle());
+  }
+
+  @Test
+  void search_SortsAndPagesResults_WithDefaultSortForUnknownProperty() {
+    // given
+    index.beginRebuild();
+    index.load(List.of(post(1L, "Serbia c", 3000), post(2L, "Serbia a", 1000),
+        post(3L, "Serbia b", 2000)));
+    index.completeRebuild();
+
+    // when
+    Page<PostDto> byTitle = index.search("serbia", post -> true,
+        PageRequest.of(0, 2, Sort.by(Direction.DESC, "title")));
+    Page<PostDto> byDefault = index.search("serbia", post -> true,
+        PageRequest.of(1, 2, Sort.by(Direction.ASC, "id")));
+
+    // then
+    assertEquals(List.of(1L, 3L), byTitle.getContent().stream().map(PostDto::getId).toList());
+    assertEquals(3, byTitle.getTotalElements());
+    assertEquals(2, byTitle.getTotalPages());
+    assertEquals(List.of(1L), byDefault.getContent().stream().map(PostDto::getId).toList());
+  }
+
+  @Test
+  void search_MatchesSubstringOfTitleOnly_IgnoringCase() {
+    // given
+    PostDto inText = post(1L, "Weather today", 1000);
+    inText.setText("Sunny all over Serbia");
+    index.beginRebuild();
+    index.load(List.of(inText, post(2L, "SERBIAN football", 2000), post(3L, "Serb", 3000),
+        post(4L, "Serbia travel", 4000)));
+    index.completeRebuild();
+
+    // when
+    Page<PostDto> page = index.search("erbia", post -> true, PageRequest.of(0, 10));
+
+    // then
+    assertEquals(List.of(2L, 4L), page.getContent().stream().map(PostDto::getId).toList());
+    assertTrue(index.search("sunny", post -> true, PageRequest.of(0, 10)).isEmpty());
+    assertTrue(index.search("serbian food", post -> true, PageRequest.of(0, 10)).isEmpty());
+  }
+
+  @Test
+  void search_RanksPostsByTitleAndText_WhenSortIsRelevance() {
+    // given
+    PostDto inTitle = post(1L, "Serbia travel", 1000);
+    inTitle.setText("Tips for visiting");
+    PostDto inBoth = post(2L, "Serbia weather", 2000);
+    inBoth.setText("Sunny all over Serbia");
+    index.beginRebuild();
+    index.load(List.of(inTitle, inBoth, post(3L, "Football", 3000)));
+    index.completeRebuild();
+
+    // when
+    Page<PostDto> byRelevance = index.search("serbia", post -> true,
+        PageRequest.of(0, 10, Sort.by(Direction.DESC, DocumentIndex.RELEVANCE)));
+    Page<PostDto> byDate = index.search("serbia", post -> true,
+        PageRequest.of(0, 10, Sort.by(Direction.ASC, "dateOfCreation")));
+
+    // then
+    assertEquals(List.of(2L, 1L), byRelevance.getContent().stream().map(PostDto::getId)
+        .toList());
+    assertEquals(List.of(1L, 2L), byDate.getContent().stream().map(PostDto::getId).toList());
+  }
+
+  private static PostDto post(Long id, String title, long created) {
+    PostDto postDto = new PostDto();
+    postDto.setId(id);
+    postDto.setTitle(title);
+    postDto.setDateOfCreation(new Date(created));
+    return postDto;
+  }
+}
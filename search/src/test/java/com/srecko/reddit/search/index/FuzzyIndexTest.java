@@ -0,0 +1,185 @@
+package com.srecko.reddit.search.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.srecko.reddit.search.dto.SubredditDto;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class FuzzyIndexTest {
+
+  private FuzzyIndex<SubredditDto> index;
+
+  @BeforeEach
+  void setUp() {
+    index = new FuzzyIndex<>(SubredditDto::getId, SubredditDto::getName,
+        SubredditDto::getNumberOfUsers, 2, 7, 10);
+  }
+
+  @Test
+  void search_MatchesTyposAndSwappedLetters_IgnoringCase() {
+    // given
+    index.put(subreddit(1L, "Programming", 10000));
+    index.put(subreddit(2L, "Serbia", 500));
+    index.put(subreddit(3L, "photography", 300));
+
+    // when then
+    assertEquals(List.of("Programming"), names(index.search("programing", s -> true)));
+    assertEquals(List.of("Programming"), names(index.search("PROGRAMMNIG", s -> true)));
+    assertEquals(List.of("Programming"), names(index.search("prgoramminng", s -> true)));
+    assertEquals(List.of("Serbia"), names(index.search("srebia", s -> true)));
+    assertEquals(List.of("photography"), names(index.search("fotography", s -> true)));
+    assertTrue(index.search("porgarmmign", s -> true).isEmpty());
+  }
+
+  @Test
+  void search_RanksCloserThenMorePopularNamesFirst_AndKeepsCapacity() {
+    // given
+    index = new FuzzyIndex<>(SubredditDto::getId, SubredditDto::getName,
+        SubredditDto::getNumberOfUsers, 2, 7, 3);
+    index.put(subreddit(1L, "gaming", 100));
+    index.put(subreddit(2L, "gamming", 5000));
+    index.put(subreddit(3L, "gamin", 900));
+    index.put(subreddit(4L, "camping", 20000));
+    index.put(subreddit(5L, "gaming", 100));
+
+    // when
+    List<SubredditDto> actual = index.search("gamig", s -> true);
+
+    // then
+    assertEquals(List.of(3L, 1L, 5L), actual.stream().map(SubredditDto::getId).toList());
+    assertEquals(List.of(3L), index.search("gamig", s -> s.getId() == 3L).stream()
+        .map(SubredditDto::getId).toList());
+  }
+
+  @Test
+  void search_AllowsSingleEdit_ForShortQueries() {
+    // given
+    index.put(subreddit(1L, "java", 100));
+    index.put(subreddit(2L, "lua", 100));
+
+    // when then
+    assertEquals(List.of("java"), names(index.search("jaav", s -> true)));
+    assertEquals(List.of("lua"), names(index.search("lau", s -> true)));
+    assertTrue(index.search("jv", s -> true).isEmpty());
+    assertTrue(index.search("jxxa", s -> true).isEmpty());
+  }
+
+  @Test
+  void put_ReplacesDeletions_WhenRenamed_AndRemoveDropsThem() {
+    // given
+    index.put(subreddit(1L, "Serbia", 500));
+    int deletions = index.deletionCount();
+
+    // when
+    index.put(subreddit(1L, "Croatia", 500));
+
+    // then
+    assertTrue(index.search("serbja", s -> true).isEmpty());
+    assertEquals(List.of("Croatia"), names(index.search("croatai", s -> true)));
+    assertEquals(1, index.size());
+
+    // when
+    index.remove(1L);
+
+    // then
+    assertTrue(index.search("croatai", s -> true).isEmpty());
+    assertEquals(0, index.size());
+    assertEquals(0, index.deletionCount());
+    assertTrue(deletions > 0);
+  }
+
+  @Test
+  void constructor_ThrowsIllegalArgumentException_WhenDistanceOrPrefixLengthIsInvalid() {
+    assertThrows(IllegalArgumentException.class, () -> new FuzzyIndex<SubredditDto>(
+        SubredditDto::getId, SubredditDto::getName, s -> 0, 3, 7, 10));
+    assertThrows(IllegalArgumentException.class, () -> new FuzzyIndex<SubredditDto>(
+        SubredditDto::getId, SubredditDto::getName, s -> 0, 2, 2, 10));
+  }
+
+  @Test
+  void search_MatchesFullScan_AfterRandomChanges() {
+    // given
+    Random random = new Random(13);
+    index = new FuzzyIndex<>(SubredditDto::getId, SubredditDto::getName,
+        SubredditDto::getNumberOfUsers, 2, 4, Integer.MAX_VALUE);
+    SubredditDto[] live = new SubredditDto[300];
+    for (int i = 0; i < 3000; i++) {
+      int id = random.nextInt(live.length);
+      if (random.nextInt(4) == 0) {
+        index.remove((long) id);
+        live[id] = null;
+      } else {
+        live[id] = subreddit((long) id, word(random), random.nextInt(50));
+        index.put(live[id]);
+      }
+    }
+
+    // when then
+    for (int i = 0; i < 300; i++) {
+      String query = word(random);
+      int distance = query.length() <= 4 ? 1 : 2;
+      List<Long> expected = IntStream.range(0, live.length)
+          .mapToObj(id -> live[id])
+          .filter(subreddit -> subreddit != null
+              && osa(query, subreddit.getName()) <= distance)
+          .sorted(Comparator.<SubredditDto>comparingInt(s -> osa(query, s.getName()))
+              .thenComparing(SubredditDto::getNumberOfUsers, Comparator.reverseOrder())
+              .thenComparing(SubredditDto::getName)
+              .thenComparing(SubredditDto::getId))
+          .map(SubredditDto::getId)
+          .toList();
+      assertEquals(expected, index.search(query, s -> true).stream()
+          .map(SubredditDto::getId).toList(), "query " + query);
+    }
+  }
+
+  private static String word(Random random) {
+    return random.ints(3 + random.nextInt(6), 'a', 'e')
+        .mapToObj(c -> String.valueOf((char) c)).collect(Collectors.joining());
+  }
+
+  /**
+   * The optimal string alignment distance over the whole table, which the index has to agree
+   * with.
+   */
+  private static int osa(String a, String b) {
+    int[][] d = new int[a.length() + 1][b.length() + 1];
+    for (int i = 0; i <= a.length(); i++) {
+      d[i][0] = i;
+    }
+    for (int j = 0; j <= b.length(); j++) {
+      d[0][j] = j;
+    }
+    for (int i = 1; i <= a.length(); i++) {
+      for (int j = 1; j <= b.length(); j++) {
+        int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+        d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+        if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2)
+            && a.charAt(i - 2) == b.charAt(j - 1)) {
+          d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+        }
+      }
+    }
+    return d[a.length()][b.length()];
+  }
+
+  private static List<String> names(List<SubredditDto> subreddits) {
+    return subreddits.stream().map(SubredditDto::getName).toList();
+  }
+
+  private static SubredditDto subreddit(Long id, String name, int numberOfUsers) {
+    SubredditDto subredditDto = new SubredditDto();
+    subredditDto.setId(id);
+    subredditDto.setName(name);
+    subredditDto.setNumberOfUsers(numberOfUsers);
+    return subredditDto;
+  }
+}
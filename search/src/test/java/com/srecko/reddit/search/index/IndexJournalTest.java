@@ -0,0 +1,254 @@
+package com.srecko.reddit.search.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.srecko.reddit.search.dto.IndexEventType;
+import com.srecko.reddit.search.dto.PostDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.PageRequest;
+
+class IndexJournalTest {
+
+  private final ObjectMapper smile = new ObjectMapper(new SmileFactory());
+
+  @TempDir
+  private Path directory;
+
+  private IndexJournal<PostDto> journal;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    journal = open();
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    journal.close();
+  }
+
+  @Test
+  void recover_ReturnsSegmentWithChangesLoggedAfterIt() throws IOException {
+    // given
+    journal.append(IndexEventType.UPSERT, 1L, post(1L, "Serbia weather"));
+    journal.append(IndexEventType.UPSERT, 2L, post(2L, "Serbia football"));
+    journal.writeSegment(List.of(post(1L, "Serbia weather"), post(2L, "Serbia football")), 2);
+    journal.append(IndexEventType.UPSERT, 3L, post(3L, "Serbia tennis"));
+    journal.append(IndexEventType.DELETE, 1L, null);
+    journal.close();
+
+    // when
+    journal = open();
+    IndexJournal.Recovery<PostDto> recovery = journal.recover().orElseThrow();
+
+    // then
+    assertEquals(List.of(2L, 3L), ids(recovery.documents()));
+    assertEquals("Serbia tennis", recovery.documents().get(1).getTitle());
+    assertEquals(new Date(3000), recovery.documents().get(1).getDateOfCreation());
+    assertEquals(2, recovery.checkpoint());
+    assertEquals(2, recovery.replayed());
+    assertEquals(4, journal.lastSequence());
+  }
+
+  @Test
+  void open_CutsTornChangeOffLog() throws IOException {
+    // given
+    journal.writeSegment(List.of(), 0);
+    journal.append(IndexEventType.UPSERT, 1L, post(1L, "Serbia weather"));
+    journal.close();
+    Files.write(directory.resolve("changes-0.log"), new byte[]{0, 0, 0, 40, 1, 2},
+        StandardOpenOption.APPEND);
+
+    // when
+    journal = open();
+    journal.append(IndexEventType.UPSERT, 2L, post(2L, "Serbia football"));
+    journal.close();
+    journal = open();
+
+    // then
+    assertEquals(List.of(1L, 2L), ids(journal.recover().orElseThrow().documents()));
+    assertEquals(2, journal.lastSequence());
+  }
+
+  @Test
+  void writeSegment_DeletesLogsItContains_AndReplacesOlderSegment() throws IOException {
+    // given
+    journal.append(IndexEventType.UPSERT, 1L, post(1L, "Serbia weather"));
+    assertEquals(1, journal.rollOver());
+    journal.writeSegment(List.of(post(1L, "Serbia weather")), 1);
+    journal.append(IndexEventType.UPSERT, 2L, post(2L, "Serbia football"));
+
+    // when
+    assertEquals(2, journal.rollOver());
+    journal.writeSegment(List.of(post(1L, "Serbia weather"), post(2L, "Serbia football")), 2);
+
+    // then
+    assertEquals(List.of("changes-2.log", "segment-2.seg"), files());
+    assertEquals(0, Files.size(directory.resolve("changes-2.log")));
+    assertEquals(2, journal.checkpoint());
+    assertEquals(0, journal.recover().orElseThrow().replayed());
+  }
+
+  @Test
+  void recover_ReplaysEveryLog_UntilSegmentOfRollOverIsWritten() throws IOException {
+    // given
+    journal.writeSegment(List.of(), 0);
+    journal.append(IndexEventType.UPSERT, 1L, post(1L, "Serbia weather"));
+    assertEquals(1, journal.rollOver());
+    assertEquals(1, journal.rollOver());
+    journal.append(IndexEventType.UPSERT, 2L, post(2L, "Serbia football"));
+    journal.close();
+
+    // when
+    journal = open();
+    IndexJournal.Recovery<PostDto> recovery = journal.recover().orElseThrow();
+
+    // then
+    assertEquals(List.of("changes-0.log", "changes-1.log", "segment-0.seg"), files());
+    assertEquals(List.of(1L, 2L), ids(recovery.documents()));
+    assertEquals(2, recovery.replayed());
+    assertEquals(2, journal.lastSequence());
+  }
+
+  @Test
+  void recover_ReadsDeltaSegmentsNewestFirst_AndMergeKeepsSameDocuments() throws IOException {
+    // given
+    journal.writeSegment(List.of(post(1L, "Serbia weather"), post(2L, "Serbia football")), 0);
+    journal.writeDelta(List.of(post(3L, "Serbia tennis")), List.of(1L), 2);
+    journal.writeDelta(List.of(post(1L, "Serbia weather again"), post(3L, "Serbia basketball")),
+        List.of(), 4);
+    IndexJournal.Recovery<PostDto> beforeMerge = journal.recover().orElseThrow();
+
+    // when
+    assertFalse(journal.merge(3));
+    assertTrue(journal.merge(2));
+
+    // then
+    assertEquals(List.of(1L, 2L, 3L), ids(beforeMerge.documents()));
+    assertEquals(4, beforeMerge.checkpoint());
+    assertEquals(List.of("changes-0.log", "segment-4.seg"), files());
+    IndexJournal.Recovery<PostDto> afterMerge = journal.recover().orElseThrow();
+    assertEquals(titles(beforeMerge.documents()), titles(afterMerge.documents()));
+    assertEquals(List.of("Serbia basketball", "Serbia football", "Serbia weather again"),
+        titles(afterMerge.documents()));
+    assertEquals(beforeMerge.createdAt(), afterMerge.createdAt());
+    assertEquals(4, afterMerge.checkpoint());
+  }
+
+  @Test
+  void checkpoint_WritesOnlyChangedDocuments_AfterFullCheckpoint() throws IOException {
+    // given
+    DocumentIndex<PostDto> index = new SearchIndex(new SimpleMeterRegistry(), 10, 2.0, 2, 7, 50)
+        .posts();
+    index.attach(journal);
+    index.beginRebuild();
+    index.load(LongStream.rangeClosed(1, 100).mapToObj(id -> post(id, "Serbia post " + id))
+        .toList());
+    index.completeRebuild();
+    assertTrue(index.checkpoint());
+
+    // when
+    index.upsert(post(101L, "Serbia tennis"));
+    index.delete(2L);
+    assertTrue(index.checkpoint());
+
+    // then
+    assertEquals(List.of("changes-2.log", "segment-0.seg", "segment-2.seg"), files());
+    assertTrue(Files.size(directory.resolve("segment-2.seg")) * 20
+        < Files.size(directory.resolve("segment-0.seg")));
+    IndexJournal.Recovery<PostDto> recovery = journal.recover().orElseThrow();
+    assertEquals(100, recovery.documents().size());
+    assertFalse(ids(recovery.documents()).contains(2L));
+    assertTrue(ids(recovery.documents()).contains(101L));
+  }
+
+  @Test
+  void recover_Throws_WhenSegmentIsDamaged() throws IOException {
+    // given
+    assertTrue(journal.recover().isEmpty());
+    journal.writeSegment(List.of(post(1L, "Serbia weather")), 0);
+    Path segment = directory.resolve("segment-0.seg");
+    byte[] bytes = Files.readAllBytes(segment);
+    bytes[bytes.length / 2] ^= 1;
+    Files.write(segment, bytes);
+
+    // when then
+    assertThrows(UncheckedIOException.class, () -> journal.recover());
+  }
+
+  @Test
+  void restore_ServesCheckpointAndLaterChanges_AfterRestart() throws IOException {
+    // given
+    DocumentIndex<PostDto> index = new SearchIndex(new SimpleMeterRegistry(), 10, 2.0, 2, 7, 50)
+        .posts();
+    index.attach(journal);
+    index.beginRebuild();
+    index.load(List.of(post(1L, "Serbia weather"), post(2L, "Serbia football")));
+    index.completeRebuild();
+    assertTrue(index.checkpoint());
+    assertFalse(index.checkpoint());
+    index.upsert(post(3L, "Serbia tennis"));
+    index.delete(2L);
+    journal.close();
+
+    // when
+    journal = open();
+    DocumentIndex<PostDto> restarted =
+        new SearchIndex(new SimpleMeterRegistry(), 10, 2.0, 2, 7, 50).posts();
+    restarted.attach(journal);
+
+    // then
+    assertTrue(restarted.restore().isPresent());
+    assertEquals(List.of(1L, 3L), ids(restarted.search("serbia", post -> true,
+        PageRequest.of(0, 10)).getContent()));
+    assertTrue(restarted.checkpoint());
+    assertFalse(restarted.checkpoint());
+    assertEquals(List.of("changes-2.log", "segment-0.seg", "segment-2.seg"), files());
+    assertEquals(0, Files.size(directory.resolve("changes-2.log")));
+    assertEquals(List.of(1L, 3L), ids(journal.recover().orElseThrow().documents()));
+  }
+
+  private IndexJournal<PostDto> open() throws IOException {
+    return new IndexJournal<>(directory, PostDto.class, PostDto::getId, smile);
+  }
+
+  private List<String> files() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.map(file -> file.getFileName().toString()).sorted().toList();
+    }
+  }
+
+  private static List<String> titles(List<PostDto> posts) {
+    return posts.stream().map(PostDto::getTitle).sorted().toList();
+  }
+
+  private static List<Long> ids(List<PostDto> posts) {
+    return posts.stream().map(PostDto::getId).sorted(Comparator.naturalOrder()).toList();
+  }
+
+  private static PostDto post(Long id, String title) {
+    PostDto postDto = new PostDto();
+    postDto.setId(id);
+    postDto.setTitle(title);
+    postDto.setDateOfCreation(new Date(id * 1000));
+    return postDto;
+  }
+}
@@ -0,0 +1,200 @@
+package com.srecko.reddit.search.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.srecko.reddit.search.dto.PostDto;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class InvertedIndexTest {
+
+  private InvertedIndex<PostDto> index;
+
+  @BeforeEach
+  void setUp() {
+    index = new InvertedIndex<>(PostDto::getId, PostDto::getTitle);
+  }
+
+  @Test
+  void search_ReturnsDocumentsContainingEveryTerm_IgnoringCaseAndPunctuation() {
+    // given
+    PostDto weather = post(1L, "How is the weather in Serbia?");
+    PostDto football = post(2L, "Serbia's football team");
+    PostDto forecast = post(3L, "Weather forecast: Serbia, Belgrade");
+    index.put(weather);
+    index.put(football);
+    index.put(forecast);
+
+    // when
+    List<PostDto> actual = index.search("serbia WEATHER", post -> true);
+
+    // then
+    assertEquals(List.of(weather, forecast), actual);
+    assertEquals(List.of(football), index.search("football", post -> true));
+    assertTrue(index.search("serbia tennis", post -> true).isEmpty());
+    assertTrue(index.search("  ", post -> true).isEmpty());
+  }
+
+  @Test
+  void put_ReplacesTermsOfDocument_WhenDocumentIsUpdated() {
+    // given
+    index.put(post(1L, "Old title"));
+
+    // when
+    PostDto updated = post(1L, "New title");
+    index.put(updated);
+
+    // then
+    assertTrue(index.search("old", post -> true).isEmpty());
+    assertEquals(List.of(updated), index.search("new title", post -> true));
+    assertEquals(1, index.size());
+    assertEquals(2, index.termCount());
+  }
+
+  @Test
+  void remove_DropsDocumentAndTermsOnlyItUsed() {
+    // given
+    PostDto first = post(1L, "Serbia weather");
+    index.put(first);
+    index.put(post(2L, "Serbia football"));
+
+    // when
+    index.remove(2L);
+
+    // then
+    assertEquals(List.of(first), index.search("serbia", post -> true));
+    assertTrue(index.search("football", post -> true).isEmpty());
+    assertEquals(1, index.size());
+    assertEquals(2, index.termCount());
+  }
+
+  @Test
+  void search_AppliesFilter() {
+    // given
+    PostDto first = post(1L, "Serbia weather");
+    first.setSubredditId(1L);
+    PostDto second = post(2L, "Serbia football");
+    second.setSubredditId(2L);
+    index.put(first);
+    index.put(second);
+
+    // when
+    List<PostDto> actual = index.search("serbia", post -> post.getSubredditId() == 2L);
+
+    // then
+    assertEquals(List.of(second), actual);
+  }
+
+  @Test
+  void rank_RanksFrequentRareTermsInShortTextsFirst() {
+    // given
+    index.put(post(1L, "Serbia weather forecast for the whole week ahead"));
+    index.put(post(2L, "Serbia Serbia"));
+    index.put(post(3L, "Serbia news"));
+    index.put(post(4L, "Serbia serbia football"));
+    index.put(post(5L, "Serbia football football"));
+
+    // when
+    List<Long> bySerbia = ids(index.rank("serbia", post -> true));
+    List<Long> byFootball = ids(index.rank("serbia football", post -> true));
+
+    // then
+    assertEquals(List.of(2L, 4L, 3L, 5L, 1L), bySerbia);
+    assertEquals(List.of(5L, 4L), byFootball);
+    assertTrue(index.rank("serbia tennis", post -> true).isEmpty());
+  }
+
+  @Test
+  void rank_CountsBoostedFieldMore_AndBreaksTiesById() {
+    // given
+    InvertedIndex<PostDto> fields = new InvertedIndex<>(PostDto::getId,
+        List.of(new IndexedField<>(PostDto::getTitle, 2), IndexedField.of(PostDto::getText)),
+        Bm25.DEFAULT);
+    fields.put(post(1L, "Weather", "Serbia is sunny today"));
+    fields.put(post(2L, "Serbia travel", "Tips for visiting"));
+    fields.put(post(4L, "Weather", "Serbia is sunny today"));
+    fields.put(post(3L, "Serbia travel", "Tips for visiting"));
+
+    // when
+    List<Long> actual = ids(fields.rank("serbia", post -> post.getId() != 4L));
+
+    // then
+    assertEquals(List.of(2L, 3L, 1L), actual);
+  }
+
+  @Test
+  void rank_MatchesFreshIndex_AfterRandomChanges() {
+    // given
+    Random random = new Random(11);
+    PostDto[] live = new PostDto[100];
+    for (int i = 0; i < 3000; i++) {
+      int id = random.nextInt(live.length);
+      if (random.nextInt(4) == 0) {
+        index.remove((long) id);
+        live[id] = null;
+      } else {
+        String title = random.ints(1 + random.nextInt(6), 0, 8)
+            .mapToObj(term -> "t" + term).collect(Collectors.joining(" "));
+        live[id] = post((long) id, title);
+        index.put(live[id]);
+      }
+    }
+    InvertedIndex<PostDto> fresh = new InvertedIndex<>(PostDto::getId, PostDto::getTitle);
+    List<PostDto> documents = new ArrayList<>();
+    for (PostDto post : live) {
+      if (post != null) {
+        fresh.put(post);
+        documents.add(post);
+      }
+    }
+
+    // when then
+    assertEquals(documents.size(), index.size());
+    for (String query : List.of("t0", "t1 t2", "t3 t3 t7", "t5 t6")) {
+      assertEquals(ids(fresh.rank(query, post -> true)), ids(index.rank(query, post -> true)),
+          "query " + query);
+    }
+  }
+
+  @Test
+  void intersect_ReturnsIdsInAllLists_WhenIdsArriveOutOfOrder() {
+    // given
+    PostingList first = new PostingList();
+    PostingList second = new PostingList();
+    for (long id : new long[]{9, 3, 7, 1, 5, 3}) {
+      first.add(id);
+    }
+    for (long id = 0; id < 10; id += 3) {
+      second.add(id);
+    }
+
+    // when
+    long[] actual = PostingList.intersect(List.of(first, second));
+
+    // then
+    assertEquals(5, first.size());
+    assertEquals(List.of(3L, 9L), Arrays.stream(actual).boxed().toList());
+  }
+
+  private static List<Long> ids(List<PostDto> posts) {
+    return posts.stream().map(PostDto::getId).toList();
+  }
+
+  private static PostDto post(Long id, String title) {
+    return post(id, title, null);
+  }
+
+  private static PostDto post(Long id, String title, String text) {
+    PostDto postDto = new PostDto();
+    postDto.setId(id);
+    postDto.setTitle(title);
+    postDto.setText(text);
+    return postDto;
+  }
+}
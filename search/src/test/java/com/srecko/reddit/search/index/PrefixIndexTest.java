@@ -0,0 +1,122 @@
+package com.srecko.reddit.search.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.srecko.reddit.search.dto.SubredditDto;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PrefixIndexTest {
+
+  private PrefixIndex<SubredditDto> index;
+
+  @BeforeEach
+  void setUp() {
+    index = new PrefixIndex<>(SubredditDto::getId, SubredditDto::getName,
+        SubredditDto::getNumberOfUsers, 3);
+  }
+
+  @Test
+  void complete_ReturnsMostPopularNamesStartingWithPrefix_IgnoringCase() {
+    // given
+    index.put(subreddit(1L, "Serbia", 500));
+    index.put(subreddit(2L, "SerbianFood", 20));
+    index.put(subreddit(3L, "seriouscats", 900));
+    index.put(subreddit(4L, "Programming", 10000));
+
+    // when
+    List<String> names = names(index.complete("SER", 10));
+
+    // then
+    assertEquals(List.of("seriouscats", "Serbia", "SerbianFood"), names);
+    assertEquals(List.of("Serbia", "SerbianFood"), names(index.complete("serb", 10)));
+    assertEquals(List.of("Programming", "seriouscats"), names(index.complete("", 2)));
+    assertTrue(index.complete("serbs", 10).isEmpty());
+  }
+
+  @Test
+  void complete_RefillsSuggestions_WhenTopDocumentIsDeleted() {
+    // given
+    for (long id = 1; id <= 5; id++) {
+      index.put(subreddit(id, "serbia" + id, (int) id * 100));
+    }
+    assertEquals(List.of("serbia5", "serbia4", "serbia3"), names(index.complete("serbia", 3)));
+
+    // when
+    index.remove(5L);
+    index.remove(3L);
+
+    // then
+    assertEquals(List.of("serbia4", "serbia2", "serbia1"), names(index.complete("serbia", 3)));
+    assertEquals(3, index.size());
+  }
+
+  @Test
+  void put_MovesDocument_WhenRenamedOrPopularityChanges() {
+    // given
+    index.put(subreddit(1L, "Serbia", 500));
+    index.put(subreddit(2L, "Croatia", 400));
+
+    // when
+    index.put(subreddit(1L, "Slovenia", 100));
+    index.put(subreddit(2L, "Croatia", 1000));
+
+    // then
+    assertTrue(index.complete("serb", 10).isEmpty());
+    assertEquals(List.of("Slovenia"), names(index.complete("s", 10)));
+    assertEquals(List.of("Croatia", "Slovenia"), names(index.complete("", 10)));
+    assertEquals(2, index.size());
+  }
+
+  @Test
+  void complete_MatchesFullScan_AfterRandomChanges() {
+    // given
+    Random random = new Random(7);
+    SubredditDto[] live = new SubredditDto[200];
+    for (int i = 0; i < 5000; i++) {
+      int id = random.nextInt(live.length);
+      if (random.nextInt(4) == 0) {
+        index.remove((long) id);
+        live[id] = null;
+      } else {
+        String name = random.ints(2 + random.nextInt(4), 'a', 'd')
+            .mapToObj(c -> String.valueOf((char) c)).collect(Collectors.joining());
+        live[id] = subreddit((long) id, name, random.nextInt(50));
+        index.put(live[id]);
+      }
+    }
+
+    // when then
+    for (String prefix : List.of("", "a", "ab", "cab", "b")) {
+      List<Long> expected = IntStream.range(0, live.length)
+          .mapToObj(id -> live[id])
+          .filter(subreddit -> subreddit != null && subreddit.getName().startsWith(prefix))
+          .sorted((a, b) -> a.getNumberOfUsers() != b.getNumberOfUsers()
+              ? Integer.compare(b.getNumberOfUsers(), a.getNumberOfUsers())
+              : a.getName().equals(b.getName()) ? Long.compare(a.getId(), b.getId())
+              : a.getName().compareTo(b.getName()))
+          .limit(3)
+          .map(SubredditDto::getId)
+          .toList();
+      assertEquals(expected, index.complete(prefix, 3).stream().map(SubredditDto::getId)
+          .toList(), "prefix " + prefix);
+    }
+  }
+
+  private static List<String> names(List<SubredditDto> subreddits) {
+    return subreddits.stream().map(SubredditDto::getName).toList();
+  }
+
+  private static SubredditDto subreddit(Long id, String name, int numberOfUsers) {
+    SubredditDto subredditDto = new SubredditDto();
+    subredditDto.setId(id);
+    subredditDto.setName(name);
+    subredditDto.setNumberOfUsers(numberOfUsers);
+    return subredditDto;
+  }
+}
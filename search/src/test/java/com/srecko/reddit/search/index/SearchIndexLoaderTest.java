@@ -0,0 +1,114 @@
+package com.srecko.reddit.search.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.srecko.reddit.search.dto.UserDto;
+import com.srecko.reddit.search.exception.SearchBackendUnavailableException;
+import com.srecko.reddit.search.service.client.ReactiveSearchClient;
+import com.srecko.reddit.search.service.client.SearchBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+
+class SearchIndexLoaderTest {
+
+  private SearchIndex searchIndex;
+
+  private SearchIndexLoader loader;
+
+  @BeforeEach
+  void setUp() {
+    searchIndex = new SearchIndex(new SimpleMeterRegistry(), 10, 2.0, 2, 7, 50);
+    loader = new SearchIndexLoader(searchIndex,
+        new SearchIndexStore(searchIndex, false, "", Duration.ZERO, 8,
+            new SimpleMeterRegistry()),
+        Mockito.mock(ReactiveSearchClient.class), true, 2);
+  }
+
+  @Test
+  void load_ReadsSnapshotPageAfterPage_UntilShortPage() {
+    // given
+    List<UserDto> users = LongStream.rangeClosed(1, 5).mapToObj(id -> user(id, "jane" + id))
+        .toList();
+    List<Long> requestedAfter = new ArrayList<>();
+
+    // when
+    loader.load(searchIndex.users(), (afterId, limit) -> {
+      requestedAfter.add(afterId);
+      return Mono.just(users.stream().filter(user -> user.getId() > afterId).limit(limit)
+          .toList());
+    }, UserDto::getId).block();
+
+    // then
+    assertEquals(List.of(0L, 2L, 4L), requestedAfter);
+    assertTrue(searchIndex.users().isReady());
+    assertEquals(5, searchIndex.users().size());
+  }
+
+  @Test
+  void load_KeepsPreviousIndex_WhenSnapshotFails() {
+    // given
+    loader.load(searchIndex.users(), (afterId, limit) -> Mono.just(List.of(user(1L, "jane"))),
+        UserDto::getId).block();
+
+    // when
+    loader.load(searchIndex.users(), (afterId, limit) -> afterId == 0
+        ? Mono.just(List.of(user(1L, "jane"), user(2L, "john")))
+        : Mono.error(new SearchBackendUnavailableException(SearchBackend.USERS,
+            new IllegalStateException("Connection refused"))), UserDto::getId).block();
+
+    // then
+    assertTrue(searchIndex.users().isReady());
+    assertEquals(1, searchIndex.users().size());
+    assertTrue(searchIndex.users().beginRebuild());
+  }
+
+  @Test
+  void load_LeavesIndexNotReady_WhenFirstSnapshotFails() {
+    // when
+    loader.load(searchIndex.subreddits(), (afterId, limit) -> null, id -> 0L).block();
+
+    // then
+    assertFalse(searchIndex.subreddits().isReady());
+  }
+
+  @Test
+  void restore_ServesCheckpointedIndex_AndTimesRestore(@TempDir Path directory) {
+    // given
+    SearchIndexStore store = new SearchIndexStore(searchIndex, true, directory.toString(),
+        Duration.ofHours(1), 8, new SimpleMeterRegistry());
+    loader.load(searchIndex.users(), (afterId, limit) -> Mono.just(afterId == 0
+        ? List.of(user(1L, "jane"), user(2L, "john")) : List.of()), UserDto::getId).block();
+    store.close();
+    SearchIndex restarted = new SearchIndex(new SimpleMeterRegistry(), 10, 2.0, 2, 7, 50);
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    SearchIndexStore restartedStore = new SearchIndexStore(restarted, true,
+        directory.toString(), Duration.ofHours(1), 8, meterRegistry);
+
+    // when
+    boolean restored = restartedStore.restore(restarted.users());
+
+    // then
+    assertTrue(restored);
+    assertEquals(2, restarted.users().size());
+    assertEquals(1, meterRegistry.get("search.index.restore").tag("backend", "users").timer()
+        .count());
+  }
+
+  private static UserDto user(Long id, String username) {
+    UserDto userDto = new UserDto();
+    userDto.setId(id);
+    userDto.setUsername(username);
+    return userDto;
+  }
+}
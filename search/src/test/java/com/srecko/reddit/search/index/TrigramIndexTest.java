@@ -0,0 +1,119 @@
+package com.srecko.reddit.search.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.srecko.reddit.search.dto.PostDto;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TrigramIndexTest {
+
+  private TrigramIndex<PostDto> index;
+
+  @BeforeEach
+  void setUp() {
+    index = new TrigramIndex<>(PostDto::getId, List.of(PostDto::getTitle, PostDto::getText));
+  }
+
+  @Test
+  void search_ReturnsDocumentsContainingQuery_IgnoringCase() {
+    // given
+    index.put(post(1L, "How is the weather in Serbia?", null));
+    index.put(post(2L, "Football", "Serbia's football team"));
+    index.put(post(3L, "Weather forecast: Serbia, Belgrade", "Sunny"));
+
+    // when then
+    assertEquals(List.of(1L, 2L, 3L), ids(index.search("ERBI", post -> true)));
+    assertEquals(List.of(3L), ids(index.search("serbia, bel", post -> true)));
+    assertEquals(List.of(2L), ids(index.search("a's f", post -> true)));
+    assertEquals(List.of(1L, 3L), ids(index.search("we", post -> true)));
+    assertTrue(index.search("serbia weather", post -> true).isEmpty());
+    assertEquals(List.of(2L, 3L), ids(index.search("", post -> post.getId() > 1L)));
+  }
+
+  @Test
+  void search_DoesNotMatchAcrossFields() {
+    // given
+    index.put(post(1L, "Serbia", "weather"));
+
+    // when then
+    assertTrue(index.search("serbiaweather", post -> true).isEmpty());
+    assertTrue(index.search("iawe", post -> true).isEmpty());
+    assertEquals(List.of(1L), ids(index.search("eathe", post -> true)));
+  }
+
+  @Test
+  void put_ReplacesTrigramsOfDocument_AndRemoveDropsUnusedOnes() {
+    // given
+    index.put(post(1L, "abcd", null));
+    index.put(post(2L, "bcde", null));
+
+    // when
+    index.put(post(1L, "xyz", null));
+    index.remove(2L);
+
+    // then
+    assertTrue(index.search("bcd", post -> true).isEmpty());
+    assertEquals(List.of(1L), ids(index.search("XYZ", post -> true)));
+    assertEquals(1, index.size());
+    assertEquals(1, index.trigramCount());
+  }
+
+  @Test
+  void search_MatchesFullScan_AfterRandomChanges() {
+    // given
+    Random random = new Random(3);
+    PostDto[] live = new PostDto[300];
+    for (int i = 0; i < 6000; i++) {
+      int id = random.nextInt(live.length);
+      if (random.nextInt(4) == 0) {
+        index.remove((long) id);
+        live[id] = null;
+      } else {
+        live[id] = post((long) id, text(random), random.nextBoolean() ? text(random) : null);
+        index.put(live[id]);
+      }
+    }
+
+    // when then
+    for (String query : List.of("a", "Ab", "abc", "BCA", "a b", "cab a", "abcab")) {
+      List<Long> expected = IntStream.range(0, live.length)
+          .mapToObj(id -> live[id])
+          .filter(post -> post != null && (contains(post.getTitle(), query)
+              || contains(post.getText(), query)))
+          .map(PostDto::getId)
+          .toList();
+      assertEquals(expected, ids(index.search(query, post -> true)), "query " + query);
+    }
+  }
+
+  private static String text(Random random) {
+    return random.ints(1 + random.nextInt(12), 0, 7)
+        .mapToObj(c -> c < 3 ? String.valueOf((char) ('a' + c))
+            : c < 6 ? String.valueOf((char) ('A' + c - 3)) : " ")
+        .collect(Collectors.joining());
+  }
+
+  private static boolean contains(String text, String query) {
+    return text != null
+        && text.toLowerCase(Locale.ROOT).contains(query.toLowerCase(Locale.ROOT));
+  }
+
+  private static List<Long> ids(List<PostDto> posts) {
+    return posts.stream().map(PostDto::getId).toList();
+  }
+
+  private static PostDto post(Long id, String title, String text) {
+    PostDto postDto = new PostDto();
+    postDto.setId(id);
+    postDto.setTitle(title);
+    postDto.setText(text);
+    return postDto;
+  }
+}
@@ -1,19 +1,27 @@
 package com.srecko.reddit.search.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
 
+import com.srecko.reddit.search.cache.SearchResultCache;
 import com.srecko.reddit.search.dto.CommentDto;
 import com.srecko.reddit.search.dto.PostDto;
 import com.srecko.reddit.search.dto.SubredditDto;
 import com.srecko.reddit.search.dto.UserDto;
-import com.srecko.reddit.search.service.client.CommentsFeignClient;
-import com.srecko.reddit.search.service.client.PostsFeignClient;
-import com.srecko.reddit.search.service.client.SubredditsFeignClient;
-import com.srecko.reddit.search.service.client.UsersFeignClient;
+import com.srecko.reddit.search.dto.SearchResultsDto;
+import com.srecko.reddit.search.dto.SearchSectionStatus;
+import com.srecko.reddit.search.exception.SearchBackendUnavailableException;
+import com.srecko.reddit.search.index.SearchIndex;
+import com.srecko.reddit.search.service.client.ReactiveSearchClient;
+import com.srecko.reddit.search.service.client.SearchBackend;
+import com.srecko.reddit.search.service.utils.TestConfig;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -33,30 +41,29 @@ import org.springframework.data.domain.Sort;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.PagedModel;
 import org.springframework.hateoas.PagedModel.PageMetadata;
+import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Mono;
 
-@ContextConfiguration(classes = {SearchServiceImpl.class})
+@ContextConfiguration(classes = {SearchServiceImpl.class, SearchIndex.class,
+    SearchResultCache.class, TestConfig.class})
+@TestPropertySource(properties = {"search.all.deadline=PT0.2S", "search.cache.enabled=false"})
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
 class SearchServiceImplTest {
 
   @MockBean
-  private UsersFeignClient usersFeignClient;
-
-  @MockBean
-  private SubredditsFeignClient subredditsFeignClient;
-
-  @MockBean
-  private PostsFeignClient postsFeignClient;
-
-  @MockBean
-  private CommentsFeignClient commentsFeignClient;
+  private ReactiveSearchClient searchClient;
 
   @Autowired
   private SearchService searchService;
 
+  @Autowired
+  private SearchIndex searchIndex;
+
   @Test
   void searchUsers_ReturnsPageOfUsers() {
     // given
@@ -69,11 +76,11 @@ class SearchServiceImplTest {
     LocalDateTime atStartOfDayResult = LocalDate.of(1970, 1, 1).atStartOfDay();
     userDto.setRegistrationDate(Date.from(atStartOfDayResult.atZone(ZoneId.of("UTC")).toInstant()));
 
-    given(usersFeignClient.searchUsers(any(), any())).willReturn(
-        PagedModel.of(Collections.singletonList(EntityModel.of(userDto)), new PageMetadata(1, 0, 1)));
+    given(searchClient.searchUsers(any(), any())).willReturn(Mono.just(
+        PagedModel.of(Collections.singletonList(EntityModel.of(userDto)), new PageMetadata(1, 0, 1))));
 
     // when
-    PagedModel<EntityModel<UserDto>> actual = searchService.searchUsers("jane", pageRequest);
+    PagedModel<EntityModel<UserDto>> actual = searchService.searchUsers("jane", pageRequest).block();
 
     // then
     assertNotNull(actual);
@@ -98,11 +105,11 @@ class SearchServiceImplTest {
     userDto2.setId(124L);
     userDto2.setUsername("janesmith");
 
-    given(usersFeignClient.searchUsers(any(), any())).willReturn(
-        PagedModel.of(Arrays.asList(EntityModel.of(userDto), EntityModel.of(userDto2)), new PageMetadata(2, 0, 2)));
+    given(searchClient.searchUsers(any(), any())).willReturn(Mono.just(
+        PagedModel.of(Arrays.asList(EntityModel.of(userDto), EntityModel.of(userDto2)), new PageMetadata(2, 0, 2))));
 
     // when
-    PagedModel<EntityModel<UserDto>> actual = searchService.searchUsers("jane", pageRequest);
+    PagedModel<EntityModel<UserDto>> actual = searchService.searchUsers("jane", pageRequest).block();
 
     // then
     assertNotNull(actual);
@@ -124,11 +131,11 @@ class SearchServiceImplTest {
     post.setTitle("Serbia's best!");
     post.setText("Check out the best in Serbia");
 
-    given(postsFeignClient.searchPosts(any(), any())).willReturn(
-        PagedModel.of(Collections.singletonList(EntityModel.of(post)), new PageMetadata(1, 0, 1)));
+    given(searchClient.searchPosts(any(), any())).willReturn(Mono.just(
+        PagedModel.of(Collections.singletonList(EntityModel.of(post)), new PageMetadata(1, 0, 1))));
 
     // when
-    PagedModel<EntityModel<PostDto>> actual = searchService.searchPosts("Serbia", pageRequest);
+    PagedModel<EntityModel<PostDto>> actual = searchService.searchPosts("Serbia", pageRequest).block();
 
     // then
     assertNotNull(actual);
@@ -156,11 +163,11 @@ class SearchServiceImplTest {
     calendar.add(Calendar.DATE, -7);
     post2.setDateOfCreation(calendar.getTime());
 
-    given(postsFeignClient.searchPosts(any(), any())).willReturn(
-        PagedModel.of(Arrays.asList(EntityModel.of(post), EntityModel.of(post2)), new PageMetadata(2, 0, 2)));
+    given(searchClient.searchPosts(any(), any())).willReturn(Mono.just(
+        PagedModel.of(Arrays.asList(EntityModel.of(post), EntityModel.of(post2)), new PageMetadata(2, 0, 2))));
 
     // when
-    PagedModel<EntityModel<PostDto>> actual = searchService.searchPosts("Serbia", pageRequest);
+    PagedModel<EntityModel<PostDto>> actual = searchService.searchPosts("Serbia", pageRequest).block();
 
     // then
     assertNotNull(actual);
@@ -182,12 +189,12 @@ class SearchServiceImplTest {
     comment.setId(111L);
     comment.setText("What's the best place in Serbia?");
 
-    given(commentsFeignClient.searchComments(any(), any())).willReturn(
+    given(searchClient.searchComments(any(), any())).willReturn(Mono.just(
         PagedModel.of(Collections.singletonList(EntityModel.of(comment)), new PageMetadata(1, 0, 1))
-    );
+    ));
 
     // when
-    PagedModel<EntityModel<CommentDto>> actual = searchService.searchComments("Serbia", pageRequest);
+    PagedModel<EntityModel<CommentDto>> actual = searchService.searchComments("Serbia", pageRequest).block();
 
     // then
     assertNotNull(actual);
@@ -208,11 +215,11 @@ class SearchServiceImplTest {
     comment2.setId(222L);
     comment2.setText("I love Serbia");
 
-    given(commentsFeignClient.searchComments(any(), any())).willReturn(
-        PagedModel.of(Arrays.asList(EntityModel.of(comment1), EntityModel.of(comment2)), new PageMetadata(2, 0, 2)));
+    given(searchClient.searchComments(any(), any())).willReturn(Mono.just(
+        PagedModel.of(Arrays.asList(EntityModel.of(comment1), EntityModel.of(comment2)), new PageMetadata(2, 0, 2))));
 
     // when
-    PagedModel<EntityModel<CommentDto>> actual = searchService.searchComments("Serbia", pageRequest);
+    PagedModel<EntityModel<CommentDto>> actual = searchService.searchComments("Serbia", pageRequest).block();
 
     // then
     assertNotNull(actual);
@@ -234,11 +241,11 @@ class SearchServiceImplTest {
     subredditDto.setId(123L);
     subredditDto.setName("serbia");
 
-    given(subredditsFeignClient.searchSubreddits(any(), any())).willReturn(
-        PagedModel.of(Collections.singletonList(EntityModel.of(subredditDto)), new PageMetadata(1, 0, 1)));
+    given(searchClient.searchSubreddits(any(), any())).willReturn(Mono.just(
+        PagedModel.of(Collections.singletonList(EntityModel.of(subredditDto)), new PageMetadata(1, 0, 1))));
 
     // when
-    PagedModel<EntityModel<SubredditDto>> actual = searchService.searchSubreddits("Serbia", pageRequest);
+    PagedModel<EntityModel<SubredditDto>> actual = searchService.searchSubreddits("Serbia", pageRequest).block();
 
     // then
     assertNotNull(actual);
@@ -262,11 +269,11 @@ class SearchServiceImplTest {
     subredditDto2.setId(222L);
     subredditDto2.setName("Programming Serbia");
 
-    given(subredditsFeignClient.searchSubreddits(any(), any())).willReturn(
-        PagedModel.of(Arrays.asList(EntityModel.of(subredditDto), EntityModel.of(subredditDto2)), new PageMetadata(2, 0, 2)));
+    given(searchClient.searchSubreddits(any(), any())).willReturn(Mono.just(
+        PagedModel.of(Arrays.asList(EntityModel.of(subredditDto), EntityModel.of(subredditDto2)), new PageMetadata(2, 0, 2))));
 
     // when
-    PagedModel<EntityModel<SubredditDto>> actual = searchService.searchSubreddits("Serbia", pageRequest);
+    PagedModel<EntityModel<SubredditDto>> actual = searchService.searchSubreddits("Serbia", pageRequest).block();
 
     // then
     assertNotNull(actual);
@@ -299,11 +306,11 @@ class SearchServiceImplTest {
     postDto2.setText("Congrats");
     postDto2.setSubredditId(subredditId);
 
-    given(postsFeignClient.searchPostsInSubreddit(any(), any(), any())).willReturn(
-        PagedModel.of(Arrays.asList(EntityModel.of(postDto), EntityModel.of(postDto2)), new PageMetadata(2, 0, 2)));
+    given(searchClient.searchPostsInSubreddit(any(), any(), any())).willReturn(Mono.just(
+        PagedModel.of(Arrays.asList(EntityModel.of(postDto), EntityModel.of(postDto2)), new PageMetadata(2, 0, 2))));
 
     // when
-    PagedModel<EntityModel<PostDto>> actual = searchService.searchPostsInSubreddit(subredditId, "Serbia", pageRequest);
+    PagedModel<EntityModel<PostDto>> actual = searchService.searchPostsInSubreddit(subredditId, "Serbia", pageRequest).block();
 
     // then
     assertNotNull(actual);
@@ -333,11 +340,11 @@ class SearchServiceImplTest {
     postDto2.setText("Congrats");
     postDto2.setSubredditId(subredditId);
 
-    given(postsFeignClient.searchPostsInSubreddit(any(), any(), any())).willReturn(
-        PagedModel.of(Arrays.asList(EntityModel.of(postDto), EntityModel.of(postDto2)), new PageMetadata(2, 0, 2)));
+    given(searchClient.searchPostsInSubreddit(any(), any(), any())).willReturn(Mono.just(
+        PagedModel.of(Arrays.asList(EntityModel.of(postDto), EntityModel.of(postDto2)), new PageMetadata(2, 0, 2))));
 
     // when
-    PagedModel<EntityModel<PostDto>> actual = searchService.searchPostsInSubreddit(subredditId, "Serbia", pageRequest);
+    PagedModel<EntityModel<PostDto>> actual = searchService.searchPostsInSubreddit(subredditId, "Serbia", pageRequest).block();
 
     // then
     assertNotNull(actual);
@@ -349,4 +356,215 @@ class SearchServiceImplTest {
     assertEquals(EntityModel.of(postDto), actualContent.get(0));
     assertEquals(EntityModel.of(postDto2), actualContent.get(1));
   }
-}
\ No newline at end of file
+
+  @Test
+  void searchAll_ReturnsAllSections_WhenAllBackendsAnswer() {
+    // given
+    UserDto userDto = new UserDto();
+    userDto.setId(123L);
+    userDto.setUsername("serbian");
+
+    SubredditDto subredditDto = new SubredditDto();
+    subredditDto.setName("Serbia");
+
+    PostDto postDto = new PostDto();
+    postDto.setId(111L);
+    postDto.setTitle("How is the weather in Serbia?");
+
+    CommentDto commentDto = new CommentDto();
+    commentDto.setText("Serbia is great");
+
+    given(searchClient.searchUsers(any(), any())).willReturn(Mono.just(
+        PagedModel.of(List.of(EntityModel.of(userDto)), new PageMetadata(5, 0, 1))));
+    given(searchClient.searchSubreddits(any(), any())).willReturn(Mono.just(
+        PagedModel.of(List.of(EntityModel.of(subredditDto)), new PageMetadata(5, 0, 1))));
+    given(searchClient.searchPosts(any(), any())).willReturn(Mono.just(
+        PagedModel.of(List.of(EntityModel.of(postDto)), new PageMetadata(5, 0, 12))));
+    given(searchClient.searchComments(any(), any())).willReturn(Mono.just(
+        PagedModel.of(List.of(EntityModel.of(commentDto)), new PageMetadata(5, 0, 1))));
+
+    // when
+    SearchResultsDto actual = searchService.searchAll("Serbia", 5).block();
+
+    // then
+    assertNotNull(actual);
+    assertFalse(actual.isPartial());
+    assertEquals("Serbia", actual.getQuery());
+    assertEquals(List.of(userDto), actual.getUsers().getContent());
+    assertEquals(List.of(subredditDto), actual.getSubreddits().getContent());
+    assertEquals(List.of(postDto), actual.getPosts().getContent());
+    assertEquals(12, actual.getPosts().getTotalElements());
+    assertEquals(List.of(commentDto), actual.getComments().getContent());
+    assertEquals(SearchSectionStatus.OK, actual.getComments().getStatus());
+  }
+
+  @Test
+  void searchAll_ReturnsPartialResults_WhenBackendsMissDeadlineOrFail() {
+    // given
+    SubredditDto subredditDto = new SubredditDto();
+    subredditDto.setName("Serbia");
+
+    given(searchClient.searchUsers(any(), any())).willReturn(Mono.never());
+    given(searchClient.searchSubreddits(any(), any())).willReturn(Mono.just(
+        PagedModel.of(List.of(EntityModel.of(subredditDto)), new PageMetadata(5, 0, 1))));
+    given(searchClient.searchPosts(any(), any())).willReturn(Mono.error(
+        new SearchBackendUnavailableException(SearchBackend.POSTS,
+            new IllegalStateException("Connection refused"))));
+    given(searchClient.searchComments(any(), any())).willReturn(Mono.just(
+        PagedModel.empty(new PageMetadata(5, 0, 0))));
+
+    // when
+    SearchResultsDto actual = searchService.searchAll("Serbia", 5).block();
+
+    // then
+    assertNotNull(actual);
+    assertTrue(actual.isPartial());
+    assertEquals(SearchSectionStatus.TIMEOUT, actual.getUsers().getStatus());
+    assertTrue(actual.getUsers().getContent().isEmpty());
+    assertEquals(SearchSectionStatus.OK, actual.getSubreddits().getStatus());
+    assertEquals(List.of(subredditDto), actual.getSubreddits().getContent());
+    assertEquals(SearchSectionStatus.UNAVAILABLE, actual.getPosts().getStatus());
+    assertEquals(SearchSectionStatus.OK, actual.getComments().getStatus());
+  }
+
+  @Test
+  @DirtiesContext
+  void searchPostsInSubreddit_AnswersFromIndex_WhenIndexIsLoaded() {
+    // given
+    PostDto postDto = new PostDto();
+    postDto.setId(111L);
+    postDto.setTitle("How is the weather in Serbia?");
+    postDto.setSubredditId(1L);
+    postDto.setDateOfCreation(new Date(2000));
+
+    PostDto postDto2 = new PostDto();
+    postDto2.setId(222L);
+    postDto2.setTitle("Weather in Serbia today");
+    postDto2.setSubredditId(1L);
+    postDto2.setDateOfCreation(new Date(1000));
+
+    PostDto postDto3 = new PostDto();
+    postDto3.setId(333L);
+    postDto3.setTitle("Serbia weather forecast");
+    postDto3.setSubredditId(2L);
+    postDto3.setDateOfCreation(new Date(3000));
+
+    searchIndex.posts().beginRebuild();
+    searchIndex.posts().load(List.of(postDto, postDto2, postDto3));
+    searchIndex.posts().completeRebuild();
+    PageRequest pageRequest = PageRequest.of(0, 10,
+        Sort.by(Sort.Direction.ASC, "dateOfCreation"));
+
+    // when
+    PagedModel<EntityModel<PostDto>> actual = searchService
+        .searchPostsInSubreddit(1L, "WEATHER in serbia", pageRequest).block();
+
+    // then
+    assertNotNull(actual);
+    assertEquals(2, actual.getMetadata().getTotalElements());
+    List<EntityModel<PostDto>> actualContent = new ArrayList<>(actual.getContent());
+    assertEquals(EntityModel.of(postDto2), actualContent.get(0));
+    assertEquals(EntityModel.of(postDto), actualContent.get(1));
+    then(searchClient).should(never()).searchPostsInSubreddit(any(), any(), any());
+  }
+
+  @Test
+  @DirtiesContext
+  void searchComments_ReturnsHighlightedSnippets_AndLeavesIndexedCommentsAlone() {
+    // given
+    CommentDto comment = new CommentDto();
+    comment.setId(111L);
+    comment.setText("Long story short, ".repeat(20) + "the weather in Serbia is fine today.");
+
+    searchIndex.comments().beginRebuild();
+    searchIndex.comments().load(List.of(comment));
+    searchIndex.comments().completeRebuild();
+    PageRequest pageRequest = PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "text"));
+
+    // when
+    PagedModel<EntityModel<CommentDto>> actual = searchService
+        .searchComments("Weather in SERBIA", pageRequest).block();
+
+    // then
+    assertNotNull(actual);
+    CommentDto found = actual.getContent().iterator().next().getContent();
+    assertEquals(comment.getText(), found.getText());
+    assertTrue(found.getSnippet().contains("the <em>weather in Serbia</em> is fine today."),
+        found.getSnippet());
+    assertTrue(found.getSnippet().length() < comment.getText().length());
+    assertNull(comment.getSnippet());
+  }
+
+  @Test
+  @DirtiesContext
+  void autocompleteSubreddits_ReturnsMostPopularFromIndex_WhenIndexIsLoaded() {
+    // given
+    SubredditDto serbia = subreddit(1L, "Serbia", 500);
+    SubredditDto serbianFood = subreddit(2L, "SerbianFood", 20);
+    SubredditDto seriousCats = subreddit(3L, "seriouscats", 900);
+    searchIndex.subreddits().beginRebuild();
+    searchIndex.subreddits().load(List.of(serbia, serbianFood, seriousCats,
+        subreddit(4L, "Programming", 10000)));
+    searchIndex.subreddits().completeRebuild();
+
+    // when
+    List<SubredditDto> actual = searchService.autocompleteSubreddits("Ser", 2).block();
+
+    // then
+    assertEquals(List.of(seriousCats, serbia), actual);
+    then(searchClient).should(never()).searchSubreddits(any(), any());
+  }
+
+  @Test
+  @DirtiesContext
+  void searchSubreddits_ReturnsSimilarNamesFromIndex_WhenNoNameContainsQuery() {
+    // given
+    SubredditDto programming = subreddit(1L, "Programming", 10000);
+    SubredditDto photography = subreddit(2L, "photography", 300);
+    searchIndex.subreddits().beginRebuild();
+    searchIndex.subreddits().load(List.of(programming, photography));
+    searchIndex.subreddits().completeRebuild();
+    PageRequest pageable = PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "name"));
+
+    // when
+    PagedModel<EntityModel<SubredditDto>> misspelled =
+        searchService.searchSubreddits("programing", pageable).block();
+    PagedModel<EntityModel<SubredditDto>> contained =
+        searchService.searchSubreddits("graph", pageable).block();
+
+    // then
+    assertNotNull(misspelled);
+    assertEquals(List.of(programming), misspelled.getContent().stream()
+        .map(EntityModel::getContent).toList());
+    assertNotNull(contained);
+    assertEquals(List.of(photography), contained.getContent().stream()
+        .map(EntityModel::getContent).toList());
+    then(searchClient).should(never()).searchSubreddits(any(), any());
+  }
+
+  @Test
+  void autocompleteUsers_KeepsUsernamesStartingWithPrefix_WhenIndexIsNotLoaded() {
+    // given
+    UserDto janedoe = new UserDto();
+    janedoe.setUsername("JaneDoe");
+    UserDto marijane = new UserDto();
+    marijane.setUsername("marijane");
+    given(searchClient.searchUsers(any(), any())).willReturn(Mono.just(
+        PagedModel.of(Arrays.asList(EntityModel.of(janedoe), EntityModel.of(marijane)),
+            new PageMetadata(2, 0, 2))));
+
+    // when
+    List<UserDto> actual = searchService.autocompleteUsers("jane", 10).block();
+
+    // then
+    assertEquals(List.of(janedoe), actual);
+  }
+
+  private static SubredditDto subreddit(Long id, String name, int numberOfUsers) {
+    SubredditDto subredditDto = new SubredditDto();
+    subredditDto.setId(id);
+    subredditDto.setName(name);
+    subredditDto.setNumberOfUsers(numberOfUsers);
+    return subredditDto;
+  }
+}
@@ -0,0 +1,133 @@
+package com.srecko.reddit.search.service.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.srecko.reddit.search.dto.PostBatchRequest;
+import com.srecko.reddit.search.dto.PostBatchResponse;
+import com.srecko.reddit.search.dto.UserDto;
+import com.srecko.reddit.search.exception.SearchBackendTimeoutException;
+import com.srecko.reddit.search.exception.SearchBackendUnavailableException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.PagedModel;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.reactive.function.client.WebClient;
+
+class ReactiveSearchClientTest {
+
+  private HttpServer server;
+
+  private ReactiveSearchClient searchClient;
+
+  private final AtomicReference<String> requestUri = new AtomicReference<>();
+
+  private final AtomicReference<String> requestBody = new AtomicReference<>();
+
+  @BeforeEach
+  void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/api/users/search", exchange -> respond(exchange,
+        "{\"content\":[{\"id\":123,\"username\":\"janedoe\"}],"
+            + "\"page\":{\"size\":10,\"totalElements\":1,\"totalPages\":1,\"number\":0}}"));
+    server.createContext("/api/posts/batch", exchange -> respond(exchange,
+        "{\"posts\":[],\"missingIds\":[1,2]}"));
+    server.createContext("/api/comments/search", exchange -> {
+      try {
+        Thread.sleep(500);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      respond(exchange, "{}");
+    });
+    server.start();
+
+    String url = "http://localhost:" + server.getAddress().getPort();
+    MockEnvironment environment = new MockEnvironment()
+        .withProperty("search.backends.users.url", url)
+        .withProperty("search.backends.posts.url", url)
+        .withProperty("search.backends.comments.url", url)
+        .withProperty("search.backends.comments.timeout", "PT0.1S")
+        .withProperty("search.backends.subreddits.url", "http://localhost:1");
+    environment.setConversionService(new ApplicationConversionService());
+    searchClient = new ReactiveSearchClient(WebClient.builder(), environment, 10, 10);
+  }
+
+  @AfterEach
+  void tearDown() {
+    searchClient.shutdown();
+    server.stop(0);
+  }
+
+  @Test
+  void searchUsers_SendsQueryAndPageable_ReturnsPage() {
+    // given
+    PageRequest pageRequest = PageRequest.of(2, 10, Sort.by(Sort.Direction.ASC, "username"));
+
+    // when
+    PagedModel<EntityModel<UserDto>> actual = searchClient.searchUsers("jane", pageRequest)
+        .block();
+
+    // then
+    assertEquals("jane", requestBody.get());
+    assertEquals("/api/users/search?page=2&size=10&sort=username,ASC", requestUri.get());
+    assertEquals(1, actual.getMetadata().getTotalElements());
+    assertEquals("janedoe", actual.getContent().iterator().next().getContent().getUsername());
+  }
+
+  @Test
+  void getPostsByIds_ReturnsPostBatchResponse() {
+    // when
+    PostBatchResponse actual = searchClient.getPostsByIds(new PostBatchRequest(List.of(1L, 2L)))
+        .block();
+
+    // then
+    assertEquals("{\"ids\":[1,2]}", requestBody.get());
+    assertEquals(List.of(1L, 2L), actual.getMissingIds());
+  }
+
+  @Test
+  void searchComments_ThrowsSearchBackendTimeoutException_WhenBackendIsTooSlow() {
+    // given
+    PageRequest pageRequest = PageRequest.of(0, 10);
+
+    // when then
+    assertThrows(SearchBackendTimeoutException.class,
+        () -> searchClient.searchComments("Serbia", pageRequest).block());
+  }
+
+  @Test
+  void searchSubreddits_ThrowsSearchBackendUnavailableException_WhenBackendIsDown() {
+    // given
+    PageRequest pageRequest = PageRequest.of(0, 10);
+
+    // when then
+    assertThrows(SearchBackendUnavailableException.class,
+        () -> searchClient.searchSubreddits("Serbia", pageRequest).block());
+  }
+
+  private void respond(HttpExchange exchange, String body) throws IOException {
+    requestUri.set(exchange.getRequestURI().toString());
+    requestBody.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "application/json");
+    exchange.sendResponseHeaders(200, bytes.length);
+    try (OutputStream outputStream = exchange.getResponseBody()) {
+      outputStream.write(bytes);
+    }
+  }
+}
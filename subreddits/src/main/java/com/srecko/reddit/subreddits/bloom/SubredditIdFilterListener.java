@@ -0,0 +1,49 @@
+package com.srecko.reddit.subreddits.bloom;
+
+import com.srecko.reddit.subreddits.entity.Subreddit;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * The type Subreddit id filter listener. Reports every inserted and deleted subreddit to the
+ * subreddit id filter, whichever code path wrote it.
+ *
+ * @author Srecko Nikolic
+ */
+@Component
+public class SubredditIdFilterListener {
+
+  private final SubredditIdFilter subredditIdFilter;
+
+  /**
+   * Instantiates a new Subreddit id filter listener.
+   *
+   * @param subredditIdFilter the subreddit id filter
+   */
+  @Autowired
+  public SubredditIdFilterListener(SubredditIdFilter subredditIdFilter) {
+    this.subredditIdFilter = subredditIdFilter;
+  }
+
+  /**
+   * Adds an inserted subreddit to the filter.
+   *
+   * @param subreddit the subreddit
+   */
+  @PostPersist
+  public void onPersist(Subreddit subreddit) {
+    subredditIdFilter.add(subreddit.getId());
+  }
+
+  /**
+   * Reports a deleted subreddit to the filter.
+   *
+   * @param subreddit the subreddit
+   */
+  @PostRemove
+  public void onRemove(Subreddit subreddit) {
+    subredditIdFilter.remove(subreddit.getId());
+  }
+}
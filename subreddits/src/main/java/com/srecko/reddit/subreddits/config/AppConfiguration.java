@@ -1,25 +0,0 @@
-package com.srecko.reddit.subreddits.config;
-
-import org.modelmapper.ModelMapper;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
-
-/**
- * The type App configuration.
- *
- * @author Srecko Nikolic
- */
-@Configuration
-public class AppConfiguration {
-
-  /**
-   * Model mapper model mapper.
-   *
-   * @return the model mapper
-   */
-  @Bean
-  public ModelMapper modelMapper() {
-    return new ModelMapper();
-  }
-
-}
@@ -0,0 +1,66 @@
+package com.srecko.reddit.subreddits.config;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The type Virtual threads. Creates executors that start a virtual thread per task on runtimes
+ * that have them. The service is built for Java 17, so the factory method is looked up when the
+ * class is loaded and callers keep platform threads where it is missing.
+ *
+ * <p>Virtual threads that block while holding a monitor pin their carrier thread. To find where,
+ * start the JVM with <code>-Djdk.tracePinnedThreads=short</code>, which prints every such
+ * blocking with the frames holding the monitor. It is left off by default, as it prints to
+ * standard out.
+ *
+ * @author Srecko Nikolic
+ */
+public final class VirtualThreads {
+
+  private static final MethodHandle NEW_PER_TASK_EXECUTOR = findPerTaskExecutor();
+
+  private VirtualThreads() {
+  }
+
+  /**
+   * Checks if the runtime can start virtual threads.
+   *
+   * @return whether virtual threads are supported
+   */
+  public static boolean isSupported() {
+    return NEW_PER_TASK_EXECUTOR != null;
+  }
+
+  /**
+   * Creates an executor that starts a new virtual thread for every task.
+   *
+   * @return the executor
+   * @throws UnsupportedOperationException when the runtime has no virtual threads
+   */
+  public static ExecutorService newPerTaskExecutor() {
+    if (NEW_PER_TASK_EXECUTOR == null) {
+      throw new UnsupportedOperationException(
+          "Virtual threads are not supported by Java " + Runtime.version().feature());
+    }
+    try {
+      return (ExecutorService) NEW_PER_TASK_EXECUTOR.invoke();
+    } catch (Throwable e) {
+      throw new IllegalStateException("Failed to create a virtual thread executor", e);
+    }
+  }
+
+  private static MethodHandle findPerTaskExecutor() {
+    try {
+      MethodHandle handle = MethodHandles.publicLookup().findStatic(Executors.class,
+          "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+      // Java 19 and 20 only run it with preview features enabled.
+      ((ExecutorService) handle.invoke()).shutdown();
+      return handle;
+    } catch (Throwable e) {
+      return null;
+    }
+  }
+}
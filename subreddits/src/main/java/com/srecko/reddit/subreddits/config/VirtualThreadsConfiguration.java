@@ -0,0 +1,62 @@
+package com.srecko.reddit.subreddits.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.TaskExecutorBuilder;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+
+/**
+ * The type Virtual threads configuration. Runs servlet requests, and with them the feign calls
+ * they make, as well as <code>@Async</code> work on virtual threads. It is switched on by the
+ * <code>virtual-threads</code> profile and keeps platform threads on runtimes without virtual
+ * threads.
+ *
+ * @author Srecko Nikolic
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "subreddits.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadsConfiguration {
+
+  private static final Logger logger = LogManager.getLogger(VirtualThreadsConfiguration.class);
+
+  /**
+   * Makes Tomcat run every request on a new virtual thread.
+   *
+   * @return the tomcat protocol handler customizer
+   */
+  @Bean
+  public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadsProtocolHandler() {
+    return protocolHandler -> {
+      if (VirtualThreads.isSupported()) {
+        protocolHandler.setExecutor(VirtualThreads.newPerTaskExecutor());
+        logger.info("Serving requests on virtual threads");
+      } else {
+        logger.warn("Virtual threads are not supported by Java {}, serving requests on platform "
+            + "threads", Runtime.version().feature());
+      }
+    };
+  }
+
+  /**
+   * Application task executor that runs <code>@Async</code> methods on virtual threads.
+   *
+   * @param taskExecutorBuilder the task executor builder used without virtual threads
+   * @return the async task executor
+   */
+  @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+      AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+  public AsyncTaskExecutor applicationTaskExecutor(TaskExecutorBuilder taskExecutorBuilder) {
+    if (VirtualThreads.isSupported()) {
+      return new TaskExecutorAdapter(VirtualThreads.newPerTaskExecutor());
+    }
+    return taskExecutorBuilder.build();
+  }
+}
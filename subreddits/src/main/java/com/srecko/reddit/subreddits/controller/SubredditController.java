@@ -6,10 +6,12 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 import com.srecko.reddit.subreddits.assembler.SubredditModelAssembler;
 import com.srecko.reddit.subreddits.dto.SubredditDto;
 import com.srecko.reddit.subreddits.dto.SubredditRequest;
+import com.srecko.reddit.subreddits.dto.SubscriptionDto;
 import com.srecko.reddit.subreddits.exception.DtoValidationException;
 import com.srecko.reddit.subreddits.service.SubredditService;
 import jakarta.validation.Valid;
 import java.net.URI;
+import java.util.List;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,6 +33,7 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
@@ -163,6 +166,48 @@ public class SubredditController {
     subredditService.checkIfExists(subredditId);
   }
 
+  /**
+   * Subscribes the current user to a subreddit.
+   *
+   * @param subredditId the subreddit id
+   * @return the subreddit
+   */
+  @PostMapping("/{subredditId}/subscription")
+  public ResponseEntity<EntityModel<SubredditDto>> subscribe(
+      @PathVariable("subredditId") Long subredditId) {
+    SubredditDto subreddit = subredditService.subscribe(subredditId);
+    logger.info("Subscribed to subreddit with id: {}", subredditId);
+    return ResponseEntity.ok(subredditModelAssembler.toModel(subreddit));
+  }
+
+  /**
+   * Unsubscribes the current user from a subreddit.
+   *
+   * @param subredditId the subreddit id
+   * @return the subreddit
+   */
+  @DeleteMapping("/{subredditId}/subscription")
+  public ResponseEntity<EntityModel<SubredditDto>> unsubscribe(
+      @PathVariable("subredditId") Long subredditId) {
+    SubredditDto subreddit = subredditService.unsubscribe(subredditId);
+    logger.info("Unsubscribed from subreddit with id: {}", subredditId);
+    return ResponseEntity.ok(subredditModelAssembler.toModel(subreddit));
+  }
+
+  /**
+   * Gets the subscriptions of a user.
+   *
+   * @param userId the user id
+   * @return the subscriptions
+   */
+  @GetMapping("/subscriptions/{userId}")
+  public ResponseEntity<List<SubscriptionDto>> getSubscriptions(
+      @PathVariable("userId") Long userId) {
+    List<SubscriptionDto> subscriptions = subredditService.getSubscriptions(userId);
+    logger.info("Returning {} subscriptions of user: {}", subscriptions.size(), userId);
+    return ResponseEntity.ok(subscriptions);
+  }
+
   /**
    * Search subreddits paged model.
    *
@@ -181,4 +226,18 @@ public class SubredditController {
     logger.info("Returning a page {}/{} of users", page.getNumber(), page.getTotalPages());
     return pagedModel;
   }
+
+  /**
+   * Gets the subreddits the search service indexes, read page after page in increasing id order.
+   *
+   * @param afterId the id the subreddits follow
+   * @param limit   the number of subreddits at most
+   * @return the subreddits
+   */
+  @GetMapping("/search-index")
+  public ResponseEntity<List<SubredditDto>> getIndexDocuments(
+      @RequestParam(value = "afterId", defaultValue = "0") Long afterId,
+      @RequestParam(value = "limit", defaultValue = "1000") int limit) {
+    return ResponseEntity.ok(subredditService.getIndexDocuments(afterId, limit));
+  }
 }
@@ -0,0 +1,17 @@
+package com.srecko.reddit.subreddits.dto;
+
+/**
+ * The enum Index event type.
+ *
+ * @author Srecko Nikolic
+ */
+public enum IndexEventType {
+  /**
+   * A document was created or changed.
+   */
+  UPSERT,
+  /**
+   * A document was deleted.
+   */
+  DELETE
+}
@@ -28,6 +28,26 @@ public class SubredditDto {
   public SubredditDto() {
   }
 
+  /**
+   * Instantiates a new Subreddit dto. Used by the projection queries of the subreddit repository.
+   *
+   * @param id            the id
+   * @param name          the name
+   * @param description   the description
+   * @param createdDate   the created date
+   * @param numberOfUsers the number of users
+   * @param creatorId     the creator id
+   */
+  public SubredditDto(Long id, String name, String description, Date createdDate,
+      int numberOfUsers, Long creatorId) {
+    this.id = id;
+    this.name = name;
+    this.description = description;
+    this.createdDate = createdDate;
+    this.numberOfUsers = numberOfUsers;
+    this.creatorId = creatorId;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
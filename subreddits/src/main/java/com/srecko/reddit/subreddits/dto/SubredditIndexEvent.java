@@ -0,0 +1,89 @@
+package com.srecko.reddit.subreddits.dto;
+
+/**
+ * The type Subreddit index event. A change of a subreddit sent to the search service. Deletions only carry
+ * the id.
+ *
+ * @author Srecko Nikolic
+ */
+public class SubredditIndexEvent {
+
+  private IndexEventType type;
+
+  private Long id;
+
+  private SubredditDto document;
+
+  /**
+   * Instantiates a new Subreddit index event.
+   */
+  public SubredditIndexEvent() {
+  }
+
+  /**
+   * Instantiates a new Subreddit index event.
+   *
+   * @param type     the type
+   * @param id       the id
+   * @param document the document
+   */
+  public SubredditIndexEvent(IndexEventType type, Long id, SubredditDto document) {
+    this.type = type;
+    this.id = id;
+    this.document = document;
+  }
+
+  /**
+   * Gets type.
+   *
+   * @return the type
+   */
+  public IndexEventType getType() {
+    return type;
+  }
+
+  /**
+   * Sets type.
+   *
+   * @param type the type
+   */
+  public void setType(IndexEventType type) {
+    this.type = type;
+  }
+
+  /**
+   * Gets id.
+   *
+   * @return the id
+   */
+  public Long getId() {
+    return id;
+  }
+
+  /**
+   * Sets id.
+   *
+   * @param id the id
+   */
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  /**
+   * Gets document.
+   *
+   * @return the document
+   */
+  public SubredditDto getDocument() {
+    return document;
+  }
+
+  /**
+   * Sets document.
+   *
+   * @param document the document
+   */
+  public void setDocument(SubredditDto document) {
+    this.document = document;
+  }
+}
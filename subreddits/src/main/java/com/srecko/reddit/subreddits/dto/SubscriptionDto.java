@@ -0,0 +1,87 @@
+package com.srecko.reddit.subreddits.dto;
+
+import java.util.Objects;
+
+/**
+ * The type Subscription dto. Carries the size of the subreddit along with its id, so readers of
+ * a subscription list can tell small subreddits from huge ones without loading them.
+ *
+ * @author Srecko Nikolic
+ */
+public class SubscriptionDto {
+
+  private Long subredditId;
+
+  private int numberOfUsers;
+
+  /**
+   * Instantiates a new Subscription dto.
+   */
+  public SubscriptionDto() {
+  }
+
+  /**
+   * Instantiates a new Subscription dto. Used by the projection queries of the subscription
+   * repository.
+   *
+   * @param subredditId   the subreddit id
+   * @param numberOfUsers the number of users
+   */
+  public SubscriptionDto(Long subredditId, int numberOfUsers) {
+    this.subredditId = subredditId;
+    this.numberOfUsers = numberOfUsers;
+  }
+
+  /**
+   * Gets subreddit id.
+   *
+   * @return the subreddit id
+   */
+  public Long getSubredditId() {
+    return subredditId;
+  }
+
+  /**
+   * Sets subreddit id.
+   *
+   * @param subredditId the subreddit id
+   */
+  public void setSubredditId(Long subredditId) {
+    this.subredditId = subredditId;
+  }
+
+  /**
+   * Gets number of users.
+   *
+   * @return the number of users
+   */
+  public int getNumberOfUsers() {
+    return numberOfUsers;
+  }
+
+  /**
+   * Sets number of users.
+   *
+   * @param numberOfUsers the number of users
+   */
+  public void setNumberOfUsers(int numberOfUsers) {
+    this.numberOfUsers = numberOfUsers;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    SubscriptionDto that = (SubscriptionDto) o;
+    return numberOfUsers == that.numberOfUsers && Objects.equals(subredditId, that.subredditId);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(subredditId, numberOfUsers);
+  }
+}
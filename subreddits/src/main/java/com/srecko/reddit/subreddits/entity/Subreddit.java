@@ -1,6 +1,9 @@
 package com.srecko.reddit.subreddits.entity;
 
+import com.srecko.reddit.subreddits.bloom.SubredditIdFilterListener;
+import com.srecko.reddit.subreddits.searchindex.SubredditIndexListener;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
@@ -15,6 +18,7 @@ import java.util.Date;
  * @author Srecko Nikolic
  */
 @Entity
+@EntityListeners({SubredditIdFilterListener.class, SubredditIndexListener.class})
 @Table(name = "subreddits")
 public class Subreddit {
 
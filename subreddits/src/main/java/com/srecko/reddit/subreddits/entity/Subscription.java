@@ -0,0 +1,124 @@
+package com.srecko.reddit.subreddits.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.validation.constraints.NotNull;
+import java.util.Date;
+
+/**
+ * The type Subscription. Links a user to a subreddit they follow.
+ *
+ * @author Srecko Nikolic
+ */
+@Entity
+@Table(name = "subscriptions",
+    uniqueConstraints = @UniqueConstraint(name = "uk_subscriptions_user_subreddit",
+        columnNames = {"userId", "subredditId"}),
+    indexes = @Index(name = "idx_subscriptions_subreddit", columnList = "subredditId"))
+public class Subscription {
+
+  @Id
+  @GeneratedValue
+  private Long id;
+
+  @NotNull
+  private Long userId;
+
+  @NotNull
+  private Long subredditId;
+
+  private Date dateOfSubscription = new Date();
+
+  /**
+   * Instantiates a new Subscription.
+   */
+  public Subscription() {
+  }
+
+  /**
+   * Instantiates a new Subscription.
+   *
+   * @param userId      the user id
+   * @param subredditId the subreddit id
+   */
+  public Subscription(Long userId, Long subredditId) {
+    this.userId = userId;
+    this.subredditId = subredditId;
+  }
+
+  /**
+   * Gets id.
+   *
+   * @return the id
+   */
+  public Long getId() {
+    return id;
+  }
+
+  /**
+   * Sets id.
+   *
+   * @param id the id
+   */
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  /**
+   * Gets user id.
+   *
+   * @return the user id
+   */
+  public Long getUserId() {
+    return userId;
+  }
+
+  /**
+   * Sets user id.
+   *
+   * @param userId the user id
+   */
+  public void setUserId(Long userId) {
+    this.userId = userId;
+  }
+
+  /**
+   * Gets subreddit id.
+   *
+   * @return the subreddit id
+   */
+  public Long getSubredditId() {
+    return subredditId;
+  }
+
+  /**
+   * Sets subreddit id.
+   *
+   * @param subredditId the subreddit id
+   */
+  public void setSubredditId(Long subredditId) {
+    this.subredditId = subredditId;
+  }
+
+  /**
+   * Gets date of subscription.
+   *
+   * @return the date of subscription
+   */
+  public Date getDateOfSubscription() {
+    return dateOfSubscription;
+  }
+
+  /**
+   * Sets date of subscription.
+   *
+   * @param dateOfSubscription the date of subscription
+   */
+  public void setDateOfSubscription(Date dateOfSubscription) {
+    this.dateOfSubscription = dateOfSubscription;
+  }
+}
@@ -40,6 +40,20 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         HttpStatus.NOT_FOUND);
   }
 
+  /**
+   * Handle subscription not found exception response entity.
+   *
+   * @param exception the exception
+   * @return the response entity
+   */
+  @ExceptionHandler(SubscriptionNotFoundException.class)
+  public ResponseEntity<?> handleSubscriptionNotFoundException(
+      SubscriptionNotFoundException exception) {
+    logger.debug("Handling {}", SubscriptionNotFoundException.class);
+    return new ResponseEntity<>(new ExceptionResponse(exception.getMessage(), LocalDateTime.now()),
+        HttpStatus.NOT_FOUND);
+  }
+
   /**
    * Handle dto validation exception response entity.
    *
@@ -0,0 +1,26 @@
+package com.srecko.reddit.subreddits.exception;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The type Subscription not found exception.
+ *
+ * @author Srecko Nikolic
+ */
+public class SubscriptionNotFoundException extends RuntimeException {
+
+  private static final Logger logger = LogManager.getLogger(SubscriptionNotFoundException.class);
+
+  /**
+   * Instantiates a new Subscription not found exception.
+   *
+   * @param userId      the user id
+   * @param subredditId the subreddit id
+   */
+  public SubscriptionNotFoundException(Long userId, Long subredditId) {
+    super("User with id " + userId + " is not subscribed to subreddit with id " + subredditId
+        + ".");
+    logger.error("Subscription not found: user {}, subreddit {}", userId, subredditId);
+  }
+}
@@ -0,0 +1,22 @@
+package com.srecko.reddit.subreddits.mapper;
+
+import com.srecko.reddit.subreddits.dto.SubredditDto;
+import com.srecko.reddit.subreddits.entity.Subreddit;
+import org.mapstruct.Mapper;
+
+/**
+ * The interface Subreddit mapper.
+ *
+ * @author Srecko Nikolic
+ */
+@Mapper(componentModel = "spring")
+public interface SubredditMapper {
+
+  /**
+   * Maps a subreddit to a subreddit dto.
+   *
+   * @param subreddit the subreddit
+   * @return the subreddit dto
+   */
+  SubredditDto toDto(Subreddit subreddit);
+}
@@ -1,10 +1,15 @@
 package com.srecko.reddit.subreddits.repository;
 
+import com.srecko.reddit.subreddits.dto.SubredditDto;
 import com.srecko.reddit.subreddits.entity.Subreddit;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -18,11 +23,51 @@ public interface SubredditRepository extends JpaRepository<Subreddit, Long> {
   Optional<Subreddit> findById(Long id);
 
   /**
-   * Find by name containing page.
+   * Selects subreddits straight into subreddit dtos, so read only listings skip entity hydration,
+   * dirty checking snapshots and mapping.
+   */
+  String SELECT_SUBREDDIT_DTO = "select new com.srecko.reddit.subreddits.dto.SubredditDto(s.id, "
+      + "s.name, s.description, s.createdDate, s.numberOfUsers, s.creatorId) from Subreddit s ";
+
+  /**
+   * Find all subreddit dtos page.
+   *
+   * @param pageable the pageable
+   * @return the page
+   */
+  @Query(value = SELECT_SUBREDDIT_DTO, countQuery = "select count(s) from Subreddit s")
+  Page<SubredditDto> findAllSubredditDtos(Pageable pageable);
+
+  /**
+   * Find subreddit dtos by name containing ignore case page.
    *
    * @param query    the query
    * @param pageable the pageable
    * @return the page
    */
-  Page<Subreddit> findByNameContainingIgnoreCase(String query, Pageable pageable);
-}
\ No newline at end of file
+  @Query(value = SELECT_SUBREDDIT_DTO + "where locate(upper(:query), upper(s.name)) > 0",
+      countQuery = "select count(s) from Subreddit s "
+          + "where locate(upper(:query), upper(s.name)) > 0")
+  Page<SubredditDto> findSubredditDtosByNameContaining(@Param("query") String query,
+      Pageable pageable);
+
+  /**
+   * Adds a delta to the number of users of a subreddit.
+   *
+   * @param id    the id
+   * @param delta the delta
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("update Subreddit s set s.numberOfUsers = s.numberOfUsers + :delta where s.id = :id")
+  void updateNumberOfUsers(@Param("id") Long id, @Param("delta") int delta);
+
+  /**
+   * Find subreddit dtos with an id greater than the given one, in increasing id order.
+   *
+   * @param afterId  the id the subreddits follow
+   * @param pageable the pageable
+   * @return the list
+   */
+  @Query(SELECT_SUBREDDIT_DTO + "where s.id > :afterId order by s.id")
+  List<SubredditDto> findSubredditDtosByIdGreaterThan(@Param("afterId") Long afterId, Pageable pageable);
+}
@@ -0,0 +1,59 @@
+package com.srecko.reddit.subreddits.repository;
+
+import com.srecko.reddit.subreddits.dto.SubscriptionDto;
+import com.srecko.reddit.subreddits.entity.Subscription;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * The interface Subscription repository.
+ *
+ * @author Srecko Nikolic
+ */
+@Repository
+public interface SubscriptionRepository extends JpaRepository<Subscription, Long> {
+
+  /**
+   * Exists by user id and subreddit id boolean.
+   *
+   * @param userId      the user id
+   * @param subredditId the subreddit id
+   * @return the boolean
+   */
+  boolean existsByUserIdAndSubredditId(Long userId, Long subredditId);
+
+  /**
+   * Delete by user id and subreddit id.
+   *
+   * @param userId      the user id
+   * @param subredditId the subreddit id
+   * @return the number of deleted subscriptions
+   */
+  @Modifying
+  @Query("delete from Subscription s where s.userId = :userId and s.subredditId = :subredditId")
+  int deleteByUserIdAndSubredditId(@Param("userId") Long userId,
+      @Param("subredditId") Long subredditId);
+
+  /**
+   * Delete by subreddit id.
+   *
+   * @param subredditId the subreddit id
+   */
+  @Modifying
+  @Query("delete from Subscription s where s.subredditId = :subredditId")
+  void deleteBySubredditId(@Param("subredditId") Long subredditId);
+
+  /**
+   * Find subscription dtos of a user, with the current size of every subreddit.
+   *
+   * @param userId the user id
+   * @return the list
+   */
+  @Query("select new com.srecko.reddit.subreddits.dto.SubscriptionDto(r.id, r.numberOfUsers) "
+      + "from Subscription s join Subreddit r on r.id = s.subredditId where s.userId = :userId")
+  List<SubscriptionDto> findSubscriptionDtosByUserId(@Param("userId") Long userId);
+}
@@ -0,0 +1,51 @@
+package com.srecko.reddit.subreddits.searchindex;
+
+import com.srecko.reddit.subreddits.entity.Subreddit;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * The type Subreddit index listener. Reports every inserted, updated and deleted subreddit to the search
+ * index publisher, whichever code path wrote it.
+ *
+ * @author Srecko Nikolic
+ */
+@Component
+public class SubredditIndexListener {
+
+  private final SubredditIndexPublisher subredditIndexPublisher;
+
+  /**
+   * Instantiates a new Subreddit index listener.
+   *
+   * @param subredditIndexPublisher the subreddit index publisher
+   */
+  @Autowired
+  public SubredditIndexListener(SubredditIndexPublisher subredditIndexPublisher) {
+    this.subredditIndexPublisher = subredditIndexPublisher;
+  }
+
+  /**
+   * Publishes an inserted or updated subreddit.
+   *
+   * @param subreddit the subreddit
+   */
+  @PostPersist
+  @PostUpdate
+  public void onSave(Subreddit subreddit) {
+    subredditIndexPublisher.onSubredditSaved(subreddit);
+  }
+
+  /**
+   * Publishes a deleted subreddit.
+   *
+   * @param subreddit the subreddit
+   */
+  @PostRemove
+  public void onRemove(Subreddit subreddit) {
+    subredditIndexPublisher.onSubredditDeleted(subreddit.getId());
+  }
+}
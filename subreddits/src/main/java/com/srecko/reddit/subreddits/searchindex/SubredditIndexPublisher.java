@@ -0,0 +1,185 @@
+package com.srecko.reddit.subreddits.searchindex;
+
+import com.srecko.reddit.subreddits.dto.IndexEventType;
+import com.srecko.reddit.subreddits.dto.SubredditIndexEvent;
+import com.srecko.reddit.subreddits.entity.Subreddit;
+import com.srecko.reddit.subreddits.mapper.SubredditMapper;
+import com.srecko.reddit.subreddits.service.client.SearchFeignClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * The type Subreddit index publisher. Sends subreddit changes to the search service in batches, off the
+ * request thread. Changes are queued once their transaction commits, and only the latest change
+ * of a subreddit is kept, so a subreddit edited many times between two flushes is sent once. Changes that
+ * could not be sent are retried on the next flush. Once more than
+ * <code>subreddits.search-index.max-pending</code> subreddits are waiting, further changes are dropped and
+ * left to the periodic resync of the search index.
+ *
+ * @author Srecko Nikolic
+ */
+@Component
+public class SubredditIndexPublisher {
+
+  private final SearchFeignClient searchFeignClient;
+  private final SubredditMapper subredditMapper;
+  private final boolean enabled;
+  private final int batchSize;
+  private final int maxPending;
+  private final Counter published;
+  private final Counter dropped;
+  private final Counter failures;
+
+  private final Map<Long, SubredditIndexEvent> pending = new ConcurrentHashMap<>();
+  private final ReentrantLock flushLock = new ReentrantLock();
+
+  private static final Logger logger = LogManager.getLogger(SubredditIndexPublisher.class);
+
+  /**
+   * Instantiates a new Subreddit index publisher.
+   *
+   * @param searchFeignClient the search feign client, resolved on first use
+   * @param subredditMapper        the subreddit mapper
+   * @param meterRegistry     the meter registry
+   * @param enabled           whether changes are sent to the search service
+   * @param batchSize         the number of changes sent in one request at most
+   * @param maxPending        the number of subreddits with a change waiting to be sent at most
+   */
+  @Autowired
+  public SubredditIndexPublisher(@Lazy SearchFeignClient searchFeignClient, SubredditMapper subredditMapper,
+      MeterRegistry meterRegistry,
+      @Value("${subreddits.search-index.enabled:true}") boolean enabled,
+      @Value("${subreddits.search-index.batch-size:500}") int batchSize,
+      @Value("${subreddits.search-index.max-pending:100000}") int maxPending) {
+    this.searchFeignClient = searchFeignClient;
+    this.subredditMapper = subredditMapper;
+    this.enabled = enabled;
+    this.batchSize = batchSize;
+    this.maxPending = maxPending;
+    this.published = Counter.builder("subreddits.search-index.published")
+        .description("Subreddit changes sent to the search service")
+        .register(meterRegistry);
+    this.dropped = Counter.builder("subreddits.search-index.dropped")
+        .description("Subreddit changes dropped because too many were waiting")
+        .register(meterRegistry);
+    this.failures = Counter.builder("subreddits.search-index.failures")
+        .description("Failed attempts to send subreddit changes to the search service")
+        .register(meterRegistry);
+    Gauge.builder("subreddits.search-index.pending", pending, Map::size)
+        .description("Subreddits with a change waiting to be sent to the search service")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Queues an inserted or updated subreddit.
+   *
+   * @param subreddit the subreddit
+   */
+  public void onSubredditSaved(Subreddit subreddit) {
+    if (enabled) {
+      SubredditIndexEvent event = new SubredditIndexEvent(IndexEventType.UPSERT, subreddit.getId(),
+          subredditMapper.toDto(subreddit));
+      afterCommit(() -> offer(event));
+    }
+  }
+
+  /**
+   * Queues a deleted subreddit.
+   *
+   * @param subredditId the subreddit id
+   */
+  public void onSubredditDeleted(Long subredditId) {
+    if (enabled) {
+      SubredditIndexEvent event = new SubredditIndexEvent(IndexEventType.DELETE, subredditId, null);
+      afterCommit(() -> offer(event));
+    }
+  }
+
+  /**
+   * Sends all queued changes. Changes that could not be sent are kept for the next flush.
+   */
+  @Scheduled(fixedDelayString = "${subreddits.search-index.flush-interval:1000}")
+  public void flush() {
+    flushLock.lock();
+    try {
+      while (!pending.isEmpty()) {
+        List<SubredditIndexEvent> batch = drain();
+        try {
+          searchFeignClient.indexSubreddits(batch);
+        } catch (RuntimeException e) {
+          failures.increment();
+          logger.warn("Failed to send {} subreddit changes to search, retrying on the next flush: {}",
+              batch.size(), e.getMessage());
+          // A newer change queued in the meantime wins over the one that failed
+          batch.forEach(event -> pending.putIfAbsent(event.getId(), event));
+          return;
+        }
+        published.increment(batch.size());
+      }
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  /**
+   * Sends queued changes before the application stops.
+   */
+  @PreDestroy
+  public void flushOnShutdown() {
+    logger.info("Sending pending subreddit changes to search before shutdown");
+    flush();
+  }
+
+  private void offer(SubredditIndexEvent event) {
+    if (pending.size() >= maxPending && !pending.containsKey(event.getId())) {
+      dropped.increment();
+      logger.warn("Too many subreddit changes waiting for search, dropping the change of subreddit {}",
+          event.getId());
+      return;
+    }
+    pending.put(event.getId(), event);
+  }
+
+  private List<SubredditIndexEvent> drain() {
+    List<SubredditIndexEvent> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+    for (Long subredditId : pending.keySet()) {
+      if (batch.size() == batchSize) {
+        break;
+      }
+      SubredditIndexEvent event = pending.remove(subredditId);
+      if (event != null) {
+        batch.add(event);
+      }
+    }
+    return batch;
+  }
+
+  private void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          action.run();
+        }
+      });
+    } else {
+      action.run();
+    }
+  }
+}
@@ -2,6 +2,8 @@ package com.srecko.reddit.subreddits.service;
 
 import com.srecko.reddit.subreddits.dto.SubredditDto;
 import com.srecko.reddit.subreddits.dto.SubredditRequest;
+import com.srecko.reddit.subreddits.dto.SubscriptionDto;
+import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -67,4 +69,38 @@ public interface SubredditService {
    * @return the page
    */
   Page<SubredditDto> search(String query, Pageable pageable);
+
+  /**
+   * Subscribes the current user to a subreddit. Subscribing again changes nothing.
+   *
+   * @param subredditId the subreddit id
+   * @return the subreddit
+   */
+  SubredditDto subscribe(Long subredditId);
+
+  /**
+   * Unsubscribes the current user from a subreddit.
+   *
+   * @param subredditId the subreddit id
+   * @return the subreddit
+   */
+  SubredditDto unsubscribe(Long subredditId);
+
+  /**
+   * Gets the subscriptions of a user.
+   *
+   * @param userId the user id
+   * @return the subscriptions
+   */
+  List<SubscriptionDto> getSubscriptions(Long userId);
+
+  /**
+   * Gets the subreddits the search service indexes, the ones with an id greater than the given one in
+   * increasing id order.
+   *
+   * @param afterId the id the subreddits follow
+   * @param limit   the number of subreddits at most
+   * @return the subreddits
+   */
+  List<SubredditDto> getIndexDocuments(Long afterId, int limit);
 }
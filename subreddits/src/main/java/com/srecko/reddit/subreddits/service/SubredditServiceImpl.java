@@ -1,26 +1,34 @@
 package com.srecko.reddit.subreddits.service;
 
 import com.srecko.reddit.subreddits.assembler.PageRequestAssembler;
+import com.srecko.reddit.subreddits.bloom.SubredditIdFilter;
 import com.srecko.reddit.subreddits.dto.SubredditDto;
-import com.srecko.reddit.subreddits.dto.SubredditDtoMapper;
 import com.srecko.reddit.subreddits.dto.SubredditRequest;
+import com.srecko.reddit.subreddits.dto.SubscriptionDto;
 import com.srecko.reddit.subreddits.entity.Subreddit;
+import com.srecko.reddit.subreddits.entity.Subscription;
 import com.srecko.reddit.subreddits.exception.SubredditNotFoundException;
+import com.srecko.reddit.subreddits.exception.SubscriptionNotFoundException;
+import com.srecko.reddit.subreddits.mapper.SubredditMapper;
 import com.srecko.reddit.subreddits.repository.SubredditRepository;
-import com.srecko.reddit.subreddits.service.client.UsersFeignClient;
+import com.srecko.reddit.subreddits.repository.SubscriptionRepository;
+import com.srecko.reddit.subreddits.service.client.UserIdResolver;
 import java.util.List;
 import java.util.Optional;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * The type Subreddit service.
@@ -32,42 +40,57 @@ import org.springframework.transaction.annotation.Transactional;
 public class SubredditServiceImpl implements SubredditService {
 
   private final SubredditRepository subredditRepository;
-  private final UsersFeignClient usersFeignClient;
-  private final ModelMapper modelMapper;
+  private final SubscriptionRepository subscriptionRepository;
+  private final UserIdResolver userIdResolver;
+  private final SubredditMapper subredditMapper;
+  private final SubredditIdFilter subredditIdFilter;
+  private final TransactionTemplate transactionTemplate;
+
+  private static final int MAX_INDEX_DOCUMENTS = 5000;
 
   private static final Logger logger = LogManager.getLogger(SubredditServiceImpl.class);
 
   /**
    * Instantiates a new Subreddit service.
    *
-   * @param subredditRepository the subreddit repository
-   * @param usersFeignClient    the users feign client
-   * @param modelMapper         the model mapper
+   * @param subredditRepository    the subreddit repository
+   * @param subscriptionRepository the subscription repository
+   * @param userIdResolver         the user id resolver
+   * @param subredditMapper        the subreddit mapper
+   * @param subredditIdFilter      the subreddit id filter
+   * @param transactionManager     the transaction manager
    */
   @Autowired
   public SubredditServiceImpl(SubredditRepository subredditRepository,
-      UsersFeignClient usersFeignClient,
-      ModelMapper modelMapper) {
+      SubscriptionRepository subscriptionRepository,
+      UserIdResolver userIdResolver,
+      SubredditMapper subredditMapper,
+      SubredditIdFilter subredditIdFilter,
+      PlatformTransactionManager transactionManager) {
     this.subredditRepository = subredditRepository;
-    this.usersFeignClient = usersFeignClient;
-    this.modelMapper = modelMapper;
+    this.subscriptionRepository = subscriptionRepository;
+    this.userIdResolver = userIdResolver;
+    this.subredditMapper = subredditMapper;
+    this.subredditIdFilter = subredditIdFilter;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
   }
 
   @Override
+  @Transactional(readOnly = true)
   public Page<SubredditDto> getAll(Pageable pageable) {
     logger.info("Getting all subreddits");
     PageRequest pageRequest = PageRequestAssembler.getPageRequest(pageable, List.of("name"),
         Sort.by(Direction.ASC, "name"));
-    Page<Subreddit> subreddits = subredditRepository.findAll(pageRequest);
-    return SubredditDtoMapper.convertSubreddits(pageable, subreddits, modelMapper);
+    return subredditRepository.findAllSubredditDtos(pageRequest);
   }
 
   @Override
+  @Transactional(readOnly = true)
   public SubredditDto getSubredditById(Long id) {
     logger.info("Getting subreddit: {}", id);
     Optional<Subreddit> subredditOptional = subredditRepository.findById(id);
     if (subredditOptional.isPresent()) {
-      return modelMapper.map(subredditOptional.get(), SubredditDto.class);
+      return subredditMapper.toDto(subredditOptional.get());
     } else {
       throw new SubredditNotFoundException(id);
     }
@@ -78,12 +101,12 @@ public class SubredditServiceImpl implements SubredditService {
     logger.info("Saving subreddit into database");
     /*UserMediator userMediator = (UserMediator) SecurityContextHolder.getContext()
     .getAuthentication().getPrincipal();
-    Long userId = usersFeignClient.getUserId(userMediator.getUsername());*/
-    Long userId = usersFeignClient.getUserId("username");
+    Long userId = userIdResolver.getUserId(userMediator.getUsername());*/
+    Long userId = userIdResolver.getUserId("username");
     Subreddit subreddit =
         new Subreddit(subredditRequest.getName(), subredditRequest.getDescription(), userId);
     subreddit = subredditRepository.save(subreddit);
-    return modelMapper.map(subreddit, SubredditDto.class);
+    return subredditMapper.toDto(subreddit);
   }
 
   @Override
@@ -91,8 +114,9 @@ public class SubredditServiceImpl implements SubredditService {
     logger.info("Deleting subreddit: {}", id);
     Optional<Subreddit> subredditOptional = subredditRepository.findById(id);
     if (subredditOptional.isPresent()) {
+      subscriptionRepository.deleteBySubredditId(id);
       subredditRepository.delete(subredditOptional.get());
-      return modelMapper.map(subredditOptional.get(), SubredditDto.class);
+      return subredditMapper.toDto(subredditOptional.get());
     } else {
       throw new SubredditNotFoundException(id);
     }
@@ -108,7 +132,7 @@ public class SubredditServiceImpl implements SubredditService {
       subreddit.setName(subredditRequest.getName());
       subreddit.setDescription(subredditRequest.getDescription());
       subreddit = subredditRepository.save(subreddit);
-      return modelMapper.map(subreddit, SubredditDto.class);
+      return subredditMapper.toDto(subreddit);
     } else {
       throw new SubredditNotFoundException(subredditRequest.getSubredditId());
     }
@@ -116,19 +140,72 @@ public class SubredditServiceImpl implements SubredditService {
 
   @Override
   public void checkIfExists(Long subredditId) {
+    if (!subredditIdFilter.mightContain(subredditId)) {
+      throw new SubredditNotFoundException(subredditId);
+    }
     Optional<Subreddit> subredditOptional = subredditRepository.findById(subredditId);
     if (subredditOptional.isEmpty()) {
+      subredditIdFilter.recordFalsePositive();
       throw new SubredditNotFoundException(subredditId);
     }
   }
 
   @Override
+  @Transactional(readOnly = true)
   public Page<SubredditDto> search(String query, Pageable pageable) {
     logger.info("Searching for subreddits that match query: {}", query);
     PageRequest pageRequest = PageRequestAssembler.getPageRequest(pageable, List.of("name"),
         Sort.by(Direction.ASC, "name"));
-    Page<Subreddit> users = subredditRepository.findByNameContainingIgnoreCase(query,
-        pageRequest);
-    return SubredditDtoMapper.convertSubreddits(pageable, users, modelMapper);
+    return subredditRepository.findSubredditDtosByNameContaining(query, pageRequest);
+  }
+
+  @Override
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public SubredditDto subscribe(Long subredditId) {
+    checkIfExists(subredditId);
+    Long userId = userIdResolver.getUserId("username");
+    logger.info("Subscribing user {} to subreddit: {}", userId, subredditId);
+    if (!subscriptionRepository.existsByUserIdAndSubredditId(userId, subredditId)) {
+      // Inserted in a transaction of its own, so losing the race on the unique key of
+      // subscriptions rolls back only the insert and the count
+      try {
+        transactionTemplate.executeWithoutResult(status -> {
+          subscriptionRepository.saveAndFlush(new Subscription(userId, subredditId));
+          subredditRepository.updateNumberOfUsers(subredditId, 1);
+        });
+      } catch (DataIntegrityViolationException e) {
+        logger.info("User {} is already subscribed to subreddit: {}", userId, subredditId);
+      }
+    }
+    return getSubredditById(subredditId);
+  }
+
+  @Override
+  public SubredditDto unsubscribe(Long subredditId) {
+    checkIfExists(subredditId);
+    Long userId = userIdResolver.getUserId("username");
+    logger.info("Unsubscribing user {} from subreddit: {}", userId, subredditId);
+    if (subscriptionRepository.deleteByUserIdAndSubredditId(userId, subredditId) == 0) {
+      throw new SubscriptionNotFoundException(userId, subredditId);
+    }
+    subredditRepository.updateNumberOfUsers(subredditId, -1);
+    return getSubredditById(subredditId);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<SubscriptionDto> getSubscriptions(Long userId) {
+    logger.info("Getting subscriptions of user: {}", userId);
+    return subscriptionRepository.findSubscriptionDtosByUserId(userId);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<SubredditDto> getIndexDocuments(Long afterId, int limit) {
+    int size = Math.max(1, Math.min(limit, MAX_INDEX_DOCUMENTS));
+    List<SubredditDto> subreddits = subredditRepository.findSubredditDtosByIdGreaterThan(afterId,
+        PageRequest.of(0, size));
+    logger.info("Returning {} subreddits after id {} to the search index", subreddits.size(), afterId);
+    return subreddits;
   }
 }
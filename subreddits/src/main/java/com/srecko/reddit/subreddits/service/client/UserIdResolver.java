@@ -0,0 +1,159 @@
+package com.srecko.reddit.subreddits.service.client;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import feign.FeignException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * The type User id resolver. Resolves usernames to user ids through the users feign client and
+ * keeps the answers for a while, since the id of a username practically never changes. Unknown
+ * usernames are remembered for a shorter time and answered with the same error the users service
+ * gave. Concurrent lookups of one username share a single call, and other failures, such as the
+ * users service being down, are never cached. The thread that asks first puts an incomplete answer
+ * into the cache and then makes the call itself, after the cache has released its map locks, so a
+ * virtual thread waiting on the users service does not pin its carrier and lookups of other
+ * usernames are not held up. Hit and miss counts are published as the <code>user-ids</code> cache
+ * metrics.
+ *
+ * @author Srecko Nikolic
+ */
+@Component
+public class UserIdResolver {
+
+  /**
+   * The name the cache metrics are published under.
+   */
+  public static final String CACHE_NAME = "user-ids";
+
+  private final UsersFeignClient usersFeignClient;
+  private final AsyncCache<String, Resolution> userIds;
+
+  /**
+   * Instantiates a new User id resolver.
+   *
+   * @param usersFeignClient the users feign client
+   * @param maximumSize      the maximum number of cached usernames
+   * @param ttl              the time a resolved user id is kept
+   * @param negativeTtl      the time an unknown username is kept
+   * @param meterRegistry    the meter registry
+   */
+  @Autowired
+  public UserIdResolver(UsersFeignClient usersFeignClient,
+      @Value("${subreddits.user-ids.maximum-size:10000}") long maximumSize,
+      @Value("${subreddits.user-ids.ttl:PT10M}") Duration ttl,
+      @Value("${subreddits.user-ids.negative-ttl:PT30S}") Duration negativeTtl,
+      MeterRegistry meterRegistry) {
+    this.usersFeignClient = usersFeignClient;
+    this.userIds = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfter(new ResolutionExpiry(ttl, negativeTtl))
+        .recordStats()
+        .executor(Runnable::run)
+        .buildAsync();
+    CaffeineCacheMetrics.monitor(meterRegistry, userIds, CACHE_NAME);
+  }
+
+  /**
+   * Gets user id.
+   *
+   * @param username the username
+   * @return the user id
+   */
+  public Long getUserId(String username) {
+    CompletableFuture<Resolution> future = userIds.getIfPresent(username);
+    if (future == null) {
+      CompletableFuture<Resolution> pending = new CompletableFuture<>();
+      future = userIds.asMap().putIfAbsent(username, pending);
+      if (future == null) {
+        future = pending;
+        resolve(username, pending);
+      }
+    }
+    Resolution resolution;
+    try {
+      resolution = future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+    if (resolution.failure != null) {
+      throw resolution.failure;
+    }
+    return resolution.userId;
+  }
+
+  /**
+   * Forgets a username, so the next lookup asks the users service again.
+   *
+   * @param username the username
+   */
+  public void evict(String username) {
+    userIds.synchronous().invalidate(username);
+  }
+
+  /**
+   * Calls the users service and completes the answer other lookups of the username wait on. A
+   * failed answer is dropped by the cache, so the next lookup calls again.
+   */
+  private void resolve(String username, CompletableFuture<Resolution> pending) {
+    try {
+      pending.complete(new Resolution(usersFeignClient.getUserId(username), null));
+    } catch (FeignException.NotFound | FeignException.Unauthorized e) {
+      // The users service answers unknown usernames with 401.
+      pending.complete(new Resolution(null, e));
+    } catch (RuntimeException | Error e) {
+      userIds.asMap().remove(username, pending);
+      pending.completeExceptionally(e);
+    }
+  }
+
+  private static class Resolution {
+
+    private final Long userId;
+    private final FeignException failure;
+
+    private Resolution(Long userId, FeignException failure) {
+      this.userId = userId;
+      this.failure = failure;
+    }
+  }
+
+  private static class ResolutionExpiry implements Expiry<String, Resolution> {
+
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+
+    private ResolutionExpiry(Duration ttl, Duration negativeTtl) {
+      this.ttlNanos = ttl.toNanos();
+      this.negativeTtlNanos = negativeTtl.toNanos();
+    }
+
+    @Override
+    public long expireAfterCreate(String username, Resolution resolution, long currentTime) {
+      return resolution.failure == null ? ttlNanos : negativeTtlNanos;
+    }
+
+    @Override
+    public long expireAfterUpdate(String username, Resolution resolution, long currentTime,
+        long currentDuration) {
+      return expireAfterCreate(username, resolution, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(String username, Resolution resolution, long currentTime,
+        long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
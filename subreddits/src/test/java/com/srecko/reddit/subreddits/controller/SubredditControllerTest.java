@@ -16,6 +16,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.srecko.reddit.subreddits.dto.SubredditRequest;
 import com.srecko.reddit.subreddits.entity.Subreddit;
 import com.srecko.reddit.subreddits.repository.SubredditRepository;
+import com.srecko.reddit.subreddits.repository.SubscriptionRepository;
 import com.srecko.reddit.subreddits.service.client.UsersFeignClient;
 import java.util.List;
 import org.junit.jupiter.api.AfterEach;
@@ -31,6 +32,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 @TestPropertySource("/application-test.properties")
@@ -47,6 +49,9 @@ class SubredditControllerTest {
   @Autowired
   private SubredditRepository subredditRepository;
 
+  @Autowired
+  private SubscriptionRepository subscriptionRepository;
+
   @MockBean
   private UsersFeignClient usersFeignClient;
 
@@ -57,12 +62,14 @@ class SubredditControllerTest {
 
   @BeforeEach
   void setUp() {
+    subscriptionRepository.deleteAll();
     subredditRepository.deleteAll();
     userId = 123L;
   }
 
   @AfterEach
   void tearDown() {
+    subscriptionRepository.deleteAll();
     subredditRepository.deleteAll();
   }
 
@@ -224,7 +231,7 @@ class SubredditControllerTest {
   @Test
   void checkIfSubredditExists_NothingHappens_WhenSubredditExists() throws Exception {
     Subreddit subreddit = new Subreddit("Serbia", "Serbia's official subreddit", userId);
-    subredditRepository.save(subreddit);
+    subredditRepository.saveAndFlush(subreddit);
 
     mockMvc.perform(MockMvcRequestBuilders.head("/api/subreddits/checkIfSubredditExists")
         .servletPath("/api/subreddits/checkIfSubredditExists")
@@ -277,4 +284,73 @@ class SubredditControllerTest {
         .andExpect(jsonPath("$.page.totalElements", is(0)))
         .andExpect(jsonPath("$.page.totalPages", is(0)));
   }
-}
\ No newline at end of file
+
+  @Test
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  void subscribe_IncreasesNumberOfUsersOnce_WhenSubscribingTwice() throws Exception {
+    Subreddit subreddit = new Subreddit("Serbia", "Serbia's official subreddit", userId);
+    subredditRepository.saveAndFlush(subreddit);
+    given(usersFeignClient.getUserId(anyString())).willReturn(userId);
+
+    for (int i = 0; i < 2; i++) {
+      mockMvc.perform(MockMvcRequestBuilders.post("/api/subreddits/{subredditId}/subscription",
+              subreddit.getId()))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.numberOfUsers", is(1)));
+    }
+
+    mockMvc.perform(MockMvcRequestBuilders.get("/api/subreddits/subscriptions/{userId}", userId))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(1)))
+        .andExpect(jsonPath("$[0].subredditId", is(subreddit.getId().intValue())))
+        .andExpect(jsonPath("$[0].numberOfUsers", is(1)));
+  }
+
+  @Test
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  void unsubscribe_DecreasesNumberOfUsers_WhenSubscribed() throws Exception {
+    Subreddit subreddit = new Subreddit("Serbia", "Serbia's official subreddit", userId);
+    subredditRepository.saveAndFlush(subreddit);
+    given(usersFeignClient.getUserId(anyString())).willReturn(userId);
+    mockMvc.perform(MockMvcRequestBuilders.post("/api/subreddits/{subredditId}/subscription",
+        subreddit.getId()));
+
+    mockMvc.perform(MockMvcRequestBuilders.delete("/api/subreddits/{subredditId}/subscription",
+            subreddit.getId()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.numberOfUsers", is(0)));
+
+    mockMvc.perform(MockMvcRequestBuilders.get("/api/subreddits/subscriptions/{userId}", userId))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(0)));
+  }
+
+  @Test
+  void unsubscribe_Returns404_WhenNotSubscribed() throws Exception {
+    Subreddit subreddit = new Subreddit("Serbia", "Serbia's official subreddit", userId);
+    subredditRepository.saveAndFlush(subreddit);
+    given(usersFeignClient.getUserId(anyString())).willReturn(userId);
+
+    mockMvc.perform(MockMvcRequestBuilders.delete("/api/subreddits/{subredditId}/subscription",
+            subreddit.getId()))
+        .andExpect(status().isNotFound())
+        .andExpect(jsonPath("$.message", containsString("is not subscribed")));
+  }
+
+  @Test
+  void getIndexDocuments_ReturnsSubredditsAfterIdInIdOrder() throws Exception {
+    Subreddit subreddit1 = new Subreddit("Serbia", "Serbia's official subreddit", userId);
+    Subreddit subreddit2 = new Subreddit("United Kingdom", "UK's official subreddit", userId);
+    Subreddit subreddit3 = new Subreddit("France", "France's official subreddit", userId);
+    subredditRepository.saveAll(List.of(subreddit1, subreddit2, subreddit3));
+
+    mockMvc.perform(MockMvcRequestBuilders.get("/api/subreddits/search-index")
+            .header("AUTHORIZATION", "Bearer " + jwt)
+            .param("afterId", String.valueOf(subreddit1.getId()))
+            .param("limit", "1"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(1)))
+        .andExpect(jsonPath("$[0].id", is(subreddit2.getId().intValue())))
+        .andExpect(jsonPath("$[0].name", is("United Kingdom")));
+  }
+}
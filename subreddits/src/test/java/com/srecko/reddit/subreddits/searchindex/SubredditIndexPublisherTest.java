@@ -0,0 +1,141 @@
+package com.srecko.reddit.subreddits.searchindex;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.srecko.reddit.subreddits.dto.IndexEventType;
+import com.srecko.reddit.subreddits.dto.SubredditDto;
+import com.srecko.reddit.subreddits.dto.SubredditIndexEvent;
+import com.srecko.reddit.subreddits.entity.Subreddit;
+import com.srecko.reddit.subreddits.mapper.SubredditMapper;
+import com.srecko.reddit.subreddits.service.client.SearchFeignClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class SubredditIndexPublisherTest {
+
+  private SearchFeignClient searchFeignClient;
+
+  private SubredditMapper subredditMapper;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private SubredditIndexPublisher subredditIndexPublisher;
+
+  @BeforeEach
+  void setUp() {
+    searchFeignClient = mock(SearchFeignClient.class);
+    subredditMapper = mock(SubredditMapper.class);
+    meterRegistry = new SimpleMeterRegistry();
+    subredditIndexPublisher = new SubredditIndexPublisher(searchFeignClient, subredditMapper, meterRegistry,
+        true, 2, 3);
+    given(subredditMapper.toDto(any(Subreddit.class)))
+        .willAnswer(invocation -> {
+          Subreddit subreddit = invocation.getArgument(0);
+          SubredditDto subredditDto = new SubredditDto();
+          subredditDto.setId(subreddit.getId());
+          subredditDto.setName(subreddit.getName());
+          return subredditDto;
+        });
+  }
+
+  @Test
+  void flush_SendsOnlyLatestChangeOfSubreddit() {
+    // given
+    subredditIndexPublisher.onSubredditSaved(subreddit(1L, "First title"));
+    subredditIndexPublisher.onSubredditSaved(subreddit(1L, "Second title"));
+    subredditIndexPublisher.onSubredditSaved(subreddit(2L, "Other subreddit"));
+    subredditIndexPublisher.onSubredditDeleted(2L);
+
+    // when
+    subredditIndexPublisher.flush();
+
+    // then
+    List<SubredditIndexEvent> sent = sentEvents(1);
+    assertEquals(2, sent.size());
+    SubredditIndexEvent first = sent.stream().filter(e -> e.getId() == 1L).findFirst().orElseThrow();
+    assertEquals(IndexEventType.UPSERT, first.getType());
+    assertEquals("Second title", first.getDocument().getName());
+    SubredditIndexEvent second = sent.stream().filter(e -> e.getId() == 2L).findFirst().orElseThrow();
+    assertEquals(IndexEventType.DELETE, second.getType());
+    assertNull(second.getDocument());
+    assertEquals(2, meterRegistry.get("subreddits.search-index.published").counter().count());
+  }
+
+  @Test
+  void flush_SendsChangesInBatches() {
+    // given
+    subredditIndexPublisher.onSubredditSaved(subreddit(1L, "First"));
+    subredditIndexPublisher.onSubredditSaved(subreddit(2L, "Second"));
+    subredditIndexPublisher.onSubredditSaved(subreddit(3L, "Third"));
+
+    // when
+    subredditIndexPublisher.flush();
+
+    // then
+    List<SubredditIndexEvent> sent = sentEvents(2);
+    assertEquals(3, sent.size());
+  }
+
+  @Test
+  void flush_KeepsChangesForNextFlush_WhenSearchIsUnavailable() {
+    // given
+    subredditIndexPublisher.onSubredditSaved(subreddit(1L, "First"));
+    willThrow(new IllegalStateException("Connection refused"))
+        .given(searchFeignClient).indexSubreddits(anyList());
+    subredditIndexPublisher.flush();
+    assertEquals(1, meterRegistry.get("subreddits.search-index.failures").counter().count());
+
+    // when
+    reset(searchFeignClient);
+    subredditIndexPublisher.flush();
+
+    // then
+    verify(searchFeignClient).indexSubreddits(anyList());
+    assertEquals(1, meterRegistry.get("subreddits.search-index.published").counter().count());
+  }
+
+  @Test
+  void onSubredditSaved_DropsChangesOfNewSubreddits_WhenTooManyAreWaiting() {
+    // given
+    for (long id = 1; id <= 3; id++) {
+      subredditIndexPublisher.onSubredditSaved(subreddit(id, "Subreddit " + id));
+    }
+
+    // when
+    subredditIndexPublisher.onSubredditSaved(subreddit(4L, "Dropped"));
+    subredditIndexPublisher.onSubredditSaved(subreddit(3L, "Still kept"));
+
+    // then
+    assertEquals(1, meterRegistry.get("subreddits.search-index.dropped").counter().count());
+    assertEquals(3, meterRegistry.get("subreddits.search-index.pending").gauge().value());
+  }
+
+  private List<SubredditIndexEvent> sentEvents(int requests) {
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<SubredditIndexEvent>> captor = ArgumentCaptor.forClass(List.class);
+    verify(searchFeignClient, times(requests)).indexSubreddits(captor.capture());
+    List<SubredditIndexEvent> sent = new ArrayList<>();
+    captor.getAllValues().forEach(sent::addAll);
+    return sent;
+  }
+
+  private static Subreddit subreddit(Long id, String name) {
+    Subreddit subreddit = new Subreddit();
+    subreddit.setId(id);
+    subreddit.setName(name);
+    return subreddit;
+  }
+}
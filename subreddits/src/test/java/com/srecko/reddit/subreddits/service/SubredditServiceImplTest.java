@@ -5,14 +5,22 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
+import com.srecko.reddit.subreddits.bloom.SubredditIdFilter;
 import com.srecko.reddit.subreddits.dto.SubredditDto;
 import com.srecko.reddit.subreddits.dto.SubredditRequest;
 import com.srecko.reddit.subreddits.entity.Subreddit;
+import com.srecko.reddit.subreddits.entity.Subscription;
 import com.srecko.reddit.subreddits.exception.SubredditNotFoundException;
+import com.srecko.reddit.subreddits.exception.SubscriptionNotFoundException;
+import com.srecko.reddit.subreddits.mapper.SubredditMapper;
 import com.srecko.reddit.subreddits.repository.SubredditRepository;
-import com.srecko.reddit.subreddits.service.client.UsersFeignClient;
+import com.srecko.reddit.subreddits.repository.SubscriptionRepository;
+import com.srecko.reddit.subreddits.service.client.UserIdResolver;
 import com.srecko.reddit.subreddits.service.utils.TestConfig;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -23,9 +31,9 @@ import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -35,6 +43,7 @@ import org.springframework.data.domain.Sort.Direction;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
 @ContextConfiguration(classes = {SubredditServiceImpl.class, TestConfig.class})
 @ExtendWith(SpringExtension.class)
@@ -45,7 +54,16 @@ class SubredditServiceImplTest {
   private SubredditRepository subredditRepository;
 
   @MockBean
-  private UsersFeignClient usersFeignClient;
+  private SubredditIdFilter subredditIdFilter;
+
+  @MockBean
+  private SubscriptionRepository subscriptionRepository;
+
+  @MockBean
+  private UserIdResolver userIdResolver;
+
+  @MockBean
+  private PlatformTransactionManager transactionManager;
 
   @Autowired
   private SubredditService subredditService;
@@ -54,10 +72,12 @@ class SubredditServiceImplTest {
 
   private Subreddit subreddit;
 
-  private final ModelMapper modelMapper = new ModelMapper();
+  @Autowired
+  private SubredditMapper subredditMapper;
 
   @BeforeEach
   void setUp() {
+    given(subredditIdFilter.mightContain(any())).willReturn(true);
     userId = 123L;
     subreddit = new Subreddit("Name", "The characteristics of someone or something", userId);
     LocalDateTime atStartOfDayResult1 = LocalDate.of(1970, 1, 1).atStartOfDay();
@@ -68,8 +88,8 @@ class SubredditServiceImplTest {
   @Test
   void getAll_ReturnsAllSubreddits() {
     // given
-    given(subredditRepository.findAll(any(PageRequest.class)))
-        .willReturn(new PageImpl<>(List.of(subreddit)));
+    given(subredditRepository.findAllSubredditDtos(any(PageRequest.class)))
+        .willReturn(new PageImpl<>(List.of(subredditMapper.toDto(subreddit))));
     PageRequest pageRequest = PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "id"));
 
     // when
@@ -77,7 +97,7 @@ class SubredditServiceImplTest {
 
     // then
     assertEquals(1, page.getTotalElements());
-    assertTrue(page.getContent().contains(modelMapper.map(subreddit, SubredditDto.class)));
+    assertTrue(page.getContent().contains(subredditMapper.toDto(subreddit)));
   }
 
   @Test
@@ -106,7 +126,7 @@ class SubredditServiceImplTest {
   @Test
   void save_ReturnsSavedSubreddit_WhenSuccessfullySaved() {
     // given
-    given(usersFeignClient.getUserId(any())).willReturn(userId);
+    given(userIdResolver.getUserId(any())).willReturn(userId);
     given(subredditRepository.save(any())).willReturn(subreddit);
 
     /*Authentication authentication = Mockito.mock(Authentication.class);
@@ -137,6 +157,7 @@ class SubredditServiceImplTest {
     SubredditDto deleted = subredditService.delete(subreddit.getId());
 
     // then
+    verify(subscriptionRepository).deleteBySubredditId(subreddit.getId());
     assertEquals(subreddit.getName(), deleted.getName());
     assertEquals(subreddit.getDescription(), deleted.getDescription());
     assertEquals(subreddit.getCreatorId(), deleted.getCreatorId());
@@ -191,8 +212,9 @@ class SubredditServiceImplTest {
     Subreddit subreddit1 = new Subreddit("Named", "The characteristics of someone or something", userId);
     subreddit1.setId(124L);
 
-    given(subredditRepository.findByNameContainingIgnoreCase(any(), any())).willReturn(
-        new PageImpl<>(List.of(subreddit, subreddit1))
+    given(subredditRepository.findSubredditDtosByNameContaining(any(), any())).willReturn(
+        new PageImpl<>(List.of(subredditMapper.toDto(subreddit),
+            subredditMapper.toDto(subreddit1)), pageable, 2)
     );
 
     // when
@@ -201,7 +223,83 @@ class SubredditServiceImplTest {
     // then
     assertNotNull(actual);
     assertEquals(2, actual.getContent().size());
-    assertTrue(actual.getContent().contains(modelMapper.map(subreddit, SubredditDto.class)));
-    assertTrue(actual.getContent().contains(modelMapper.map(subreddit1, SubredditDto.class)));
+    assertTrue(actual.getContent().contains(subredditMapper.toDto(subreddit)));
+    assertTrue(actual.getContent().contains(subredditMapper.toDto(subreddit1)));
+  }
+
+  @Test
+  void checkIfExists_ThrowsSubredditNotFoundException_WhenFilterRulesSubredditOut() {
+    // given
+    given(subredditIdFilter.mightContain(any())).willReturn(false);
+
+    // when then
+    assertThrows(SubredditNotFoundException.class, () -> subredditService.checkIfExists(subreddit.getId()));
+    verify(subredditRepository, never()).findById(any());
+  }
+
+  @Test
+  void subscribe_SavesSubscriptionAndCountsUser_WhenNotSubscribed() {
+    // given
+    given(subredditRepository.findById(any())).willReturn(Optional.ofNullable(subreddit));
+    given(userIdResolver.getUserId(any())).willReturn(userId);
+    given(subscriptionRepository.existsByUserIdAndSubredditId(userId, subreddit.getId()))
+        .willReturn(false);
+
+    // when
+    SubredditDto subscribed = subredditService.subscribe(subreddit.getId());
+
+    // then
+    assertEquals(subreddit.getName(), subscribed.getName());
+    verify(subscriptionRepository).saveAndFlush(any(Subscription.class));
+    verify(subredditRepository).updateNumberOfUsers(subreddit.getId(), 1);
+  }
+
+  @Test
+  void subscribe_ChangesNothing_WhenConcurrentSubscribeInsertedFirst() {
+    // given
+    given(subredditRepository.findById(any())).willReturn(Optional.ofNullable(subreddit));
+    given(userIdResolver.getUserId(any())).willReturn(userId);
+    given(subscriptionRepository.existsByUserIdAndSubredditId(userId, subreddit.getId()))
+        .willReturn(false);
+    given(subscriptionRepository.saveAndFlush(any(Subscription.class)))
+        .willThrow(new DataIntegrityViolationException("uk_subscriptions_user_subreddit"));
+
+    // when
+    SubredditDto subscribed = subredditService.subscribe(subreddit.getId());
+
+    // then
+    assertEquals(subreddit.getName(), subscribed.getName());
+    verify(subredditRepository, never()).updateNumberOfUsers(any(), anyInt());
+    verify(transactionManager).rollback(any());
+  }
+
+  @Test
+  void subscribe_ChangesNothing_WhenAlreadySubscribed() {
+    // given
+    given(subredditRepository.findById(any())).willReturn(Optional.ofNullable(subreddit));
+    given(userIdResolver.getUserId(any())).willReturn(userId);
+    given(subscriptionRepository.existsByUserIdAndSubredditId(userId, subreddit.getId()))
+        .willReturn(true);
+
+    // when
+    subredditService.subscribe(subreddit.getId());
+
+    // then
+    verify(subscriptionRepository, never()).saveAndFlush(any());
+    verify(subredditRepository, never()).updateNumberOfUsers(any(), anyInt());
+  }
+
+  @Test
+  void unsubscribe_ThrowsSubscriptionNotFoundException_WhenNotSubscribed() {
+    // given
+    given(subredditRepository.findById(any())).willReturn(Optional.ofNullable(subreddit));
+    given(userIdResolver.getUserId(any())).willReturn(userId);
+    given(subscriptionRepository.deleteByUserIdAndSubredditId(userId, subreddit.getId()))
+        .willReturn(0);
+
+    // when then
+    assertThrows(SubscriptionNotFoundException.class,
+        () -> subredditService.unsubscribe(subreddit.getId()));
+    verify(subredditRepository, never()).updateNumberOfUsers(any(), anyInt());
   }
-}
\ No newline at end of file
+}
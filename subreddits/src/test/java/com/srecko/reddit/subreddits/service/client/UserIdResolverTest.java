@@ -0,0 +1,142 @@
+package com.srecko.reddit.subreddits.service.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import feign.FeignException;
+import feign.Request;
+import feign.Request.HttpMethod;
+import feign.Response;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class UserIdResolverTest {
+
+  private UsersFeignClient usersFeignClient;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private UserIdResolver userIdResolver;
+
+  @BeforeEach
+  void setUp() {
+    usersFeignClient = mock(UsersFeignClient.class);
+    meterRegistry = new SimpleMeterRegistry();
+    userIdResolver = new UserIdResolver(usersFeignClient, 100, Duration.ofMinutes(10),
+        Duration.ofSeconds(30), meterRegistry);
+  }
+
+  @Test
+  void getUserId_CallsUsersServiceOnce_WhenUsernameIsResolvedRepeatedly() {
+    // given
+    given(usersFeignClient.getUserId("username")).willReturn(123L);
+
+    // when
+    userIdResolver.getUserId("username");
+    Long userId = userIdResolver.getUserId("username");
+
+    // then
+    assertEquals(123L, userId);
+    verify(usersFeignClient, times(1)).getUserId("username");
+    assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", UserIdResolver.CACHE_NAME)
+        .tag("result", "hit").functionCounter().count());
+  }
+
+  @Test
+  void getUserId_RethrowsCachedFailure_WhenUsernameIsUnknown() {
+    // given
+    FeignException unauthorized = failure(401);
+    given(usersFeignClient.getUserId("unknown")).willThrow(unauthorized);
+
+    // when
+    assertThrows(FeignException.Unauthorized.class, () -> userIdResolver.getUserId("unknown"));
+    FeignException thrown = assertThrows(FeignException.class,
+        () -> userIdResolver.getUserId("unknown"));
+
+    // then
+    assertSame(unauthorized, thrown);
+    verify(usersFeignClient, times(1)).getUserId("unknown");
+  }
+
+  @Test
+  void getUserId_DoesNotCacheFailure_WhenUsersServiceIsUnavailable() {
+    // given
+    given(usersFeignClient.getUserId("username")).willThrow(failure(503)).willReturn(123L);
+
+    // when
+    assertThrows(FeignException.class, () -> userIdResolver.getUserId("username"));
+    Long userId = userIdResolver.getUserId("username");
+
+    // then
+    assertEquals(123L, userId);
+    verify(usersFeignClient, times(2)).getUserId("username");
+  }
+
+  @Test
+  void getUserId_SharesOneCall_WhenUsernameIsResolvedConcurrently() throws Exception {
+    // given
+    CountDownLatch called = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    given(usersFeignClient.getUserId("username")).willAnswer(invocation -> {
+      called.countDown();
+      release.await();
+      return 123L;
+    });
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    // when
+    Future<Long> first = executor.submit(() -> userIdResolver.getUserId("username"));
+    called.await();
+    Future<Long> second = executor.submit(() -> userIdResolver.getUserId("username"));
+    Thread.sleep(50);
+    release.countDown();
+
+    // then
+    assertEquals(123L, first.get());
+    assertEquals(123L, second.get());
+    verify(usersFeignClient, times(1)).getUserId("username");
+    executor.shutdown();
+  }
+
+  @Test
+  void getUserId_CallsUsersServiceOutsideCacheMapLocks() {
+    // given
+    given(usersFeignClient.getUserId("username")).willAnswer(invocation -> {
+      for (StackTraceElement frame : Thread.currentThread().getStackTrace()) {
+        if (frame.getClassName().equals(ConcurrentHashMap.class.getName())) {
+          throw new AssertionError("Called inside " + frame);
+        }
+      }
+      return 123L;
+    });
+
+    // when
+    Long userId = userIdResolver.getUserId("username");
+
+    // then
+    assertEquals(123L, userId);
+  }
+
+  private FeignException failure(int status) {
+    Request request = Request.create(HttpMethod.GET, "/api/users/getUserIdByUsername",
+        Collections.emptyMap(), null, null, null);
+    return FeignException.errorStatus("getUserId", Response.builder()
+        .status(status)
+        .request(request)
+        .headers(Collections.emptyMap())
+        .build());
+  }
+}
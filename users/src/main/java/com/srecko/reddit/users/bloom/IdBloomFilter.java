@@ -0,0 +1,142 @@
+package com.srecko.reddit.users.bloom;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The type Id bloom filter. A fixed size Bloom filter of long ids that is safe to use from many
+ * threads without locking. It never forgets an id it was given, but may claim to contain ids it was
+ * never given, at a rate set by the expected number of ids and the false positive probability it
+ * was sized for.
+ *
+ * @author Srecko Nikolic
+ */
+public class IdBloomFilter {
+
+  private final AtomicLongArray words;
+  private final long bitSize;
+  private final int hashFunctions;
+  private final long expectedInsertions;
+
+  private final AtomicLong bitCount = new AtomicLong();
+  private final LongAdder insertions = new LongAdder();
+
+  /**
+   * Instantiates a new Id bloom filter.
+   *
+   * @param expectedInsertions the expected number of ids
+   * @param fpp                the false positive probability at the expected number of ids
+   */
+  public IdBloomFilter(long expectedInsertions, double fpp) {
+    if (expectedInsertions <= 0) {
+      throw new IllegalArgumentException("Expected insertions must be positive");
+    }
+    if (fpp <= 0 || fpp >= 1) {
+      throw new IllegalArgumentException("False positive probability must be between 0 and 1");
+    }
+    long bits = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+    int wordCount = (int) Math.max(1, (bits + Long.SIZE - 1) / Long.SIZE);
+    this.words = new AtomicLongArray(wordCount);
+    this.bitSize = (long) wordCount * Long.SIZE;
+    this.hashFunctions = (int) Math.max(1,
+        Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+    this.expectedInsertions = expectedInsertions;
+  }
+
+  /**
+   * Adds an id. An id whose bits were all set already, such as one added before, is not counted
+   * as another insertion.
+   *
+   * @param id the id
+   * @return whether the filter changed
+   */
+  public boolean put(long id) {
+    long hash1 = mix(id);
+    long hash2 = mix(hash1) | 1;
+    boolean changed = false;
+    for (int i = 0; i < hashFunctions; i++) {
+      changed |= setBit(index(hash1 + i * hash2));
+    }
+    if (changed) {
+      insertions.increment();
+    }
+    return changed;
+  }
+
+  /**
+   * Checks if the id might have been added. False means it was definitely never added.
+   *
+   * @param id the id
+   * @return whether the id might have been added
+   */
+  public boolean mightContain(long id) {
+    long hash1 = mix(id);
+    long hash2 = mix(hash1) | 1;
+    for (int i = 0; i < hashFunctions; i++) {
+      long index = index(hash1 + i * hash2);
+      if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Gets the probability that an id that was never added is reported as present, estimated from the
+   * share of bits that are set.
+   *
+   * @return the expected false positive probability
+   */
+  public double expectedFpp() {
+    return Math.pow((double) bitCount.get() / bitSize, hashFunctions);
+  }
+
+  /**
+   * Checks if more ids were added than the filter was sized for, so its false positive rate is
+   * above the one it was built with.
+   *
+   * @return whether the filter is saturated
+   */
+  public boolean isSaturated() {
+    return insertions.sum() > expectedInsertions;
+  }
+
+  /**
+   * Gets the number of bytes held by the bits of the filter.
+   *
+   * @return the memory in bytes
+   */
+  public long memoryBytes() {
+    return bitSize / Byte.SIZE;
+  }
+
+  private long index(long combinedHash) {
+    return (combinedHash & Long.MAX_VALUE) % bitSize;
+  }
+
+  private boolean setBit(long index) {
+    int word = (int) (index >>> 6);
+    long mask = 1L << index;
+    long current;
+    do {
+      current = words.get(word);
+      if ((current & mask) != 0) {
+        return false;
+      }
+    } while (!words.compareAndSet(word, current, current | mask));
+    bitCount.incrementAndGet();
+    return true;
+  }
+
+  private static long mix(long value) {
+    // Finalizer of MurmurHash3, spreads sequential ids over the whole range of longs.
+    long hash = value;
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
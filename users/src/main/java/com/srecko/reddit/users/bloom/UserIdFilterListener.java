@@ -0,0 +1,49 @@
+package com.srecko.reddit.users.bloom;
+
+import com.srecko.reddit.users.entity.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * The type User id filter listener. Reports every inserted and deleted user to the user id filter,
+ * whichever code path wrote it.
+ *
+ * @author Srecko Nikolic
+ */
+@Component
+public class UserIdFilterListener {
+
+  private final UserIdFilter userIdFilter;
+
+  /**
+   * Instantiates a new User id filter listener.
+   *
+   * @param userIdFilter the user id filter
+   */
+  @Autowired
+  public UserIdFilterListener(UserIdFilter userIdFilter) {
+    this.userIdFilter = userIdFilter;
+  }
+
+  /**
+   * Adds an inserted user to the filter.
+   *
+   * @param user the user
+   */
+  @PostPersist
+  public void onPersist(User user) {
+    userIdFilter.add(user.getId());
+  }
+
+  /**
+   * Reports a deleted user to the filter.
+   *
+   * @param user the user
+   */
+  @PostRemove
+  public void onRemove(User user) {
+    userIdFilter.remove(user.getId());
+  }
+}
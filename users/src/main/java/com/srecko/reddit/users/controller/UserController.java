@@ -6,6 +6,7 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 import com.srecko.reddit.users.assembler.UserModelAssembler;
 import com.srecko.reddit.users.dto.UserDto;
 import com.srecko.reddit.users.service.UserService;
+import java.util.List;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,6 +26,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
@@ -156,4 +158,18 @@ public class UserController {
   public void checkIfExists(@RequestBody Long userId) {
     userService.checkIfExists(userId);
   }
+
+  /**
+   * Gets the users the search service indexes, read page after page in increasing id order.
+   *
+   * @param afterId the id the users follow
+   * @param limit   the number of users at most
+   * @return the users
+   */
+  @GetMapping("/search-index")
+  public ResponseEntity<List<UserDto>> getIndexDocuments(
+      @RequestParam(value = "afterId", defaultValue = "0") Long afterId,
+      @RequestParam(value = "limit", defaultValue = "1000") int limit) {
+    return ResponseEntity.ok(userService.getIndexDocuments(afterId, limit));
+  }
 }
\ No newline at end of file
@@ -24,6 +24,21 @@ public class UserDto {
   public UserDto() {
   }
 
+  /**
+   * Instantiates a new User dto. Used by the projection queries of the user repository.
+   *
+   * @param id               the id
+   * @param username         the username
+   * @param country          the country
+   * @param registrationDate the registration date
+   */
+  public UserDto(Long id, String username, String country, Date registrationDate) {
+    this.id = id;
+    this.username = username;
+    this.country = country;
+    this.registrationDate = registrationDate;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
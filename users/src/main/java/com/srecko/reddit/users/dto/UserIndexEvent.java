@@ -0,0 +1,89 @@
+package com.srecko.reddit.users.dto;
+
+/**
+ * The type User index event. A change of a user sent to the search service. Deletions only carry
+ * the id.
+ *
+ * @author Srecko Nikolic
+ */
+public class UserIndexEvent {
+
+  private IndexEventType type;
+
+  private Long id;
+
+  private UserDto document;
+
+  /**
+   * Instantiates a new User index event.
+   */
+  public UserIndexEvent() {
+  }
+
+  /**
+   * Instantiates a new User index event.
+   *
+   * @param type     the type
+   * @param id       the id
+   * @param document the document
+   */
+  public UserIndexEvent(IndexEventType type, Long id, UserDto document) {
+    this.type = type;
+    this.id = id;
+    this.document = document;
+  }
+
+  /**
+   * Gets type.
+   *
+   * @return the type
+   */
+  public IndexEventType getType() {
+    return type;
+  }
+
+  /**
+   * Sets type.
+   *
+   * @param type the type
+   */
+  public void setType(IndexEventType type) {
+    this.type = type;
+  }
+
+  /**
+   * Gets id.
+   *
+   * @return the id
+   */
+  public Long getId() {
+    return id;
+  }
+
+  /**
+   * Sets id.
+   *
+   * @param id the id
+   */
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  /**
+   * Gets document.
+   *
+   * @return the document
+   */
+  public UserDto getDocument() {
+    return document;
+  }
+
+  /**
+   * Sets document.
+   *
+   * @param document the document
+   */
+  public void setDocument(UserDto document) {
+    this.document = document;
+  }
+}
@@ -3,9 +3,12 @@ package com.srecko.reddit.users.entity;
 import com.fasterxml.jackson.annotation.JsonIdentityInfo;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
+import com.srecko.reddit.users.bloom.UserIdFilterListener;
+import com.srecko.reddit.users.searchindex.UserIndexListener;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
@@ -24,6 +27,7 @@ import java.util.List;
  * @author Srecko Nikolic
  */
 @Entity
+@EntityListeners({UserIdFilterListener.class, UserIndexListener.class})
 @Table(name = "users")
 @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
 public class User {
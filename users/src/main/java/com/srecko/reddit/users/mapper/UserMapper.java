@@ -0,0 +1,22 @@
+package com.srecko.reddit.users.mapper;
+
+import com.srecko.reddit.users.dto.UserDto;
+import com.srecko.reddit.users.entity.User;
+import org.mapstruct.Mapper;
+
+/**
+ * The interface User mapper.
+ *
+ * @author Srecko Nikolic
+ */
+@Mapper(componentModel = "spring")
+public interface UserMapper {
+
+  /**
+   * Maps a user to a user dto.
+   *
+   * @param user the user
+   * @return the user dto
+   */
+  UserDto toDto(User user);
+}
@@ -1,10 +1,14 @@
 package com.srecko.reddit.users.repository;
 
+import com.srecko.reddit.users.dto.UserDto;
 import com.srecko.reddit.users.entity.User;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -53,11 +57,41 @@ public interface UserRepository extends JpaRepository<User, Long> {
   void deleteAllByEnabledFalse();
 
   /**
-   * Find by username containing page.
+   * Selects users straight into user dtos, so read only listings skip entity hydration, dirty
+   * checking snapshots and mapping.
+   */
+  String SELECT_USER_DTO = "select new com.srecko.reddit.users.dto.UserDto(u.id, u.username, "
+      + "u.country, u.registrationDate) from User u ";
+
+  /**
+   * Find all user dtos page.
+   *
+   * @param pageable the pageable
+   * @return the page
+   */
+  @Query(value = SELECT_USER_DTO, countQuery = "select count(u) from User u")
+  Page<UserDto> findAllUserDtos(Pageable pageable);
+
+  /**
+   * Find user dtos by username containing ignore case page.
    *
    * @param query    the query
    * @param pageable the pageable
    * @return the page
    */
-  Page<User> findByUsernameContainingIgnoreCase(String query, Pageable pageable);
-}
\ No newline at end of file
+  @Query(value = SELECT_USER_DTO + "where locate(upper(:query), upper(u.username)) > 0",
+      countQuery = "select count(u) from User u "
+          + "where locate(upper(:query), upper(u.username)) > 0")
+  Page<UserDto> findUserDtosByUsernameContaining(@Param("query") String query,
+      Pageable pageable);
+
+  /**
+   * Find user dtos with an id greater than the given one, in increasing id order.
+   *
+   * @param afterId  the id the users follow
+   * @param pageable the pageable
+   * @return the list
+   */
+  @Query(SELECT_USER_DTO + "where u.id > :afterId order by u.id")
+  List<UserDto> findUserDtosByIdGreaterThan(@Param("afterId") Long afterId, Pageable pageable);
+}
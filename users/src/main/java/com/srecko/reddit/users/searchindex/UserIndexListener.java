@@ -0,0 +1,51 @@
+package com.srecko.reddit.users.searchindex;
+
+import com.srecko.reddit.users.entity.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * The type User index listener. Reports every inserted, updated and deleted user to the search
+ * index publisher, whichever code path wrote it.
+ *
+ * @author Srecko Nikolic
+ */
+@Component
+public class UserIndexListener {
+
+  private final UserIndexPublisher userIndexPublisher;
+
+  /**
+   * Instantiates a new User index listener.
+   *
+   * @param userIndexPublisher the user index publisher
+   */
+  @Autowired
+  public UserIndexListener(UserIndexPublisher userIndexPublisher) {
+    this.userIndexPublisher = userIndexPublisher;
+  }
+
+  /**
+   * Publishes an inserted or updated user.
+   *
+   * @param user the user
+   */
+  @PostPersist
+  @PostUpdate
+  public void onSave(User user) {
+    userIndexPublisher.onUserSaved(user);
+  }
+
+  /**
+   * Publishes a deleted user.
+   *
+   * @param user the user
+   */
+  @PostRemove
+  public void onRemove(User user) {
+    userIndexPublisher.onUserDeleted(user.getId());
+  }
+}
@@ -0,0 +1,185 @@
+package com.srecko.reddit.users.searchindex;
+
+import com.srecko.reddit.users.dto.IndexEventType;
+import com.srecko.reddit.users.dto.UserIndexEvent;
+import com.srecko.reddit.users.entity.User;
+import com.srecko.reddit.users.mapper.UserMapper;
+import com.srecko.reddit.users.service.client.SearchFeignClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * The type User index publisher. Sends user changes to the search service in batches, off the
+ * request thread. Changes are queued once their transaction commits, and only the latest change
+ * of a user is kept, so a user edited many times between two flushes is sent once. Changes that
+ * could not be sent are retried on the next flush. Once more than
+ * <code>users.search-index.max-pending</code> users are waiting, further changes are dropped and
+ * left to the periodic resync of the search index.
+ *
+ * @author Srecko Nikolic
+ */
+@Component
+public class UserIndexPublisher {
+
+  private final SearchFeignClient searchFeignClient;
+  private final UserMapper userMapper;
+  private final boolean enabled;
+  private final int batchSize;
+  private final int maxPending;
+  private final Counter published;
+  private final Counter dropped;
+  private final Counter failures;
+
+  private final Map<Long, UserIndexEvent> pending = new ConcurrentHashMap<>();
+  private final ReentrantLock flushLock = new ReentrantLock();
+
+  private static final Logger logger = LogManager.getLogger(UserIndexPublisher.class);
+
+  /**
+   * Instantiates a new User index publisher.
+   *
+   * @param searchFeignClient the search feign client, resolved on first use
+   * @param userMapper        the user mapper
+   * @param meterRegistry     the meter registry
+   * @param enabled           whether changes are sent to the search service
+   * @param batchSize         the number of changes sent in one request at most
+   * @param maxPending        the number of users with a change waiting to be sent at most
+   */
+  @Autowired
+  public UserIndexPublisher(@Lazy SearchFeignClient searchFeignClient, UserMapper userMapper,
+      MeterRegistry meterRegistry,
+      @Value("${users.search-index.enabled:true}") boolean enabled,
+      @Value("${users.search-index.batch-size:500}") int batchSize,
+      @Value("${users.search-index.max-pending:100000}") int maxPending) {
+    this.searchFeignClient = searchFeignClient;
+    this.userMapper = userMapper;
+    this.enabled = enabled;
+    this.batchSize = batchSize;
+    this.maxPending = maxPending;
+    this.published = Counter.builder("users.search-index.published")
+        .description("User changes sent to the search service")
+        .register(meterRegistry);
+    this.dropped = Counter.builder("users.search-index.dropped")
+        .description("User changes dropped because too many were waiting")
+        .register(meterRegistry);
+    this.failures = Counter.builder("users.search-index.failures")
+        .description("Failed attempts to send user changes to the search service")
+        .register(meterRegistry);
+    Gauge.builder("users.search-index.pending", pending, Map::size)
+        .description("Users with a change waiting to be sent to the search service")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Queues an inserted or updated user.
+   *
+   * @param user the user
+   */
+  public void onUserSaved(User user) {
+    if (enabled) {
+      UserIndexEvent event = new UserIndexEvent(IndexEventType.UPSERT, user.getId(),
+          userMapper.toDto(user));
+      afterCommit(() -> offer(event));
+    }
+  }
+
+  /**
+   * Queues a deleted user.
+   *
+   * @param userId the user id
+   */
+  public void onUserDeleted(Long userId) {
+    if (enabled) {
+      UserIndexEvent event = new UserIndexEvent(IndexEventType.DELETE, userId, null);
+      afterCommit(() -> offer(event));
+    }
+  }
+
+  /**
+   * Sends all queued changes. Changes that could not be sent are kept for the next flush.
+   */
+  @Scheduled(fixedDelayString = "${users.search-index.flush-interval:1000}")
+  public void flush() {
+    flushLock.lock();
+    try {
+      while (!pending.isEmpty()) {
+        List<UserIndexEvent> batch = drain();
+        try {
+          searchFeignClient.indexUsers(batch);
+        } catch (RuntimeException e) {
+          failures.increment();
+          logger.warn("Failed to send {} user changes to search, retrying on the next flush: {}",
+              batch.size(), e.getMessage());
+          // A newer change queued in the meantime wins over the one that failed
+          batch.forEach(event -> pending.putIfAbsent(event.getId(), event));
+          return;
+        }
+        published.increment(batch.size());
+      }
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  /**
+   * Sends queued changes before the application stops.
+   */
+  @PreDestroy
+  public void flushOnShutdown() {
+    logger.info("Sending pending user changes to search before shutdown");
+    flush();
+  }
+
+  private void offer(UserIndexEvent event) {
+    if (pending.size() >= maxPending && !pending.containsKey(event.getId())) {
+      dropped.increment();
+      logger.warn("Too many user changes waiting for search, dropping the change of user {}",
+          event.getId());
+      return;
+    }
+    pending.put(event.getId(), event);
+  }
+
+  private List<UserIndexEvent> drain() {
+    List<UserIndexEvent> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+    for (Long userId : pending.keySet()) {
+      if (batch.size() == batchSize) {
+        break;
+      }
+      UserIndexEvent event = pending.remove(userId);
+      if (event != null) {
+        batch.add(event);
+      }
+    }
+    return batch;
+  }
+
+  private void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          action.run();
+        }
+      });
+    } else {
+      action.run();
+    }
+  }
+}
@@ -2,8 +2,8 @@ package com.srecko.reddit.users.service;
 
 import com.srecko.reddit.users.dto.UserDto;
 import com.srecko.reddit.users.entity.User;
+import java.util.List;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 
 /**
@@ -97,7 +97,7 @@ public interface UserService {
    * @param pageable the pageable
    * @return the page
    */
-  PageImpl<UserDto> search(String q, Pageable pageable);
+  Page<UserDto> search(String q, Pageable pageable);
 
   /**
    * Check if exists.
@@ -105,4 +105,14 @@ public interface UserService {
    * @param userId the user id
    */
   void checkIfExists(Long userId);
+
+  /**
+   * Gets the users the search service indexes, the ones with an id greater than the given one in
+   * increasing id order.
+   *
+   * @param afterId the id the users follow
+   * @param limit   the number of users at most
+   * @return the users
+   */
+  List<UserDto> getIndexDocuments(Long afterId, int limit);
 }
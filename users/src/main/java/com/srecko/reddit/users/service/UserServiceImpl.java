@@ -1,19 +1,18 @@
 package com.srecko.reddit.users.service;
 
 import com.srecko.reddit.users.assembler.PageRequestAssembler;
+import com.srecko.reddit.users.bloom.UserIdFilter;
 import com.srecko.reddit.users.dto.UserDto;
-import com.srecko.reddit.users.dto.UserPageMapper;
 import com.srecko.reddit.users.entity.User;
 import com.srecko.reddit.users.exception.UserNotFoundException;
+import com.srecko.reddit.users.mapper.UserMapper;
 import com.srecko.reddit.users.repository.UserRepository;
 import java.util.List;
 import java.util.Optional;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -31,7 +30,10 @@ import org.springframework.transaction.annotation.Transactional;
 public class UserServiceImpl implements UserService {
 
   private final UserRepository userRepository;
-  private final ModelMapper modelMapper;
+  private final UserMapper userMapper;
+  private final UserIdFilter userIdFilter;
+
+  private static final int MAX_INDEX_DOCUMENTS = 5000;
 
   private static final Logger logger = LogManager.getLogger(UserServiceImpl.class);
 
@@ -39,12 +41,15 @@ public class UserServiceImpl implements UserService {
    * Instantiates a new User detail service.
    *
    * @param userRepository the user repository
-   * @param modelMapper    the model mapper
+   * @param userMapper     the user mapper
+   * @param userIdFilter   the user id filter
    */
   @Autowired
-  public UserServiceImpl(UserRepository userRepository, ModelMapper modelMapper) {
+  public UserServiceImpl(UserRepository userRepository, UserMapper userMapper,
+      UserIdFilter userIdFilter) {
     this.userRepository = userRepository;
-    this.modelMapper = modelMapper;
+    this.userMapper = userMapper;
+    this.userIdFilter = userIdFilter;
   }
 
   /*@Override
@@ -63,26 +68,28 @@ public class UserServiceImpl implements UserService {
   }*/
 
   @Override
+  @Transactional(readOnly = true)
   public Page<UserDto> getUsers(Pageable pageable) {
     logger.info("Getting all users");
     PageRequest pageRequest = PageRequestAssembler.getPageRequest(pageable, List.of("username"),
         Sort.by(Direction.ASC, "username"));
-    Page<User> users = userRepository.findAll(pageRequest);
-    return UserPageMapper.convertUsers(pageable, users, modelMapper);
+    return userRepository.findAllUserDtos(pageRequest);
   }
 
   @Override
+  @Transactional(readOnly = true)
   public UserDto getUser(Long userId) {
     Optional<User> userOptional = userRepository.findById(userId);
     if (userOptional.isEmpty()) {
       throw new UserNotFoundException(userId);
     }
-    return modelMapper.map(userOptional.get(), UserDto.class);
+    return userMapper.toDto(userOptional.get());
   }
 
   @Override
+  @Transactional(readOnly = true)
   public UserDto getUserByUsername(String username) {
-    return modelMapper.map(getUserByUsernameInternal(username), UserDto.class);
+    return userMapper.toDto(getUserByUsernameInternal(username));
   }
 
   @Override
@@ -101,7 +108,7 @@ public class UserServiceImpl implements UserService {
     Optional<User> userOptional = userRepository.findUserByUsername(username);
     if (userOptional.isPresent()) {
       userRepository.delete(userOptional.get());
-      return modelMapper.map(userOptional.get(), UserDto.class);
+      return userMapper.toDto(userOptional.get());
     } else {
       throw new UserNotFoundException(username);
     }
@@ -123,7 +130,7 @@ public class UserServiceImpl implements UserService {
   public UserDto save(User user) {
     logger.info("Saving user into database: {}", user.getUsername());
     User savedUser = userRepository.save(user);
-    return modelMapper.map(savedUser, UserDto.class);
+    return userMapper.toDto(savedUser);
   }
 
   @Override
@@ -146,20 +153,33 @@ public class UserServiceImpl implements UserService {
   }
 
   @Override
-  public PageImpl<UserDto> search(String q, Pageable pageable) {
+  @Transactional(readOnly = true)
+  public Page<UserDto> search(String q, Pageable pageable) {
     logger.info("Searching for usernames that match query: {}", q);
     PageRequest pageRequest = PageRequestAssembler.getPageRequest(pageable, List.of("username"),
         Sort.by(Direction.ASC, "username"));
-    Page<User> users = userRepository.findByUsernameContainingIgnoreCase(q,
-        pageRequest);
-    return UserPageMapper.convertUsers(pageable, users, modelMapper);
+    return userRepository.findUserDtosByUsernameContaining(q, pageRequest);
   }
 
   @Override
   public void checkIfExists(Long userId) {
+    if (!userIdFilter.mightContain(userId)) {
+      throw new UserNotFoundException(userId);
+    }
     Optional<User> userOptional = userRepository.findById(userId);
     if (userOptional.isEmpty()) {
+      userIdFilter.recordFalsePositive();
       throw new UserNotFoundException(userId);
     }
   }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<UserDto> getIndexDocuments(Long afterId, int limit) {
+    int size = Math.max(1, Math.min(limit, MAX_INDEX_DOCUMENTS));
+    List<UserDto> users = userRepository.findUserDtosByIdGreaterThan(afterId,
+        PageRequest.of(0, size));
+    logger.info("Returning {} users after id {} to the search index", users.size(), afterId);
+    return users;
+  }
 }
\ No newline at end of file
@@ -193,7 +193,7 @@ class UserControllerTest {
 
   @Test
   void checkIfExist_Returns200_WhenUserExists() throws Exception {
-    userRepository.save(user);
+    userRepository.saveAndFlush(user);
     mockMvc.perform(MockMvcRequestBuilders.head("/api/users/checkIfExists")
         .contentType(APPLICATION_JSON)
         .content(String.valueOf(user.getId())))
@@ -207,4 +207,20 @@ class UserControllerTest {
             .content(String.valueOf(0L)))
         .andExpect(status().is4xxClientError());
   }
+
+  @Test
+  void getIndexDocuments_ReturnsUsersAfterIdInIdOrder() throws Exception {
+    User user2 = new User("John", "Doe", "john.doe@example.org", "johndoe", "iloveyou", "GB", true);
+    User user3 = new User("Jim", "Doe", "jim.doe@example.org", "jimdoe", "iloveyou", "GB", true);
+    userRepository.saveAll(List.of(user, user2, user3));
+
+    mockMvc.perform(MockMvcRequestBuilders.get("/api/users/search-index")
+            .header("AUTHORIZATION", "Bearer " + jwt)
+            .param("afterId", String.valueOf(user.getId()))
+            .param("limit", "1"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(1)))
+        .andExpect(jsonPath("$[0].id", is(user2.getId().intValue())))
+        .andExpect(jsonPath("$[0].username", is(user2.getUsername())));
+  }
 }
\ No newline at end of file
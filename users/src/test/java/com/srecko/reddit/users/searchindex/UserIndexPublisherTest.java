@@ -0,0 +1,141 @@
+package com.srecko.reddit.users.searchindex;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.srecko.reddit.users.dto.IndexEventType;
+import com.srecko.reddit.users.dto.UserDto;
+import com.srecko.reddit.users.dto.UserIndexEvent;
+import com.srecko.reddit.users.entity.User;
+import com.srecko.reddit.users.mapper.UserMapper;
+import com.srecko.reddit.users.service.client.SearchFeignClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class UserIndexPublisherTest {
+
+  private SearchFeignClient searchFeignClient;
+
+  private UserMapper userMapper;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private UserIndexPublisher userIndexPublisher;
+
+  @BeforeEach
+  void setUp() {
+    searchFeignClient = mock(SearchFeignClient.class);
+    userMapper = mock(UserMapper.class);
+    meterRegistry = new SimpleMeterRegistry();
+    userIndexPublisher = new UserIndexPublisher(searchFeignClient, userMapper, meterRegistry,
+        true, 2, 3);
+    given(userMapper.toDto(any(User.class)))
+        .willAnswer(invocation -> {
+          User user = invocation.getArgument(0);
+          UserDto userDto = new UserDto();
+          userDto.setId(user.getId());
+          userDto.setUsername(user.getUsername());
+          return userDto;
+        });
+  }
+
+  @Test
+  void flush_SendsOnlyLatestChangeOfUser() {
+    // given
+    userIndexPublisher.onUserSaved(user(1L, "First title"));
+    userIndexPublisher.onUserSaved(user(1L, "Second title"));
+    userIndexPublisher.onUserSaved(user(2L, "Other user"));
+    userIndexPublisher.onUserDeleted(2L);
+
+    // when
+    userIndexPublisher.flush();
+
+    // then
+    List<UserIndexEvent> sent = sentEvents(1);
+    assertEquals(2, sent.size());
+    UserIndexEvent first = sent.stream().filter(e -> e.getId() == 1L).findFirst().orElseThrow();
+    assertEquals(IndexEventType.UPSERT, first.getType());
+    assertEquals("Second title", first.getDocument().getUsername());
+    UserIndexEvent second = sent.stream().filter(e -> e.getId() == 2L).findFirst().orElseThrow();
+    assertEquals(IndexEventType.DELETE, second.getType());
+    assertNull(second.getDocument());
+    assertEquals(2, meterRegistry.get("users.search-index.published").counter().count());
+  }
+
+  @Test
+  void flush_SendsChangesInBatches() {
+    // given
+    userIndexPublisher.onUserSaved(user(1L, "First"));
+    userIndexPublisher.onUserSaved(user(2L, "Second"));
+    userIndexPublisher.onUserSaved(user(3L, "Third"));
+
+    // when
+    userIndexPublisher.flush();
+
+    // then
+    List<UserIndexEvent> sent = sentEvents(2);
+    assertEquals(3, sent.size());
+  }
+
+  @Test
+  void flush_KeepsChangesForNextFlush_WhenSearchIsUnavailable() {
+    // given
+    userIndexPublisher.onUserSaved(user(1L, "First"));
+    willThrow(new IllegalStateException("Connection refused"))
+        .given(searchFeignClient).indexUsers(anyList());
+    userIndexPublisher.flush();
+    assertEquals(1, meterRegistry.get("users.search-index.failures").counter().count());
+
+    // when
+    reset(searchFeignClient);
+    userIndexPublisher.flush();
+
+    // then
+    verify(searchFeignClient).indexUsers(anyList());
+    assertEquals(1, meterRegistry.get("users.search-index.published").counter().count());
+  }
+
+  @Test
+  void onUserSaved_DropsChangesOfNewUsers_WhenTooManyAreWaiting() {
+    // given
+    for (long id = 1; id <= 3; id++) {
+      userIndexPublisher.onUserSaved(user(id, "User " + id));
+    }
+
+    // when
+    userIndexPublisher.onUserSaved(user(4L, "Dropped"));
+    userIndexPublisher.onUserSaved(user(3L, "Still kept"));
+
+    // then
+    assertEquals(1, meterRegistry.get("users.search-index.dropped").counter().count());
+    assertEquals(3, meterRegistry.get("users.search-index.pending").gauge().value());
+  }
+
+  private List<UserIndexEvent> sentEvents(int requests) {
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<UserIndexEvent>> captor = ArgumentCaptor.forClass(List.class);
+    verify(searchFeignClient, times(requests)).indexUsers(captor.capture());
+    List<UserIndexEvent> sent = new ArrayList<>();
+    captor.getAllValues().forEach(sent::addAll);
+    return sent;
+  }
+
+  private static User user(Long id, String username) {
+    User user = new User();
+    user.setId(id);
+    user.setUsername(username);
+    return user;
+  }
+}
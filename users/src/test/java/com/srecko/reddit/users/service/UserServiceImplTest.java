@@ -7,11 +7,15 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
+import com.srecko.reddit.users.bloom.UserIdFilter;
 import com.srecko.reddit.users.assembler.PageRequestAssembler;
 import com.srecko.reddit.users.dto.UserDto;
 import com.srecko.reddit.users.entity.User;
 import com.srecko.reddit.users.exception.UserNotFoundException;
+import com.srecko.reddit.users.mapper.UserMapper;
 import com.srecko.reddit.users.repository.UserRepository;
 import com.srecko.reddit.users.service.utils.TestConfig;
 import java.time.LocalDate;
@@ -23,7 +27,6 @@ import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
@@ -44,15 +47,20 @@ class UserServiceImplTest {
   @MockBean
   private UserRepository userRepository;
 
+  @MockBean
+  private UserIdFilter userIdFilter;
+
   @Autowired
   private UserServiceImpl userService;
 
   private User user;
 
-  private final ModelMapper modelMapper = new ModelMapper();
+  @Autowired
+  private UserMapper userMapper;
 
   @BeforeEach
   void setUp() {
+    given(userIdFilter.mightContain(any())).willReturn(true);
     user = new User("Jane", "Doe", "jane.doe@example.org", "janedoe", "iloveyou", "GB", true);
     user.setId(123L);
     LocalDateTime atStartOfDayResult = LocalDate.of(1970, 1, 1).atStartOfDay();
@@ -94,7 +102,8 @@ class UserServiceImplTest {
   @Test
   void getUsers_ReturnsListOfAllUsers() {
     // given
-    given(userRepository.findAll(any(PageRequest.class))).willReturn(new PageImpl<>(List.of(user)));
+    given(userRepository.findAllUserDtos(any(PageRequest.class)))
+        .willReturn(new PageImpl<>(List.of(userMapper.toDto(user))));
     PageRequest pageRequest = PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "username"));
 
     // when
@@ -103,7 +112,7 @@ class UserServiceImplTest {
     // then
     assertNotNull(page);
     assertEquals(1, page.getTotalElements());
-    assertTrue(page.getContent().contains(modelMapper.map(user, UserDto.class)));
+    assertTrue(page.getContent().contains(userMapper.toDto(user)));
   }
 
   @Test
@@ -116,7 +125,7 @@ class UserServiceImplTest {
 
     // then
     assertNotNull(actual);
-    assertEquals(modelMapper.map(user, UserDto.class), actual);
+    assertEquals(userMapper.toDto(user), actual);
   }
 
   @Test
@@ -139,7 +148,7 @@ class UserServiceImplTest {
 
     // then
     assertNotNull(user);
-    assertEquals(modelMapper.map(user, UserDto.class), user);
+    assertEquals(userMapper.toDto(this.user), user);
   }
 
   @Test
@@ -263,19 +272,20 @@ class UserServiceImplTest {
     user1.setId(124L);
     String query = "jane";
     Pageable pageable = PageRequest.of(1, 1, Sort.by(Direction.ASC, "username"));
-    given(userRepository.findByUsernameContainingIgnoreCase(any(String.class), any(PageRequest.class)))
-        .willReturn(new PageImpl<>(List.of(user, user1)));
+    given(userRepository.findUserDtosByUsernameContaining(any(String.class), any(PageRequest.class)))
+        .willReturn(new PageImpl<>(List.of(userMapper.toDto(user),
+            userMapper.toDto(user1)), pageable, 2));
 
     // when
-    PageImpl<UserDto> actual = userService.search(query, pageable);
+    Page<UserDto> actual = userService.search(query, pageable);
 
     // then
     assertNotNull(actual);
     assertEquals(2, actual.getNumberOfElements());
     assertEquals(2, actual.getTotalPages());
     assertEquals(2, actual.getContent().size());
-    assertTrue(actual.getContent().contains(modelMapper.map(user, UserDto.class)));
-    assertTrue(actual.getContent().contains(modelMapper.map(user1, UserDto.class)));
+    assertTrue(actual.getContent().contains(userMapper.toDto(user)));
+    assertTrue(actual.getContent().contains(userMapper.toDto(user1)));
   }
 
   @Test
@@ -294,4 +304,14 @@ class UserServiceImplTest {
       userService.checkIfExists(0L);
     });
   }
-}
\ No newline at end of file
+
+  @Test
+  void checkIfExists_ThrowsUserNotFoundException_WhenFilterRulesUserOut() {
+    // given
+    given(userIdFilter.mightContain(any())).willReturn(false);
+
+    // when then
+    assertThrows(UserNotFoundException.class, () -> userService.checkIfExists(user.getId()));
+    verify(userRepository, never()).findById(any());
+  }
+}
@@ -1,16 +1,15 @@
 package com.srecko.reddit.users.service.utils;
 
-import org.modelmapper.ModelMapper;
+import com.srecko.reddit.users.mapper.UserMapper;
+import com.srecko.reddit.users.mapper.UserMapperImpl;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Profile;
 
 @Configuration
-@Profile("dev")
 public class TestConfig {
 
-  @Bean("testModelMapper")
-  public ModelMapper modelMapper() {
-    return new ModelMapper();
+  @Bean
+  public UserMapper userMapper() {
+    return new UserMapperImpl();
   }
 }
@@ -52,4 +52,17 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
     return new ResponseEntity<>(new ExceptionResponse(exception.getMessage(), LocalDateTime.now()),
         HttpStatus.NOT_FOUND);
   }
+
+  /**
+   * Handle remote call timeout exception response entity.
+   *
+   * @param exception the exception
+   * @return the response entity
+   */
+  @ExceptionHandler(RemoteCallTimeoutException.class)
+  public ResponseEntity<?> handleRemoteCallTimeoutException(RemoteCallTimeoutException exception) {
+    logger.debug("Handling {}", RemoteCallTimeoutException.class);
+    return new ResponseEntity<>(new ExceptionResponse(exception.getMessage(), LocalDateTime.now()),
+        HttpStatus.GATEWAY_TIMEOUT);
+  }
 }
@@ -0,0 +1,27 @@
+package com.srecko.reddit.votes.exception;
+
+import java.time.Duration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The type Remote call timeout exception.
+ *
+ * @author Srecko Nikolic
+ */
+public class RemoteCallTimeoutException extends RuntimeException {
+
+  private static final Logger logger = LogManager.getLogger(RemoteCallTimeoutException.class);
+
+  /**
+   * Instantiates a new Remote call timeout exception.
+   *
+   * @param operation the operation
+   * @param timeout   the timeout
+   */
+  public RemoteCallTimeoutException(String operation, Duration timeout) {
+    super("Remote calls of " + operation + " did not complete within " + timeout.toMillis()
+        + " ms.");
+    logger.error("Remote calls of {} timed out after {}", operation, timeout);
+  }
+}
@@ -0,0 +1,32 @@
+package com.srecko.reddit.votes.mapper;
+
+import com.srecko.reddit.votes.dto.VoteCommentDto;
+import com.srecko.reddit.votes.dto.VotePostDto;
+import com.srecko.reddit.votes.entity.VoteComment;
+import com.srecko.reddit.votes.entity.VotePost;
+import org.mapstruct.Mapper;
+
+/**
+ * The interface Vote mapper.
+ *
+ * @author Srecko Nikolic
+ */
+@Mapper(componentModel = "spring")
+public interface VoteMapper {
+
+  /**
+   * Maps a vote post to a vote post dto.
+   *
+   * @param votePost the vote post
+   * @return the vote post dto
+   */
+  VotePostDto toDto(VotePost votePost);
+
+  /**
+   * Maps a vote comment to a vote comment dto.
+   *
+   * @param voteComment the vote comment
+   * @return the vote comment dto
+   */
+  VoteCommentDto toDto(VoteComment voteComment);
+}
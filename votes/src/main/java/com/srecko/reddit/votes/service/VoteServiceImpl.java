@@ -7,15 +7,17 @@ import com.srecko.reddit.votes.dto.VotePostRequest;
 import com.srecko.reddit.votes.entity.Vote;
 import com.srecko.reddit.votes.entity.VoteComment;
 import com.srecko.reddit.votes.entity.VotePost;
+import com.srecko.reddit.votes.entity.VoteType;
 import com.srecko.reddit.votes.exception.VoteNotFoundException;
+import com.srecko.reddit.votes.mapper.VoteMapper;
 import com.srecko.reddit.votes.repository.VoteRepository;
 import com.srecko.reddit.votes.service.client.CommentsFeignClient;
+import com.srecko.reddit.votes.service.client.ParallelCalls;
 import com.srecko.reddit.votes.service.client.PostsFeignClient;
-import com.srecko.reddit.votes.service.client.UsersFeignClient;
+import com.srecko.reddit.votes.service.client.UserIdResolver;
 import java.util.Optional;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -30,10 +32,11 @@ import org.springframework.transaction.annotation.Transactional;
 public class VoteServiceImpl implements VoteService {
 
   private final VoteRepository voteRepository;
-  private final UsersFeignClient usersFeignClient;
+  private final UserIdResolver userIdResolver;
   private final PostsFeignClient postsFeignClient;
   private final CommentsFeignClient commentsFeignClient;
-  private final ModelMapper modelMapper;
+  private final ParallelCalls parallelCalls;
+  private final VoteMapper voteMapper;
 
   private static final Logger logger = LogManager.getLogger(VoteServiceImpl.class);
 
@@ -41,22 +44,25 @@ public class VoteServiceImpl implements VoteService {
    * Instantiates a new Vote service.
    *
    * @param voteRepository      the vote repository
-   * @param usersFeignClient    the users feign client
+   * @param userIdResolver      the user id resolver
    * @param postsFeignClient    the posts feign client
    * @param commentsFeignClient the comments feign client
-   * @param modelMapper         the model mapper
+   * @param parallelCalls       the parallel calls
+   * @param voteMapper          the vote mapper
    */
   @Autowired
   public VoteServiceImpl(VoteRepository voteRepository,
-      UsersFeignClient usersFeignClient,
+      UserIdResolver userIdResolver,
       PostsFeignClient postsFeignClient,
       CommentsFeignClient commentsFeignClient,
-      ModelMapper modelMapper) {
+      ParallelCalls parallelCalls,
+      VoteMapper voteMapper) {
     this.voteRepository = voteRepository;
-    this.usersFeignClient = usersFeignClient;
+    this.userIdResolver = userIdResolver;
     this.postsFeignClient = postsFeignClient;
     this.commentsFeignClient = commentsFeignClient;
-    this.modelMapper = modelMapper;
+    this.parallelCalls = parallelCalls;
+    this.voteMapper = voteMapper;
   }
 
   @Override
@@ -64,12 +70,14 @@ public class VoteServiceImpl implements VoteService {
     logger.info("Saving vote for post: {}", voteDto.getPostId());
     /*UserMediator userMediator = (UserMediator) SecurityContextHolder.getContext()
         .getAuthentication().getPrincipal();
-    Long userId = usersFeignClient.getUserId(userMediator.getUsername());*/
-    Long userId = usersFeignClient.getUserId("username");
-    postsFeignClient.checkIfPostExists(voteDto.getPostId());
-    Vote vote = new VotePost(userId, voteDto.getType(), voteDto.getPostId());
+    Long userId = userIdResolver.getUserId(userMediator.getUsername());*/
+    Long userId = parallelCalls.join("savePostVote",
+        () -> userIdResolver.getUserId("username"),
+        () -> postsFeignClient.checkIfPostExists(voteDto.getPostId()));
+    VotePost vote = new VotePost(userId, voteDto.getType(), voteDto.getPostId());
     voteRepository.save(vote);
-    return modelMapper.map(vote, VotePostDto.class);
+    updatePostVotes(voteDto.getPostId(), voteDto.getType(), false);
+    return voteMapper.toDto(vote);
   }
 
   @Override
@@ -77,12 +85,13 @@ public class VoteServiceImpl implements VoteService {
     logger.info("Saving vote for comment: {}", voteDto.getCommentId());
     /*UserMediator userMediator = (UserMediator) SecurityContextHolder.getContext()
         .getAuthentication().getPrincipal();
-    Long userId = usersFeignClient.getUserId(userMediator.getUsername());*/
-    Long userId = usersFeignClient.getUserId("username");
-    commentsFeignClient.checkIfCommentExists(voteDto.getCommentId());
-    Vote vote = new VoteComment(userId, voteDto.getType(), voteDto.getCommentId());
+    Long userId = userIdResolver.getUserId(userMediator.getUsername());*/
+    Long userId = parallelCalls.join("saveCommentVote",
+        () -> userIdResolver.getUserId("username"),
+        () -> commentsFeignClient.checkIfCommentExists(voteDto.getCommentId()));
+    VoteComment vote = new VoteComment(userId, voteDto.getType(), voteDto.getCommentId());
     voteRepository.save(vote);
-    return modelMapper.map(vote, VoteCommentDto.class);
+    return voteMapper.toDto(vote);
   }
 
   @Override
@@ -93,7 +102,8 @@ public class VoteServiceImpl implements VoteService {
       VotePost vote = (VotePost) voteOptional.get();
       postsFeignClient.checkIfPostExists(vote.getPostId());
       voteRepository.delete(vote);
-      return modelMapper.map(vote, VotePostDto.class);
+      updatePostVotes(vote.getPostId(), vote.getType(), true);
+      return voteMapper.toDto(vote);
     } else {
       throw new VoteNotFoundException(id);
     }
@@ -107,9 +117,17 @@ public class VoteServiceImpl implements VoteService {
       VoteComment vote = (VoteComment) voteOptional.get();
       commentsFeignClient.checkIfCommentExists(vote.getCommentId());
       voteRepository.delete(vote);
-      return modelMapper.map(vote, VoteCommentDto.class);
+      return voteMapper.toDto(vote);
     } else {
       throw new VoteNotFoundException(voteId);
     }
   }
+
+  private void updatePostVotes(Long postId, VoteType type, boolean revert) {
+    if ((type == VoteType.UPVOTE) != revert) {
+      postsFeignClient.increaseVotes(postId);
+    } else {
+      postsFeignClient.decreaseVotes(postId);
+    }
+  }
 }
@@ -1,6 +1,7 @@
 package com.srecko.reddit.votes.service.client;
 
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
@@ -19,4 +20,20 @@ public interface PostsFeignClient {
   @RequestMapping(method = RequestMethod.HEAD, value = "/api/posts/checkIfExists",
       consumes = "application/json")
   void checkIfPostExists(@RequestBody Long postId);
+
+  /**
+   * Increase votes.
+   *
+   * @param postId the post id
+   */
+  @RequestMapping(method = RequestMethod.HEAD, value = "/api/posts/increaseVotes/{postId}")
+  void increaseVotes(@PathVariable("postId") Long postId);
+
+  /**
+   * Decrease votes.
+   *
+   * @param postId the post id
+   */
+  @RequestMapping(method = RequestMethod.HEAD, value = "/api/posts/decreaseVotes/{postId}")
+  void decreaseVotes(@PathVariable("postId") Long postId);
 }
@@ -4,6 +4,7 @@ import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.verify;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -95,6 +96,7 @@ class VoteControllerTest {
         .andExpect(jsonPath("$.postId", is(vote.getPostId().intValue())))
         .andExpect(jsonPath("$.userId", is(vote.getUserId().intValue())))
         .andExpect(jsonPath("$.type", is(VoteType.UPVOTE.toString())));
+    verify(postsFeignClient).increaseVotes(postId);
   }
 
   @Test
@@ -168,6 +170,7 @@ class VoteControllerTest {
         .andExpect(status().isOk())
         .andExpect(content().contentType(MediaTypes.HAL_JSON))
         .andExpect(jsonPath("$.id", is(vote.getId().intValue())));
+    verify(postsFeignClient).decreaseVotes(postId);
   }
 
   @Test
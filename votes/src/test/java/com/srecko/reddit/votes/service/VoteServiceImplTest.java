@@ -14,23 +14,25 @@ import com.srecko.reddit.votes.entity.VoteComment;
 import com.srecko.reddit.votes.entity.VotePost;
 import com.srecko.reddit.votes.entity.VoteType;
 import com.srecko.reddit.votes.exception.VoteNotFoundException;
+import com.srecko.reddit.votes.mapper.VoteMapper;
 import com.srecko.reddit.votes.repository.VoteRepository;
 import com.srecko.reddit.votes.service.client.CommentsFeignClient;
+import com.srecko.reddit.votes.service.client.ParallelCalls;
 import com.srecko.reddit.votes.service.client.PostsFeignClient;
-import com.srecko.reddit.votes.service.client.UsersFeignClient;
+import com.srecko.reddit.votes.service.client.UserIdResolver;
 import com.srecko.reddit.votes.service.utils.TestConfig;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
-@ContextConfiguration(classes = {VoteServiceImpl.class, TestConfig.class})
+@ContextConfiguration(classes = {VoteServiceImpl.class, ParallelCalls.class,
+    TestConfig.class})
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
 class VoteServiceImplTest {
@@ -39,7 +41,7 @@ class VoteServiceImplTest {
   private VoteRepository voteRepository;
 
   @MockBean
-  private UsersFeignClient usersFeignClient;
+  private UserIdResolver userIdResolver;
 
   @MockBean
   private PostsFeignClient postsFeignClient;
@@ -56,7 +58,8 @@ class VoteServiceImplTest {
 
   private Long commentId;
 
-  private final ModelMapper modelMapper = new ModelMapper();
+  @Autowired
+  private VoteMapper voteMapper;
 
   @BeforeEach
   void setUp() {